@@ -28,6 +28,8 @@ import org.libertaria.world.services.chat.msg.ChatRefuseMsg;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 import iop.org.iop_sdk_android.core.utils.EmptyListener;
 import iop.org.iop_sdk_android.core.wrappers.IntentWrapperAndroid;
 import world.libertaria.shared.library.services.chat.ChatIntentsConstants;
@@ -160,7 +162,13 @@ public class ChatModuleImp extends AbstractModule implements ChatModule,ChatMsgL
     public void onMsgReceived(String remotePubKey, BaseMsg msg) {
         IntentMessage intent = new IntentWrapperAndroid(ChatIntentsConstants.ACTION_ON_CHAT_MSG_RECEIVED);
         intent.put(EXTRA_INTENT_REMOTE_PROFILE, remotePubKey);
-        intent.put(EXTRA_INTENT_CHAT_MSG, msg);
+        try {
+            // the messages are not serializable, they go encoded with AppMsgCodec
+            intent.put(EXTRA_INTENT_CHAT_MSG, msg.buildMessageWrapper().encode());
+        } catch (IOException e) {
+            logger.error("Chat msg not encoded, type: " + msg.getType(), e);
+            return;
+        }
         broadcastEvent(intent);
     }
 
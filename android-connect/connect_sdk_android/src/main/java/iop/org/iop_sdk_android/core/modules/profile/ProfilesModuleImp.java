@@ -420,6 +420,16 @@ public class ProfilesModuleImp extends AbstractModule implements ProfilesModule,
         ioPConnect.searchAndGetProfile(localProfilePubKey, remoteProfPubKey, getInfo, profileFuture);
     }
 
+    @Override
+    public void getProfileImage(String localProfilePubKey, String profPubKey, int priority, ProfSerMsgListener<byte[]> listener) {
+        ioPConnect.loadProfileImage(localProfilePubKey, profPubKey, priority, listener);
+    }
+
+    @Override
+    public void cancelProfileImage(String localProfilePubKey, String profPubKey) {
+        ioPConnect.cancelProfileImage(profPubKey);
+    }
+
     @Override
     public void restoreProfileFrom(File file, String password) throws IOException, IncorrectPasswordException {
         logger.info("Restoring profile");
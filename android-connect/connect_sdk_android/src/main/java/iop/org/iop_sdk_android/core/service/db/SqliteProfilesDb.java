@@ -28,7 +28,7 @@ import java.util.Set;
 public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManager {
 
 
-    public static final int DATABASE_VERSION = 12;
+    public static final int DATABASE_VERSION = 13;
 
     public static final String DATABASE_NAME = "profiles";
     public static final String CONTACTS_TABLE_NAME = "contacts";
@@ -47,6 +47,7 @@ public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManage
     public static final String CONTACTS_COLUMN_DEVICE_PROFILE_PUB_KEY = "local_pub_key";
     public static final String CONTACTS_COLUMN_APP_SERVICES = "app_services";
     public static final String CONTACTS_COLUMN_HOME_HOST = "home_host";
+    public static final String CONTACTS_COLUMN_THUMBNAIL_IMG = "thumb";
 
 
     public static final int CONTACTS_POS_COLUMN_ID = 0;
@@ -63,6 +64,25 @@ public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManage
     public static final int CONTACTS_POS_COLUMN_DEVICE_PROFILE_PUB_KEY = 11;
     public static final int CONTACTS_POS_COLUMN_APP_SERVICES = 12;
     public static final int CONTACTS_POS_COLUMN_HOME_HOST = 13;
+    public static final int CONTACTS_POS_COLUMN_THUMBNAIL_IMG = 14;
+
+    /** Columns of the listings, the full image only for the contacts saved without thumbnail */
+    private static final String CONTACTS_LIST_COLUMNS =
+            CONTACTS_COLUMN_ID + ", " +
+            CONTACTS_COLUMN_NAME + ", " +
+            CONTACTS_COLUMN_VERSION + ", " +
+            CONTACTS_COLUMN_TYPE + ", " +
+            "CASE WHEN " + CONTACTS_COLUMN_THUMBNAIL_IMG + " IS NULL THEN " + CONTACTS_COLUMN_IMG + " ELSE NULL END, " +
+            CONTACTS_COLUMN_LAT + ", " +
+            CONTACTS_COLUMN_LON + ", " +
+            CONTACTS_COLUMN_EXTRA_DATA + ", " +
+            CONTACTS_COLUMN_PUB_KEY + ", " +
+            CONTACTS_COLUMN_UPDATE_TIMESTAMP + ", " +
+            CONTACTS_COLUMN_PAIR + ", " +
+            CONTACTS_COLUMN_DEVICE_PROFILE_PUB_KEY + ", " +
+            CONTACTS_COLUMN_APP_SERVICES + ", " +
+            CONTACTS_COLUMN_HOME_HOST + ", " +
+            CONTACTS_COLUMN_THUMBNAIL_IMG;
 
     public SqliteProfilesDb(Context context) {
         super(context, DATABASE_NAME , null, DATABASE_VERSION);
@@ -86,13 +106,19 @@ public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManage
                         CONTACTS_COLUMN_PAIR + " TEXT ,"+
                         CONTACTS_COLUMN_DEVICE_PROFILE_PUB_KEY + " TEXT ,"+
                         CONTACTS_COLUMN_APP_SERVICES + " TEXT ,"+
-                        CONTACTS_COLUMN_HOME_HOST + " TEXT "
+                        CONTACTS_COLUMN_HOME_HOST + " TEXT ,"+
+                        CONTACTS_COLUMN_THUMBNAIL_IMG + " BLOB "
                 +")"
         );
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion == 12) {
+            // the contacts are kept, their thumbnails come with the next update
+            db.execSQL("ALTER TABLE " + CONTACTS_TABLE_NAME + " ADD COLUMN " + CONTACTS_COLUMN_THUMBNAIL_IMG + " BLOB");
+            return;
+        }
         db.execSQL("DROP TABLE IF EXISTS contacts");
         onCreate(db);
     }
@@ -117,6 +143,9 @@ public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManage
         contentValues.put(CONTACTS_COLUMN_HOME_HOST,profile.getHomeHost());
         if (profile.getImg()!=null && profile.getImg().length>0)
             contentValues.put(CONTACTS_COLUMN_IMG,profile.getImg());
+        // a profile fetched with the thumbnail only keeps the full image stored before
+        if (profile.getThumbnailImg()!=null && profile.getThumbnailImg().length>0)
+            contentValues.put(CONTACTS_COLUMN_THUMBNAIL_IMG, profile.getThumbnailImg());
         contentValues.put(CONTACTS_COLUMN_LAT,profile.getLatitude());
         contentValues.put(CONTACTS_COLUMN_LON,profile.getLongitude());
         return contentValues;
@@ -134,6 +163,7 @@ public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManage
             Set<String> appServices = convertToSet(cursor.getString(CONTACTS_POS_COLUMN_APP_SERVICES));
             String homeHost = cursor.getString(CONTACTS_POS_COLUMN_HOME_HOST);
             byte[] img = cursor.getBlob(CONTACTS_POS_COLUMN_IMG);
+            byte[] thumbnail = cursor.getBlob(CONTACTS_POS_COLUMN_THUMBNAIL_IMG);
             int lat = cursor.getInt(CONTACTS_POS_COLUMN_LAT);
             int lon = cursor.getInt(CONTACTS_POS_COLUMN_LON);
             byte[] version = cursor.getBlob(CONTACTS_POS_COLUMN_VERSION);
@@ -149,6 +179,7 @@ public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManage
             profile.addAllAppServices(appServices);
             profile.setHomeHost(homeHost);
             profile.setImg(img);
+            profile.setThumbnailImg(thumbnail);
             profile.setLongitude(lon);
             profile.setLatitude(lat);
             return new ProfileInformationWrapper(localProfilePubKey, profile);
@@ -224,7 +255,7 @@ public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManage
 
         //hp = new HashMap();
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor res =  db.rawQuery( "select * from "+CONTACTS_TABLE_NAME, null );
+        Cursor res =  db.rawQuery( "select "+CONTACTS_LIST_COLUMNS+" from "+CONTACTS_TABLE_NAME, null );
         if(res.moveToFirst()) {
             do {
                 list.add(buildFrom(res).profileInformation);
@@ -348,7 +379,7 @@ public class SqliteProfilesDb extends SQLiteOpenHelper implements ProfilesManage
         ArrayList<ProfileInformation> list = new ArrayList<>();
         //hp = new HashMap();
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor res =  db.rawQuery( "select * from "+CONTACTS_TABLE_NAME
+        Cursor res =  db.rawQuery( "select "+CONTACTS_LIST_COLUMNS+" from "+CONTACTS_TABLE_NAME
                 +" where "+CONTACTS_COLUMN_DEVICE_PROFILE_PUB_KEY+" = '" +localProfileOwnerOfContacts+"' " +
                 "AND ("+CONTACTS_COLUMN_PAIR+"='"+ ProfileInformationImp.PairStatus.PAIRED.name()+
                 "' OR "+CONTACTS_COLUMN_PAIR+"='"+ ProfileInformationImp.PairStatus.DISCONNECTED.name()+"')", null );
@@ -1,8 +1,13 @@
 package iop.org.iop_sdk_android.core.service.db.message_queue;
 
 import org.libertaria.world.profile_server.engine.MessageQueueManager;
+import org.libertaria.world.profile_server.engine.app_services.AppMsgCodec;
 import org.libertaria.world.profile_server.engine.app_services.BaseMsg;
+import org.libertaria.world.profile_server.engine.app_services.MessageWrapper;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Date;
 import java.util.UUID;
 
@@ -17,7 +22,8 @@ class MessageImplementation implements MessageQueueManager.Message {
     private String remoteProfile;
     private boolean tryUpdateRemoteServices;
     private UUID messageId;
-    private BaseMsg baseMsg;
+    /** Not serializable, the events carry it encoded with AppMsgCodec */
+    private transient BaseMsg baseMsg;
     private Integer resendingAttempts;
     private Date timestamp;
 
@@ -32,16 +38,16 @@ class MessageImplementation implements MessageQueueManager.Message {
         this.baseMsg = baseMsg;
     }
 
-    public MessageImplementation(String serviceName, String localProfilePubKey, String remoteProfile, boolean tryUpdateRemoteServices, UUID messageId, byte[] msg, String msgType, Integer resendingAttempts, Date timestamp) {
+    /**
+     * @throws IOException if the stored message can't be decoded
+     */
+    public MessageImplementation(String serviceName, String localProfilePubKey, String remoteProfile, boolean tryUpdateRemoteServices, UUID messageId, byte[] msg, String msgType, Integer resendingAttempts, Date timestamp) throws IOException {
         this.serviceName = serviceName;
         this.localProfilePubKey = localProfilePubKey;
         this.remoteProfile = remoteProfile;
         this.tryUpdateRemoteServices = tryUpdateRemoteServices;
         this.messageId = messageId;
-        try {
-            setMessage(msg, msgType);
-        } catch (Exception e) {
-        }
+        setMessage(msg, msgType);
         this.resendingAttempts = resendingAttempts;
         this.timestamp = timestamp;
     }
@@ -133,15 +139,20 @@ class MessageImplementation implements MessageQueueManager.Message {
         return baseMsg;
     }
 
-    //I really tried to generify this method but it's impossible :(
-    public void setMessage(byte[] bytes, final String messageType) throws Exception {
-        BaseMsg baseMsg = new BaseMsg() {
-            @Override
-            public String getType() {
-                return messageType;
-            }
-        };
-        this.baseMsg = (BaseMsg) baseMsg.decode(bytes);
+    public void setMessage(byte[] bytes, final String messageType) throws IOException {
+        if (bytes == null || messageType == null) throw new IOException("Message without content, id: " + messageId);
+        this.baseMsg = AppMsgCodec.decodeMsg(messageType, bytes);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(baseMsg != null ? baseMsg.buildMessageWrapper().encode() : null);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        byte[] data = (byte[]) in.readObject();
+        baseMsg = (data != null) ? MessageWrapper.decode(data).getMsg() : null;
     }
 
     @Override
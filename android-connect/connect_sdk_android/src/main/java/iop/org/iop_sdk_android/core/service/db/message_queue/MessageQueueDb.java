@@ -13,6 +13,7 @@ import org.libertaria.world.profile_server.engine.app_services.BaseMsg;
 import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
 import org.spongycastle.util.encoders.Base64;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -29,7 +30,8 @@ import iop.org.iop_sdk_android.core.wrappers.IntentWrapperAndroid;
 public class MessageQueueDb extends SQLiteOpenHelper implements MessageQueueManager {
 
 
-    public static final int DATABASE_VERSION = 12;
+    /** 13: the messages are stored with AppMsgCodec, the java serialized ones of before are dropped on the upgrade */
+    public static final int DATABASE_VERSION = 13;
 
     public static final String DATABASE_NAME = "message_queue";
 
@@ -172,15 +174,22 @@ public class MessageQueueDb extends SQLiteOpenHelper implements MessageQueueMana
             //hp = new HashMap();
             SQLiteDatabase db = this.getReadableDatabase();
             Cursor res = db.rawQuery("SELECT * FROM " + MESSAGES_TABLE_NAME + " ORDER BY " + MESSAGES_COLUMN_TIMESTAMP, null);
+            List<String> undecodable = new ArrayList<>();
             if (res.moveToFirst()) {
                 do {
                     try {
                         messageQueue.add(buildFrom(res));
                     } catch (Exception e) {
                         e.printStackTrace(); //Let's ignore only this record...
+                        // it can't be sent, it would be read again on every load
+                        undecodable.add(res.getString(MESSAGES_POS_COLUMN_ID));
                     }
                 } while (res.moveToNext());
             }
+            res.close();
+            for (String messageId : undecodable) {
+                db.delete(MESSAGES_TABLE_NAME, MESSAGES_COLUMN_ID + " = ?", new String[]{messageId});
+            }
         }
         //We always resort the queue before returning it.
         Collections.sort(messageQueue, DEFAULT_COMPARATOR);
@@ -220,12 +229,13 @@ public class MessageQueueDb extends SQLiteOpenHelper implements MessageQueueMana
         return contentValues;
     }
 
-    private Message buildFrom(Cursor cursor) {
+    private Message buildFrom(Cursor cursor) throws IOException {
         UUID messageId = UUID.fromString(cursor.getString(MESSAGES_POS_COLUMN_ID));
         String localProfile = cursor.getString(MESSAGES_POS_COLUMN_LOCAL_PROFILE);
         String remoteProfile = cursor.getString(MESSAGES_POS_COLUMN_REMOTE_PROFILE);
         String serviceName = cursor.getString(MESSAGES_POS_COLUMN_SERVICE_NAME);
-        byte[] message = Base64.decode(cursor.getString(MESSAGES_POS_COLUMN_MSG));
+        String encoded = cursor.getString(MESSAGES_POS_COLUMN_MSG);
+        byte[] message = (encoded != null) ? Base64.decode(encoded) : null;
         String messageType = cursor.getString(MESSAGES_POS_COLUMN_MSG_TYPE);
         boolean trySendRemote = Boolean.valueOf(cursor.getString(MESSAGES_POS_COLUMN_TRY_SEND_REMOTE));
         Integer resendAttempts = cursor.getInt(MESSAGES_POS_COLUMN_RESEND_ATTEMPTS);
@@ -27,6 +27,7 @@ import com.google.protobuf.ByteString;
 import org.libertaria.world.communication.ClientCommunication;
 import org.libertaria.world.core.IoPConnect;
 import org.libertaria.world.core.IoPConnectContext;
+import org.libertaria.world.core.IoPScheduler;
 import org.libertaria.world.exceptions.CantStartException;
 import org.libertaria.world.global.DeviceLocation;
 import org.libertaria.world.global.GpsLocation;
@@ -121,6 +122,8 @@ public class PlatformServiceImp extends Service implements PlatformService, Devi
      * Context
      */
     private IoPConnectContext application;
+    /** Check-in retries on the shared scheduler */
+    private IoPScheduler.TaskGroup checkInRetries;
     /**
      * Main library
      */
@@ -238,6 +241,7 @@ public class PlatformServiceImp extends Service implements PlatformService, Devi
             if (isInitialized.compareAndSet(false, true)) {
                 localBroadcastManager = LocalBroadcastManager.getInstance(this);
                 application = (IoPConnectContext) getApplication();
+                checkInRetries = application.getScheduler().newGroup("check-in retries");
                 executor = Executors.newFixedThreadPool(3);
                 configurationsPreferences = new ProfileServerConfigurationsImp(this, getSharedPreferences(ProfileServerConfigurationsImp.PREFS_NAME, 0));
                 //KeyEd25519 keyEd25519 = (KeyEd25519) configurationsPreferences.getUserKeys();
@@ -393,6 +397,7 @@ public class PlatformServiceImp extends Service implements PlatformService, Devi
         clientCommunication.shutdown();
         core.clean();
         executor.shutdown();
+        checkInRetries.cancel();
         // this is because android bother with network operations on  main thread..
         new Thread(new Runnable() {
             @Override
@@ -469,7 +474,7 @@ public class PlatformServiceImp extends Service implements PlatformService, Devi
                                 moduleImp.onCheckInFail(profile, status, statusDetail);
                                 if (status == 400) {
                                     logger.info("Checking fail, detail " + statusDetail + ", trying to reconnect after 5 seconds");
-                                    Executors.newSingleThreadScheduledExecutor().schedule(new Runnable() {
+                                    checkInRetries.schedule(new Runnable() {
                                         @Override
                                         public void run() {
                                             check();
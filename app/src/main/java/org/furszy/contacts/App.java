@@ -16,6 +16,7 @@ import android.text.TextUtils;
 
 import org.furszy.contacts.ui.home.HomeActivity;
 import org.libertaria.world.core.IoPConnectContext;
+import org.libertaria.world.core.IoPScheduler;
 import org.libertaria.world.profile_server.ProfileServerConfigurations;
 import org.libertaria.world.services.EnabledServices;
 import org.libertaria.world.services.chat.ChatModule;
@@ -74,6 +75,8 @@ public class App extends ConnectApp implements IoPConnectContext {
     /** Pub key of the selected profile */
     private String selectedProfilePubKey;
     private AppConf appConf;
+    /** Timed work of the sdk, shared by every profile */
+    private IoPScheduler scheduler;
 
 
     public static App getInstance() {
@@ -175,6 +178,14 @@ public class App extends ConnectApp implements IoPConnectContext {
         return conf;
     }
 
+    @Override
+    public synchronized IoPScheduler getScheduler() {
+        if (scheduler == null) {
+            scheduler = new IoPScheduler("iop-sdk", IoPScheduler.DEFAULT_WORKERS);
+        }
+        return scheduler;
+    }
+
 
     public void onPairReceived(String requesteePubKey, final String name) {
         Intent intent = new Intent(BaseActivity.NOTIF_DIALOG_EVENT);
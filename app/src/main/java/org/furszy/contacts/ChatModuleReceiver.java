@@ -8,12 +8,15 @@ import android.content.Intent;
 
 import org.libertaria.world.profile_server.ProfileInformation;
 import org.libertaria.world.profile_server.engine.app_services.BaseMsg;
+import org.libertaria.world.profile_server.engine.app_services.MessageWrapper;
 import org.libertaria.world.services.chat.msg.ChatMsg;
 import org.libertaria.world.services.chat.msg.ChatMsgTypes;
 import org.furszy.contacts.ui.chat.WaitingChatActivity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 import static android.content.Intent.FLAG_ACTIVITY_NEW_TASK;
 import static world.libertaria.shared.library.services.chat.ChatIntentsConstants.ACTION_ON_CHAT_CONNECTED;
 import static world.libertaria.shared.library.services.chat.ChatIntentsConstants.ACTION_ON_CHAT_DISCONNECTED;
@@ -55,8 +58,12 @@ public class ChatModuleReceiver extends BroadcastReceiver{
             onChatDisconnected(remotePk,reason);
         }else if (action.equals(ACTION_ON_CHAT_MSG_RECEIVED)){
             String remotePk = intent.getStringExtra(EXTRA_INTENT_REMOTE_PROFILE);
-            BaseMsg baseMsg = (BaseMsg) intent.getSerializableExtra(EXTRA_INTENT_CHAT_MSG);
-            onMsgReceived(remotePk,baseMsg);
+            try {
+                BaseMsg baseMsg = MessageWrapper.decode(intent.getByteArrayExtra(EXTRA_INTENT_CHAT_MSG)).getMsg();
+                onMsgReceived(remotePk,baseMsg);
+            } catch (IOException e) {
+                log.error("chat msg not decoded: " + remotePk, e);
+            }
         }
     }
 
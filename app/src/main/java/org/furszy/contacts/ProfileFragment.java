@@ -204,8 +204,12 @@ public class ProfileFragment extends BaseAppFragment implements View.OnClickList
             profile = profilesModule.getProfile(selectedProfilePubKey);
             if (profile != null) {
                 txt_name.setText(profile.getName());
-                if (profile.getImg() != null && profile.getImg().length > 0 && profImgData == null) {
-                    imgProfile.setImageBitmap(BitmapFactory.decodeByteArray(profile.getImg(), 0, profile.getImg().length));
+                if (profImgData == null) {
+                    if (profile.getImg() != null && profile.getImg().length > 0) {
+                        imgProfile.setImageBitmap(BitmapFactory.decodeByteArray(profile.getImg(), 0, profile.getImg().length));
+                    } else if (profile.getThumbnailImg() != null && profile.getThumbnailImg().length > 0) {
+                        imgProfile.setImageBitmap(BitmapFactory.decodeByteArray(profile.getThumbnailImg(), 0, profile.getThumbnailImg().length));
+                    }
                 }
             }
         }
@@ -27,7 +27,9 @@ import org.libertaria.world.profile_server.CantSendMessageException;
 import org.libertaria.world.profile_server.ProfileInformation;
 import org.libertaria.world.profile_server.engine.futures.BaseMsgFuture;
 import org.libertaria.world.profile_server.engine.futures.MsgListenerFuture;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
 import org.libertaria.world.profile_server.imp.ProfileInformationImp;
+import org.libertaria.world.profiles_manager.ProfileImageLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,6 +80,8 @@ public class ProfileInformationActivity extends BaseActivity implements View.OnC
 
     private boolean isMyProfile;
     private boolean searchForProfile = false;
+    /** Remote profile whose full image was requested */
+    private String imageRequestedPubKey;
 
     private BroadcastReceiver receiver = new BroadcastReceiver() {
         @Override
@@ -293,10 +297,47 @@ public class ProfileInformationActivity extends BaseActivity implements View.OnC
             if (profileInformation.getImg() != null && profileInformation.getImg().length > 1) {
                 Bitmap bitmap = BitmapFactory.decodeByteArray(profileInformation.getImg(), 0, profileInformation.getImg().length);
                 imgProfile.setImageBitmap(bitmap);
+            } else {
+                // the contacts come with the thumbnail, the full image is loaded meanwhile
+                if (profileInformation.getThumbnailImg() != null && profileInformation.getThumbnailImg().length > 1) {
+                    Bitmap bitmap = BitmapFactory.decodeByteArray(profileInformation.getThumbnailImg(), 0, profileInformation.getThumbnailImg().length);
+                    imgProfile.setImageBitmap(bitmap);
+                }
+                if (!isMyProfile) {
+                    loadProfileImage(profileInformation.getHexPublicKey());
+                }
             }
         }
     }
 
+    private void loadProfileImage(final String pubKey) {
+        if (pubKey.equals(imageRequestedPubKey)) return;
+        imageRequestedPubKey = pubKey;
+        profilesModule.getProfileImage(selectedProfPubKey, pubKey, ProfileImageLoader.PRIORITY_HIGH, new ProfSerMsgListener<byte[]>() {
+            @Override
+            public void onMessageReceive(int messageId, final byte[] img) {
+                if (img == null || img.length <= 1) return;
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (profileInformation == null || !pubKey.equals(profileInformation.getHexPublicKey())) return;
+                        imgProfile.setImageBitmap(BitmapFactory.decodeByteArray(img, 0, img.length));
+                    }
+                });
+            }
+
+            @Override
+            public void onMsgFail(int messageId, int statusValue, String details) {
+                logger.info("Profile image load fail, detail: " + details);
+            }
+
+            @Override
+            public String getMessageName() {
+                return "getProfileImage";
+            }
+        });
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -360,6 +401,10 @@ public class ProfileInformationActivity extends BaseActivity implements View.OnC
     @Override
     protected void onStop() {
         super.onStop();
+        if (imageRequestedPubKey != null) {
+            profilesModule.cancelProfileImage(selectedProfPubKey, imageRequestedPubKey);
+            imageRequestedPubKey = null;
+        }
         if (executor != null) {
             executor.shutdownNow();
             executor = null;
@@ -18,6 +18,8 @@ import org.libertaria.world.profile_server.ProfileInformation;
 import org.libertaria.world.profile_server.client.AppServiceCallNotAvailableException;
 import org.libertaria.world.profile_server.engine.futures.BaseMsgFuture;
 import org.libertaria.world.profile_server.engine.futures.MsgListenerFuture;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.libertaria.world.profiles_manager.ProfileImageLoader;
 import org.furszy.contacts.App;
 import org.furszy.contacts.BaseActivity;
 import org.furszy.contacts.R;
@@ -53,6 +55,7 @@ public class WaitingChatActivity extends BaseActivity implements View.OnClickLis
     private ProfileInformation profileInformation;
     private String remotePk;
     private boolean isCalling;
+    private boolean imageRequested;
     private ExecutorService executors;
 
     private ScheduledExecutorService scheduledCallTimeout;
@@ -167,9 +170,16 @@ public class WaitingChatActivity extends BaseActivity implements View.OnClickLis
 
         profileInformation = profilesModule.getKnownProfile(selectedProfPubKey,remotePk);
         txt_name.setText(profileInformation.getName());
-        if (profileInformation.getImg()!=null){
+        if (profileInformation.getImg()!=null && profileInformation.getImg().length>0){
             Bitmap bitmap = BitmapFactory.decodeByteArray(profileInformation.getImg(),0,profileInformation.getImg().length);
             img_profile.setImageBitmap(bitmap);
+        }else {
+            // the contacts come with the thumbnail, the full image is loaded meanwhile
+            if (profileInformation.getThumbnailImg()!=null && profileInformation.getThumbnailImg().length>0){
+                Bitmap bitmap = BitmapFactory.decodeByteArray(profileInformation.getThumbnailImg(),0,profileInformation.getThumbnailImg().length);
+                img_profile.setImageBitmap(bitmap);
+            }
+            loadProfileImage();
         }
         if(isCalling){
             txt_title.setText("Waiting for "+profileInformation.getName()+" response...");
@@ -178,10 +188,41 @@ public class WaitingChatActivity extends BaseActivity implements View.OnClickLis
         }
     }
 
+    private void loadProfileImage() {
+        if (imageRequested) return;
+        imageRequested = true;
+        profilesModule.getProfileImage(selectedProfPubKey, remotePk, ProfileImageLoader.PRIORITY_HIGH, new ProfSerMsgListener<byte[]>() {
+            @Override
+            public void onMessageReceive(int messageId, final byte[] img) {
+                if (img == null || img.length == 0) return;
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        img_profile.setImageBitmap(BitmapFactory.decodeByteArray(img, 0, img.length));
+                    }
+                });
+            }
+
+            @Override
+            public void onMsgFail(int messageId, int statusValue, String details) {
+                Log.e("WaitingChat", "Profile image load fail, detail: " + details);
+            }
+
+            @Override
+            public String getMessageName() {
+                return "getProfileImage";
+            }
+        });
+    }
+
     @Override
     protected void onStop() {
         super.onStop();
         localBroadcastManager.unregisterReceiver(chatReceiver);
+        if (imageRequested) {
+            profilesModule.cancelProfileImage(selectedProfPubKey, remotePk);
+            imageRequested = false;
+        }
         if (executors!=null){
             executors.shutdownNow();
             executors = null;
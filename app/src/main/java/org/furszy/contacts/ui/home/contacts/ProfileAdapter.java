@@ -37,7 +37,9 @@ public class ProfileAdapter extends BaseAdapter<ProfileInformation, ProfileHolde
     @Override
     protected void bindHolder(final ProfileHolder holder, final ProfileInformation data, int position) {
         holder.txt_name.setText(data.getName());
-        if (data.getImg()!=null && data.getImg().length>1)
-            holder.img.setImageBitmap(BitmapFactory.decodeByteArray(data.getImg(),0,data.getImg().length));
+        // the listings only carry the thumbnails, the old contacts may have the full image
+        byte[] img = (data.getThumbnailImg()!=null && data.getThumbnailImg().length>1) ? data.getThumbnailImg() : data.getImg();
+        if (img!=null && img.length>1)
+            holder.img.setImageBitmap(BitmapFactory.decodeByteArray(img,0,img.length));
     }
 }
@@ -0,0 +1,304 @@
+package org.libertaria.world.connection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of connections shared by key.
+ *
+ * The callers of the same key get the same connection, the first one opens it and the concurrent ones wait for it
+ * instead of opening another. The connections are kept in least recently used order: an idle connection is closed
+ * after the ttl without use and the least recently used idle one is closed when the pool is full. A connection in use
+ * is never closed to make room, the pool goes over his size until one of them is idle. The use is the last acquire,
+ * release or activity of the connection. A connection that failed is replaced on the next use.
+ */
+public class ConnectionPool<K, C> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    /**
+     * Opens and inspects the pooled connections
+     */
+    public interface Connector<K, C> {
+
+        /**
+         * Create and start the connection, it could still be connecting when it returns
+         */
+        C open(K key) throws Exception;
+
+        /**
+         * @return false if the connection failed and has to be replaced
+         */
+        boolean isAlive(C connection);
+
+        /**
+         * @return true if nobody is using the connection and it can be closed
+         */
+        boolean isIdle(C connection);
+
+        /**
+         * @return millis of the last message sent or received by the connection, 0 if there was none
+         */
+        long getLastActivity(C connection);
+
+        void close(C connection);
+    }
+
+    private static class Entry<C> {
+
+        private final CountDownLatch opened = new CountDownLatch(1);
+        private volatile C connection;
+        private volatile Exception failure;
+        private volatile long lastUse;
+
+        Entry(long lastUse) {
+            this.lastUse = lastUse;
+        }
+    }
+
+    private final Connector<K, C> connector;
+    private final int maxSize;
+    private final long idleTtl;
+    /** Access ordered, the eldest is the least recently used */
+    private final LinkedHashMap<K, Entry<C>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize connections open at most
+     * @param idleTtl millis an idle connection is kept without use
+     */
+    public ConnectionPool(Connector<K, C> connector, int maxSize, long idleTtl) {
+        if (maxSize <= 0) throw new IllegalArgumentException("max size <= 0");
+        if (idleTtl <= 0) throw new IllegalArgumentException("idle ttl <= 0");
+        this.connector = connector;
+        this.maxSize = maxSize;
+        this.idleTtl = idleTtl;
+    }
+
+    /**
+     * Connection of the key, it's opened if there is none or if it failed
+     */
+    public C acquire(K key) throws Exception {
+        return acquire(key, System.currentTimeMillis());
+    }
+
+    C acquire(K key, long currentTime) throws Exception {
+        for (;;) {
+            Entry<C> entry;
+            boolean open = false;
+            List<C> evicted = new ArrayList<>();
+            synchronized (entries) {
+                entry = entries.get(key);
+                if (entry != null && entry.opened.getCount() == 0 && (entry.connection == null || !connector.isAlive(entry.connection))) {
+                    // failed, replace it
+                    entries.remove(key);
+                    if (entry.connection != null) {
+                        evicted.add(entry.connection);
+                        evictions.incrementAndGet();
+                    }
+                    entry = null;
+                }
+                if (entry == null) {
+                    entry = new Entry<>(currentTime);
+                    entries.put(key, entry);
+                    open = true;
+                    misses.incrementAndGet();
+                    if (entries.size() > maxSize && !evictLeastRecentlyUsed(evicted)) {
+                        LOG.warn("Connection pool over his size, the connections are in use, size: " + entries.size());
+                    }
+                } else {
+                    entry.lastUse = currentTime;
+                    hits.incrementAndGet();
+                }
+            }
+            close(evicted);
+            if (open) {
+                try {
+                    entry.connection = connector.open(key);
+                } catch (Exception e) {
+                    entry.failure = e;
+                    synchronized (entries) {
+                        if (entries.get(key) == entry) {
+                            entries.remove(key);
+                        }
+                    }
+                    throw e;
+                } finally {
+                    entry.opened.countDown();
+                }
+                return entry.connection;
+            }
+            // opened by a concurrent caller
+            entry.opened.await();
+            if (entry.failure != null) {
+                throw entry.failure;
+            }
+            if (entry.connection != null) {
+                return entry.connection;
+            }
+        }
+    }
+
+    /**
+     * The caller is done with the connection for now, the idle ttl starts again
+     */
+    public void release(K key, C connection) {
+        release(key, connection, System.currentTimeMillis());
+    }
+
+    void release(K key, C connection, long currentTime) {
+        synchronized (entries) {
+            Entry<C> entry = entries.get(key);
+            if (entry != null && entry.connection == connection) {
+                entry.lastUse = Math.max(entry.lastUse, currentTime);
+            }
+        }
+    }
+
+    /**
+     * Close the idle connections not used within the ttl, and the least recently used idle ones while the pool is over
+     * his size
+     *
+     * @return connections closed
+     */
+    public int evictExpired() {
+        return evictExpired(System.currentTimeMillis());
+    }
+
+    int evictExpired(long currentTime) {
+        List<C> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Entry<C>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry<C> entry = iterator.next();
+                C connection = entry.connection;
+                if (connection == null) {
+                    // opening
+                    continue;
+                }
+                if (!connector.isAlive(connection)
+                        || (lastUse(entry) + idleTtl <= currentTime && connector.isIdle(connection))) {
+                    iterator.remove();
+                    evicted.add(connection);
+                }
+            }
+            evictions.addAndGet(evicted.size());
+            while (entries.size() > maxSize && evictLeastRecentlyUsed(evicted)) {
+                // over the size while the connections were busy
+            }
+        }
+        close(evicted);
+        return evicted.size();
+    }
+
+    /**
+     * Close every connection
+     */
+    public void closeAll() {
+        List<C> connections = new ArrayList<>();
+        synchronized (entries) {
+            for (Entry<C> entry : entries.values()) {
+                if (entry.connection != null) {
+                    connections.add(entry.connection);
+                }
+            }
+            entries.clear();
+        }
+        close(connections);
+    }
+
+    /**
+     * @return the open connections, the ones connecting included
+     */
+    public List<C> getConnections() {
+        List<C> connections = new ArrayList<>();
+        synchronized (entries) {
+            for (Entry<C> entry : entries.values()) {
+                if (entry.connection != null) {
+                    connections.add(entry.connection);
+                }
+            }
+        }
+        return connections;
+    }
+
+    public int getLiveConnections() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return hits over acquisitions, 0 if there are none
+     */
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long total = hits + misses.get();
+        return (total == 0) ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Close the least recently used idle connection, the ones in use or opening are kept. Called holding the lock
+     *
+     * @return false if every connection is in use
+     */
+    private boolean evictLeastRecentlyUsed(List<C> evicted) {
+        K victim = null;
+        long victimLastUse = Long.MAX_VALUE;
+        for (Map.Entry<K, Entry<C>> mapEntry : entries.entrySet()) {
+            Entry<C> entry = mapEntry.getValue();
+            if (entry.connection == null || !connector.isIdle(entry.connection)) {
+                continue;
+            }
+            long lastUse = lastUse(entry);
+            if (lastUse < victimLastUse) {
+                victim = mapEntry.getKey();
+                victimLastUse = lastUse;
+            }
+        }
+        if (victim == null) return false;
+        evicted.add(entries.remove(victim).connection);
+        evictions.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Last acquire, release or activity of the connection
+     */
+    private long lastUse(Entry<C> entry) {
+        return Math.max(entry.lastUse, connector.getLastActivity(entry.connection));
+    }
+
+    private void close(List<C> connections) {
+        for (C connection : connections) {
+            try {
+                connector.close(connection);
+            } catch (Exception e) {
+                LOG.warn("Error closing pooled connection", e);
+            }
+        }
+    }
+}
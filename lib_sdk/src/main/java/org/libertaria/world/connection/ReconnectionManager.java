@@ -1,45 +1,89 @@
 package org.libertaria.world.connection;
 
+import org.libertaria.world.core.IoPScheduler;
 import org.libertaria.world.profile_server.engine.listeners.ConnectionListener;
 import org.libertaria.world.profile_server.model.Profile;
 import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Víctor Mars (https://github.com/Yayotron) on 24/8/2017.
+ *
+ * Reconnections of the lost connections, every endpoint (profile, host, port and call) has his own backoff.
+ *
+ * The wait grows with decorrelated jitter, a random time between the base and three times the previous wait up to the
+ * cap, so the devices that lost the same server don't come back together. A reconnection succeeded resets the endpoint.
+ * Every host has a circuit breaker: after a few failures in a row his endpoints wait until the breaker is half open,
+ * then one of them tries and the rest wait for his result. The reconnections don't run while the device is offline,
+ * once it's online again (or the network changed) the backoffs are reset and the pending ones are spread over a few
+ * seconds.
  */
-
 public final class ReconnectionManager {
 
-    private final static Integer MAXIMUM_RECONNECTION_ATTEMPTS = 3;
-    private final ScheduledExecutorService scheduledExecutorService;
+    private static final Logger logger = LoggerFactory.getLogger(ReconnectionManager.class);
 
-    private final List<ReconnectionParameters> parametersList;
+    /** First wait in millis */
+    static final long BASE_DELAY = TimeUnit.SECONDS.toMillis(5);
+    /** Longest wait in millis */
+    static final long MAX_DELAY = TimeUnit.MINUTES.toMillis(5);
+    /** Failures in a row that open the breaker of a host */
+    static final int BREAKER_THRESHOLD = 5;
+    /** First open time of a breaker in millis, it doubles every time that the trial fails */
+    static final long BREAKER_OPEN_TIME = TimeUnit.MINUTES.toMillis(1);
+    static final long BREAKER_MAX_OPEN_TIME = TimeUnit.MINUTES.toMillis(15);
+    /** Time in millis over which the pending reconnections are spread when the network comes back */
+    static final long NETWORK_RECOVERY_SPREAD = TimeUnit.SECONDS.toMillis(5);
+    /** Precision of the reconnection times */
+    private static final long TICK = TimeUnit.SECONDS.toMillis(1);
 
     /**
-     * Time to wait for the reconnection in seconds.
+     * Reconnections scheduled on the shared scheduler
      */
-    private Long currentWaitingTime;
+    private final IoPScheduler.TaskGroup reconnectionTasks;
+
+    private final DeviceNetworkConnection deviceNetworkConnection;
+
+    private final Random random;
 
-    private Integer currentReconnectionAttempts;
+    /** Guarded by this */
+    private final Map<ReconnectionParameters, Endpoint> endpoints = new HashMap<>();
+    private final Map<String, Breaker> breakers = new HashMap<>();
+    private boolean online = true;
+    private ConnectionType connectionType;
+    /** Tick task, scheduled while there are reconnections pending */
+    private IoPScheduler.Task tickTask;
 
-    public ReconnectionManager() {
-        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
-        parametersList = new ArrayList<>();
-        currentWaitingTime = 15L;
-        currentReconnectionAttempts = 0;
+    public ReconnectionManager(IoPScheduler.TaskGroup reconnectionTasks, DeviceNetworkConnection deviceNetworkConnection) {
+        this(reconnectionTasks, deviceNetworkConnection, new Random());
+    }
+
+    /**
+     * @param reconnectionTasks null to drive the ticks from outside
+     */
+    ReconnectionManager(IoPScheduler.TaskGroup reconnectionTasks, DeviceNetworkConnection deviceNetworkConnection, Random random) {
+        this.reconnectionTasks = reconnectionTasks;
+        this.deviceNetworkConnection = deviceNetworkConnection;
+        this.random = random;
+        if (deviceNetworkConnection != null) {
+            online = Boolean.TRUE.equals(deviceNetworkConnection.isConnected());
+            connectionType = deviceNetworkConnection.getConnectionType();
+        }
     }
 
     /**
      * Schedules a reconnection for a given time
      * without increasing any future waiting time.
      *
-     * @param waitingTime time to schedule the reconnection
+     * @param waitingTime time to schedule the reconnection in seconds
      */
     public void scheduleReconnection(Long waitingTime,
                                      Profile profile,
@@ -48,72 +92,311 @@ public final class ReconnectionManager {
                                      String callId,
                                      String tokenId,
                                      ConnectionListener connectionListener) {
-        checkParameterList(profile, psHost, portType,callId, tokenId, connectionListener);
-        executeScheduling(waitingTime);
+        ReconnectionParameters parameters = new ReconnectionParameters(profile, psHost, portType, callId, tokenId, connectionListener);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            endpoint(parameters).nextAttempt = now + TimeUnit.SECONDS.toMillis(waitingTime);
+        }
+        startTicks();
     }
 
     /**
-     * Normal reconnection scheduling.
+     * Normal reconnection scheduling, the connection failed and the endpoint waits his backoff.
+     *
+     * @return millis until the reconnection
      */
-    public void scheduleReconnection(Profile profile,
+    public long scheduleReconnection(Profile profile,
                                      String psHost,
                                      IopProfileServer.ServerRoleType portType,
                                      String callId,
                                      String tokenId,
                                      ConnectionListener connectionListener) {
-        checkTimeIncrease();
-        scheduleReconnection(
-                currentWaitingTime,
-                profile,
-                psHost,
-                portType,
-                callId,
-                tokenId,
-                connectionListener);
+        long now = System.currentTimeMillis();
+        onNetworkChanged(now);
+        long delay = scheduleReconnection(new ReconnectionParameters(profile, psHost, portType, callId, tokenId, connectionListener), now);
+        startTicks();
+        return delay;
     }
 
-    public Long getCurrentWaitingTime() {
-        return currentWaitingTime;
+    synchronized long scheduleReconnection(ReconnectionParameters parameters, long now) {
+        Endpoint endpoint = endpoint(parameters);
+        if (endpoint.nextAttempt >= 0) {
+            // already waiting, the same failure reported twice
+            return Math.max(endpoint.nextAttempt - now, 0);
+        }
+        // decorrelated jitter
+        long upper = Math.min(MAX_DELAY, endpoint.lastDelay * 3);
+        long delay = BASE_DELAY + (long) (random.nextDouble() * Math.max(upper - BASE_DELAY, 0));
+        endpoint.lastDelay = delay;
+        endpoint.attempts++;
+        long nextAttempt = now + delay;
+        Breaker breaker = breaker(parameters.psHost);
+        if (online) {
+            // offline the host is not to blame
+            breaker.onFailure(now);
+        }
+        if (breaker.openUntil > nextAttempt) {
+            // the trial goes first
+            nextAttempt = breaker.openUntil + (long) (random.nextDouble() * BASE_DELAY);
+        }
+        endpoint.nextAttempt = nextAttempt;
+        return nextAttempt - now;
     }
 
-    private void executeScheduling(Long waitingTime) {
-        ReconnectionHandler reconnectionHandler = new ReconnectionHandler();
-        scheduledExecutorService.schedule(reconnectionHandler, waitingTime, TimeUnit.SECONDS);
+    /**
+     * The endpoint is connected again, his backoff and the breaker of the host are reset
+     */
+    public void onReconnected(Profile profile,
+                              String psHost,
+                              IopProfileServer.ServerRoleType portType,
+                              String callId,
+                              String tokenId) {
+        onReconnected(new ReconnectionParameters(profile, psHost, portType, callId, tokenId, null), System.currentTimeMillis());
     }
 
-    private void checkTimeIncrease() {
-        if (++currentReconnectionAttempts >= MAXIMUM_RECONNECTION_ATTEMPTS) {
-            currentWaitingTime = currentWaitingTime * 2;
+    synchronized void onReconnected(ReconnectionParameters parameters, long now) {
+        endpoints.remove(parameters);
+        Breaker breaker = breakers.remove(parameters.psHost);
+        if (breaker != null && breaker.isOpen(now)) {
+            logger.info("Circuit closed for host: " + parameters.psHost);
+        }
+        if (breaker != null) {
+            // the endpoints waiting for the trial come back soon
+            for (Endpoint endpoint : endpoints.values()) {
+                if (endpoint.nextAttempt >= 0 && parameters.psHost != null && parameters.psHost.equals(endpoint.parameters.psHost)) {
+                    endpoint.lastDelay = BASE_DELAY;
+                    endpoint.nextAttempt = Math.min(endpoint.nextAttempt, now + (long) (random.nextDouble() * NETWORK_RECOVERY_SPREAD));
+                }
+            }
         }
     }
 
-    private void checkParameterList(Profile profile,
-                                    String psHost,
-                                    IopProfileServer.ServerRoleType portType,
-                                    String callId,
-                                    String tokenId,
-                                    ConnectionListener connectionListener) {
-        ReconnectionParameters reconnectionParameters = new ReconnectionParameters(profile, psHost, portType,callId, tokenId, connectionListener);
-        if (!parametersList.contains(reconnectionParameters)) {
-            parametersList.add(reconnectionParameters);
+    /**
+     * Check the network of the device, call it when the platform reports a connectivity change.
+     * It's also checked on every tick while there are reconnections pending.
+     */
+    public void onNetworkChanged() {
+        onNetworkChanged(System.currentTimeMillis());
+    }
+
+    synchronized void onNetworkChanged(long now) {
+        if (deviceNetworkConnection == null) return;
+        boolean connected = Boolean.TRUE.equals(deviceNetworkConnection.isConnected());
+        ConnectionType type = deviceNetworkConnection.getConnectionType();
+        boolean changed = connected && (!online || type != connectionType);
+        online = connected;
+        connectionType = type;
+        if (!changed) return;
+        logger.info("Network available: " + type + ", reconnecting " + endpoints.size() + " endpoints");
+        // a new path, the old failures don't count
+        breakers.clear();
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.lastDelay = BASE_DELAY;
+            endpoint.attempts = 0;
+            if (endpoint.nextAttempt >= 0) {
+                endpoint.nextAttempt = now + (long) (random.nextDouble() * NETWORK_RECOVERY_SPREAD);
+            }
         }
     }
 
-    private class ReconnectionHandler implements Runnable {
-        @Override
-        public void run() {
-            for (ReconnectionParameters parameters : parametersList) {
+    /**
+     * Fire the reconnections due
+     *
+     * @return reconnections fired
+     */
+    int tick(long now) {
+        onNetworkChanged(now);
+        List<ReconnectionParameters> due = new ArrayList<>();
+        synchronized (this) {
+            if (!online) {
+                // they wait for the network
+                return 0;
+            }
+            for (Endpoint endpoint : endpoints.values()) {
+                if (endpoint.nextAttempt < 0 || endpoint.nextAttempt > now) {
+                    continue;
+                }
+                Breaker breaker = breakers.get(endpoint.parameters.psHost);
+                if (breaker != null && !breaker.allowAttempt(now)) {
+                    // open or another endpoint of the host is trying
+                    endpoint.nextAttempt = Math.max(breaker.openUntil, now) + BASE_DELAY + (long) (random.nextDouble() * BASE_DELAY);
+                    continue;
+                }
+                endpoint.nextAttempt = -1;
+                due.add(endpoint.parameters);
+            }
+        }
+        for (ReconnectionParameters parameters : due) {
+            try {
                 parameters.connectionListener.onConnectionLost(parameters.profile,
                         parameters.psHost,
                         parameters.portType,
                         parameters.callId,
                         parameters.tokenId
                 );
+            } catch (Exception e) {
+                logger.error("Reconnection fail, host: " + parameters.psHost + ", port: " + parameters.portType, e);
             }
         }
+        return due.size();
+    }
+
+    /**
+     * @return millis until the reconnection of the endpoint, -1 if it's not waiting
+     */
+    synchronized long getWaitingTime(ReconnectionParameters parameters, long now) {
+        Endpoint endpoint = endpoints.get(parameters);
+        return (endpoint == null || endpoint.nextAttempt < 0) ? -1 : Math.max(endpoint.nextAttempt - now, 0);
+    }
+
+    /**
+     * @return reconnections waiting
+     */
+    public synchronized int getPendingCount() {
+        int count = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            if (endpoint.nextAttempt >= 0) count++;
+        }
+        return count;
+    }
+
+    public boolean isCircuitOpen(String psHost) {
+        return isCircuitOpen(psHost, System.currentTimeMillis());
     }
 
-    private class ReconnectionParameters {
+    synchronized boolean isCircuitOpen(String psHost, long now) {
+        Breaker breaker = breakers.get(psHost);
+        return breaker != null && breaker.isOpen(now);
+    }
+
+    /**
+     * Cancel the scheduled reconnections
+     */
+    public void stop() {
+        synchronized (this) {
+            endpoints.clear();
+            breakers.clear();
+            tickTask = null;
+        }
+        if (reconnectionTasks != null) {
+            reconnectionTasks.cancel();
+        }
+    }
+
+    private Endpoint endpoint(ReconnectionParameters parameters) {
+        Endpoint endpoint = endpoints.get(parameters);
+        if (endpoint == null) {
+            endpoint = new Endpoint(parameters);
+            endpoints.put(parameters, endpoint);
+        } else if (parameters.connectionListener != null) {
+            endpoint.parameters = parameters;
+        }
+        return endpoint;
+    }
+
+    private Breaker breaker(String psHost) {
+        Breaker breaker = breakers.get(psHost);
+        if (breaker == null) {
+            breaker = new Breaker(psHost);
+            breakers.put(psHost, breaker);
+        }
+        return breaker;
+    }
+
+    private void startTicks() {
+        if (reconnectionTasks == null) return;
+        synchronized (this) {
+            if (tickTask != null) return;
+            tickTask = reconnectionTasks.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    tick(System.currentTimeMillis());
+                    stopTicksIfIdle();
+                }
+            }, TICK, TICK, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void stopTicksIfIdle() {
+        if (tickTask == null) return;
+        Iterator<Endpoint> iterator = endpoints.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().nextAttempt >= 0) return;
+        }
+        tickTask.cancel();
+        tickTask = null;
+    }
+
+    /**
+     * Backoff of an endpoint
+     */
+    private static final class Endpoint {
+
+        private ReconnectionParameters parameters;
+        private int attempts;
+        private long lastDelay = BASE_DELAY;
+        /** -1 if it's not waiting */
+        private long nextAttempt = -1;
+
+        Endpoint(ReconnectionParameters parameters) {
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * Circuit breaker of a host: closed, open until the open time passes and then half open, with a single trial
+     */
+    private static final class Breaker {
+
+        private final String psHost;
+        private int failures;
+        private long openTime = BREAKER_OPEN_TIME;
+        private long openUntil;
+        /** Start of the trial running, -1 if there is none */
+        private long trialStart = -1;
+
+        Breaker(String psHost) {
+            this.psHost = psHost;
+        }
+
+        void onFailure(long now) {
+            failures++;
+            if (trialStart >= 0) {
+                // the trial failed
+                trialStart = -1;
+                openTime = Math.min(openTime * 2, BREAKER_MAX_OPEN_TIME);
+                open(now);
+            } else if (failures == BREAKER_THRESHOLD) {
+                open(now);
+            }
+        }
+
+        private void open(long now) {
+            openUntil = now + openTime;
+            logger.warn("Circuit open for host: " + psHost + " during " + openTime + " ms, failures: " + failures);
+        }
+
+        boolean isOpen(long now) {
+            return failures >= BREAKER_THRESHOLD && (now < openUntil || trialStart >= 0);
+        }
+
+        /**
+         * @return true if an endpoint of the host can try, the first one after the open time is the trial
+         */
+        boolean allowAttempt(long now) {
+            if (failures < BREAKER_THRESHOLD) return true;
+            if (now < openUntil) return false;
+            if (trialStart >= 0 && now - trialStart < openTime) {
+                // waiting for the trial
+                return false;
+            }
+            // half open, a trial without answer is replaced
+            trialStart = now;
+            return true;
+        }
+    }
+
+    static final class ReconnectionParameters {
         private final Profile profile;
         private final String psHost;
         private final IopProfileServer.ServerRoleType portType;
@@ -135,6 +418,10 @@ public final class ReconnectionManager {
             this.connectionListener = connectionListener;
         }
 
+        String getPsHost() {
+            return psHost;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -146,6 +433,7 @@ public final class ReconnectionManager {
                 return false;
             if (psHost != null ? !psHost.equals(that.psHost) : that.psHost != null) return false;
             if (portType != that.portType) return false;
+            if (callId != null ? !callId.equals(that.callId) : that.callId != null) return false;
             return tokenId != null ? tokenId.equals(that.tokenId) : that.tokenId == null;
 
         }
@@ -155,6 +443,7 @@ public final class ReconnectionManager {
             int result = profile != null ? profile.hashCode() : 0;
             result = 31 * result + (psHost != null ? psHost.hashCode() : 0);
             result = 31 * result + (portType != null ? portType.hashCode() : 0);
+            result = 31 * result + (callId != null ? callId.hashCode() : 0);
             result = 31 * result + (tokenId != null ? tokenId.hashCode() : 0);
             return result;
         }
@@ -5,7 +5,9 @@ import com.google.common.base.Strings;
 import com.google.common.io.CharStreams;
 import com.google.protobuf.ByteString;
 
+import org.furszy.client.IoManager;
 import org.libertaria.world.connection.DeviceNetworkConnection;
+import org.libertaria.world.connection.ConnectionPool;
 import org.libertaria.world.connection.ReconnectionManager;
 import org.libertaria.world.core.exceptions.ConnectionAlreadyInitializedException;
 import org.libertaria.world.core.exceptions.ProfileNotConectedException;
@@ -21,16 +23,22 @@ import org.libertaria.world.profile_server.CantSendMessageException;
 import org.libertaria.world.profile_server.ProfileInformation;
 import org.libertaria.world.profile_server.ProfileServerConfigurations;
 import org.libertaria.world.profile_server.SslContextFactory;
+import org.libertaria.world.profile_server.client.EndpointRacer;
+import org.libertaria.world.profile_server.client.ProfSerConnectionManager;
 import org.libertaria.world.profile_server.engine.MessageQueueManager;
 import org.libertaria.world.profile_server.engine.app_services.AppService;
 import org.libertaria.world.profile_server.engine.app_services.BaseMsg;
 import org.libertaria.world.profile_server.engine.app_services.CallProfileAppService;
+import org.libertaria.world.profile_server.engine.FederatedSearch;
+import org.libertaria.world.profile_server.engine.SearchProfilesQuery;
 import org.libertaria.world.profile_server.engine.futures.BaseMsgFuture;
 import org.libertaria.world.profile_server.engine.futures.ConnectionFuture;
 import org.libertaria.world.profile_server.engine.futures.MsgListenerFuture;
 import org.libertaria.world.profile_server.engine.listeners.ConnectionListener;
 import org.libertaria.world.profile_server.engine.listeners.EngineListener;
 import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerPartSearchListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerSearchListener;
 import org.libertaria.world.profile_server.imp.ProfileInformationImp;
 import org.libertaria.world.profile_server.model.KeyEd25519;
 import org.libertaria.world.profile_server.model.ProfServerData;
@@ -39,6 +47,8 @@ import org.libertaria.world.profile_server.protocol.IopProfileServer;
 import org.libertaria.world.profiles_manager.LocalProfilesDao;
 import org.libertaria.world.profiles_manager.PairingRequestsManager;
 import org.libertaria.world.profiles_manager.ProfileOuterClass;
+import org.libertaria.world.profiles_manager.ProfileImageLoader;
+import org.libertaria.world.profiles_manager.ProfileInformationCache;
 import org.libertaria.world.profiles_manager.ProfilesManager;
 import org.libertaria.world.services.EnabledServices;
 import org.slf4j.Logger;
@@ -51,14 +61,18 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by mati on 17/05/17.
@@ -73,15 +87,27 @@ public class IoPConnect implements ConnectionListener {
      * Reconnect time in seconds
      */
     private static final long RECONNECT_TIME = 15;
+    /**
+     * Remote profile server connections open at most
+     */
+    private static final int MAX_REMOTE_CONNECTIONS = 8;
+    /**
+     * Time an idle remote connection is kept without use
+     */
+    private static final long REMOTE_CONNECTION_IDLE_TTL = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * Time to wait for an answer of the candidate profile servers
+     */
+    private static final long SERVER_RACE_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
 
     /**
      * Map of local device profiles pubKey connected to the home PS, profile public key -> host PS manager
      */
     private ConcurrentMap<String, IoPProfileConnection> managers;
     /**
-     * Map of device profiles connected to remote PS
+     * Device profiles connected to remote PS, shared by the calls to the profiles of the same host
      */
-    private ConcurrentMap<PsKey, IoPProfileConnection> remoteManagers = new ConcurrentHashMap<>();
+    private final ConnectionPool<PsKey, IoPProfileConnection> remoteManagers;
     /**
      * Cached local profiles
      */
@@ -120,12 +146,33 @@ public class IoPConnect implements ConnectionListener {
     private SslContextFactory sslContextFactory;
     private EngineListener engineListener;
     private final ReconnectionManager reconnectionManager;
+    /**
+     * Remote profiles fetched from the profile servers
+     */
+    private final ProfileInformationCache profileInformationCache = new ProfileInformationCache();
+    /**
+     * Full images of the remote profiles, the rest of the requests only bring the thumbnails
+     */
+    private final ProfileImageLoader profileImageLoader = new ProfileImageLoader();
     private final MessageQueueManager messageQueueManager;
+    /**
+     * Non-blocking client shared by every profile server connection, one selector thread for all of them.
+     * Guarded by this, it's released on stop and opened again by the next connection.
+     */
+    private IoManager ioManager;
+    /**
+     * Scheduler of the context, shared by every profile connection
+     */
+    private final IoPScheduler scheduler;
+    /**
+     * Idle remote connections eviction
+     */
+    private final IoPScheduler.TaskGroup remoteConnectionsTasks;
 
-    private class PsKey {
+    private static final class PsKey {
 
-        private String deviceProfPubKey;
-        private String psHost;
+        private final String deviceProfPubKey;
+        private final String psHost;
 
         public PsKey(String deviceProfPubKey, String psHost) {
             this.deviceProfPubKey = deviceProfPubKey;
@@ -139,6 +186,33 @@ public class IoPConnect implements ConnectionListener {
         public String getPsHost() {
             return psHost;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            PsKey psKey = (PsKey) o;
+
+            if (deviceProfPubKey != null ? !deviceProfPubKey.equals(psKey.deviceProfPubKey) : psKey.deviceProfPubKey != null)
+                return false;
+            return psHost != null ? psHost.equals(psKey.psHost) : psKey.psHost == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = deviceProfPubKey != null ? deviceProfPubKey.hashCode() : 0;
+            result = 31 * result + (psHost != null ? psHost.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "PsKey{" +
+                    "deviceProfPubKey='" + deviceProfPubKey + '\'' +
+                    ", psHost='" + psHost + '\'' +
+                    '}';
+        }
     }
 
     public IoPConnect(IoPConnectContext contextWrapper,
@@ -159,8 +233,39 @@ public class IoPConnect implements ConnectionListener {
         this.pairingRequestsManager = pairingRequestsManager;
         this.deviceLocation = deviceLocation;
         this.deviceNetworkConnection = deviceNetworkConnection;
-        this.reconnectionManager = new ReconnectionManager();
+        this.scheduler = contextWrapper.getScheduler();
+        this.reconnectionManager = new ReconnectionManager(scheduler.newGroup("reconnections"), deviceNetworkConnection);
+        this.remoteManagers = new ConnectionPool<>(new RemoteConnector(), MAX_REMOTE_CONNECTIONS, REMOTE_CONNECTION_IDLE_TTL);
+        this.remoteConnectionsTasks = scheduler.newGroup("remote connections");
         this.messageQueueManager = messageQueueManager;
+        this.ioManager = openIoManager();
+    }
+
+    private IoManager openIoManager() {
+        try {
+            return new IoManager(1, 1);
+        } catch (IOException e) {
+            logger.error("Cant open the non-blocking client, using blocking sockets", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the scheduler shared by every profile connection
+     */
+    public IoPScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return the shared non-blocking client or null if it's not available
+     */
+    public synchronized IoManager getIoManager() {
+        if (ioManager == null) {
+            // stopped before
+            ioManager = openIoManager();
+        }
+        return ioManager;
     }
 
     public void setEngineListener(EngineListener engineListener) {
@@ -181,6 +286,17 @@ public class IoPConnect implements ConnectionListener {
             }
             localProfiles.put(profile.getHexPublicKey(), profile);
         }
+        // close the remote connections without calls
+        remoteConnectionsTasks.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                int evicted = remoteManagers.evictExpired();
+                if (evicted > 0) {
+                    logger.info("Idle remote connections closed: " + evicted + ", live: " + remoteManagers.getLiveConnections()
+                            + ", hit rate: " + remoteManagers.getHitRate());
+                }
+            }
+        }, REMOTE_CONNECTION_IDLE_TTL, REMOTE_CONNECTION_IDLE_TTL / 5, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -222,12 +338,13 @@ public class IoPConnect implements ConnectionListener {
                     // todo: notify the disconnection from the main PS to the upper layer..
                     if (engineListener != null)
                         engineListener.onDisconnect(localProfile.getHexPublicKey());
-                    // if the main connection is out we try to reconnect on a fixed period for now. (Later should increase the reconnection time exponentially..)
+                    // if the main connection is out we try to reconnect, the wait grows on every failure
                     final ConnectionFuture connectionFuture = new ConnectionFuture();
                     connectionFuture.setListener(new BaseMsgFuture.Listener<Boolean>() {
                         @Override
                         public void onAction(int messageId, Boolean object) {
                             logger.info("Main home host connected again!");
+                            reconnectionManager.onReconnected(localProfile, psHost, portType, callId, tokenId);
                             //todo: launch notification to the users
                             if (engineListener != null)
                                 engineListener.onCheckInCompleted(localProfile.getHexPublicKey());
@@ -240,8 +357,8 @@ public class IoPConnect implements ConnectionListener {
                                 engineListener.onDisconnect(localProfile.getHexPublicKey());
                             }
                             logger.warn("reconnection fail and the engine listener is null.. please check this..");
-                            reconnectionManager.scheduleReconnection(localProfile, psHost, portType, callId, tokenId, IoPConnect.this);
-                            logger.info("Reconnection scheduled in: {} seconds", reconnectionManager.getCurrentWaitingTime());
+                            long delay = reconnectionManager.scheduleReconnection(localProfile, psHost, portType, callId, tokenId, IoPConnect.this);
+                            logger.info("Reconnection scheduled in: {} ms", delay);
                         }
                     });
                     try {
@@ -252,8 +369,8 @@ public class IoPConnect implements ConnectionListener {
                         );
                     } catch (Exception e) {
                         e.printStackTrace();
-                        reconnectionManager.scheduleReconnection(localProfile, psHost, portType, callId, tokenId, IoPConnect.this);
-                        logger.info("Reconnection scheduled in: {} seconds", reconnectionManager.getCurrentWaitingTime());
+                        long delay = reconnectionManager.scheduleReconnection(localProfile, psHost, portType, callId, tokenId, IoPConnect.this);
+                        logger.info("Reconnection scheduled in: {} ms", delay);
                     }
                 }
             }
@@ -261,8 +378,9 @@ public class IoPConnect implements ConnectionListener {
             /*
               If we are not connected to internet then let's retry in a while...
              */
-            reconnectionManager.scheduleReconnection(localProfile, psHost, portType, callId, tokenId, IoPConnect.this);
-            logger.info("Reconnection scheduled in: {} seconds", reconnectionManager.getCurrentWaitingTime());
+            // it waits for the network
+            long delay = reconnectionManager.scheduleReconnection(localProfile, psHost, portType, callId, tokenId, IoPConnect.this);
+            logger.info("Reconnection scheduled in: {} ms", delay);
         }
     }
 
@@ -402,7 +520,7 @@ public class IoPConnect implements ConnectionListener {
                         );
                     }
                 } else {
-                    profServerData = profileServerConfigurations.getMainProfileServer();
+                    profServerData = selectProfileServer(profileServerConfigurations);
                 }
             }
             profileServerConfigurations.saveMainProfileServer(profServerData);
@@ -412,6 +530,60 @@ public class IoPConnect implements ConnectionListener {
         }
     }
 
+    /**
+     * Fastest of the main and the known profile servers, their primary ports race and the first one that accepts is used.
+     * The main one if there are no other servers or none of them answers.
+     */
+    private ProfServerData selectProfileServer(ProfileServerConfigurations profileServerConfigurations) {
+        ProfServerData main = profileServerConfigurations.getMainProfileServer();
+        List<ProfServerData> known = profileServerConfigurations.getKnownProfileServers();
+        if (known == null || known.isEmpty()) return main;
+        Map<InetSocketAddress, ProfServerData> candidates = new LinkedHashMap<>();
+        candidates.put(InetSocketAddress.createUnresolved(main.getHost(), main.getpPort()), main);
+        for (ProfServerData server : known) {
+            InetSocketAddress endpoint = InetSocketAddress.createUnresolved(server.getHost(), server.getpPort());
+            if (!candidates.containsKey(endpoint)) {
+                candidates.put(endpoint, server);
+            }
+        }
+        if (candidates.size() == 1) return main;
+        try {
+            EndpointRacer.Result<Socket> result = ProfSerConnectionManager.getEndpointRacer().race(
+                    new ArrayList<>(candidates.keySet()),
+                    new EndpointRacer.Connector<Socket>() {
+                        @Override
+                        public Socket connect(InetSocketAddress endpoint) throws Exception {
+                            // resolved here, the lookups of the servers run in parallel too
+                            Socket socket = new Socket();
+                            try {
+                                socket.connect(new InetSocketAddress(endpoint.getHostString(), endpoint.getPort()), (int) SERVER_RACE_TIMEOUT);
+                            } catch (IOException e) {
+                                socket.close();
+                                throw e;
+                            }
+                            return socket;
+                        }
+
+                        @Override
+                        public void close(Socket socket) {
+                            try {
+                                socket.close();
+                            } catch (IOException e) {
+                                // nothing
+                            }
+                        }
+                    },
+                    SERVER_RACE_TIMEOUT);
+            // only a probe, the profile connection opens his own sockets
+            result.getConnection().close();
+            logger.info("Profile server selected: " + result.getEndpoint() + ", rtt: " + result.getRtt() + " ms");
+            return candidates.get(result.getEndpoint());
+        } catch (IOException e) {
+            logger.warn("No profile server answered, using the main one: " + main.getHost(), e);
+            return main;
+        }
+    }
+
     public void updateProfile(Profile localProfile, boolean updatePs, ProfSerMsgListener<Boolean> msgListener) {
         // update db
         localProfilesDao.updateProfile(localProfile);
@@ -479,11 +651,17 @@ public class IoPConnect implements ConnectionListener {
                 messageQueueManager,
                 this,
                 profilesManager);
-        // map the profile connection with his public key
-        managers.put(profile.getHexPublicKey(), ioPProfileConnection);
+        putConnection(profile.getHexPublicKey(), ioPProfileConnection);
         return ioPProfileConnection;
     }
 
+    /**
+     * Map the profile connection with his public key
+     */
+    void putConnection(String profilePubKey, IoPProfileConnection connection) {
+        managers.put(profilePubKey, connection);
+    }
+
     /**
      * Add PS guest connection looking for a remote profile.
      *
@@ -494,7 +672,7 @@ public class IoPConnect implements ConnectionListener {
      */
     private IoPProfileConnection addConnection(ProfServerData profConn, Profile deviceProfile, PsKey psKey) {
         // profile connection
-        IoPProfileConnection ioPProfileConnection = new IoPProfileConnection(
+        return new IoPProfileConnection(
                 context,
                 deviceProfile,
                 profConn,
@@ -504,15 +682,129 @@ public class IoPConnect implements ConnectionListener {
                 messageQueueManager,
                 this,
                 profilesManager);
-        // map the profile connection with his public key
-        remoteManagers.put(psKey, ioPProfileConnection);
-        return ioPProfileConnection;
+    }
+
+    /**
+     * Opens the guest connections of the pool
+     */
+    private class RemoteConnector implements ConnectionPool.Connector<PsKey, IoPProfileConnection> {
+
+        @Override
+        public IoPProfileConnection open(PsKey psKey) throws Exception {
+            logger.info("Opening remote connection: " + psKey);
+            ProfServerData profServerData = new ProfServerData(psKey.getPsHost());
+            Profile profile = createEmptyProfileServerConf().getProfile();
+            IoPProfileConnection connection = addConnection(profServerData, profile, psKey);
+            connection.init(IoPConnect.this);
+            return connection;
+        }
+
+        @Override
+        public boolean isAlive(IoPProfileConnection connection) {
+            return !connection.hasFail();
+        }
+
+        @Override
+        public boolean isIdle(IoPProfileConnection connection) {
+            return connection.isIdle();
+        }
+
+        @Override
+        public long getLastActivity(IoPProfileConnection connection) {
+            return connection.getLastActivity();
+        }
+
+        @Override
+        public void close(IoPProfileConnection connection) {
+            logger.info("Closing remote connection");
+            connection.stop();
+        }
+    }
+
+    /**
+     * @return the remote profile server connections pool
+     */
+    public ConnectionPool<?, IoPProfileConnection> getRemoteConnectionsPool() {
+        return remoteManagers;
+    }
+
+    /**
+     * Search on the home server of the profile and on the neighbour servers at the same time, the results of every
+     * server are merged as they arrive. The servers already in the covered servers of the query are not asked.
+     *
+     * @param neighbours neighbour profile servers, with the network id if it's known
+     * @param deadline   millis to finish the whole search
+     */
+    public FederatedSearch searchProfilesFederated(String localProfilePubKey, SearchProfilesQuery query, List<ProfServerData> neighbours, long deadline) throws ProfileNotConectedException {
+        IoPProfileConnection home = getProfileConnection(localProfilePubKey);
+        String homeHost = localProfiles.get(localProfilePubKey).getHomeHost();
+        List<FederatedSearch.Server> servers = new ArrayList<>();
+        servers.add(home.getSearchServer());
+        for (ProfServerData neighbour : neighbours) {
+            if (!neighbour.getHost().equals(homeHost)) {
+                servers.add(new RemoteSearchServer(new PsKey(localProfilePubKey, neighbour.getHost()), neighbour.getNetworkId()));
+            }
+        }
+        FederatedSearch search = new FederatedSearch(query, servers, FederatedSearch.DEFAULT_MAX_PARALLEL, deadline);
+        search.start();
+        return search;
+    }
+
+    /**
+     * Neighbour server of a federated search, the guest connection is taken from the pool when the search is sent
+     */
+    private class RemoteSearchServer implements FederatedSearch.Server {
+
+        private final PsKey psKey;
+        /** Network id in hex, null if it's not known before the connection */
+        private final String networkId;
+        private volatile IoPProfileConnection connection;
+        private volatile FederatedSearch.Server server;
+
+        RemoteSearchServer(PsKey psKey, byte[] networkId) {
+            this.psKey = psKey;
+            this.networkId = (networkId != null) ? CryptoBytes.toHexString(networkId) : null;
+        }
+
+        @Override
+        public String getId() {
+            if (networkId != null) return networkId;
+            // learned by the connection
+            FederatedSearch.Server server = this.server;
+            return (server != null) ? server.getId() : null;
+        }
+
+        @Override
+        public void search(SearchProfilesQuery query, ProfSerSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception {
+            connection = remoteManagers.acquire(psKey);
+            server = connection.getSearchServer();
+            server.search(query, listener);
+        }
+
+        @Override
+        public void searchPart(SearchProfilesQuery query, int recordIndex, int recordCount, ProfSerPartSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception {
+            server.searchPart(query, recordIndex, recordCount, listener);
+        }
+
+        @Override
+        public void onClosed(SearchProfilesQuery query) {
+            if (server != null) server.onClosed(query);
+            if (connection != null) remoteManagers.release(psKey, connection);
+        }
+
+        @Override
+        public String toString() {
+            return psKey.getPsHost();
+        }
     }
 
 
     /**
      * Search based on CAN, could be LOC and Profile server.
      *
+     * The profile fetched from the network brings the thumbnail and not the full image, getImg() is null unless the
+     * contact had it stored. The full image is loaded with {@link #loadProfileImage(String, String, int, ProfSerMsgListener)}.
+     *
      * @param requeteerPubKey
      * @param profPubKey
      * @param getInfo         -> if you are sure that you want to get the info of the profile
@@ -521,59 +813,134 @@ public class IoPConnect implements ConnectionListener {
      * @throws CantSendMessageException
      */
     public void searchAndGetProfile(final String requeteerPubKey, String profPubKey, boolean getInfo, final ProfSerMsgListener<ProfileInformation> future) throws CantConnectException, CantSendMessageException {
+        searchAndGetProfile(requeteerPubKey, profPubKey, getInfo, false, future);
+    }
+
+    /**
+     * Search based on CAN, could be LOC and Profile server.
+     *
+     * The stored profile is answered while it's fresh, after the ttl of the profiles cache it's asked to the network.
+     * The network answers are cached for the ttl too, the profiles asked again and again (opening the same screen) are
+     * not fetched every time.
+     *
+     * @param requeteerPubKey
+     * @param profPubKey
+     * @param getInfo         -> if you are sure that you want to get the info of the profile, the stored one is skipped
+     * @param forceRefresh    -> fetch it from the network even if it was fetched lately
+     * @param future
+     * @throws CantConnectException
+     * @throws CantSendMessageException
+     */
+    public void searchAndGetProfile(final String requeteerPubKey, String profPubKey, boolean getInfo, boolean forceRefresh, final ProfSerMsgListener<ProfileInformation> future) throws CantConnectException, CantSendMessageException {
         if (!managers.containsKey(requeteerPubKey))
             throw new IllegalStateException("Profile connection not established");
         final ProfileInformation info = profilesManager.getProfile(requeteerPubKey, profPubKey);
-        if (info != null && !getInfo) {
-            //todo: add TTL and expiration -> info.getLastUpdateTime().
-            // if it's not valid go to CAN.
+        if (info != null && !getInfo && !forceRefresh
+                && System.currentTimeMillis() - info.getLastUpdateTime() < profileInformationCache.getTtl()) {
+            // stored lately
             future.onMessageReceive(0, info);
         } else {
             // CAN FLOW
 
-
-            //
-            MsgListenerFuture<IopProfileServer.GetProfileInformationResponse> getFuture = new MsgListenerFuture<>();
-            getFuture.setListener(new BaseMsgFuture.Listener<IopProfileServer.GetProfileInformationResponse>() {
+            // the profiles fetched recently are not asked again, the stale ones are answered while they are refreshed
+            ProfileInformationCache.Loader loader = new ProfileInformationCache.Loader() {
                 @Override
-                public void onAction(int messageId, IopProfileServer.GetProfileInformationResponse message) {
-                    IopProfileServer.ProfileInformation signedProfile = message.getSignedProfile().getProfile();
-                    ProfileInformationImp profileInformation = new ProfileInformationImp();
-                    profileInformation.setVersion(Version.fromByteArray(signedProfile.getVersion().toByteArray()));
-                    profileInformation.setPubKey(signedProfile.getPublicKey().toByteArray());
-                    profileInformation.setName(signedProfile.getName());
-                    profileInformation.setType(signedProfile.getType());
-                    profileInformation.setImgHash(signedProfile.getProfileImageHash().toByteArray());
-                    profileInformation.setTumbnailImgHash(signedProfile.getThumbnailImageHash().toByteArray());
-                    profileInformation.setLatitude(signedProfile.getLatitude());
-                    profileInformation.setLongitude(signedProfile.getLongitude());
-                    profileInformation.setExtraData(signedProfile.getExtraData());
-                    profileInformation.setIsOnline(message.getIsOnline());
-                    profileInformation.setUpdateTimestamp(System.currentTimeMillis());
-                    //todo: improve with input flags and not just hardcoded
-                    profileInformation.setImg(message.getProfileImage().toByteArray());
-                    profileInformation.setThumbnailImg(message.getThumbnailImage().toByteArray());
-                    if (info != null) {
-                        profileInformation.setHomeHost(info.getHomeHost());
-                        profileInformation.setProfileServerId(info.getProfileServerId());
+                public void load(String pubKey, final ProfSerMsgListener<ProfileInformation> listener) throws CantConnectException, CantSendMessageException {
+                    MsgListenerFuture<IopProfileServer.GetProfileInformationResponse> getFuture = new MsgListenerFuture<>();
+                    getFuture.setListener(new BaseMsgFuture.Listener<IopProfileServer.GetProfileInformationResponse>() {
+                        @Override
+                        public void onAction(int messageId, IopProfileServer.GetProfileInformationResponse message) {
+                            IopProfileServer.ProfileInformation signedProfile = message.getSignedProfile().getProfile();
+                            ProfileInformationImp profileInformation = new ProfileInformationImp();
+                            profileInformation.setVersion(Version.fromByteArray(signedProfile.getVersion().toByteArray()));
+                            profileInformation.setPubKey(signedProfile.getPublicKey().toByteArray());
+                            profileInformation.setName(signedProfile.getName());
+                            profileInformation.setType(signedProfile.getType());
+                            profileInformation.setImgHash(signedProfile.getProfileImageHash().toByteArray());
+                            profileInformation.setTumbnailImgHash(signedProfile.getThumbnailImageHash().toByteArray());
+                            profileInformation.setLatitude(signedProfile.getLatitude());
+                            profileInformation.setLongitude(signedProfile.getLongitude());
+                            profileInformation.setExtraData(signedProfile.getExtraData());
+                            profileInformation.setIsOnline(message.getIsOnline());
+                            profileInformation.setUpdateTimestamp(System.currentTimeMillis());
+                            // the full image is loaded on demand with loadProfileImage
+                            profileInformation.setThumbnailImg(message.getThumbnailImage().toByteArray());
+                            if (info != null) {
+                                profileInformation.setHomeHost(info.getHomeHost());
+                                profileInformation.setProfileServerId(info.getProfileServerId());
+                            }
+
+                            for (int i = 0; i < message.getApplicationServicesCount(); i++) {
+                                profileInformation.addAppService(message.getApplicationServices(i));
+                            }
+                            // the background refreshes are saved too, nobody waits for them
+                            profilesManager.saveOrUpdateProfile(requeteerPubKey, profileInformation);
+                            listener.onMessageReceive(messageId, profileInformation);
+                        }
+
+                        @Override
+                        public void onFail(int messageId, int status, String statusDetail) {
+                            listener.onMsgFail(messageId, status, statusDetail);
+                        }
+                    });
+                    managers.get(requeteerPubKey).getProfileInformation(pubKey, false, true, true, getFuture);
+                }
+            };
+            if (forceRefresh) {
+                profileInformationCache.reload(requeteerPubKey, profPubKey, loader, future);
+            } else {
+                profileInformationCache.get(requeteerPubKey, profPubKey, loader, future);
+            }
+        }
+    }
+
+    /**
+     * Remote profiles fetched recently, ttl and hit counters
+     */
+    public ProfileInformationCache getProfileInformationCache() {
+        return profileInformationCache;
+    }
+
+    /**
+     * Load the full image of a remote profile, the requests of the same profile share the fetch.
+     *
+     * @param priority ProfileImageLoader.PRIORITY_HIGH for the image on the screen
+     * @return ticket to cancel the request
+     */
+    public ProfileImageLoader.Ticket loadProfileImage(final String localProfilePubKey, String profPubKey, int priority, ProfSerMsgListener<byte[]> listener) {
+        if (!managers.containsKey(localProfilePubKey))
+            throw new IllegalStateException("Profile connection not established");
+        return profileImageLoader.load(profPubKey, priority, new ProfileImageLoader.Fetcher() {
+            @Override
+            public void fetch(String pubKey, final ProfSerMsgListener<byte[]> fetchListener) throws CantConnectException, CantSendMessageException {
+                MsgListenerFuture<IopProfileServer.GetProfileInformationResponse> getFuture = new MsgListenerFuture<>();
+                getFuture.setListener(new BaseMsgFuture.Listener<IopProfileServer.GetProfileInformationResponse>() {
+                    @Override
+                    public void onAction(int messageId, IopProfileServer.GetProfileInformationResponse message) {
+                        fetchListener.onMessageReceive(messageId, message.getProfileImage().toByteArray());
                     }
 
-                    for (int i = 0; i < message.getApplicationServicesCount(); i++) {
-                        profileInformation.addAppService(message.getApplicationServices(i));
+                    @Override
+                    public void onFail(int messageId, int status, String statusDetail) {
+                        fetchListener.onMsgFail(messageId, status, statusDetail);
                     }
-                    // save or update profile
-                    profilesManager.saveOrUpdateProfile(requeteerPubKey, profileInformation);
+                });
+                IoPProfileConnection connection = managers.get(localProfilePubKey);
+                if (connection == null) throw new CantConnectException("Profile connection closed");
+                connection.getProfileInformation(pubKey, true, false, false, getFuture);
+            }
+        }, listener);
+    }
 
-                    future.onMessageReceive(messageId, profileInformation);
-                }
+    /**
+     * Cancel the requests of a full image, for the callers that can't keep the ticket
+     */
+    public void cancelProfileImage(String profPubKey) {
+        profileImageLoader.cancel(profPubKey);
+    }
 
-                @Override
-                public void onFail(int messageId, int status, String statusDetail) {
-                    future.onMsgFail(messageId, status, statusDetail);
-                }
-            });
-            managers.get(requeteerPubKey).getProfileInformation(profPubKey, true, false, true, getFuture);
-        }
+    public ProfileImageLoader getProfileImageLoader() {
+        return profileImageLoader;
     }
 
     public void callService(
@@ -661,6 +1028,7 @@ public class IoPConnect implements ConnectionListener {
                 });
                 connection.callProfileAppService(remoteProfile.getHexPublicKey(), serviceName, false, true, callListener);
             }
+            releaseConnection(localProfile.getHomeHost(), localProfile.getHexPublicKey(), remoteProfile.getHomeHost(), connection);
         } catch (Exception e) {
             e.printStackTrace();
             newListener.onMsgFail(0, 400, e.getMessage());
@@ -720,19 +1088,20 @@ public class IoPConnect implements ConnectionListener {
         if (localPsHost.equals(remotePsHost)) {
             connection = getProfileConnection(localProfPubKey);
         } else {
-            PsKey psKey = new PsKey(localProfPubKey, remotePsHost);
-            if (remoteManagers.containsKey(psKey)) {
-                connection = remoteManagers.get(psKey);
-            } else {
-                ProfServerData profServerData = new ProfServerData(remotePsHost);
-                Profile profile = createEmptyProfileServerConf().getProfile();
-                connection = addConnection(profServerData, profile, psKey);
-                connection.init(this);
-            }
+            connection = remoteManagers.acquire(new PsKey(localProfPubKey, remotePsHost));
         }
         return connection;
     }
 
+    /**
+     * The remote connection is not used by the caller anymore, the open call or requests keep it busy
+     */
+    private void releaseConnection(String localPsHost, String localProfPubKey, String remotePsHost, IoPProfileConnection connection) {
+        if (!localPsHost.equals(remotePsHost)) {
+            remoteManagers.release(new PsKey(localProfPubKey, remotePsHost), connection);
+        }
+    }
+
     public List<ProfileInformation> getKnownProfiles(String pubKey) {
         return profilesManager.listConnectedProfiles(pubKey);
     }
@@ -961,6 +1330,7 @@ public class IoPConnect implements ConnectionListener {
      * Stop every single profile connection.
      */
     public void stop() {
+        reconnectionManager.stop();
         for (Map.Entry<String, IoPProfileConnection> stringRedtoothProfileConnectionEntry : managers.entrySet()) {
             try {
                 stringRedtoothProfileConnectionEntry.getValue().stop();
@@ -969,14 +1339,15 @@ public class IoPConnect implements ConnectionListener {
             }
         }
         managers.clear();
-        for (Map.Entry<PsKey, IoPProfileConnection> psKeyIoPProfileConnectionEntry : remoteManagers.entrySet()) {
-            try {
-                psKeyIoPProfileConnectionEntry.getValue().stop();
-            } catch (Exception e) {
-                e.printStackTrace();
+        remoteConnectionsTasks.cancel();
+        remoteManagers.closeAll();
+        // every connection is closed, release the threads of the non-blocking client
+        synchronized (this) {
+            if (ioManager != null) {
+                ioManager.shutdown();
+                ioManager = null;
             }
         }
-        remoteManagers.clear();
     }
 
 }
@@ -12,6 +12,12 @@ public interface IoPConnectContext {
      */
     org.libertaria.world.profile_server.ProfileServerConfigurations createProfSerConfig();
 
+    /**
+     * Scheduler shared by every profile and connection, the context owns it and shuts it down
+     * @return
+     */
+    IoPScheduler getScheduler();
+
 
 
 }
@@ -7,11 +7,14 @@ import org.libertaria.world.global.DeviceLocation;
 import org.libertaria.world.global.Version;
 import org.libertaria.world.profile_server.CantConnectException;
 import org.libertaria.world.profile_server.CantSendMessageException;
+import org.libertaria.world.profile_server.ConnectionSaturatedException;
 import org.libertaria.world.profile_server.ProfileInformation;
 import org.libertaria.world.profile_server.SslContextFactory;
 import org.libertaria.world.profile_server.engine.MessageQueueManager;
 import org.libertaria.world.profile_server.engine.ProfSerEngine;
 import org.libertaria.world.profile_server.engine.SearchProfilesQuery;
+import org.libertaria.world.profile_server.engine.FederatedSearch;
+import org.libertaria.world.profile_server.engine.SearchProfilesStream;
 import org.libertaria.world.profile_server.engine.app_services.AppService;
 import org.libertaria.world.profile_server.engine.app_services.AppServiceMsg;
 import org.libertaria.world.profile_server.engine.app_services.CallProfileAppService;
@@ -19,6 +22,7 @@ import org.libertaria.world.profile_server.engine.app_services.CallsListener;
 import org.libertaria.world.profile_server.engine.app_services.CryptoMsg;
 import org.libertaria.world.profile_server.engine.crypto.BoxAlgo;
 import org.libertaria.world.profile_server.engine.futures.BaseMsgFuture;
+import org.libertaria.world.profile_server.engine.futures.BatchMsgFuture;
 import org.libertaria.world.profile_server.engine.futures.MsgListenerFuture;
 import org.libertaria.world.profile_server.engine.futures.SearchMessageFuture;
 import org.libertaria.world.profile_server.engine.futures.SubsequentSearchMsgListenerFuture;
@@ -39,8 +43,6 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -99,7 +101,10 @@ public class IoPProfileConnection implements CallsListener, CallProfileAppServic
      * Open profile app service calls -> call token -> call in progress
      */
     private ConcurrentMap<String, CallProfileAppService> openCall = new ConcurrentHashMap<>();
-    private ScheduledExecutorService scheduledExecutorService;
+    /**
+     * Calls agent and message queue checks on the shared scheduler
+     */
+    private IoPScheduler.TaskGroup callsTasks;
 
 
     public IoPProfileConnection(IoPConnectContext contextWrapper,
@@ -144,9 +149,9 @@ public class IoPProfileConnection implements CallsListener, CallProfileAppServic
             }
         });
         profSerEngine.start(initWrapper);
-        // schedule the call's agent
-        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
-        scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
+        // schedule the call's agent, the queued messages open calls and can block
+        callsTasks = contextWrapper.getScheduler().newBlockingGroup("calls " + psConnData.getHost());
+        callsTasks.scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
                 checkMessageQueue();
@@ -172,7 +177,8 @@ public class IoPProfileConnection implements CallsListener, CallProfileAppServic
                     profileCache,
                     cryptoWrapper,
                     sslContextFactory,
-                    messageQueueManager
+                    messageQueueManager,
+                    ioPConnect.getIoManager()
             );
             profSerEngine.setCallListener(this);
             profSerEngine.addConnectionListener(connectionListener);
@@ -190,6 +196,9 @@ public class IoPProfileConnection implements CallsListener, CallProfileAppServic
                 public void onMessageReceive(int messageId, CallProfileAppService call) {
                     try {
                         call.sendMsg(message.getMessage(), messageQueueManager.buildDefaultQueueListener(message));
+                    } catch (ConnectionSaturatedException e) {
+                        // deferred to the next check, it's not a failed attempt
+                        logger.info("Connection saturated, message " + message.getMessageId() + " stays on the queue");
                     } catch (Exception e) {
                         //If something bad happen we inform it to the queue manager to take some action about it.
                         messageQueueManager.failedToResend(message);
@@ -232,7 +241,9 @@ public class IoPProfileConnection implements CallsListener, CallProfileAppServic
 
     public void stop() {
         // shutdown the calls agent
-        scheduledExecutorService.shutdownNow();
+        if (callsTasks != null) {
+            callsTasks.cancel();
+        }
         // shutdown calls
         for (Map.Entry<String, CallProfileAppService> stringCallProfileAppServiceEntry : openCall.entrySet()) {
             try {
@@ -267,6 +278,20 @@ public class IoPProfileConnection implements CallsListener, CallProfileAppServic
         return future;
     }
 
+    /**
+     * Search and iterate the results while the next parts are fetched, close the stream if it's not read until the end
+     */
+    public SearchProfilesStream searchProfilesStream(SearchProfilesQuery searchProfilesQuery) {
+        return profSerEngine.searchProfilesStream(searchProfilesQuery, SearchProfilesStream.DEFAULT_BUFFERED_PAGES);
+    }
+
+    /**
+     * This server as one of the servers of a federated search
+     */
+    public FederatedSearch.Server getSearchServer() {
+        return profSerEngine.getSearchServer();
+    }
+
     public SubsequentSearchMsgListenerFuture<List<IopProfileServer.ProfileQueryInformation>> searchSubsequentProfiles(SearchProfilesQuery searchProfilesQuery) {
         SubsequentSearchMsgListenerFuture future = new SubsequentSearchMsgListenerFuture(searchProfilesQuery);
         profSerEngine.searchSubsequentProfiles(searchProfilesQuery, future);
@@ -355,6 +380,15 @@ public class IoPProfileConnection implements CallsListener, CallProfileAppServic
         profSerEngine.getProfileInformation(publicKey, includeProfileImage, includeThumbnailImage, includeApplicationServices, msgProfFuture);
     }
 
+    /**
+     * Profile information of several profiles, the requests are pipelined over the connection
+     *
+     * @param timeout millis to receive every response
+     */
+    public BatchMsgFuture<IopProfileServer.GetProfileInformationResponse> getProfileInformation(List<String> publicKeys, boolean includeProfileImage, boolean includeThumbnailImage, boolean includeApplicationServices, long timeout) {
+        return profSerEngine.getProfileInformation(publicKeys, includeProfileImage, includeThumbnailImage, includeApplicationServices, timeout);
+    }
+
     /**
      * If this method is called is supposed that the service already have the ProfileInformation with the included application services
      *
@@ -689,6 +723,27 @@ public class IoPProfileConnection implements CallsListener, CallProfileAppServic
         }
     }
 
+    /**
+     * @return true if there are app service calls open on this connection
+     */
+    public boolean hasOpenCalls() {
+        return !openCall.isEmpty();
+    }
+
+    /**
+     * @return true if there are no calls, requests waiting for a response or search streams open
+     */
+    public boolean isIdle() {
+        return !hasOpenCalls() && !profSerEngine.hasOpenRequests();
+    }
+
+    /**
+     * @return millis of the last message sent or received by the server connection, 0 if there was none
+     */
+    public long getLastActivity() {
+        return profSerEngine.getLastActivity();
+    }
+
     public CallProfileAppService getActiveAppCallService(String remoteProfileKey) {
         for (CallProfileAppService callProfileAppService : openCall.values()) {
             if (callProfileAppService.getRemotePubKey().equals(remoteProfileKey)) {
@@ -0,0 +1,422 @@
+package org.libertaria.world.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timed and background work of the sdk: pings, reconnections, call idle checks, request deadlines and the dispatch
+ * of the incoming messages.
+ *
+ * A single timer thread fires the tasks and hands them to a fixed pool of workers, the thread count doesn't depend
+ * on the number of profiles or connections. The tasks are scheduled on {@link TaskGroup}s, the owner of a group
+ * cancels all of his tasks at once when it stops. The lag of every run, the time between the moment the task was due
+ * and the moment a worker started it, is measured per group and for the whole scheduler.
+ *
+ * The deadlines and the pings can't wait behind a busy worker, their groups run on a ticker thread of their own
+ * ({@link #newTickerGroup(String)}) and their tasks must not block. The work that can wait on a connection, like the
+ * incoming calls, runs on the threads of the blocking groups ({@link #newBlockingGroup(String)}), they are created on
+ * demand and released when idle.
+ */
+public class IoPScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IoPScheduler.class);
+
+    public static final int DEFAULT_WORKERS = 4;
+    /** Seconds an idle blocking thread is kept */
+    private static final long BLOCKING_KEEP_ALIVE = 30;
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ScheduledThreadPoolExecutor ticker;
+    private final ThreadPoolExecutor workers;
+    private final ThreadPoolExecutor blocking;
+    private final int workersCount;
+    private final Set<TaskGroup> groups = Collections.newSetFromMap(new ConcurrentHashMap<TaskGroup, Boolean>());
+    private final LagStats lagStats = new LagStats();
+
+    public IoPScheduler(String name, int workers) {
+        if (workers <= 0) throw new IllegalArgumentException("workers <= 0");
+        this.workersCount = workers;
+        this.timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory(name + "-timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.ticker = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory(name + "-ticker"));
+        this.ticker.setRemoveOnCancelPolicy(true);
+        this.workers = (ThreadPoolExecutor) Executors.newFixedThreadPool(workers, new NamedThreadFactory(name + "-worker"));
+        this.blocking = new ThreadPoolExecutor(0, Integer.MAX_VALUE, BLOCKING_KEEP_ALIVE, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new NamedThreadFactory(name + "-blocking"));
+    }
+
+    /**
+     * New group for the tasks of an owner, the name identifies it on the metrics
+     */
+    public TaskGroup newGroup(String name) {
+        return register(new TaskGroup(name, timer, workers));
+    }
+
+    /**
+     * New group run on the ticker thread, for the short tasks that must run on time: deadlines and pings.
+     * The tasks of these groups must not block.
+     */
+    public TaskGroup newTickerGroup(String name) {
+        return register(new TaskGroup(name, ticker, null));
+    }
+
+    /**
+     * New group for the tasks that can block, every run has a thread of his own so they don't hold the workers
+     */
+    public TaskGroup newBlockingGroup(String name) {
+        return register(new TaskGroup(name, timer, blocking));
+    }
+
+    private TaskGroup register(TaskGroup group) {
+        groups.add(group);
+        return group;
+    }
+
+    /**
+     * @return the groups in use, the cancelled ones are released
+     */
+    public List<TaskGroup> getGroups() {
+        return new ArrayList<>(groups);
+    }
+
+    /**
+     * Cancel every task and stop the threads
+     */
+    public void shutdown() {
+        for (TaskGroup group : groups) {
+            group.cancel();
+        }
+        timer.shutdownNow();
+        ticker.shutdownNow();
+        workers.shutdownNow();
+        blocking.shutdownNow();
+    }
+
+    public boolean isShutdown() {
+        return workers.isShutdown();
+    }
+
+    /**
+     * @return timer, ticker and workers, the blocking threads are not counted
+     */
+    public int getThreadCount() {
+        return 2 + workersCount;
+    }
+
+    /**
+     * @return blocking threads running or idle
+     */
+    public int getBlockingThreadCount() {
+        return blocking.getPoolSize();
+    }
+
+    /**
+     * @return tasks due waiting for a free worker
+     */
+    public int getQueuedTasks() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * @return maximum lag in millis of the runs of every group
+     */
+    public long getMaxLag() {
+        return lagStats.max.get();
+    }
+
+    /**
+     * @return average lag in millis of the runs of every group
+     */
+    public long getAverageLag() {
+        return lagStats.average();
+    }
+
+    public long getRuns() {
+        return lagStats.runs.get();
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Tasks of an owner, cancelled together
+     */
+    public final class TaskGroup {
+
+        private final String name;
+        /** Fires the tasks */
+        private final ScheduledThreadPoolExecutor timer;
+        /** Runs the tasks, null to run them on the timer thread */
+        private final Executor executor;
+        private final Set<Task> tasks = Collections.newSetFromMap(new ConcurrentHashMap<Task, Boolean>());
+        private final LagStats lagStats = new LagStats();
+
+        private TaskGroup(String name, ScheduledThreadPoolExecutor timer, Executor executor) {
+            this.name = name;
+            this.timer = timer;
+            this.executor = executor;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Run the task as soon as possible, it's handed to the threads of the group without passing by the timer
+         */
+        public Task execute(Runnable runnable) {
+            return add(new Task(this, runnable, 0)).start();
+        }
+
+        public Task schedule(Runnable runnable, long delay, TimeUnit unit) {
+            return add(new Task(this, runnable, 0)).arm(unit.toMillis(delay));
+        }
+
+        /**
+         * Run the task every period, a run doesn't start before the previous one finishes and the runs missed
+         * while the workers were busy are skipped
+         */
+        public Task scheduleAtFixedRate(Runnable runnable, long initialDelay, long period, TimeUnit unit) {
+            if (period <= 0) throw new IllegalArgumentException("period <= 0");
+            return add(new Task(this, runnable, unit.toMillis(period))).arm(unit.toMillis(initialDelay));
+        }
+
+        /**
+         * Cancel the tasks of the group, the ones running finish. The group is released, it's registered again if a
+         * new task is scheduled on it
+         */
+        public void cancel() {
+            for (Task task : tasks) {
+                task.cancel();
+            }
+            groups.remove(this);
+        }
+
+        /**
+         * @return tasks scheduled or running
+         */
+        public int getTaskCount() {
+            return tasks.size();
+        }
+
+        public long getMaxLag() {
+            return lagStats.max.get();
+        }
+
+        public long getAverageLag() {
+            return lagStats.average();
+        }
+
+        public long getRuns() {
+            return lagStats.runs.get();
+        }
+
+        private Task add(Task task) {
+            if (isShutdown()) throw new RejectedExecutionException("Scheduler shutdown");
+            tasks.add(task);
+            groups.add(this);
+            return task;
+        }
+
+        private void ran(long lag) {
+            lagStats.add(lag);
+            IoPScheduler.this.lagStats.add(lag);
+        }
+
+        @Override
+        public String toString() {
+            return "TaskGroup{" +
+                    "name='" + name + '\'' +
+                    ", tasks=" + tasks.size() +
+                    ", runs=" + lagStats.runs.get() +
+                    ", maxLag=" + lagStats.max.get() +
+                    ", averageLag=" + lagStats.average() +
+                    '}';
+        }
+    }
+
+    /**
+     * Scheduled task, fired by the timer and run on the threads of his group
+     */
+    public final class Task {
+
+        private final TaskGroup group;
+        private final Runnable runnable;
+        /** Millis between runs, 0 for a single run */
+        private final long period;
+        /** Time the next run is due */
+        private volatile long due;
+        private volatile ScheduledFuture<?> timerFuture;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        /** Run of the task, the same one for every run */
+        private final Runnable run = new Runnable() {
+            @Override
+            public void run() {
+                runTask();
+            }
+        };
+        /** Fire of the timer */
+        private final Runnable fire = new Runnable() {
+            @Override
+            public void run() {
+                handOff();
+            }
+        };
+
+        private Task(TaskGroup group, Runnable runnable, long period) {
+            this.group = group;
+            this.runnable = runnable;
+            this.period = period;
+        }
+
+        /**
+         * Hand the task to the group threads now
+         */
+        private Task start() {
+            due = now();
+            try {
+                if (group.executor == null) {
+                    group.timer.execute(run);
+                } else {
+                    group.executor.execute(run);
+                }
+            } catch (RejectedExecutionException e) {
+                finish();
+                throw e;
+            }
+            return this;
+        }
+
+        private Task arm(long delay) {
+            due = now() + delay;
+            try {
+                // the ticker groups run on the timer thread
+                timerFuture = group.timer.schedule((group.executor == null) ? run : fire, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                finish();
+                throw e;
+            }
+            if (cancelled) {
+                // cancelled while arming
+                timerFuture.cancel(false);
+            }
+            return this;
+        }
+
+        private void handOff() {
+            if (cancelled) return;
+            try {
+                group.executor.execute(run);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Task rejected, scheduler shutdown: " + group.name);
+                finish();
+            }
+        }
+
+        private void runTask() {
+            if (cancelled) return;
+            long start = now();
+            group.ran(Math.max(0, start - due));
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                LOG.error("Task fail on group: " + group.name, e);
+            }
+            if (period == 0 || cancelled) {
+                finish();
+                return;
+            }
+            long next = Math.max(due + period, now());
+            try {
+                arm(next - now());
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Periodic task stopped, scheduler shutdown: " + group.name);
+            }
+        }
+
+        /**
+         * Cancel the next runs, a run in progress finishes
+         */
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> timerFuture = this.timerFuture;
+            if (timerFuture != null) {
+                timerFuture.cancel(false);
+            }
+            finish();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true if the task will not run again
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        private void finish() {
+            done = true;
+            group.tasks.remove(this);
+        }
+    }
+
+    private static class LagStats {
+
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void add(long lag) {
+            runs.incrementAndGet();
+            total.addAndGet(lag);
+            long current;
+            while (lag > (current = max.get()) && !max.compareAndSet(current, lag)) {
+                // retry
+            }
+        }
+
+        long average() {
+            long count = runs.get();
+            return (count == 0) ? 0 : total.get() / count;
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.libertaria.world.core.services.pairing;
 
-import org.libertaria.world.global.utils.SerializationUtils;
+import org.libertaria.world.profile_server.engine.app_services.AppMsgCodec;
+import org.libertaria.world.profile_server.engine.app_services.AppServices;
 import org.libertaria.world.profile_server.engine.app_services.BaseMsg;
 
 /**
@@ -20,12 +21,13 @@ public class PairDisconnectedMessage extends BaseMsg<PairDisconnectedMessage> {
 
     @Override
     public byte[] encode() throws Exception {
-        return SerializationUtils.serialize(this);
+        return AppServices.PairDisconnectedMessage.newBuilder().setRemoteId(remoteId).build().toByteArray();
     }
 
     @Override
     public PairDisconnectedMessage decode(byte[] msg) throws Exception {
-        return SerializationUtils.deserialize(msg, PairDisconnectedMessage.class);
+        AppServices.PairDisconnectedMessage proto = AppServices.PairDisconnectedMessage.parseFrom(AppMsgCodec.newInput(msg));
+        return new PairDisconnectedMessage(proto.getRemoteId());
     }
 
     @Override
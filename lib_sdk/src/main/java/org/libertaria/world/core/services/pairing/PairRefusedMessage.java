@@ -1,6 +1,7 @@
 package org.libertaria.world.core.services.pairing;
 
-import org.libertaria.world.global.utils.SerializationUtils;
+import org.libertaria.world.profile_server.engine.app_services.AppMsgCodec;
+import org.libertaria.world.profile_server.engine.app_services.AppServices;
 import org.libertaria.world.profile_server.engine.app_services.BaseMsg;
 
 /**
@@ -20,13 +21,13 @@ public class PairRefusedMessage extends BaseMsg<PairRefusedMessage> {
 
     @Override
     public PairRefusedMessage decode(byte[] msg) throws Exception {
-        return SerializationUtils.deserialize(msg,PairRefusedMessage.class);
+        AppServices.PairRefusedMessage proto = AppServices.PairRefusedMessage.parseFrom(AppMsgCodec.newInput(msg));
+        return new PairRefusedMessage(proto.getExternalPairingId());
     }
 
     @Override
     public byte[] encode() throws Exception {
-        // lazy encode to test the entire flow first..
-        return SerializationUtils.serialize(this);
+        return AppServices.PairRefusedMessage.newBuilder().setExternalPairingId(externalPairingId).build().toByteArray();
     }
 
     @Override
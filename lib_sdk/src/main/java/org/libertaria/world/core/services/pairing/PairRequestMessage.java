@@ -1,6 +1,7 @@
 package org.libertaria.world.core.services.pairing;
 
-import org.libertaria.world.global.utils.SerializationUtils;
+import org.libertaria.world.profile_server.engine.app_services.AppMsgCodec;
+import org.libertaria.world.profile_server.engine.app_services.AppServices;
 import org.libertaria.world.profile_server.engine.app_services.BaseMsg;
 
 /**
@@ -32,13 +33,17 @@ public class PairRequestMessage extends BaseMsg<PairRequestMessage> {
 
     @Override
     public PairRequestMessage decode(byte[] msg) throws Exception {
-        return SerializationUtils.deserialize(msg,PairRequestMessage.class);
+        AppServices.PairRequestMessage proto = AppServices.PairRequestMessage.parseFrom(AppMsgCodec.newInput(msg));
+        return new PairRequestMessage(proto.getName(), proto.getSenderHost(), proto.getPairingRequestId());
     }
 
     @Override
     public byte[] encode() throws Exception {
-        // lazy encode to test the entire flow first..
-        return SerializationUtils.serialize(this);
+        AppServices.PairRequestMessage.Builder builder = AppServices.PairRequestMessage.newBuilder()
+                .setPairingRequestId(pairingRequestId);
+        if (name != null) builder.setName(name);
+        if (senderHost != null) builder.setSenderHost(senderHost);
+        return builder.build().toByteArray();
     }
 
     @Override
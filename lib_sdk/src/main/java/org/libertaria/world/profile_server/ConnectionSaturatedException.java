@@ -0,0 +1,14 @@
+package org.libertaria.world.profile_server;
+
+/**
+ * The connection has too many bytes waiting to be written, the message was not queued.
+ * The caller can retry once the queue drains.
+ */
+public class ConnectionSaturatedException extends CantSendMessageException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConnectionSaturatedException(String s) {
+        super(s);
+    }
+}
@@ -19,6 +19,8 @@ public interface ProfileInformation extends ProfileBase {
 
     byte[] getImg();
 
+    byte[] getThumbnailImg();
+
     int getLatitude();
 
     int getLongitude();
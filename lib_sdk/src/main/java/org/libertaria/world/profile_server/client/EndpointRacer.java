@@ -0,0 +1,389 @@
+package org.libertaria.world.profile_server.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Inet6Address;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Races the connections with the endpoints of a host, or with several hosts, and keeps the first one established
+ * (happy eyeballs, RFC 8305).
+ *
+ * The attempts are started one after the other, the next one starts when the previous fails or when the attempt delay
+ * passes without an answer, so a dead endpoint costs the delay and not the whole connect timeout. The first connection
+ * established wins, the rest are closed when they finish. The rtt and the success rate of every endpoint are
+ * remembered to try the best ones first the next time, the address families are interleaved.
+ */
+public class EndpointRacer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndpointRacer.class);
+
+    /** Recommended delay between attempts in millis */
+    public static final long DEFAULT_ATTEMPT_DELAY = 250;
+    /** Rtt assumed for the endpoints never connected */
+    private static final long UNKNOWN_RTT = 500;
+    /** Endpoints remembered at most */
+    private static final int MAX_ENDPOINTS = 256;
+
+    /**
+     * Opens the connections of the race
+     */
+    public interface Connector<C> {
+
+        /**
+         * Blocking connect, bounded by his own timeouts
+         */
+        C connect(InetSocketAddress endpoint) throws Exception;
+
+        /**
+         * Release a connection that lost the race
+         */
+        void close(C connection);
+    }
+
+    /**
+     * Winner of a race
+     */
+    public static class Result<C> {
+
+        private final InetSocketAddress endpoint;
+        private final C connection;
+        private final long rtt;
+
+        Result(InetSocketAddress endpoint, C connection, long rtt) {
+            this.endpoint = endpoint;
+            this.connection = connection;
+            this.rtt = rtt;
+        }
+
+        public InetSocketAddress getEndpoint() {
+            return endpoint;
+        }
+
+        public C getConnection() {
+            return connection;
+        }
+
+        /**
+         * @return millis from the start of his attempt to the connection
+         */
+        public long getRtt() {
+            return rtt;
+        }
+    }
+
+    /**
+     * Connect history of an endpoint
+     */
+    public static class EndpointStats {
+
+        private int attempts;
+        private int successes;
+        /** Smoothed rtt in millis, -1 if it never connected */
+        private long srtt = -1;
+
+        synchronized void onSuccess(long rtt) {
+            attempts++;
+            successes++;
+            // like the tcp srtt, new samples weight 1/8
+            srtt = (srtt < 0) ? rtt : srtt + (rtt - srtt) / 8;
+        }
+
+        synchronized void onFailure() {
+            attempts++;
+        }
+
+        public synchronized int getAttempts() {
+            return attempts;
+        }
+
+        public synchronized int getSuccesses() {
+            return successes;
+        }
+
+        /**
+         * @return successes over attempts with one of each assumed, 0.5 for a new endpoint
+         */
+        public synchronized double getSuccessRate() {
+            return (successes + 1.0) / (attempts + 2.0);
+        }
+
+        /**
+         * @return smoothed rtt in millis, -1 if it never connected
+         */
+        public synchronized long getRtt() {
+            return srtt;
+        }
+
+        /**
+         * @return expected millis to get a connection, lower is better
+         */
+        synchronized double getCost() {
+            return ((srtt < 0) ? UNKNOWN_RTT : Math.max(srtt, 1)) / getSuccessRate();
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "EndpointStats{" +
+                    "attempts=" + attempts +
+                    ", successes=" + successes +
+                    ", srtt=" + srtt +
+                    '}';
+        }
+    }
+
+    private final Executor executor;
+    private final long attemptDelay;
+    /** Access ordered, the least recently raced endpoints are forgotten first */
+    private final LinkedHashMap<InetSocketAddress, EndpointStats> stats = new LinkedHashMap<InetSocketAddress, EndpointStats>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<InetSocketAddress, EndpointStats> eldest) {
+            return size() > MAX_ENDPOINTS;
+        }
+    };
+
+    /**
+     * @param executor runs the attempts, every attempt blocks a thread until it finishes
+     * @param attemptDelay millis waited for an attempt before starting the next one
+     */
+    public EndpointRacer(Executor executor, long attemptDelay) {
+        if (attemptDelay <= 0) throw new IllegalArgumentException("attempt delay <= 0");
+        this.executor = executor;
+        this.attemptDelay = attemptDelay;
+    }
+
+    /**
+     * Connect to the first endpoint that answers. A single endpoint is connected on the caller thread.
+     *
+     * @param timeout millis to wait for a winner
+     * @return the first connection established
+     * @throws IOException with the last failure if every attempt failed or a timeout if there is no winner in time
+     */
+    public <C> Result<C> race(List<InetSocketAddress> endpoints, Connector<C> connector, long timeout) throws IOException {
+        if (endpoints.isEmpty()) throw new IllegalArgumentException("no endpoints");
+        List<InetSocketAddress> ordered = order(endpoints);
+        if (ordered.size() == 1) {
+            Attempt<C> attempt = new Attempt<>(ordered.get(0), connector, null);
+            attempt.run();
+            if (attempt.connection == null) throw toIOException(ordered.get(0), attempt.failure);
+            return new Result<>(attempt.endpoint, attempt.connection, attempt.rtt);
+        }
+        BlockingQueue<Attempt<C>> finished = new LinkedBlockingQueue<>();
+        List<Attempt<C>> started = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + timeout;
+        long nextStart = 0;
+        int running = 0;
+        Attempt<C> winner = null;
+        Throwable lastFailure = null;
+        try {
+            while (winner == null) {
+                long now = System.currentTimeMillis();
+                if (started.size() < ordered.size() && (running == 0 || now >= nextStart)) {
+                    Attempt<C> attempt = new Attempt<>(ordered.get(started.size()), connector, finished);
+                    started.add(attempt);
+                    running++;
+                    executor.execute(attempt);
+                    nextStart = now + attemptDelay;
+                }
+                if (now >= deadline) {
+                    break;
+                }
+                long wait = deadline - now;
+                if (started.size() < ordered.size()) {
+                    wait = Math.min(wait, Math.max(nextStart - now, 1));
+                }
+                Attempt<C> attempt = finished.poll(wait, TimeUnit.MILLISECONDS);
+                if (attempt == null) {
+                    continue;
+                }
+                running--;
+                if (attempt.connection != null) {
+                    winner = attempt;
+                } else {
+                    lastFailure = attempt.failure;
+                    if (running == 0 && started.size() == ordered.size()) {
+                        break;
+                    }
+                    // a failure starts the next attempt right away
+                    nextStart = 0;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Race interrupted");
+        } finally {
+            // the losers are closed as soon as they connect
+            for (Attempt<C> attempt : started) {
+                if (attempt != winner) {
+                    attempt.abandon();
+                }
+            }
+        }
+        if (winner == null) {
+            if (running > 0 || lastFailure == null) {
+                throw new SocketTimeoutException("No endpoint connected in " + timeout + " ms, endpoints: " + ordered);
+            }
+            throw toIOException(started.get(started.size() - 1).endpoint, lastFailure);
+        }
+        logger.info("Race won by " + winner.endpoint + " in " + winner.rtt + " ms, attempts: " + started.size());
+        return new Result<>(winner.endpoint, winner.connection, winner.rtt);
+    }
+
+    /**
+     * The endpoints that connect faster and more often go first, the new ones keep the given order and go before the
+     * ones that usually fail. The address families are interleaved starting with the best one.
+     */
+    public List<InetSocketAddress> order(List<InetSocketAddress> endpoints) {
+        final Map<InetSocketAddress, Double> costs = new LinkedHashMap<>();
+        synchronized (stats) {
+            for (InetSocketAddress endpoint : endpoints) {
+                EndpointStats endpointStats = stats.get(endpoint);
+                costs.put(endpoint, (endpointStats != null) ? endpointStats.getCost() : new EndpointStats().getCost());
+            }
+        }
+        List<InetSocketAddress> sorted = new ArrayList<>(costs.keySet());
+        // stable, the ties keep the resolver order
+        Collections.sort(sorted, new Comparator<InetSocketAddress>() {
+            @Override
+            public int compare(InetSocketAddress o1, InetSocketAddress o2) {
+                return Double.compare(costs.get(o1), costs.get(o2));
+            }
+        });
+        return interleave(sorted);
+    }
+
+    private static List<InetSocketAddress> interleave(List<InetSocketAddress> sorted) {
+        List<InetSocketAddress> first = new ArrayList<>();
+        List<InetSocketAddress> second = new ArrayList<>();
+        boolean firstIsV6 = !sorted.isEmpty() && isV6(sorted.get(0));
+        for (InetSocketAddress endpoint : sorted) {
+            if (isV6(endpoint) == firstIsV6) {
+                first.add(endpoint);
+            } else {
+                second.add(endpoint);
+            }
+        }
+        if (second.isEmpty()) return sorted;
+        List<InetSocketAddress> interleaved = new ArrayList<>(sorted.size());
+        for (int i = 0; i < Math.max(first.size(), second.size()); i++) {
+            if (i < first.size()) interleaved.add(first.get(i));
+            if (i < second.size()) interleaved.add(second.get(i));
+        }
+        return interleaved;
+    }
+
+    private static boolean isV6(InetSocketAddress endpoint) {
+        return endpoint.getAddress() instanceof Inet6Address;
+    }
+
+    /**
+     * @return the history of the endpoint, null if it was never raced
+     */
+    public EndpointStats getStats(InetSocketAddress endpoint) {
+        synchronized (stats) {
+            return stats.get(endpoint);
+        }
+    }
+
+    private EndpointStats statsOf(InetSocketAddress endpoint) {
+        synchronized (stats) {
+            EndpointStats endpointStats = stats.get(endpoint);
+            if (endpointStats == null) {
+                endpointStats = new EndpointStats();
+                stats.put(endpoint, endpointStats);
+            }
+            return endpointStats;
+        }
+    }
+
+    private static IOException toIOException(InetSocketAddress endpoint, Throwable failure) {
+        return (failure instanceof IOException) ? (IOException) failure : new IOException("Cant connect to " + endpoint, failure);
+    }
+
+    private class Attempt<C> implements Runnable {
+
+        private final InetSocketAddress endpoint;
+        private final Connector<C> connector;
+        private final BlockingQueue<Attempt<C>> finished;
+        private C connection;
+        private Throwable failure;
+        private long rtt;
+        /** Guarded by this */
+        private boolean done;
+        private boolean abandoned;
+
+        Attempt(InetSocketAddress endpoint, Connector<C> connector, BlockingQueue<Attempt<C>> finished) {
+            this.endpoint = endpoint;
+            this.connector = connector;
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            C connection = null;
+            Throwable failure = null;
+            try {
+                connection = connector.connect(endpoint);
+            } catch (Throwable e) {
+                failure = e;
+                logger.info("Attempt to " + endpoint + " failed: " + e.getMessage());
+            }
+            long rtt = System.currentTimeMillis() - start;
+            if (connection != null) {
+                statsOf(endpoint).onSuccess(rtt);
+            } else {
+                statsOf(endpoint).onFailure();
+            }
+            boolean close;
+            synchronized (this) {
+                this.connection = connection;
+                this.failure = failure;
+                this.rtt = rtt;
+                done = true;
+                close = abandoned && connection != null;
+            }
+            if (close) {
+                close(connection);
+            } else if (finished != null) {
+                finished.offer(this);
+            }
+        }
+
+        /**
+         * Lost the race, the connection is closed now or when it connects
+         */
+        void abandon() {
+            C connection;
+            synchronized (this) {
+                abandoned = true;
+                connection = done ? this.connection : null;
+            }
+            if (connection != null) {
+                close(connection);
+            }
+        }
+
+        private void close(C connection) {
+            try {
+                connector.close(connection);
+            } catch (Exception e) {
+                logger.warn("Error closing the connection with " + endpoint, e);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.libertaria.world.profile_server.client;
 
 
+import org.furszy.client.IoManager;
 import org.libertaria.world.profile_server.CantConnectException;
 import org.libertaria.world.profile_server.CantSendMessageException;
 import org.libertaria.world.profile_server.SslContextFactory;
@@ -9,15 +10,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import javax.net.SocketFactory;
 import javax.net.ssl.SSLContext;
@@ -40,23 +51,47 @@ public class ProfSerConnectionManager {
 
     private String host;
     /** Regular channel */
-    private ConcurrentMap<IopProfileServer.ServerRoleType, ProfileServerSocket> serverSockets;
+    private ConcurrentMap<IopProfileServer.ServerRoleType, PsSocket> serverSockets;
     /**
      * Channels opened by AppServicesCalls on the app service port (shity implementation of the profile server)
      * The mapping is AppServiceCall token -> channel for this call
      * Changed to UUID -> channel
      */
-    private ConcurrentMap<String, ProfileServerSocket> appServicesSockets = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, PsSocket> appServicesSockets = new ConcurrentHashMap<>();
 
     private PsSocketHandler<IopProfileServer.Message> handler;
+    /** Shared non-blocking client, null to use a blocking socket with his own reader thread per port */
+    private IoManager ioManager;
 
-    /** seconds */
-    private static final long connectionTimeout = 45;
+    /** Timeouts of every connection attempt in millis, 45 seconds in total */
+    private static final long DEFAULT_DNS_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+    private static final long DEFAULT_CONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(15);
+    private static final long DEFAULT_HANDSHAKE_TIMEOUT = TimeUnit.SECONDS.toMillis(20);
+    private static final Pattern IP_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}|.*:.*");
+    /** Connection attempts and host lookups of every manager, the threads are released when nothing is connecting */
+    private static ExecutorService connectExecutor;
+    private static EndpointRacer endpointRacer;
+
+    /** Connection attempts running, keyed by the port type or by the call id on the app service port */
+    private final ConcurrentMap<Object, PsConnectFuture> pendingConnects = new ConcurrentHashMap<>();
+    /** Set on shutdown, the new connects are refused and the attempts running close their sockets */
+    private volatile boolean shutdown;
+    private volatile long dnsTimeout = DEFAULT_DNS_TIMEOUT;
+    private volatile long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private volatile long handshakeTimeout = DEFAULT_HANDSHAKE_TIMEOUT;
 
     public ProfSerConnectionManager(String host, SslContextFactory sslContextFactory,PsSocketHandler<IopProfileServer.Message> handler) {
+        this(host,sslContextFactory,handler,null);
+    }
+
+    /**
+     * @param ioManager non-blocking client shared by every connection, if it's null the blocking sockets are used.
+     */
+    public ProfSerConnectionManager(String host, SslContextFactory sslContextFactory,PsSocketHandler<IopProfileServer.Message> handler, IoManager ioManager) {
         this.host = host;
         serverSockets = new ConcurrentHashMap<>();
         this.handler = handler;
+        this.ioManager = ioManager;
         initContext(sslContextFactory);
     }
 
@@ -75,174 +110,398 @@ public class ProfSerConnectionManager {
         }
     }
 
+    /**
+     * Connect and wait for the connection, for the callers that can't go on without it. The writes don't wait.
+     */
     public boolean connectToSecurePort(final IopProfileServer.ServerRoleType portType, final int port) throws CantConnectException {
-        boolean isActive = false;
-        if (!serverSockets.containsKey(portType)){
-            isActive = syncAddServer(portType,port,null,null);
-        }else {
+        return awaitConnect(portType,port,null,null);
+    }
+
+    public boolean connectToSecureAppServicePort(final int port,String callId,String token) throws CantConnectException {
+        return awaitConnect(IopProfileServer.ServerRoleType.CL_APP_SERVICE,port,callId,token);
+    }
+
+    public boolean connectToUnSecurePort(IopProfileServer.ServerRoleType portType, int port) throws CantConnectException {
+        return awaitConnect(portType,port,null,null);
+    }
+
+    /**
+     * Connect to the port without blocking the caller.
+     *
+     * A connected port returns a completed future and the callers of a port that is connecting get the future of the
+     * running attempt. The host lookup, the connection and the TLS handshake have their own timeouts.
+     *
+     * @param callId call on the app service port, null for the other ports
+     * @param token call token on the app service port, null for the other ports
+     * @return a failed future once the manager is shut down
+     */
+    public PsConnectFuture connectAsync(IopProfileServer.ServerRoleType portType, int port, String callId, String token) {
+        if (shutdown) {
+            return PsConnectFuture.failed(portType, callId, shutdownException(portType));
+        }
+        PsConnectFuture future = connectFuture(portType,port,callId,token);
+        if (future.claim()){
+            if (shutdown) {
+                // shut down while it was registered, the shutdown could have missed it
+                pendingConnects.remove(connectKey(portType,callId),future);
+                future.setException(shutdownException(portType));
+                return future;
+            }
             try {
-                isActive = serverSockets.get(portType).isActive();
-                if (!isActive) {
-                    // remove references and notify upper layer about it
-                    serverSockets.remove(portType);
-                    // todo: Improve this.
-                    throw new IllegalStateException("Connection not available with port: " + portType);
-                }
-            }catch (ConnectionException e){
-                // something bad happen
-                e.printStackTrace();
-                // remove references and notify upper layer about it
-                serverSockets.remove(portType);
-                // todo: Improve this.
-                throw new IllegalStateException("Connection not available with port: " + portType);
+                getConnectExecutor().execute(new ConnectTask(future));
+            }catch (RuntimeException e){
+                logger.error("connect task rejected, port: "+port,e);
+                pendingConnects.remove(connectKey(portType,callId),future);
+                future.setException(e);
             }
         }
-        return isActive;
+        return future;
     }
 
-    public boolean connectToSecureAppServicePort(final int port,String callId,String token) throws CantConnectException {
-        boolean isActive = false;
-        if (!appServicesSockets.containsKey(callId)){
-            isActive = syncAddServer(IopProfileServer.ServerRoleType.CL_APP_SERVICE,port,callId,token);
-        }else {
-            isActive = appServicesSockets.get(callId).isActive();
-            if (!isActive){
-                // remove references and notify upper layer about it
-                appServicesSockets.remove(callId);
-                // todo: Improve this.
-                throw new AppServiceCallNotAvailableException("Connection not longer available with appService with token: "+callId);
+    /**
+     * Wait for the connection with a timeout, the attempt runs on the connect threads.
+     * The connections to different ports and calls don't wait for each other.
+     */
+    private boolean awaitConnect(final IopProfileServer.ServerRoleType portType, final int port, final String callId, final String tokenId) throws CantConnectException{
+        PsConnectFuture future = connectAsync(portType,port,callId,tokenId);
+        try {
+            if (!future.await(dnsTimeout + connectTimeout + handshakeTimeout, TimeUnit.MILLISECONDS)) {
+                logger.info("connection timeout on port: " + port);
+                throw new CantConnectException("Timeout exception, host " + host + ":" + port + ", type: " + portType);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CantConnectException("Connect interrupted, host " + host + ":" + port + ", type: " + portType, e);
         }
-        return isActive;
+        if (future.getException() instanceof RuntimeException){
+            // connection not longer available
+            throw (RuntimeException) future.getException();
+        }
+        return future.isConnected();
     }
 
-    public boolean connectToUnSecurePort(IopProfileServer.ServerRoleType portType, int port) throws CantConnectException {
-        boolean isActive = false;
-        if (!serverSockets.containsKey(portType)) {
-            isActive = syncAddServer(portType,port,null,null);
-        }else {
-            isActive = serverSockets.get(portType).isActive();
+    /**
+     * Future of the port, a new one if it's not connected nor connecting
+     */
+    private PsConnectFuture connectFuture(IopProfileServer.ServerRoleType portType, int port, String callId, String token){
+        if (portType == IopProfileServer.ServerRoleType.CL_APP_SERVICE && (callId==null || callId.length()<1))
+            throw new IllegalArgumentException("bad callId value");
+        Object key = connectKey(portType,callId);
+        for (;;) {
+            // the socket goes first, the writes of the port started event find it while the attempt is running
+            PsSocket psSocket = getSocket(key);
+            if (psSocket != null && isActive(psSocket)) {
+                return PsConnectFuture.connected(portType, callId, psSocket);
+            }
+            PsConnectFuture pending = pendingConnects.get(key);
+            if (pending != null) {
+                return pending;
+            }
+            if (psSocket != null && removeSocket(key, psSocket)) {
+                // remove references and notify upper layer about it
+                if (portType == IopProfileServer.ServerRoleType.CL_APP_SERVICE) {
+                    return PsConnectFuture.failed(portType, callId, new AppServiceCallNotAvailableException("Connection not longer available with appService with token: " + callId));
+                } else if (portType != IopProfileServer.ServerRoleType.PRIMARY) {
+                    // todo: Improve this.
+                    return PsConnectFuture.failed(portType, callId, new IllegalStateException("Connection not available with port: " + portType));
+                }
+            }
+            PsConnectFuture future = new PsConnectFuture(portType, port, callId, token);
+            if (pendingConnects.putIfAbsent(key, future) == null) {
+                return future;
+            }
         }
-        return isActive;
     }
 
     /**
-     * Connect to the server with a timeout
-     *
-     * @param portType
-     * @param port
-     * @return
+     * Run the attempt of the future
      */
-    private synchronized boolean syncAddServer(final IopProfileServer.ServerRoleType portType, final int port, final String callId, final String tokenId) throws CantConnectException{
-        boolean isActive = false;
+    private void connect(final PsConnectFuture future){
+        final IopProfileServer.ServerRoleType portType = future.getPortType();
+        final int port = future.getPort();
+        Object key = connectKey(portType,future.getCallId());
+        if (future.isDone()) {
+            // failed by the shutdown before it started
+            return;
+        }
+        PsSocket psSocket = null;
         try {
-            logger.info("syncAddServer "+portType);
-            ExecutorService executorService = Executors.newSingleThreadExecutor();
-            Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
+            List<InetSocketAddress> endpoints = new ArrayList<>();
+            for (InetAddress address : resolve(host, dnsTimeout)) {
+                endpoints.add(new InetSocketAddress(address, port));
+            }
+            // every address of the host races, the first one connected is kept
+            psSocket = getEndpointRacer().race(endpoints, new EndpointRacer.Connector<PsSocket>() {
+                @Override
+                public PsSocket connect(InetSocketAddress endpoint) throws Exception {
+                    PsSocket psSocket = newSocket(portType, port, future.getCallId(), future.getToken());
+                    psSocket.open(endpoint.getAddress(), connectTimeout, handshakeTimeout);
+                    return psSocket;
+                }
+
                 @Override
-                public Boolean call() {
+                public void close(PsSocket psSocket) {
                     try {
-                        if (portType == IopProfileServer.ServerRoleType.PRIMARY) {
-                            addServerSocket(SocketFactory.getDefault(), portType, host, port,null,null).connect();
-                        }else if(portType == IopProfileServer.ServerRoleType.CL_APP_SERVICE){
-                            addServerSocket(sslContext.getSocketFactory(),portType,host,port,callId,tokenId).connect();
-                        }else
-                            addServerSocket(sslContext.getSocketFactory(), portType, host, port,null,null).connect();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        return false;
+                        psSocket.closeNow();
+                    } catch (IOException e) {
+                        logger.info("close fail on port: "+port+", "+e.getMessage());
                     }
-                    return true;
                 }
-            });
-            try {
-                isActive = future.get(connectionTimeout, TimeUnit.SECONDS);
-            }catch (TimeoutException exception){
-                logger.info("connection timeout on port: "+port);
-                throw new CantConnectException("Timeout exception, host "+host+":"+port+", type: "+portType,exception);
+            }, connectTimeout + handshakeTimeout).getConnection();
+            // the writes of the port started event find the socket
+            putSocket(key, psSocket);
+            // checked after the put, a shutdown that comes later finds the socket and closes it
+            if (shutdown) throw shutdownException(portType);
+            psSocket.start();
+            // released before the completion, the callers notified can try again
+            pendingConnects.remove(key,future);
+            if (!future.setConnected(psSocket)) {
+                // failed by the shutdown meanwhile, nobody uses it
+                removeSocket(key, psSocket);
+                closeQuietly(psSocket);
             }
-            executorService.shutdownNow();
         }catch (Exception e){
-            e.printStackTrace();
-            logger.error("syncAddServer exception",e,portType,port);
+            logger.info("connection fail on port: "+port+", "+e.getMessage());
+            if (psSocket!=null) {
+                removeSocket(key, psSocket);
+                closeQuietly(psSocket);
+            }
+            pendingConnects.remove(key,future);
+            // the runtime exceptions of the futures are the connections not longer available
+            future.setException((e instanceof RuntimeException) ? new CantConnectException("Connection fail, host " + host + ":" + port + ", type: " + portType, e) : e);
+        }
+    }
+
+    /**
+     * Host lookup bounded by the timeout, the ip literals are not looked up
+     *
+     * @return every address of the host
+     */
+    private static InetAddress[] resolve(final String host, long timeout) throws IOException {
+        if (IP_LITERAL.matcher(host).matches()) {
+            return InetAddress.getAllByName(host);
+        }
+        Future<InetAddress[]> lookup = getConnectExecutor().submit(new Callable<InetAddress[]>() {
+            @Override
+            public InetAddress[] call() throws Exception {
+                return InetAddress.getAllByName(host);
+            }
+        });
+        try {
+            return lookup.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the lookup thread is released by the resolver timeout
+            lookup.cancel(true);
+            throw new SocketTimeoutException("Host lookup timeout, host: " + host);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof IOException) ? (IOException) cause : new IOException("Host lookup fail, host: " + host, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lookup.cancel(true);
+            throw new InterruptedIOException("Host lookup interrupted, host: " + host);
+        }
+    }
+
+    /**
+     * Racer of the connections of every manager, it remembers the rtt and the failures of the endpoints
+     */
+    public static synchronized EndpointRacer getEndpointRacer() {
+        if (endpointRacer == null) {
+            endpointRacer = new EndpointRacer(getConnectExecutor(), EndpointRacer.DEFAULT_ATTEMPT_DELAY);
+        }
+        return endpointRacer;
+    }
+
+    private static synchronized ExecutorService getConnectExecutor() {
+        if (connectExecutor == null) {
+            connectExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ps-connect-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return connectExecutor;
+    }
+
+    private CantConnectException shutdownException(IopProfileServer.ServerRoleType portType) {
+        return new CantConnectException("Connection manager shut down, host " + host + ", type: " + portType);
+    }
+
+    private static void closeQuietly(PsSocket psSocket) {
+        try {
+            psSocket.closeNow();
+        } catch (Exception e) {
+            logger.info("close fail on port: " + psSocket.getPortType() + ", " + e.getMessage());
+        }
+    }
+
+    private static Object connectKey(IopProfileServer.ServerRoleType portType, String callId) {
+        return (portType == IopProfileServer.ServerRoleType.CL_APP_SERVICE) ? callId : portType;
+    }
+
+    private PsSocket getSocket(Object key) {
+        return (key instanceof String) ? appServicesSockets.get(key) : serverSockets.get(key);
+    }
+
+    private boolean removeSocket(Object key, PsSocket psSocket) {
+        return (key instanceof String) ? appServicesSockets.remove(key, psSocket) : serverSockets.remove(key, psSocket);
+    }
+
+    private static boolean isActive(PsSocket psSocket) {
+        try {
+            return psSocket.isActive();
+        } catch (ConnectionException e) {
+            // not connected yet
+            return false;
+        }
+    }
+
+    /**
+     * Timeouts of the next connection attempts
+     *
+     * @param dnsTimeout millis to resolve the host
+     * @param connectTimeout millis to establish the connection
+     * @param handshakeTimeout millis to finish the TLS handshake on the secure ports
+     */
+    public void setConnectTimeouts(long dnsTimeout, long connectTimeout, long handshakeTimeout) {
+        if (dnsTimeout <= 0 || connectTimeout <= 0 || handshakeTimeout <= 0) throw new IllegalArgumentException("timeout <= 0");
+        this.dnsTimeout = dnsTimeout;
+        this.connectTimeout = connectTimeout;
+        this.handshakeTimeout = handshakeTimeout;
+    }
+
+    /**
+     * @return connection attempts running
+     */
+    public int getPendingConnectsCount() {
+        return pendingConnects.size();
+    }
+
+    private class ConnectTask implements Runnable {
+
+        private final PsConnectFuture future;
+
+        ConnectTask(PsConnectFuture future) {
+            this.future = future;
         }
-        return isActive;
-    }
-
-    private ProfileServerSocket addServerSocket(SocketFactory socketFactory, IopProfileServer.ServerRoleType portType, String host, int port, String callId,String token) throws Exception {
-        ProfileServerSocket profileServerSocket = new ProfileServerSocket(
-                socketFactory,
-                host,
-                port,
-                portType,
-                callId,
-                token
-        );
-        profileServerSocket.setHandler(handler);
-        if (portType== IopProfileServer.ServerRoleType.CL_APP_SERVICE){
-            appServicesSockets.put(
+
+        @Override
+        public void run() {
+            connect(future);
+        }
+    }
+
+    private PsSocket newSocket(IopProfileServer.ServerRoleType portType, int port, String callId, String token) throws Exception {
+        PsSocket psSocket;
+        if (ioManager!=null){
+            psSocket = new ProfileServerNioSocket(
+                    ioManager,
+                    (portType == IopProfileServer.ServerRoleType.PRIMARY) ? null : sslContext,
+                    host,
+                    port,
+                    portType,
                     callId,
-                    profileServerSocket
+                    token
             );
         }else {
-            serverSockets.put(
+            psSocket = new ProfileServerSocket(
+                    (portType == IopProfileServer.ServerRoleType.PRIMARY) ? SocketFactory.getDefault() : sslContext.getSocketFactory(),
+                    host,
+                    port,
                     portType,
-                    profileServerSocket
-
+                    callId,
+                    token
             );
         }
-        return profileServerSocket;
+        psSocket.setHandler(handler);
+        return psSocket;
+    }
+
+    private void putSocket(Object key, PsSocket psSocket) {
+        if (key instanceof String){
+            appServicesSockets.put((String) key, psSocket);
+        }else {
+            serverSockets.put((IopProfileServer.ServerRoleType) key, psSocket);
+        }
     }
 
     /**
-     *  Send a message
+     * Send a message, the caller doesn't wait for the connection.
+     *
+     * On a connected port the message is written now. If the port is connecting the message is written by the
+     * connection attempt once it finishes, in the order it was sent, and a failure is reported to
+     * {@link PsSocketHandler#messageNotSent}.
      *
-     * @param portType
-     * @param port
-     * @param message
-     * @throws Exception
+     * @throws CantConnectException if the connection already failed
      */
     public void write(IopProfileServer.ServerRoleType portType, int port, IopProfileServer.Message message) throws CantSendMessageException,CantConnectException {
-        boolean result = connectToPort(portType,port,null,null);
-        if (!result) throw new CantSendMessageException("Cant connect to: "+portType.name()+", port number: "+port);
-        ProfileServerSocket profileServerSocket = serverSockets.get(portType);
-        if (profileServerSocket==null){
-            serverSockets.remove(portType);
-            throw new CantSendMessageException("Cant connect to: "+portType.name()+", port number: "+port);
-        }else {
-            profileServerSocket.write(message);
-        }
-
+        write(connectAsync(portType,port,null,null),message);
     }
 
     public void writeToAppServiceCall(IopProfileServer.ServerRoleType portType, int port, IopProfileServer.Message message,String callId,String token) throws CantSendMessageException,CantConnectException {
         if (callId==null || callId.length()<1) throw new IllegalArgumentException("bad callId value");
-        boolean result = connectToPort(portType,port,callId,token);
-        if (!result) throw new CantSendMessageException("Connection fail");
-        ProfileServerSocket profileServerSocket = appServicesSockets.get(callId);
-        profileServerSocket.write(message);
-    }
-
-    private boolean connectToPort(IopProfileServer.ServerRoleType portType, int port,String callId,String tokenId) throws CantConnectException {
-        boolean isConnected = false;
-        switch (portType){
-            case CL_CUSTOMER:
-                isConnected = connectToSecurePort(portType,port);
-                break;
-            case CL_NON_CUSTOMER:
-                isConnected = connectToSecurePort(portType,port);
-                break;
-            case PRIMARY:
-                isConnected = connectToUnSecurePort(portType,port);
-                break;
-            case CL_APP_SERVICE:
-                isConnected = connectToSecureAppServicePort(port,callId,tokenId);
-                break;
+        write(connectAsync(portType,port,callId,token),message);
+    }
+
+    private void write(PsConnectFuture future, final IopProfileServer.Message message) throws CantSendMessageException,CantConnectException {
+        if (future.isDone()) {
+            connectedSocket(future).write(message);
+            return;
         }
-        logger.info("connectToPort "+portType +", port "+port +" is connected: "+isConnected);
-        return isConnected;
+        future.addListener(new PsConnectFuture.Listener() {
+            @Override
+            public void onComplete(PsConnectFuture future) {
+                try {
+                    connectedSocket(future).write(message);
+                } catch (Exception e) {
+                    logger.info("message not sent on port: " + future.getPortType() + ", " + e.getMessage());
+                    PsSocketHandler<IopProfileServer.Message> handler = ProfSerConnectionManager.this.handler;
+                    if (handler != null) {
+                        handler.messageNotSent(future.getPortType(), message, e);
+                    }
+                }
+            }
+        });
     }
 
+    /**
+     * @return the socket of a completed attempt
+     * @throws CantConnectException if the attempt failed
+     */
+    private PsSocket connectedSocket(PsConnectFuture future) throws CantConnectException {
+        if (future.isConnected()) {
+            return future.getSocket();
+        }
+        Throwable exception = future.getException();
+        if (exception instanceof RuntimeException) {
+            // connection not longer available
+            throw (RuntimeException) exception;
+        }
+        throw new CantConnectException("Cant connect to: " + future.getPortType() + ", port number: " + future.getPort(),
+                (exception instanceof Exception) ? (Exception) exception : null);
+    }
+
+
+    /**
+     * Ping the port from the non-blocking client when the connection is quiet
+     *
+     * @return false if the port is not connected or it's a blocking socket
+     */
+    public boolean enableKeepAlive(IopProfileServer.ServerRoleType portType, byte[] protocolVersion) {
+        PsSocket psSocket = serverSockets.get(portType);
+        if (psSocket instanceof ProfileServerNioSocket){
+            ((ProfileServerNioSocket) psSocket).enableKeepAlive(protocolVersion);
+            return true;
+        }
+        return false;
+    }
 
     public void close(IopProfileServer.ServerRoleType portType) throws IOException {
         this.serverSockets.remove(portType).closeNow();
@@ -253,15 +512,24 @@ public class ProfSerConnectionManager {
         this.appServicesSockets.remove(callId).closeNow();
     }
 
+    /**
+     * Close every socket. The connection attempts running fail now and their sockets are closed once they connect,
+     * the next connects fail.
+     */
     public void shutdown() throws IOException {
-        for (ProfileServerSocket profileServerSocket : this.serverSockets.values()) {
+        shutdown = true;
+        for (PsConnectFuture future : pendingConnects.values()) {
+            future.setException(shutdownException(future.getPortType()));
+        }
+        pendingConnects.clear();
+        for (PsSocket psSocket : this.serverSockets.values()) {
             try {
-                profileServerSocket.closeNow();
+                psSocket.closeNow();
             }catch (Exception e){
                 e.printStackTrace();
             }
         }
-        for (Map.Entry<String, ProfileServerSocket> stringProfileServerSocketEntry : appServicesSockets.entrySet()) {
+        for (Map.Entry<String, PsSocket> stringProfileServerSocketEntry : appServicesSockets.entrySet()) {
             try {
                 stringProfileServerSocketEntry.getValue().closeNow();
             }catch (Exception e){
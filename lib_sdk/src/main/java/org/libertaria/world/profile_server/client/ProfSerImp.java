@@ -3,6 +3,7 @@ package org.libertaria.world.profile_server.client;
 
 import com.google.protobuf.ByteString;
 
+import org.furszy.client.IoManager;
 import org.libertaria.world.core.IoPConnectContext;
 import org.libertaria.world.crypto.CryptoBytes;
 import org.libertaria.world.profile_server.CantConnectException;
@@ -38,9 +39,9 @@ public class ProfSerImp implements ProfileServer {
     private ProfServerData configurations;
 
 
-    public ProfSerImp(IoPConnectContext context, ProfServerData configurations, SslContextFactory sslContextFactory, PsSocketHandler<IopProfileServer.Message> handler) {
+    public ProfSerImp(IoPConnectContext context, ProfServerData configurations, SslContextFactory sslContextFactory, PsSocketHandler<IopProfileServer.Message> handler, IoManager ioManager) {
         this.configurations = configurations;
-        profSerConnectionManager = new ProfSerConnectionManager(configurations.getHost(),sslContextFactory,handler);
+        profSerConnectionManager = new ProfSerConnectionManager(configurations.getHost(),sslContextFactory,handler,ioManager);
     }
 
 
@@ -268,11 +269,26 @@ public class ProfSerImp implements ProfileServer {
         return buildRequestToAppServicePort(callId,token,message);
     }
 
+    @Override
+    public ProfSerRequest busyResponse(IopProfileServer.ServerRoleType portType, String callId, String token, int msgId) {
+        logger.info("busyResponse, msg id: " + msgId);
+        IopProfileServer.Message message = MessageFactory.buildBusyResponse(msgId);
+        if (portType == IopProfileServer.ServerRoleType.CL_APP_SERVICE) {
+            return buildRequestToAppServicePort(callId, token, message);
+        }
+        return buildRequestToCustomerPort(message);
+    }
+
     @Override
     public void addHandler(PsSocketHandler handler) {
         profSerConnectionManager.setHandler(handler);
     }
 
+    @Override
+    public boolean enableKeepAlive(IopProfileServer.ServerRoleType portType) {
+        return profSerConnectionManager.enableKeepAlive(portType,configurations.getProtocolVersion());
+    }
+
     @Override
     public void closePort(IopProfileServer.ServerRoleType portType) throws IOException {
         profSerConnectionManager.close(portType);
@@ -90,8 +90,20 @@ public interface ProfileServer {
 
     ProfSerRequest appServiceReceiveMessageNotificationResponse(String callId,String token, int msgId);
 
+    /**
+     * Error response to a request of the server that was not processed, on the port where it arrived
+     */
+    ProfSerRequest busyResponse(IopProfileServer.ServerRoleType portType, String callId, String token, int msgId);
+
     void addHandler(org.libertaria.world.profile_server.client.PsSocketHandler handler);
 
+    /**
+     * Send the pings only when the port connection is quiet, from the I/O thread.
+     *
+     * @return false if the connection doesn't support it, the pings must be scheduled by the caller
+     */
+    boolean enableKeepAlive(IopProfileServer.ServerRoleType portType);
+
     void closePort(IopProfileServer.ServerRoleType portType) throws IOException;
 
     void closeCallChannelByUUID(String uuid) throws IOException;
@@ -0,0 +1,156 @@
+package org.libertaria.world.profile_server.client;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+
+/**
+ * Cumulative decoder for the profile server wire format.
+ *
+ * Every message on the wire is a {@link IopProfileServer.MessageWithHeader}:
+ *
+ *   0D [4 bytes little-endian length] 12 [varint body length] [body]
+ *
+ * The fixed32 header holds the size of everything after the first 5 bytes (the body tag, the varint
+ * written by the protobuf encoder and the body itself, see ProfileServerSocket#writeFrame).
+ * Bytes are appended to a single reusable buffer, partial frames stay there until their last byte arrives
+ * and coalesced frames are split one by one.
+ *
+ * This class is not thread safe, it is meant to be used by a single reader.
+ */
+public class ProfileServerFrameDecoder {
+
+    /** Protobuf tag of the fixed32 header field (field 1, wire type 5) */
+    public static final int HEADER_TAG = 0x0D;
+    /** Header tag + fixed32 length */
+    public static final int HEADER_SIZE = 5;
+    /** Maximum size of the whole message, defined by the protocol */
+    public static final int MAX_MESSAGE_SIZE = 1048576;
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private byte[] buffer;
+    /** Start of the first unconsumed byte */
+    private int readIndex;
+    /** End of the received data */
+    private int writeIndex;
+
+    public ProfileServerFrameDecoder() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public ProfileServerFrameDecoder(int initialBufferSize) {
+        if (initialBufferSize < HEADER_SIZE) throw new IllegalArgumentException("buffer size < " + HEADER_SIZE);
+        this.buffer = new byte[initialBufferSize];
+    }
+
+    /**
+     * Prepare the buffer to receive more data, compacting the consumed bytes and growing it
+     * if the pending frame doesn't fit.
+     *
+     * @return the amount of bytes that can be written starting at {@link #writeIndex()}
+     */
+    public int prepareForWrite() throws InvalidProtocolBufferException {
+        int pending = writeIndex - readIndex;
+        int required = Math.max(pendingFrameSize(), pending + 1);
+        if (readIndex > 0 && (buffer.length - writeIndex == 0 || readIndex + required > buffer.length)) {
+            System.arraycopy(buffer, readIndex, buffer, 0, pending);
+            readIndex = 0;
+            writeIndex = pending;
+        }
+        if (required > buffer.length) {
+            byte[] newBuffer = new byte[Math.min(MAX_MESSAGE_SIZE, Math.max(required, buffer.length << 1))];
+            System.arraycopy(buffer, readIndex, newBuffer, 0, pending);
+            buffer = newBuffer;
+            readIndex = 0;
+            writeIndex = pending;
+        }
+        return buffer.length - writeIndex;
+    }
+
+    /** Array to write the incoming bytes, valid until the next {@link #prepareForWrite()} */
+    public byte[] array() {
+        return buffer;
+    }
+
+    public int writeIndex() {
+        return writeIndex;
+    }
+
+    /**
+     * Notify that {@code count} bytes were written in the array starting at {@link #writeIndex()}
+     */
+    public void written(int count) {
+        if (count < 0 || writeIndex + count > buffer.length) throw new IndexOutOfBoundsException("count: " + count);
+        writeIndex += count;
+    }
+
+    /**
+     * Append bytes from an external array
+     */
+    public void write(byte[] data, int offset, int length) throws InvalidProtocolBufferException {
+        while (length > 0) {
+            int count = Math.min(prepareForWrite(), length);
+            System.arraycopy(data, offset, buffer, writeIndex, count);
+            written(count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Decode the next complete message.
+     *
+     * @return the message body or null if the frame is not complete yet
+     * @throws InvalidProtocolBufferException if the stream doesn't follow the protocol
+     */
+    public IopProfileServer.Message nextMessage() throws InvalidProtocolBufferException {
+        int frameSize = pendingFrameSize();
+        if (frameSize == 0 || writeIndex - readIndex < frameSize) {
+            return null;
+        }
+        IopProfileServer.MessageWithHeader messageWithHeader = IopProfileServer.MessageWithHeader.parser().parseFrom(buffer, readIndex, frameSize);
+        readIndex += frameSize;
+        if (readIndex == writeIndex) {
+            readIndex = 0;
+            writeIndex = 0;
+        }
+        return messageWithHeader.getBody();
+    }
+
+    /** Number of bytes received that are not consumed yet */
+    public int pendingBytes() {
+        return writeIndex - readIndex;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Size of the frame in the head of the buffer
+     *
+     * @return the frame size including the header or 0 if the header is not complete.
+     */
+    private int pendingFrameSize() throws InvalidProtocolBufferException {
+        if (writeIndex - readIndex < HEADER_SIZE) {
+            return 0;
+        }
+        if ((buffer[readIndex] & 0xFF) != HEADER_TAG) {
+            throw new InvalidProtocolBufferException("Invalid header tag: " + (buffer[readIndex] & 0xFF));
+        }
+        int length = (buffer[readIndex + 1] & 0xFF)
+                | ((buffer[readIndex + 2] & 0xFF) << 8)
+                | ((buffer[readIndex + 3] & 0xFF) << 16)
+                | ((buffer[readIndex + 4] & 0xFF) << 24);
+        if (length < 0 || length > MAX_MESSAGE_SIZE - HEADER_SIZE) {
+            throw new InvalidProtocolBufferException("Invalid message length: " + length);
+        }
+        return HEADER_SIZE + length;
+    }
+
+    public void clear() {
+        readIndex = 0;
+        writeIndex = 0;
+    }
+}
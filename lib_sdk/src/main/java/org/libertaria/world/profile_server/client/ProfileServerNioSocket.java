@@ -0,0 +1,361 @@
+package org.libertaria.world.profile_server.client;
+
+import org.furszy.client.IoManager;
+import org.furszy.client.basic.ConnectionId;
+import org.furszy.client.basic.IdleStatus;
+import org.furszy.client.basic.IoSessionConfImp;
+import org.furszy.client.exceptions.ConnectionFailureException;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ConnectFuture;
+import org.furszy.client.interfaces.IoHandler;
+import org.furszy.client.interfaces.write.WriteRequest;
+import org.libertaria.world.profile_server.CantSendMessageException;
+import org.libertaria.world.profile_server.ConnectionSaturatedException;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.libertaria.world.profile_server.protocol.MessageFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * Profile server connection served by the non-blocking client.
+ *
+ * Every socket shares the selector loops of the {@link IoManager}, there is no reader thread nor write executor per connection.
+ * Writes are queued on the session and the handler is notified with messageSent once the frame is on the wire,
+ * a request fails with {@link ConnectionSaturatedException} while the queued bytes are over the session high watermark.
+ * The responses are not refused, the server waits for them: they wait in order until the session is writable again.
+ * Once the keepalive is enabled a ping is sent from the processor thread when the connection didn't write anything
+ * for the keepalive idle time.
+ */
+public class ProfileServerNioSocket implements PsSocket {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileServerNioSocket.class);
+
+    /** Connect and handshake timeout in millis when the host is resolved here */
+    private static final long CONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(45);
+    /** Stateless, shared by every session */
+    private static final ProfileServerProtocolDecoder DECODER = new ProfileServerProtocolDecoder();
+    /** Time without writes after which a ping is sent */
+    private static final long KEEP_ALIVE_IDLE_TIME = TimeUnit.SECONDS.toMillis(15);
+    private static final byte[] PING_PAYLOAD = "hi".getBytes();
+
+    private final IoManager ioManager;
+    /** TLS context, null for the unsecure ports */
+    private final SSLContext sslContext;
+    /** socket id */
+    private String callId;
+    private String callSessionToken;
+    private int port;
+    private String host;
+    /** Server role type */
+    private IopProfileServer.ServerRoleType portType;
+    /** Handler */
+    private PsSocketHandler<IopProfileServer.Message> handler;
+    /** Session id on the IoManager, null if it's not connected */
+    private volatile ConnectionId connectionId;
+    /** Set when the session is released, the upper layers are notified only once */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    /** Set once the upper layers know the socket */
+    private volatile boolean started;
+    /** Released when the session can carry messages, after the handshake on the secure ports */
+    private final CountDownLatch opened = new CountDownLatch(1);
+    /** Protocol version of the pings, null while the keepalive is disabled */
+    private volatile byte[] keepAliveVersion;
+    /** Responses that found the session saturated, written once it drains. Guarded by itself */
+    private final Queue<IopProfileServer.Message> deferredResponses = new ArrayDeque<>();
+
+    public ProfileServerNioSocket(IoManager ioManager, SSLContext sslContext, String host, int port, IopProfileServer.ServerRoleType portType) {
+        if (port<=0) throw new IllegalArgumentException(portType+" port is 0");
+        this.ioManager = ioManager;
+        this.sslContext = sslContext;
+        this.host = host;
+        this.port = port;
+        this.portType = portType;
+    }
+
+    public ProfileServerNioSocket(IoManager ioManager, SSLContext sslContext, String host, int port, IopProfileServer.ServerRoleType portType, String callId, String callSessionToken) {
+        this(ioManager,sslContext,host,port,portType);
+        this.callId = callId;
+        this.callSessionToken = callSessionToken;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        open(InetAddress.getByName(host), CONNECT_TIMEOUT, CONNECT_TIMEOUT);
+        start();
+    }
+
+    /**
+     * The TLS handshake runs on the processor, once the session is connected this waits for his sessionOpened.
+     */
+    @Override
+    public void open(InetAddress address, long connectTimeout, long handshakeTimeout) throws IOException {
+        if (connectionId!=null) throw new IllegalStateException("ProfileServerNioSocket is running");
+        logger.info("connect: "+host+", port "+port);
+        IoSessionConfImp ioSessionConf = new IoSessionConfImp();
+        // the partial frames stay on the session read buffer, it must fit the biggest message
+        ioSessionConf.setProtocolDecoder(DECODER);
+        ioSessionConf.setMaxReadBufferSize(ProfileServerFrameDecoder.MAX_MESSAGE_SIZE);
+        ioSessionConf.setProtocolEncoder(new ProfileServerProtocolEncoder());
+        ioSessionConf.setSslContext(sslContext);
+        ioSessionConf.setIdleTime(IdleStatus.IDLE_WRITE, KEEP_ALIVE_IDLE_TIME);
+        try {
+            ConnectFuture connectFuture = ioManager.connect(new InetSocketAddress(address, port), null, new SessionHandler(), ioSessionConf);
+            connectFuture.get(connectTimeout);
+            if (connectFuture.getConnectionId()==null){
+                Throwable cause = connectFuture.getException();
+                throw (cause!=null) ? new IOException("Cant connect to "+host+":"+port, cause) : new IOException("Connection timeout, "+host+":"+port);
+            }
+            connectionId = connectFuture.getConnectionId();
+            if (!opened.await(handshakeTimeout, TimeUnit.MILLISECONDS)) {
+                closed.set(true);
+                ioManager.close(connectionId);
+                throw new SocketTimeoutException("TLS handshake timeout, "+host+":"+port);
+            }
+            if (closed.get()) throw new IOException("Connection closed during the TLS handshake, "+host+":"+port);
+        } catch (ConnectionFailureException e) {
+            throw new IOException("Cant connect to "+host+":"+port, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (connectionId!=null) {
+                closed.set(true);
+                ioManager.close(connectionId);
+            }
+            throw new IOException("Connect interrupted, "+host+":"+port, e);
+        }
+    }
+
+    @Override
+    public void start() throws IOException {
+        if (connectionId==null) throw new IllegalStateException("ProfileServerNioSocket is not open");
+        started = true;
+        if (closed.get()) {
+            // closed between the open and the start
+            throw new IOException("Connection closed, "+host+":"+port);
+        }
+        handler.portStarted(portType);
+    }
+
+    @Override
+    public void setHandler(PsSocketHandler<IopProfileServer.Message> handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public String getSessionTokenId() {
+        return callSessionToken;
+    }
+
+    @Override
+    public String getId() {
+        return callId;
+    }
+
+    @Override
+    public void write(IopProfileServer.Message message) throws CantSendMessageException {
+        ConnectionId connectionId = this.connectionId;
+        if (connectionId==null || closed.get()) throw new CantSendMessageException("Connection not available with port: "+portType);
+        try {
+            if (message.getMessageTypeCase()==IopProfileServer.Message.MessageTypeCase.RESPONSE) {
+                writeResponse(message, connectionId);
+            } else if (ioManager.trySend(message, connectionId)==null) {
+                throw new ConnectionSaturatedException("Connection saturated with port: "+portType);
+            }
+        } catch (IllegalStateException e){
+            // the session was removed on the processor
+            throw new CantSendMessageException(e);
+        }
+    }
+
+    /**
+     * The acks and answers to the server requests are small and the server waits for them, they are not refused.
+     * A saturated session keeps them here, the ones after them too to keep the order.
+     */
+    private void writeResponse(IopProfileServer.Message message, ConnectionId connectionId) {
+        synchronized (deferredResponses) {
+            if (deferredResponses.isEmpty() && ioManager.trySend(message, connectionId)!=null) {
+                return;
+            }
+            deferredResponses.add(message);
+        }
+        logger.info("Connection saturated with port: "+portType+", response "+message.getId()+" deferred");
+    }
+
+    /**
+     * Write the deferred responses while the session accepts them
+     */
+    private void flushDeferredResponses(ConnectionId connectionId) {
+        synchronized (deferredResponses) {
+            while (!deferredResponses.isEmpty() && ioManager.trySend(deferredResponses.peek(), connectionId)!=null) {
+                deferredResponses.poll();
+            }
+        }
+    }
+
+    /**
+     * Keep the connection alive with a ping every time that it's quiet, the pings come from the processor thread.
+     *
+     * @param protocolVersion ping version
+     */
+    public void enableKeepAlive(byte[] protocolVersion) {
+        this.keepAliveVersion = protocolVersion;
+    }
+
+    @Override
+    public IopProfileServer.ServerRoleType getPortType() {
+        return portType;
+    }
+
+    @Override
+    public void closeNow() throws IOException {
+        logger.info("Closing socket port: "+portType);
+        ConnectionId connectionId = this.connectionId;
+        if (connectionId!=null && ioManager.getActiveSession(connectionId)!=null){
+            // the processor releases the channel and calls sessionClosed
+            ioManager.close(connectionId);
+        }else {
+            notifyClosed();
+        }
+    }
+
+    private void notifyClosed(){
+        // the upper layers don't know the sockets not started
+        if (closed.compareAndSet(false,true) && handler!=null && started){
+            try {
+                handler.sessionClosed(this);
+            } catch (Exception e) {
+                // swallow
+                logger.error("sessionClosed fail", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return connectionId!=null && !closed.get();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return isActive();
+    }
+
+    /**
+     * There is no blocking socket behind this session.
+     */
+    @Override
+    public Socket getChannel() {
+        return null;
+    }
+
+    @Override
+    public boolean isReadSuspended() {
+        return false;
+    }
+
+    @Override
+    public boolean isWriteSuspended() {
+        return false;
+    }
+
+    /**
+     * Events from the processor thread, the work done here must be minimal.
+     */
+    private class SessionHandler implements IoHandler {
+
+        @Override
+        public void sessionCreated(org.furszy.client.interfaces.IoSession session) throws Exception {
+            logger.info("Session created for: "+portType+", session id: "+session.getId());
+        }
+
+        @Override
+        public void sessionOpened(org.furszy.client.interfaces.IoSession session) throws Exception {
+            opened.countDown();
+        }
+
+        @Override
+        public void sessionClosed(org.furszy.client.interfaces.IoSession session) throws Exception {
+            logger.info("Connection closed with portType: " + portType + " , " + callId);
+            synchronized (deferredResponses) {
+                deferredResponses.clear();
+            }
+            notifyClosed();
+            // a connect waiting for the handshake doesn't wait more
+            opened.countDown();
+        }
+
+        @Override
+        public void sessionIdle(org.furszy.client.interfaces.IoSession session, IdleStatus status) throws Exception {
+            byte[] version = keepAliveVersion;
+            if (version!=null && status==IdleStatus.IDLE_WRITE && !closed.get()) {
+                logger.info("sending ping, port: "+portType);
+                // a saturated connection is not quiet, no ping needed
+                ioManager.trySend(MessageFactory.buildPingRequestMessage(PING_PAYLOAD, version), new ConnectionId(session.getId()));
+            }
+        }
+
+        @Override
+        public void writabilityChanged(org.furszy.client.interfaces.IoSession session, boolean writable) throws Exception {
+            logger.info("Connection with port: "+portType+(writable ? " writable again" : " saturated")+", queued bytes: "+session.getScheduledWriteBytes());
+            if (writable) {
+                flushDeferredResponses(new ConnectionId(session.getId()));
+            }
+        }
+
+        @Override
+        public void exceptionCaught(org.furszy.client.interfaces.IoSession session, Throwable cause) throws Exception {
+            if (cause instanceof InvalidProtocolViolationException){
+                logger.error("Invalid message on portType: " + portType + " , " + callId + " removing socket", cause);
+                ioManager.close(new ConnectionId(session.getId()));
+            }else {
+                logger.info("Exception on port: "+port, cause);
+            }
+        }
+
+        @Override
+        public void messageReceived(org.furszy.client.interfaces.IoSession session, Object message) throws Exception {
+            IopProfileServer.Message msg = (IopProfileServer.Message) message;
+            try {
+                handler.messageReceived(ProfileServerNioSocket.this, msg);
+            } catch (Exception e) {
+                logger.error("messageReceived fail, message id: " + msg.getId(), e);
+            }
+        }
+
+        @Override
+        public void messageSent(org.furszy.client.interfaces.IoSession session, Object message) throws Exception {
+            // the writer notifies with the write request
+            IopProfileServer.Message sent = (IopProfileServer.Message) ((WriteRequest) message).getMessage();
+            logger.info("message sent: " + sent.getId());
+            handler.messageSent(ProfileServerNioSocket.this, sent);
+        }
+
+        @Override
+        public void inputClosed(org.furszy.client.interfaces.IoSession session) throws Exception {
+            logger.info("Connection closed, read<0 with portType: " + portType + " , removing socket");
+            ioManager.close(new ConnectionId(session.getId()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileServerNioSocket{" +
+                "tokenId='" + callId + '\'' +
+                ", port=" + port +
+                ", host='" + host + '\'' +
+                ", portType=" + portType +
+                '}';
+    }
+}
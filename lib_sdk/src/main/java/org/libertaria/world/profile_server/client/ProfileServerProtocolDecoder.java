@@ -0,0 +1,65 @@
+package org.libertaria.world.profile_server.client;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ProtocolDecoder;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.libertaria.world.profile_server.client.ProfileServerFrameDecoder.HEADER_SIZE;
+import static org.libertaria.world.profile_server.client.ProfileServerFrameDecoder.HEADER_TAG;
+import static org.libertaria.world.profile_server.client.ProfileServerFrameDecoder.MAX_MESSAGE_SIZE;
+
+/**
+ * Decodes the profile server frames received by the non-blocking client.
+ *
+ * The reader accumulates the bytes on the session buffer, every complete frame is parsed in place and the partial one
+ * is left there for the next read (see {@link ProfileServerFrameDecoder} for the wire format).
+ * The session read buffer must be allowed to grow up to {@link ProfileServerFrameDecoder#MAX_MESSAGE_SIZE}.
+ *
+ * The decoder doesn't keep state, it can be shared by several sessions.
+ */
+public class ProfileServerProtocolDecoder extends ProtocolDecoder<IopProfileServer.Message> {
+
+    @Override
+    public void decode(ByteBuffer byteBuffer, List<IopProfileServer.Message> out) throws InvalidProtocolViolationException {
+        while (byteBuffer.remaining() >= HEADER_SIZE) {
+            int start = byteBuffer.position();
+            int frameSize = frameSize(byteBuffer, start);
+            if (byteBuffer.remaining() < frameSize) {
+                // partial frame
+                break;
+            }
+            // the session buffer is direct, the frame is parsed from the heap: the unsafe direct decoder
+            // of protobuf depends on the VM internals and it isn't available on every platform
+            byte[] frame = new byte[frameSize];
+            byteBuffer.get(frame);
+            try {
+                out.add(IopProfileServer.MessageWithHeader.parser().parseFrom(frame).getBody());
+            } catch (InvalidProtocolBufferException e) {
+                throw new InvalidProtocolViolationException("Invalid profile server frame", e);
+            }
+        }
+    }
+
+    /**
+     * Size of the frame starting at the given index, header included
+     */
+    private static int frameSize(ByteBuffer byteBuffer, int index) throws InvalidProtocolViolationException {
+        int tag = byteBuffer.get(index) & 0xFF;
+        if (tag != HEADER_TAG) {
+            throw new InvalidProtocolViolationException("Invalid header tag: " + tag);
+        }
+        int length = (byteBuffer.get(index + 1) & 0xFF)
+                | ((byteBuffer.get(index + 2) & 0xFF) << 8)
+                | ((byteBuffer.get(index + 3) & 0xFF) << 16)
+                | ((byteBuffer.get(index + 4) & 0xFF) << 24);
+        if (length < 0 || length > MAX_MESSAGE_SIZE - HEADER_SIZE) {
+            throw new InvalidProtocolViolationException("Invalid message length: " + length);
+        }
+        return HEADER_SIZE + length;
+    }
+}
@@ -0,0 +1,119 @@
+package org.libertaria.world.profile_server.client;
+
+import com.google.protobuf.CodedOutputStream;
+
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ProtocolEncoder;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a message into the {@link IopProfileServer.MessageWithHeader} frame, serializing the body only once.
+ *
+ * The returned buffer is positioned at the end of the frame, the writer flips it before sending. The frames that fit on
+ * a pooled buffer of the writer are encoded on it without allocating, the direct ones through a scratch reused by the
+ * encoder, so an instance can't be shared between sessions.
+ */
+public class ProfileServerProtocolEncoder extends ProtocolEncoder<IopProfileServer.Message> {
+
+    private static final int SCRATCH_SIZE = 4096;
+
+    /** Scratch of the frames encoded on direct buffers, every session has his own encoder used only by his processor */
+    private BufferOutputStream bufferOutput = new BufferOutputStream();
+
+    @Override
+    public ByteBuffer encode(IopProfileServer.Message message) throws InvalidProtocolViolationException {
+        int frameBodySize = frameBodySize(message);
+        int frameSize = ProfileServerFrameDecoder.HEADER_SIZE + frameBodySize;
+        byte[] frame = new byte[frameSize];
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(frame);
+            write(output, message, frameBodySize);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new InvalidProtocolViolationException("Error encoding message " + message.getId(), e);
+        }
+        ByteBuffer byteBuffer = ByteBuffer.wrap(frame);
+        byteBuffer.position(frameSize);
+        return byteBuffer;
+    }
+
+    /**
+     * Encode the frame on the buffer of the writer, heap or direct
+     */
+    @Override
+    public boolean encode(IopProfileServer.Message message, ByteBuffer out) throws InvalidProtocolViolationException {
+        int frameBodySize = frameBodySize(message);
+        int frameSize = ProfileServerFrameDecoder.HEADER_SIZE + frameBodySize;
+        if (out.remaining() < frameSize) {
+            return false;
+        }
+        try {
+            if (out.hasArray()) {
+                CodedOutputStream output = CodedOutputStream.newInstance(out.array(), out.arrayOffset() + out.position(), frameSize);
+                write(output, message, frameBodySize);
+                output.checkNoSpaceLeft();
+                out.position(out.position() + frameSize);
+            } else {
+                // the nio encoder of protobuf writes the direct buffers with Unsafe and it crashes on the newer jvms,
+                // the frame goes through the scratch of the encoder instead
+                bufferOutput.target = out;
+                write(bufferOutput.output, message, frameBodySize);
+                bufferOutput.output.flush();
+            }
+        } catch (IOException e) {
+            // the scratch could keep part of the frame
+            bufferOutput = new BufferOutputStream();
+            throw new InvalidProtocolViolationException("Error encoding message " + message.getId(), e);
+        } finally {
+            bufferOutput.target = null;
+        }
+        return true;
+    }
+
+    /**
+     * body tag + varint length + body, the size is cached by the message after the first computation
+     */
+    private static int frameBodySize(IopProfileServer.Message message) throws InvalidProtocolViolationException {
+        int frameBodySize = CodedOutputStream.computeMessageSize(2, message);
+        int frameSize = ProfileServerFrameDecoder.HEADER_SIZE + frameBodySize;
+        if (frameSize > ProfileServerFrameDecoder.MAX_MESSAGE_SIZE)
+            throw new InvalidProtocolViolationException("Message too large: " + frameSize);
+        return frameBodySize;
+    }
+
+    private static void write(CodedOutputStream output, IopProfileServer.Message message, int frameBodySize) throws IOException {
+        output.writeFixed32(1, frameBodySize);
+        output.writeMessage(2, message);
+    }
+
+    /**
+     * Exact frame size, the message caches it and the encoding doesn't compute it again
+     */
+    @Override
+    public int estimateSize(IopProfileServer.Message message) {
+        return ProfileServerFrameDecoder.HEADER_SIZE + CodedOutputStream.computeMessageSize(2, message);
+    }
+
+    /**
+     * Copies the scratch of the coded stream to the target buffer, the remaining room is checked before writing
+     */
+    private static final class BufferOutputStream extends OutputStream {
+
+        private final CodedOutputStream output = CodedOutputStream.newInstance(this, SCRATCH_SIZE);
+        private ByteBuffer target;
+
+        @Override
+        public void write(int b) {
+            target.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            target.put(b, off, len);
+        }
+    }
+}
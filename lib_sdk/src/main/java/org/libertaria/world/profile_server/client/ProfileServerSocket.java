@@ -1,34 +1,37 @@
 package org.libertaria.world.profile_server.client;
 
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
-import com.sun.org.apache.xpath.internal.operations.Bool;
 
 import org.libertaria.world.profile_server.CantSendMessageException;
-import org.libertaria.world.profile_server.IoSession;
 import org.libertaria.world.profile_server.protocol.IopProfileServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
-import java.nio.ByteBuffer;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.SocketFactory;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
 
 /**
  * Created by mati on 08/11/16.
  */
 
-public class ProfileServerSocket implements IoSession<IopProfileServer.Message> {
+public class ProfileServerSocket implements PsSocket {
 
     private static final Logger logger = LoggerFactory.getLogger(ProfileServerSocket.class);
+    /** Connect and handshake timeout in millis when the host is resolved here */
+    private static final long CONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(45);
+    /** Outgoing buffer, the bigger fields of a message are written straight to the socket */
+    private static final int WRITE_BUFFER_SIZE = 8192;
     /** socket id */
     private String callId;
     private String callSessionToken;
@@ -44,7 +47,14 @@ public class ProfileServerSocket implements IoSession<IopProfileServer.Message>
     private PsSocketHandler<IopProfileServer.Message> handler;
     /** Reader thread */
     private Thread readThread;
-    private ExecutorService executorService;
+    /** Incoming frames decoder, owned by the reader thread */
+    private ProfileServerFrameDecoder frameDecoder;
+    /** Frames encoder over the socket stream, reused by every write */
+    private CodedOutputStream output;
+    /** Set once the reader is started and the upper layers know the socket */
+    private volatile boolean started;
+    /** Writes of concurrent senders are not interleaved */
+    private final Object writeLock = new Object();
 
     public ProfileServerSocket(SocketFactory socketFactory, String host, int port,IopProfileServer.ServerRoleType portType) throws Exception {
         this.socketFactory = socketFactory;
@@ -52,7 +62,6 @@ public class ProfileServerSocket implements IoSession<IopProfileServer.Message>
         this.port = port;
         this.host = host;
         this.portType = portType;
-        this.executorService = Executors.newFixedThreadPool(3);
     }
 
     public ProfileServerSocket(SocketFactory socketFactory, String host, int port,IopProfileServer.ServerRoleType portType,String callId,String callSessionToken) throws Exception {
@@ -61,15 +70,59 @@ public class ProfileServerSocket implements IoSession<IopProfileServer.Message>
         this.callSessionToken = callSessionToken;
     }
 
+    @Override
     public void connect() throws IOException {
+        open(InetAddress.getByName(host), CONNECT_TIMEOUT, CONNECT_TIMEOUT);
+        start();
+    }
+
+    @Override
+    public void open(InetAddress address, long connectTimeout, long handshakeTimeout) throws IOException {
         if ((socket!=null && readThread!=null) && (socket.isConnected() || readThread.isAlive())) throw new IllegalStateException("ProfileServerSocket is running");
-        logger.info("connect: "+host+", port "+port);
-        this.socket = socketFactory.createSocket(host,port);
+        logger.info("connect: "+address+", port "+port);
+        this.socket = openSocket(address, connectTimeout, handshakeTimeout);
+    }
+
+    @Override
+    public void start() throws IOException {
+        if (socket==null) throw new IllegalStateException("ProfileServerSocket is not open");
+        started = true;
+        frameDecoder = new ProfileServerFrameDecoder();
+        synchronized (writeLock) {
+            output = CodedOutputStream.newInstance(socket.getOutputStream(), WRITE_BUFFER_SIZE);
+        }
         readThread = new Thread(new Reader(),"Thread-reader-host-"+host+"-port-"+port);
         readThread.start();
         handler.portStarted(portType);
     }
 
+    /**
+     * Connect and finish the TLS handshake with their own timeouts, the read timeout is cleared after the handshake
+     */
+    private Socket openSocket(InetAddress address, long connectTimeout, long handshakeTimeout) throws IOException {
+        boolean secure = socketFactory instanceof SSLSocketFactory;
+        Socket socket = secure ? new Socket() : socketFactory.createSocket();
+        try {
+            socket.connect(new InetSocketAddress(address, port), (int) connectTimeout);
+            if (secure) {
+                SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) socketFactory).createSocket(socket, host, port, true);
+                socket = sslSocket;
+                sslSocket.setSoTimeout((int) handshakeTimeout);
+                sslSocket.startHandshake();
+                sslSocket.setSoTimeout(0);
+            }
+            return socket;
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException e1) {
+                // nothing
+            }
+            throw e;
+        }
+    }
+
+    @Override
     public void setHandler(PsSocketHandler<IopProfileServer.Message> handler) {
         this.handler = handler;
     }
@@ -84,43 +137,43 @@ public class ProfileServerSocket implements IoSession<IopProfileServer.Message>
         return callId;
     }
 
+    /**
+     * Blocking write on the caller thread, the message is serialized once straight into the socket buffer.
+     * A stalled connection is detected by the keep alive, closing the socket releases the writer.
+     */
+    @Override
     public void write(IopProfileServer.Message message) throws CantSendMessageException {
         try {
-            int messageSize = message.toByteArray().length;
-            IopProfileServer.MessageWithHeader messageWithHeaderBuilder = IopProfileServer.MessageWithHeader.newBuilder()
-                    .setHeader(messageSize+computeProtocolOverhead(messageSize))
-                    .setBody(message)
-                    .build();
-            final byte[] messageToSend = messageWithHeaderBuilder.toByteArray();
-            logger.info("Message "+message.getId()+" lenght to send: "+messageToSend.length+", Message lenght in the header: "+messageWithHeaderBuilder.getHeader());
-            // timeout
-            final Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
-                @Override
-                public Boolean call() throws Exception {
-                    try {
-                        socket.getOutputStream().write(messageToSend);
-                        socket.getOutputStream().flush();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        return false;
-                    }
-                    return true;
-                }
-            });
-            boolean ret = future.get(15,TimeUnit.SECONDS);
-            if (ret) {
-                logger.info("message sent: " + message.getId());
-                handler.messageSent(this, message);
-            }else {
-                checkSocket();
+            int frameSize;
+            synchronized (writeLock) {
+                frameSize = writeFrame(output, message);
+                output.flush();
             }
+            logger.info("message sent: " + message.getId() + ", frame size: " + frameSize);
+            handler.messageSent(this, message);
         }catch (Exception e){
-            e.printStackTrace();
+            logger.warn("write fail, message id: " + message.getId(), e);
             checkSocket();
             throw new CantSendMessageException(e);
         }
     }
 
+    /**
+     * Write the {@link IopProfileServer.MessageWithHeader} frame without building it, the header holds the size of
+     * the body tag, his varint length and the body. The size is computed once and cached by the message.
+     *
+     * @return frame size
+     */
+    static int writeFrame(CodedOutputStream output, IopProfileServer.Message message) throws IOException {
+        int frameBodySize = CodedOutputStream.computeMessageSize(2, message);
+        int frameSize = ProfileServerFrameDecoder.HEADER_SIZE + frameBodySize;
+        if (frameSize > ProfileServerFrameDecoder.MAX_MESSAGE_SIZE)
+            throw new IOException("Message too large: " + frameSize);
+        output.writeFixed32(1, frameBodySize);
+        output.writeMessage(2, message);
+        return frameSize;
+    }
+
     private void checkSocket(){
         try {
             if (socket.isClosed()) {
@@ -131,69 +184,31 @@ public class ProfileServerSocket implements IoSession<IopProfileServer.Message>
         }
     }
 
-    private int computeProtocolOverhead(int lenght){
-        if (lenght<0) throw new IllegalArgumentException("lenght < 0");
-        int overhead = 0;
-        if (lenght<=127){
-            // 1 byte overhead + 1 byte type
-            overhead = 2;
-        }else if (lenght<=16383){
-            // 2 byte  overhead + 1 byte type
-            overhead = 3;
-        } else{
-            // 3 byte overhead + 1 byte type
-            overhead = 4;
+    /**
+     * Blocking read, waits until there is data available and delivers every complete message received.
+     * Partial frames are kept in the decoder buffer until the rest of the bytes arrive.
+     *
+     * @return false if the connection was closed
+     */
+    private boolean read(InputStream inputStream) throws IOException {
+        // prepare first, the buffer could be replaced to fit the pending frame
+        int length = frameDecoder.prepareForWrite();
+        int count = inputStream.read(frameDecoder.array(), frameDecoder.writeIndex(), length);
+        if (count < 0) {
+            // read < 0 -> connection closed
+            logger.info("Connection closed, read<0 with portType: " + portType + " , removing socket");
+            return false;
         }
-        return overhead;
-    }
-
-    private synchronized void read() {
-        int count;
-        byte[] buffer = new byte[8192];
-        try {
-            // read reply
-            if (!socket.isInputShutdown()) {
-                count = socket.getInputStream().read(buffer);
-                logger.info("Reciving data..");
-                IopProfileServer.MessageWithHeader message1 = null;
-                if (count > 0) {
-                    ByteBuffer byteBufferToRead = ByteBuffer.allocate(count);
-                    byteBufferToRead.put(buffer, 0, count);
-                    message1 = IopProfileServer.MessageWithHeader.parseFrom(byteBufferToRead.array());
-                    handler.messageReceived(this, message1.getBody());
-                } else {
-                    // read < 0 -> connection closed
-                    logger.info("Connection closed, read<0 with portType: " + portType +" , read: "+count+ " , removing socket");
-                    closeNow();
-                }
-            } else {
-                // input stream closed
-                logger.info("Connection closed, input stream shutdown with portType: " + portType + " , removing socket");
-                closeNow();
-            }
-        } catch (InvalidProtocolBufferException e) {
-//                throw new InvalidProtocolViolation("Invalid message",e);
-            e.printStackTrace();
-        } catch (javax.net.ssl.SSLException e) {
-            e.printStackTrace();
-            // something bad happen..
-            logger.info("Connection closed, sslException with portType: " + portType + " , " + callId + " removing socket");
-            try {
-                closeNow();
-            } catch (IOException e1) {
-                // nothing..
-            }
-        } catch (SocketException e){
-            e.printStackTrace();
-            logger.info("Connection closed, sslException with portType: " + portType + " , " + callId + " removing socket");
+        frameDecoder.written(count);
+        IopProfileServer.Message message;
+        while ((message = frameDecoder.nextMessage()) != null) {
             try {
-                closeNow();
-            } catch (IOException e1) {
-                // nothing..
+                handler.messageReceived(this, message);
+            } catch (Exception e) {
+                logger.error("messageReceived fail, message id: " + message.getId(), e);
             }
-        } catch (Exception e){
-            e.printStackTrace();
         }
+        return true;
     }
 
     public IopProfileServer.ServerRoleType getPortType() {
@@ -207,14 +222,10 @@ public class ProfileServerSocket implements IoSession<IopProfileServer.Message>
             readThread.interrupt();
             readThread = null;
         }
-        if (executorService!=null){
-            executorService.shutdownNow();
-            executorService = null;
-        }
         if (!socket.isClosed())
             socket.close();
-        // notify upper layers
-        if (handler!=null){
+        // notify upper layers, they don't know the sockets not started
+        if (handler!=null && started){
             try {
                 handler.sessionClosed(this);
             } catch (Exception e) {
@@ -255,32 +266,32 @@ public class ProfileServerSocket implements IoSession<IopProfileServer.Message>
 
         @Override
         public void run() {
+            logger.info("Reader started for: "+port);
             try {
-                logger.info("Reader started for: "+port);
-
-                for (;;) {
-                    if (!socket.isClosed()) {
-                        read();
-
-                        if (!Thread.interrupted()) {
-                            TimeUnit.SECONDS.sleep(1);
-                        }
-                    }else {
-                        if (!Thread.currentThread().isInterrupted())
-                            Thread.currentThread().interrupt();
+                InputStream inputStream = socket.getInputStream();
+                while (!Thread.currentThread().isInterrupted() && !socket.isClosed()) {
+                    if (socket.isInputShutdown()) {
+                        // input stream closed
+                        logger.info("Connection closed, input stream shutdown with portType: " + portType + " , removing socket");
+                        break;
+                    }
+                    if (!read(inputStream)) {
+                        break;
                     }
                 }
-            } catch (InterruptedException e){
-                // this happen when the thread is sleep and someone interrupt it.
-                logger.info("InterruptedException on port: "+port);
-                try {
-                    closeNow();
-                } catch (IOException e1) {
-                    e1.printStackTrace();
-                }
+            } catch (InvalidProtocolBufferException e){
+                logger.error("Invalid message on portType: " + portType + " , " + callId + " removing socket", e);
+            } catch (javax.net.ssl.SSLException e) {
+                // something bad happen..
+                logger.info("Connection closed, sslException with portType: " + portType + " , " + callId + " removing socket");
+            } catch (SocketException e){
+                logger.info("Connection closed, socketException with portType: " + portType + " , " + callId + " removing socket");
             } catch (Exception e){
                 logger.info("Exception on port: "+port);
                 e.printStackTrace();
+            }
+            // the socket could be already closed by closeNow, in that case upper layers are already notified
+            if (!socket.isClosed()) {
                 try {
                     closeNow();
                 } catch (IOException e1) {
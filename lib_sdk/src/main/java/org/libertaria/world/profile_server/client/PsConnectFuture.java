@@ -0,0 +1,168 @@
+package org.libertaria.world.profile_server.client;
+
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connection attempt with a profile server port.
+ *
+ * It's completed once, with the connected socket or with the failure. Every caller connecting to the same port (or the
+ * same call on the app service port) while the attempt is running gets this future. The listeners added before the
+ * completion are notified from the connecting thread, the ones added after from the caller thread.
+ */
+public class PsConnectFuture {
+
+    private static final Logger logger = LoggerFactory.getLogger(PsConnectFuture.class);
+
+    public interface Listener {
+
+        void onComplete(PsConnectFuture future);
+    }
+
+    private final IopProfileServer.ServerRoleType portType;
+    private final int port;
+    private final String callId;
+    private final String token;
+    /** Set by the thread that runs the attempt */
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile PsSocket socket;
+    private volatile Throwable exception;
+    /** Guarded by this, null once completed */
+    private List<Listener> listeners = new ArrayList<>();
+
+    PsConnectFuture(IopProfileServer.ServerRoleType portType, int port, String callId, String token) {
+        this.portType = portType;
+        this.port = port;
+        this.callId = callId;
+        this.token = token;
+    }
+
+    static PsConnectFuture connected(IopProfileServer.ServerRoleType portType, String callId, PsSocket socket) {
+        PsConnectFuture future = new PsConnectFuture(portType, 0, callId, null);
+        future.claim();
+        future.setConnected(socket);
+        return future;
+    }
+
+    static PsConnectFuture failed(IopProfileServer.ServerRoleType portType, String callId, Throwable exception) {
+        PsConnectFuture future = new PsConnectFuture(portType, 0, callId, null);
+        future.claim();
+        future.setException(exception);
+        return future;
+    }
+
+    /**
+     * @return true for the only caller that has to run the attempt
+     */
+    boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    boolean setConnected(PsSocket socket) {
+        this.socket = socket;
+        return complete();
+    }
+
+    boolean setException(Throwable exception) {
+        this.exception = exception;
+        return complete();
+    }
+
+    private boolean complete() {
+        List<Listener> toNotify;
+        synchronized (this) {
+            if (listeners == null) return false;
+            toNotify = listeners;
+            listeners = null;
+            done.countDown();
+        }
+        for (Listener listener : toNotify) {
+            notify(listener);
+        }
+        return true;
+    }
+
+    public void addListener(Listener listener) {
+        synchronized (this) {
+            if (listeners != null) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        notify(listener);
+    }
+
+    private void notify(Listener listener) {
+        try {
+            listener.onComplete(this);
+        } catch (Exception e) {
+            logger.error("Connect listener fail, port: " + portType, e);
+        }
+    }
+
+    /**
+     * Wait for the attempt
+     *
+     * @return false if it's still running after the timeout
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    public boolean isConnected() {
+        return isDone() && socket != null;
+    }
+
+    /**
+     * @return the connected socket, null if it's not connected
+     */
+    public PsSocket getSocket() {
+        return socket;
+    }
+
+    /**
+     * @return the failure, null if it's connected or still connecting
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
+    public IopProfileServer.ServerRoleType getPortType() {
+        return portType;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getCallId() {
+        return callId;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    @Override
+    public String toString() {
+        return "PsConnectFuture{" +
+                "portType=" + portType +
+                ", port=" + port +
+                ", callId='" + callId + '\'' +
+                ", done=" + isDone() +
+                ", connected=" + isConnected() +
+                '}';
+    }
+}
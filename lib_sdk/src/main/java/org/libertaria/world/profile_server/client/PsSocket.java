@@ -0,0 +1,42 @@
+package org.libertaria.world.profile_server.client;
+
+import org.libertaria.world.profile_server.CantSendMessageException;
+import org.libertaria.world.profile_server.IoSession;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+
+/**
+ * Connection with a single profile server port.
+ *
+ * Implemented by the blocking {@link ProfileServerSocket} (one reader thread per socket)
+ * and by {@link ProfileServerNioSocket} (every socket served by a shared selector loop).
+ */
+public interface PsSocket extends IoSession<IopProfileServer.Message> {
+
+    /**
+     * Open the connection, once connected the handler is notified with {@link PsSocketHandler#portStarted(IopProfileServer.ServerRoleType)}
+     */
+    void connect() throws IOException;
+
+    /**
+     * Open the connection with the host already resolved without starting it, the handler is not notified until
+     * {@link #start()}. A socket not started is released with {@link #closeNow()} without notifying the handler.
+     *
+     * @param connectTimeout millis to establish the connection
+     * @param handshakeTimeout millis to finish the TLS handshake on the secure ports
+     */
+    void open(InetAddress address, long connectTimeout, long handshakeTimeout) throws IOException;
+
+    /**
+     * Start serving the opened connection, the handler is notified with {@link PsSocketHandler#portStarted(IopProfileServer.ServerRoleType)}
+     */
+    void start() throws IOException;
+
+    void setHandler(PsSocketHandler<IopProfileServer.Message> handler);
+
+    @Override
+    void write(IopProfileServer.Message message) throws CantSendMessageException;
+
+}
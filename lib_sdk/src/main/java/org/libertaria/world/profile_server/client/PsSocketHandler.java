@@ -22,6 +22,11 @@ public interface PsSocketHandler<T> {
 
     void portStarted(IopProfileServer.ServerRoleType portType);
 
+    /**
+     * The message was waiting for the connection of the port and the connection failed
+     */
+    void messageNotSent(IopProfileServer.ServerRoleType portType, T message, Throwable cause);
+
     void inputClosed(IoSession session) throws Exception;
 
 }
@@ -0,0 +1,323 @@
+package org.libertaria.world.profile_server.engine;
+
+import com.google.protobuf.ByteString;
+
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same search sent to the home server and his neighbours at the same time, the results read one by one as they
+ * arrive from any of them.
+ *
+ * Every server is read with a {@link SearchProfilesStream} of his own that pages it with part requests one after the
+ * other. A profile found by more than one server is delivered once, the public key decides. The servers are identified
+ * by their network id: the ones searched, and the ones that a server reports as covered by his response, are covered
+ * for the rest of this search and are not asked. The covered servers of the query are taken as covered from the start,
+ * the query is not modified. The search ends when every server is done or at the deadline, the servers that didn't
+ * answer by then are dropped. A server that fails is dropped too, the rest go on.
+ */
+public class FederatedSearch implements Iterator<IopProfileServer.ProfileQueryInformation>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FederatedSearch.class);
+
+    public static final long DEFAULT_DEADLINE = TimeUnit.SECONDS.toMillis(15);
+    /** Servers searched at the same time */
+    public static final int DEFAULT_MAX_PARALLEL = 4;
+    /** The parts of a server are requested one after the other */
+    private static final int BUFFERED_PAGES = 1;
+
+    /**
+     * Server of the search
+     */
+    public interface Server extends SearchProfilesStream.PageSource {
+
+        /**
+         * @return network id in hex, null if it's not known until the server is connected. Matched against the
+         * covered servers.
+         */
+        String getId();
+    }
+
+    private final SearchProfilesQuery query;
+    private final int maxParallel;
+    private final long deadline;
+
+    /** Guarded by this */
+    private final LinkedList<Server> waiting = new LinkedList<>();
+    private final List<ServerSearch> searching = new ArrayList<>();
+    private final Set<String> coveredServers = new LinkedHashSet<>();
+    private final ArrayDeque<IopProfileServer.ProfileQueryInformation> results = new ArrayDeque<>();
+    private final Set<ByteString> delivered = new HashSet<>();
+    private final List<String> failedServers = new ArrayList<>();
+    private int searchedServers;
+    private int skippedServers;
+    private int duplicates;
+    private boolean started;
+    private boolean closed;
+    private boolean timedOut;
+
+    /**
+     * @param query       the servers in his covered servers are not asked
+     * @param servers     the home server first
+     * @param maxParallel servers searched at the same time
+     * @param deadline    millis to finish the whole search
+     */
+    public FederatedSearch(SearchProfilesQuery query, List<? extends Server> servers, int maxParallel, long deadline) {
+        if (maxParallel < 1) throw new IllegalArgumentException("max parallel < 1");
+        if (deadline <= 0) throw new IllegalArgumentException("deadline <= 0");
+        this.query = query;
+        this.maxParallel = maxParallel;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline);
+        this.coveredServers.addAll(query.getCoveredServers());
+        Set<String> ids = new HashSet<>();
+        for (Server server : servers) {
+            String id = server.getId();
+            if (id == null || ids.add(id)) {
+                waiting.add(server);
+            }
+        }
+    }
+
+    /**
+     * Send the search to the first servers
+     */
+    public void start() {
+        synchronized (this) {
+            if (started) throw new IllegalStateException("Start already called");
+            started = true;
+        }
+        dispatch();
+    }
+
+    @Override
+    public boolean hasNext() {
+        List<SearchProfilesStream> toClose;
+        synchronized (this) {
+            while (true) {
+                if (!results.isEmpty()) return true;
+                if (closed) return false;
+                if (searching.isEmpty() && waiting.isEmpty()) {
+                    toClose = closeNow();
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    logger.info("Federated search " + query.getProfileName() + " timed out, servers not done: " + (searching.size() + waiting.size()));
+                    timedOut = true;
+                    toClose = closeNow();
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close(closeNow());
+                    throw new IllegalStateException("Interrupted waiting for the search results");
+                }
+            }
+        }
+        close(toClose);
+        return false;
+    }
+
+    @Override
+    public synchronized IopProfileServer.ProfileQueryInformation next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return results.poll();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Stop the search, the pending results are dropped
+     */
+    @Override
+    public void close() {
+        List<SearchProfilesStream> toClose;
+        synchronized (this) {
+            toClose = closeNow();
+        }
+        close(toClose);
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return true if the deadline came before every server was done
+     */
+    public synchronized boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public SearchProfilesQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @return network ids in hex of the servers covered by this search, the ones of the query included
+     */
+    public synchronized List<String> getCoveredServers() {
+        return new ArrayList<>(coveredServers);
+    }
+
+    /**
+     * @return servers asked
+     */
+    public synchronized int getSearchedServers() {
+        return searchedServers;
+    }
+
+    /**
+     * @return servers not asked because they were already covered
+     */
+    public synchronized int getSkippedServers() {
+        return skippedServers;
+    }
+
+    public synchronized List<String> getFailedServers() {
+        return new ArrayList<>(failedServers);
+    }
+
+    /**
+     * @return results dropped because another server delivered them before
+     */
+    public synchronized int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Guarded by this
+     *
+     * @return the streams to close outside the lock
+     */
+    private List<SearchProfilesStream> closeNow() {
+        List<SearchProfilesStream> toClose = new ArrayList<>();
+        if (closed) return toClose;
+        closed = true;
+        results.clear();
+        waiting.clear();
+        for (ServerSearch search : searching) {
+            toClose.add(search.stream);
+        }
+        searching.clear();
+        notifyAll();
+        return toClose;
+    }
+
+    private static void close(List<SearchProfilesStream> streams) {
+        for (SearchProfilesStream stream : streams) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Start the waiting servers while there is room, outside the lock
+     */
+    private void dispatch() {
+        while (true) {
+            ServerSearch search;
+            synchronized (this) {
+                if (closed || searching.size() >= maxParallel) return;
+                Server server = nextServer();
+                if (server == null) {
+                    notifyAll();
+                    return;
+                }
+                search = new ServerSearch(server);
+                searching.add(search);
+                searchedServers++;
+            }
+            search.stream.start();
+        }
+    }
+
+    /**
+     * Guarded by this
+     */
+    private Server nextServer() {
+        while (!waiting.isEmpty()) {
+            Server server = waiting.poll();
+            String id = server.getId();
+            if (id == null || coveredServers.add(id)) {
+                return server;
+            }
+            skippedServers++;
+        }
+        return null;
+    }
+
+    /**
+     * Search of one of the servers, his stream takes care of the paging
+     */
+    private final class ServerSearch implements SearchProfilesStream.Listener {
+
+        private final Server server;
+        private final SearchProfilesStream stream;
+
+        ServerSearch(Server server) {
+            this.server = server;
+            this.stream = new SearchProfilesStream(new SearchProfilesQuery(query), server, BUFFERED_PAGES, this);
+        }
+
+        @Override
+        public void onCoveredServers(SearchProfilesStream stream, List<String> covered) {
+            synchronized (FederatedSearch.this) {
+                if (closed) return;
+                // the id of a server connected for this search is known now
+                String id = server.getId();
+                if (id != null) coveredServers.add(id);
+                coveredServers.addAll(covered);
+            }
+        }
+
+        @Override
+        public void onUpdate(SearchProfilesStream stream) {
+            IopProfileServer.ProfileQueryInformation profile;
+            while ((profile = stream.poll()) != null) {
+                synchronized (FederatedSearch.this) {
+                    if (closed) return;
+                    if (delivered.add(profile.getSignedProfile().getProfile().getPublicKey())) {
+                        results.add(profile);
+                        FederatedSearch.this.notifyAll();
+                    } else {
+                        duplicates++;
+                    }
+                }
+            }
+            if (!stream.isClosed()) return;
+            synchronized (FederatedSearch.this) {
+                if (!searching.remove(this)) return;
+                String failure = stream.getFailure();
+                if (failure != null) {
+                    logger.warn("Federated search on " + getServerName() + " failed, " + failure);
+                    failedServers.add(getServerName());
+                }
+                FederatedSearch.this.notifyAll();
+            }
+            dispatch();
+        }
+
+        private String getServerName() {
+            String id = server.getId();
+            return (id != null) ? id : server.toString();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.libertaria.world.profile_server.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the tasks of the same key in order and the tasks of different keys in parallel.
+ *
+ * Every key with pending tasks has a queue, at most one task of a queue is on the executor at a time. The queues are
+ * bounded, a task that doesn't fit is rejected and counted. A task is queued once the executor took the queue, if the
+ * executor rejects it the task is rejected too. The queue of a key is released when it's empty.
+ */
+public class KeyedSerialExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeyedSerialExecutor.class);
+
+    /** Tasks of a key run before giving the thread to the other keys */
+    private static final int MAX_TASKS_PER_RUN = 16;
+
+    private final Executor executor;
+    private final int maxQueueSize;
+    private final ConcurrentMap<Object, SerialQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong overflows = new AtomicLong();
+
+    /**
+     * @param executor     runs the queues on his own threads, never on the caller
+     * @param maxQueueSize tasks waiting per key
+     */
+    public KeyedSerialExecutor(Executor executor, int maxQueueSize) {
+        if (maxQueueSize <= 0) throw new IllegalArgumentException("max queue size <= 0");
+        this.executor = executor;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Run the task after the previous ones of the key, a null key runs it without order
+     *
+     * @return false if the queue of the key is full or the executor rejected it, the task was not queued
+     */
+    public boolean execute(Object key, Runnable task) {
+        if (key == null) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                reject(key, e);
+                return false;
+            }
+            return true;
+        }
+        for (;;) {
+            SerialQueue queue = queues.get(key);
+            if (queue == null) {
+                SerialQueue newQueue = new SerialQueue(key);
+                queue = queues.putIfAbsent(key, newQueue);
+                if (queue == null) {
+                    queue = newQueue;
+                }
+            }
+            synchronized (queue) {
+                if (queue.released) {
+                    // emptied and removed meanwhile
+                    continue;
+                }
+                if (queue.tasks.size() >= maxQueueSize) {
+                    long count = overflows.incrementAndGet();
+                    LOG.warn("Queue full for key: " + key + ", task rejected. Total rejected: " + count);
+                    return false;
+                }
+                if (!queue.running) {
+                    // the queue is empty, handed to the executor before the task is queued. The worker waits for the lock
+                    queue.running = true;
+                    try {
+                        executor.execute(queue);
+                    } catch (RejectedExecutionException e) {
+                        queue.running = false;
+                        queue.released = true;
+                        queues.remove(key, queue);
+                        reject(key, e);
+                        return false;
+                    }
+                }
+                queue.tasks.add(task);
+                queued.incrementAndGet();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return tasks waiting on every queue
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return keys with pending or running tasks
+     */
+    public int getActiveKeys() {
+        return queues.size();
+    }
+
+    /**
+     * @return tasks rejected because the queue of the key was full or the executor rejected them
+     */
+    public long getOverflowCount() {
+        return overflows.get();
+    }
+
+    private void reject(Object key, RejectedExecutionException e) {
+        long count = overflows.incrementAndGet();
+        LOG.warn("Executor rejected the task of key: " + key + ". Total rejected: " + count, e);
+    }
+
+    private class SerialQueue implements Runnable {
+
+        private final Object key;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+        private boolean released;
+
+        SerialQueue(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        running = false;
+                        released = true;
+                        queues.remove(key, this);
+                        return;
+                    }
+                }
+                queued.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    LOG.error("Task fail for key: " + key, e);
+                }
+            }
+            // more tasks, the other keys go first
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                int dropped;
+                synchronized (this) {
+                    dropped = tasks.size();
+                    tasks.clear();
+                    running = false;
+                    released = true;
+                    queues.remove(key, this);
+                }
+                queued.addAndGet(-dropped);
+                overflows.addAndGet(dropped);
+                LOG.error("Executor rejected the queue of key: " + key + ", tasks dropped: " + dropped, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.libertaria.world.profile_server.engine;
+
+import org.libertaria.world.core.IoPScheduler;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Listeners of the requests waiting for a response, by message id.
+ *
+ * Every listener is removed once: by the response, by a send failure or by his deadline. The deadlines are kept on a
+ * hashed timing wheel ticked by a single thread, a listener without response fails with
+ * {@link RequestPipeline#STATUS_TIMEOUT}. The entries answered before the deadline release their listener at once
+ * and leave the wheel on their tick, so the memory is bounded by the requests sent within a timeout.
+ */
+public class MsgListenersRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MsgListenersRegistry.class);
+
+    /**
+     * Listener registration, the listener is cleared when the request completes
+     */
+    private static class Entry {
+
+        private final int messageId;
+        private final AtomicReference<ProfSerMsgListener<?>> listener;
+        private final long registrationTime;
+        private final long deadline;
+
+        Entry(int messageId, ProfSerMsgListener<?> listener, long registrationTime, long deadline) {
+            this.messageId = messageId;
+            this.listener = new AtomicReference<ProfSerMsgListener<?>>(listener);
+            this.registrationTime = registrationTime;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return the listener, null if it was already completed
+         */
+        ProfSerMsgListener<?> complete() {
+            return listener.getAndSet(null);
+        }
+    }
+
+    private final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    /** New deadlines, moved to the wheel on the next tick */
+    private final ConcurrentLinkedQueue<Entry> newEntries = new ConcurrentLinkedQueue<>();
+    /** Wheel buckets, used only from the ticking thread */
+    private final List<List<Entry>> buckets;
+    private final int mask;
+    private final long tickDuration;
+    /** Last tick expired */
+    private long currentTick = -1;
+    /** Deadlines on the wheel, the completed ones waiting for their tick included */
+    private volatile int wheelSize;
+    private IoPScheduler.Task ticker;
+
+    /**
+     * @param tickDuration deadlines precision in millis
+     * @param ticksPerWheel buckets, rounded up to a power of two
+     */
+    public MsgListenersRegistry(long tickDuration, int ticksPerWheel) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("tick duration <= 0");
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) throw new IllegalArgumentException("ticks per wheel out of range");
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.tickDuration = tickDuration;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<Entry>());
+        }
+    }
+
+    /**
+     * Tick the wheel on the scheduler until {@link #stop()}
+     */
+    public synchronized void start(IoPScheduler.TaskGroup scheduler) {
+        if (ticker != null) return;
+        ticker = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    expire(System.currentTimeMillis());
+                } catch (Exception e) {
+                    LOG.error("Request deadlines check fail", e);
+                }
+            }
+        }, tickDuration, tickDuration, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the ticks, the pending listeners are not notified
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.cancel();
+            ticker = null;
+        }
+    }
+
+    /**
+     * @param timeout millis to receive the response
+     */
+    public void register(int messageId, ProfSerMsgListener<?> listener, long timeout) {
+        register(messageId, listener, timeout, System.currentTimeMillis());
+    }
+
+    void register(int messageId, ProfSerMsgListener<?> listener, long timeout, long currentTime) {
+        Entry entry = new Entry(messageId, listener, currentTime, currentTime + timeout);
+        Entry previous = entries.put(messageId, entry);
+        if (previous != null && previous.complete() != null) {
+            LOG.warn("Message id reused before his response, the previous listener is discarded: " + messageId);
+        }
+        newEntries.offer(entry);
+    }
+
+    /**
+     * Listener of a request without removing it
+     */
+    public ProfSerMsgListener<?> get(int messageId) {
+        Entry entry = entries.get(messageId);
+        return (entry != null) ? entry.listener.get() : null;
+    }
+
+    /**
+     * Remove the listener, the response arrived or it's not expected anymore
+     *
+     * @return the listener or null if it was already removed
+     */
+    public ProfSerMsgListener<?> remove(int messageId) {
+        Entry entry = entries.remove(messageId);
+        return (entry != null) ? entry.complete() : null;
+    }
+
+    /**
+     * @return requests waiting for a response
+     */
+    public int getPendingCount() {
+        return entries.size();
+    }
+
+    /**
+     * Age of the request waiting for longer, it scans the pending requests.
+     *
+     * @return millis, 0 if there are no pending requests
+     */
+    public long getOldestAge(long currentTime) {
+        long oldest = currentTime;
+        for (Entry entry : entries.values()) {
+            oldest = Math.min(oldest, entry.registrationTime);
+        }
+        return currentTime - oldest;
+    }
+
+    /**
+     * @return deadlines on the wheel, the ones of the completed requests waiting for their tick included
+     */
+    public int getWheelSize() {
+        return wheelSize + newEntries.size();
+    }
+
+    /**
+     * Fail the listeners with an elapsed deadline, called from a single thread
+     */
+    void expire(long currentTime) {
+        long lastTick = currentTime / tickDuration;
+        if (currentTick < 0) {
+            currentTick = lastTick - 1;
+        }
+        int size = wheelSize;
+        Entry entry;
+        while ((entry = newEntries.poll()) != null) {
+            if (entry.listener.get() == null) {
+                // answered before reaching the wheel
+                continue;
+            }
+            long tick = Math.max((entry.deadline + tickDuration - 1) / tickDuration, currentTick + 1);
+            buckets.get((int) (tick & mask)).add(entry);
+            size++;
+        }
+        // a full round visits every bucket
+        long fromTick = Math.max(currentTick + 1, lastTick - mask);
+        for (long tick = fromTick; tick <= lastTick; tick++) {
+            List<Entry> bucket = buckets.get((int) (tick & mask));
+            int kept = 0;
+            for (int i = 0; i < bucket.size(); i++) {
+                Entry bucketEntry = bucket.get(i);
+                if (bucketEntry.listener.get() == null) {
+                    size--;
+                } else if (bucketEntry.deadline <= currentTime) {
+                    size--;
+                    timeout(bucketEntry);
+                } else {
+                    // a further round
+                    bucket.set(kept++, bucketEntry);
+                }
+            }
+            for (int i = bucket.size() - 1; i >= kept; i--) {
+                bucket.remove(i);
+            }
+        }
+        currentTick = Math.max(currentTick, lastTick);
+        wheelSize = size;
+    }
+
+    private void timeout(Entry entry) {
+        entries.remove(entry.messageId, entry);
+        ProfSerMsgListener<?> listener = entry.complete();
+        if (listener != null) {
+            LOG.info("Response not received on time, message id: " + entry.messageId);
+            try {
+                listener.onMsgFail(entry.messageId, RequestPipeline.STATUS_TIMEOUT, "Response not received on time");
+            } catch (Exception e) {
+                LOG.error("Request timeout listener fail, message id: " + entry.messageId, e);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.libertaria.world.profile_server.engine;
 
+import org.bitcoinj.core.Sha256Hash;
 import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
 import org.libertaria.world.profile_server.protocol.IopProfileServer;
 import org.slf4j.Logger;
@@ -202,6 +203,17 @@ public class ProfSerConnectionEngine {
     }
 
 
+    /**
+     * The network id of the server is the hash of his identity key, it identifies him on the covered servers of the
+     * searches
+     */
+    private void setServerNetworkId(IopProfileServer.StartConversationResponse message) {
+        if (!message.getPublicKey().isEmpty()) {
+            profSerEngine.getProfServerData().setNetworkId(Sha256Hash.hash(message.getPublicKey().toByteArray()));
+        }
+    }
+
+
     /**
      * Process a list roles response message
      */
@@ -281,6 +293,7 @@ public class ProfSerConnectionEngine {
             profSerEngine.setProfSerConnectionState(ProfSerConnectionState.START_CONVERSATION_NON_CL);
             // set the node challenge
             profSerEngine.getProfNodeConnection().setNodeChallenge(message.getChallenge().toByteArray());
+            setServerNetworkId(message);
             // if the host is not home finish the engine here and notify connection.
             if (!profSerEngine.getProfNodeConnection().isHome()) {
                 for (org.libertaria.world.profile_server.engine.listeners.ConnectionListener connectionListener : profSerEngine.getConnectionListeners()) {
@@ -366,6 +379,7 @@ public class ProfSerConnectionEngine {
             //todo: ver todos los get que tiene esto, el challenge y demás...
             // set the node challenge
             profSerEngine.getProfNodeConnection().setNodeChallenge(message.getChallenge().toByteArray());
+            setServerNetworkId(message);
             profSerEngine.setProfSerConnectionState(ProfSerConnectionState.START_CONVERSATION_CL);
             engine();
         }
@@ -1,10 +1,15 @@
 package org.libertaria.world.profile_server.engine;
 
+import com.google.protobuf.ByteString;
+
 import org.bitcoinj.core.Sha256Hash;
+import org.furszy.client.IoManager;
 import org.libertaria.world.core.IoPConnectContext;
+import org.libertaria.world.core.IoPScheduler;
 import org.libertaria.world.crypto.CryptoWrapper;
 import org.libertaria.world.profile_server.CantConnectException;
 import org.libertaria.world.profile_server.CantSendMessageException;
+import org.libertaria.world.profile_server.ConnectionSaturatedException;
 import org.libertaria.world.profile_server.IoSession;
 import org.libertaria.world.profile_server.ProfileInformation;
 import org.libertaria.world.profile_server.SslContextFactory;
@@ -13,9 +18,13 @@ import org.libertaria.world.profile_server.client.ProfSerRequest;
 import org.libertaria.world.profile_server.client.ProfileServer;
 import org.libertaria.world.profile_server.client.PsSocketHandler;
 import org.libertaria.world.profile_server.engine.app_services.CallsListener;
+import org.libertaria.world.profile_server.engine.futures.BaseMsgFuture;
+import org.libertaria.world.profile_server.engine.futures.BatchMsgFuture;
 import org.libertaria.world.profile_server.engine.listeners.ConnectionListener;
 import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
 import org.libertaria.world.profile_server.engine.listeners.ProfSerPartSearchListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerCoveredSearchListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerSearchListener;
 import org.libertaria.world.profile_server.model.ProfServerData;
 import org.libertaria.world.profile_server.model.Profile;
 import org.libertaria.world.profile_server.processors.MessageProcessor;
@@ -25,17 +34,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by mati on 05/02/17.
@@ -81,20 +88,51 @@ public class ProfSerEngine {
      */
     private CallsListener callListener;
     /**
-     * Messages listeners:  id -> listner
+     * Messages listeners:  id -> listner, they fail if the response doesn't arrive before the request timeout
      */
-    private final ConcurrentMap<Integer, ProfSerMsgListener> msgListeners = new ConcurrentHashMap<>();
+    private final MsgListenersRegistry msgListeners = new MsgListenersRegistry(REQUEST_TIMEOUT_TICK, REQUEST_TIMEOUT_TICKS_PER_WHEEL);
+    private volatile long requestTimeout = DEFAULT_REQUEST_TIMEOUT;
     private final ConcurrentMap<String, SearchProfilesQuery> profilesQuery = new ConcurrentHashMap<>();
     /**
-     * Executor
+     * Search streams not closed yet, the server keeps their results
+     */
+    private final AtomicInteger openSearches = new AtomicInteger();
+    /**
+     * Millis of the last message sent or received
+     */
+    private volatile long lastActivity;
+    /**
+     * Dispatch of the incoming messages and connection engine on the shared workers
      */
-    private ExecutorService executor;
+    private final IoPScheduler.TaskGroup tasks;
     /**
-     * Ping executor
+     * Pings and request deadlines on the ticker thread, a busy worker doesn't delay them
      */
-    private Map<IopProfileServer.ServerRoleType, ScheduledExecutorService> pingExecutors;
+    private final IoPScheduler.TaskGroup ticks;
+    /**
+     * Incoming calls, they open the call channel and can block
+     */
+    private final IoPScheduler.TaskGroup callTasks;
+    /**
+     * Ping agents
+     */
+    private final ConcurrentMap<IopProfileServer.ServerRoleType, IoPScheduler.Task> pingTasks = new ConcurrentHashMap<>();
 
     private MessageQueueManager messageQueueManager;
+    /**
+     * Pipelined requests on the client ports
+     */
+    private final RequestPipeline requestPipeline;
+
+    /** Requests in flight on the client ports before the next ones wait */
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 16;
+    /** Time to receive the response of a request */
+    public static final long DEFAULT_REQUEST_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    /** Request deadlines precision */
+    private static final long REQUEST_TIMEOUT_TICK = 100L;
+    private static final int REQUEST_TIMEOUT_TICKS_PER_WHEEL = 512;
+    /** Incoming messages waiting per session */
+    private static final int MAX_INBOUND_QUEUE_SIZE = 1024;
 
     /**
      * @param contextWrapper
@@ -108,7 +146,8 @@ public class ProfSerEngine {
                          Profile profile,
                          CryptoWrapper crypto,
                          SslContextFactory sslContextFactory,
-                         MessageQueueManager messageQueueManager) {
+                         MessageQueueManager messageQueueManager,
+                         IoManager ioManager) {
         this.profServerData = profServerData;
         this.crypto = crypto;
         this.profSerConnectionState = ProfSerConnectionState.NO_SERVER;
@@ -119,8 +158,22 @@ public class ProfSerEngine {
                 randomChallenge()
         );
         handler = new ProfileServerHandler();
-        this.profileServer = new org.libertaria.world.profile_server.client.ProfSerImp(contextWrapper, profServerData, sslContextFactory, handler);
+        this.profileServer = new org.libertaria.world.profile_server.client.ProfSerImp(contextWrapper, profServerData, sslContextFactory, handler, ioManager);
         this.messageQueueManager = messageQueueManager;
+        this.tasks = contextWrapper.getScheduler().newGroup("engine " + profServerData.getHost());
+        this.ticks = contextWrapper.getScheduler().newTickerGroup("engine ticks " + profServerData.getHost());
+        this.callTasks = contextWrapper.getScheduler().newBlockingGroup("engine calls " + profServerData.getHost());
+        this.requestPipeline = new RequestPipeline(new RequestPipeline.Transport() {
+            @Override
+            public void send(ProfSerRequest request, ProfSerMsgListener<?> listener) throws Exception {
+                sendRequest(request, listener);
+            }
+
+            @Override
+            public void discard(int messageId) {
+                msgListeners.remove(messageId);
+            }
+        }, ticks, DEFAULT_MAX_IN_FLIGHT_REQUESTS);
     }
 
     /**
@@ -150,8 +203,8 @@ public class ProfSerEngine {
     public void start(final org.libertaria.world.profile_server.engine.futures.MsgListenerFuture<Boolean> initFuture) {
         if (getProfSerConnectionState() != ProfSerConnectionState.NO_SERVER)
             throw new IllegalStateException("Start already called");
-        executor = Executors.newFixedThreadPool(3);
-        executor.submit(new Runnable() {
+        msgListeners.start(ticks);
+        tasks.execute(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -171,18 +224,13 @@ public class ProfSerEngine {
      * Stop
      */
     public void stop() {
-        executor.shutdown();
-        executor = null;
-        try {
-            if (pingExecutors != null) {
-                for (ScheduledExecutorService service : pingExecutors.values()) {
-                    service.shutdownNow();
-                }
-                pingExecutors.clear();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        requestPipeline.stop();
+        msgListeners.stop();
+        // the pings and the pending dispatch
+        tasks.cancel();
+        ticks.cancel();
+        callTasks.cancel();
+        pingTasks.clear();
         try {
             profileServer.shutdown();
         } catch (IOException e) {
@@ -191,14 +239,85 @@ public class ProfSerEngine {
 
     }
 
-    private void addMsgListener(int msgId, ProfSerMsgListener listener) {
-        msgListeners.put(msgId, listener);
+    private void addMsgListener(int msgId, ProfSerMsgListener<?> listener) {
+        msgListeners.register(msgId, listener, requestTimeout);
     }
 
-    private void sendRequest(org.libertaria.world.profile_server.client.ProfSerRequest profSerRequest, ProfSerMsgListener listener) throws CantConnectException, CantSendMessageException {
+    private void sendRequest(org.libertaria.world.profile_server.client.ProfSerRequest profSerRequest, ProfSerMsgListener<?> listener) throws CantConnectException, CantSendMessageException {
+        if (listener instanceof BaseMsgFuture && ((BaseMsgFuture<?>) listener).isCancelled()) {
+            LOG.info("Request not sent, cancelled: " + listener.getMessageName());
+            return;
+        }
         if (listener != null)
             addMsgListener(profSerRequest.getMessageId(), listener);
-        profSerRequest.send();
+        if (listener instanceof BaseMsgFuture) {
+            // nobody waits for the response of a cancelled future
+            final int messageId = profSerRequest.getMessageId();
+            ((BaseMsgFuture<?>) listener).onCancel(new Runnable() {
+                @Override
+                public void run() {
+                    msgListeners.remove(messageId);
+                }
+            });
+        }
+        boolean sent = false;
+        try {
+            profSerRequest.send();
+            sent = true;
+            lastActivity = System.currentTimeMillis();
+        } finally {
+            // not sent (the connection could be saturated), there will be no response
+            if (!sent && listener != null)
+                msgListeners.remove(profSerRequest.getMessageId());
+        }
+    }
+
+    /**
+     * Fail the listener of the request with the error response, it's removed
+     */
+    private void failMsgListener(int messageId, int statusValue, String details) {
+        ProfSerMsgListener<?> listener = msgListeners.remove(messageId);
+        if (listener != null) {
+            listener.onMsgFail(messageId, statusValue, details);
+        } else {
+            LOG.warn("No msg listener for failed message with id: " + messageId + ", " + details);
+        }
+    }
+
+    /**
+     * Time to receive the response of every request, the listener fails with {@link RequestPipeline#STATUS_TIMEOUT} after it
+     */
+    public void setRequestTimeout(long requestTimeout) {
+        if (requestTimeout <= 0) throw new IllegalArgumentException("request timeout <= 0");
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * @return requests waiting for a response
+     */
+    public int getPendingRequestsCount() {
+        return msgListeners.getPendingCount();
+    }
+
+    /**
+     * @return true if there are requests waiting for a response or queued, or search streams open
+     */
+    public boolean hasOpenRequests() {
+        return msgListeners.getPendingCount() > 0 || requestPipeline.getPending() > 0 || openSearches.get() > 0;
+    }
+
+    /**
+     * @return millis of the last message sent or received, 0 if there was none
+     */
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * @return millis waited by the oldest request without response, 0 if there are none
+     */
+    public long getOldestPendingRequestAge() {
+        return msgListeners.getOldestAge(System.currentTimeMillis());
     }
 
     /**
@@ -387,19 +506,7 @@ public class ProfSerEngine {
     public void searchProfiles(SearchProfilesQuery searchProfilesQuery, ProfSerMsgListener<List<IopProfileServer.ProfileQueryInformation>> listener) {
         try {
             cacheSearch(searchProfilesQuery);
-            org.libertaria.world.profile_server.client.ProfSerRequest request = profileServer.searchProfilesRequest(
-                    searchProfilesQuery.isOnlyHostedProfiles(),
-                    searchProfilesQuery.isIncludeThumbnailImages(),
-                    searchProfilesQuery.getMaxResponseRecordCount(),
-                    searchProfilesQuery.getMaxTotalRecordCount(),
-                    searchProfilesQuery.getProfileType(),
-                    searchProfilesQuery.getProfileName(),
-                    searchProfilesQuery.getLatitude(),
-                    searchProfilesQuery.getLongitude(),
-                    searchProfilesQuery.getRadius(),
-                    searchProfilesQuery.getExtraData()
-            );
-            sendRequest(request, listener);
+            sendRequest(searchProfilesRequest(searchProfilesQuery), listener);
         } catch (CantConnectException e) {
             e.printStackTrace();
         } catch (CantSendMessageException e) {
@@ -407,6 +514,42 @@ public class ProfSerEngine {
         }
     }
 
+    /**
+     * Search and read the results as they arrive, the next parts are requested while the current one is consumed.
+     * The query is forgotten once the stream is closed.
+     *
+     * @param bufferedPages pages requested or waiting for the consumer at most
+     */
+    public SearchProfilesStream searchProfilesStream(SearchProfilesQuery searchProfilesQuery, int bufferedPages) {
+        cacheSearch(searchProfilesQuery);
+        openSearches.incrementAndGet();
+        SearchProfilesStream stream = new SearchProfilesStream(searchProfilesQuery, new SearchPageSource(), bufferedPages);
+        stream.start();
+        return stream;
+    }
+
+    /**
+     * This server for the searches fanned out to several servers, the queries are forgotten once closed
+     */
+    public FederatedSearch.Server getSearchServer() {
+        return new SearchServer();
+    }
+
+    private ProfSerRequest searchProfilesRequest(SearchProfilesQuery searchProfilesQuery) throws CantConnectException, CantSendMessageException {
+        return profileServer.searchProfilesRequest(
+                searchProfilesQuery.isOnlyHostedProfiles(),
+                searchProfilesQuery.isIncludeThumbnailImages(),
+                searchProfilesQuery.getMaxResponseRecordCount(),
+                searchProfilesQuery.getMaxTotalRecordCount(),
+                searchProfilesQuery.getProfileType(),
+                searchProfilesQuery.getProfileName(),
+                searchProfilesQuery.getLatitude(),
+                searchProfilesQuery.getLongitude(),
+                searchProfilesQuery.getRadius(),
+                searchProfilesQuery.getExtraData()
+        );
+    }
+
     /**
      * This method works after call searchProfile when the previous amount of result is less than the maxTotalRecordCount. Responding with a part of the entire search.
      */
@@ -440,6 +583,52 @@ public class ProfSerEngine {
         sendRequest(profSerRequest, listener);
     }
 
+    /**
+     * Pipelined profile information request, it doesn't wait for the responses of the previous requests.
+     *
+     * @param timeout millis to receive the response, the listener fails with {@link RequestPipeline#STATUS_TIMEOUT} after it
+     * @see #setMaxInFlightRequests(int)
+     */
+    public void getProfileInformation(String pubKey, boolean includeProfileImage, boolean includeThumbnailImage, boolean includeApplicationServices, long timeout, ProfSerMsgListener<IopProfileServer.GetProfileInformationResponse> listener) throws CantConnectException, CantSendMessageException {
+        LOG.info("getProfileInformation pipelined " + pubKey);
+        byte[] profileNetworkId = Sha256Hash.hash(org.libertaria.world.crypto.CryptoBytes.fromHexToBytes(pubKey));
+        ProfSerRequest profSerRequest = profileServer.getProfileInformationRequest(profileNetworkId, includeApplicationServices, includeThumbnailImage, includeProfileImage);
+        requestPipeline.submit(profSerRequest, listener, timeout);
+    }
+
+    /**
+     * Request the information of several profiles pipelined over the same connection.
+     *
+     * @param pubKeys
+     * @param timeout millis to receive every response
+     * @return future with the response of every public key, the failed ones are on {@link BatchMsgFuture#getFailures()}
+     */
+    public BatchMsgFuture<IopProfileServer.GetProfileInformationResponse> getProfileInformation(List<String> pubKeys, boolean includeProfileImage, boolean includeThumbnailImage, boolean includeApplicationServices, long timeout) {
+        BatchMsgFuture<IopProfileServer.GetProfileInformationResponse> batchFuture = new BatchMsgFuture<>(pubKeys.size());
+        batchFuture.setMsgName("getProfileInformation batch");
+        for (String pubKey : pubKeys) {
+            ProfSerMsgListener<IopProfileServer.GetProfileInformationResponse> listener = batchFuture.listenerFor(pubKey);
+            try {
+                getProfileInformation(pubKey, includeProfileImage, includeThumbnailImage, includeApplicationServices, timeout, listener);
+            } catch (Exception e) {
+                LOG.warn("getProfileInformation batch, request fail for " + pubKey, e);
+                listener.onMsgFail(0, RequestPipeline.STATUS_NOT_SENT, e.getMessage());
+            }
+        }
+        return batchFuture;
+    }
+
+    /**
+     * Pipelined requests in flight on the client ports, the next ones wait for a response
+     */
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        requestPipeline.setWindow(maxInFlightRequests);
+    }
+
+    public RequestPipeline getRequestPipeline() {
+        return requestPipeline;
+    }
+
     /**
      * Request to establish a bridged connection between a requestor (the caller) and an identity (the callee)
      * hosted on the profile server via one of its supported application service. The callee has to be online,
@@ -542,6 +731,13 @@ public class ProfSerEngine {
         profilesQuery.put(id, searchProfilesQuery);
     }
 
+    /**
+     * @return false if the search wasn't cached
+     */
+    private boolean removeCacheSearch(SearchProfilesQuery searchProfilesQuery) {
+        return searchProfilesQuery.getId() != null && profilesQuery.remove(searchProfilesQuery.getId()) != null;
+    }
+
     private void updateCacheSearch(SearchProfilesQuery searchProfilesQuery) {
         if (profilesQuery.containsKey(searchProfilesQuery.getId())) {
             profilesQuery.remove(searchProfilesQuery.getId());
@@ -648,35 +844,40 @@ public class ProfSerEngine {
 
     public void startPing(final IopProfileServer.ServerRoleType portType) {
         LOG.info("startPing on port: " + portType);
-        if (pingExecutors == null) {
-            pingExecutors = new HashMap<>();
+        if (profileServer.enableKeepAlive(portType)) {
+            // the non-blocking client pings only when the connection is quiet, no thread needed
+            return;
         }
-        if (pingExecutors.containsKey(portType))
+        if (pingTasks.containsKey(portType))
             throw new IllegalStateException("Ping agent already initilized for: " + portType);
-        final ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
-        service.scheduleAtFixedRate(new Runnable() {
+        IoPScheduler.Task task = ticks.scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
                 try {
                     LOG.info("sending ping");
                     profileServer.ping(portType).send();
 
+                } catch (ConnectionSaturatedException e) {
+                    // the connection is busy writing, it's alive. The next tick pings again
+                    LOG.info("Ping skipped, connection saturated with port: " + portType);
                 } catch (CantSendMessageException e) {
                     e.printStackTrace();
-                    service.shutdownNow();
+                    stopPing(portType);
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
             }
         }, 10, 15, TimeUnit.SECONDS);
-        pingExecutors.put(portType, service);
+        if (pingTasks.putIfAbsent(portType, task) != null) {
+            task.cancel();
+            throw new IllegalStateException("Ping agent already initilized for: " + portType);
+        }
     }
 
     public void stopPing(final IopProfileServer.ServerRoleType portType) {
         try {
             LOG.info("stop ping for: " + portType);
-            ScheduledExecutorService executor = pingExecutors.get(portType);
-            executor.shutdownNow();
+            pingTasks.remove(portType).cancel();
         } catch (Exception e) {
             // nothing..
         }
@@ -732,33 +933,47 @@ public class ProfSerEngine {
 
         // Requests:
 
-        private static final int INCOMING_CALL_NOTIFICATION = 101;
-        private static final int INCOMING_APP_SERVICE_MSG_NOTIFICATION = 102;
+        private static final int INCOMING_CALL_NOTIFICATION = 15;
+        private static final int INCOMING_APP_SERVICE_MSG_NOTIFICATION = 16;
 
-        private Map<Integer, org.libertaria.world.profile_server.processors.MessageProcessor> processors;
+        private static final int PROCESSORS_COUNT = 17;
+
+        /**
+         * Processors by message type
+         */
+        @SuppressWarnings("rawtypes")
+        private final org.libertaria.world.profile_server.processors.MessageProcessor[] processors = new org.libertaria.world.profile_server.processors.MessageProcessor[PROCESSORS_COUNT];
+        /**
+         * Incoming messages, in order per session: a call or a conversation
+         */
+        private final KeyedSerialExecutor inboundDispatch = new KeyedSerialExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.execute(command);
+            }
+        }, MAX_INBOUND_QUEUE_SIZE);
 
         public ProfileServerHandler() {
-            processors = new HashMap<>();
-            processors.put(PING_PROCESSOR, new PingProcessor());
-            processors.put(LIST_ROLES_PROCESSOR, new ListRolesProcessor());
-            processors.put(START_CONVERSATION_NON_CL_PROCESSOR, new StartConversationNonClProcessor());
-            processors.put(HOME_NODE_REQUEST_PROCESSOR, new HomeNodeRequestProcessor());
-            processors.put(HOME_START_CONVERSATION_CL_PROCESSOR, new StartConversationClProcessor());
-            processors.put(HOME_CHECK_IN_PROCESSOR, new CheckinConversationProcessor());
-            processors.put(HOME_UPDATE_PROFILE_PROCESSOR, new UpdateProfileConversationProcessor());
-            processors.put(HOME_PROFILE_SEARCH_PROCESSOR, new ProfileSearchProcessor());
-            processors.put(HOME_ADD_APPLICATION_SERVICE_PROCESSOR, new AddApplicationServiceProcessor());
-            processors.put(HOME_PART_PROFILE_SEARCH_PROCESSOR, new PartProfileSearchProcessor());
-            processors.put(GET_PROFILE_INFORMATION_PROCESSOR, new GetProfileInformationProcessor());
-            processors.put(CALL_PROFILE_APP_SERVICE_PROCESSOR, new CallIdentityApplicationServiceProcessor());
-            processors.put(APP_SERVICE_SEND_MESSAGE_PROCESSOR, new ApplicationServiceSendMessageProcessor());
-            processors.put(CAN_STORE_DATA_PROCESSOR, new CanStoreDataProcessor());
-            processors.put(CAN_PUBLISH_IPNS_RECORD_PROCESSOR, new CanPublishIpnsRecordProcessor());
+            processors[PING_PROCESSOR] = new PingProcessor();
+            processors[LIST_ROLES_PROCESSOR] = new ListRolesProcessor();
+            processors[START_CONVERSATION_NON_CL_PROCESSOR] = new StartConversationNonClProcessor();
+            processors[HOME_NODE_REQUEST_PROCESSOR] = new HomeNodeRequestProcessor();
+            processors[HOME_START_CONVERSATION_CL_PROCESSOR] = new StartConversationClProcessor();
+            processors[HOME_CHECK_IN_PROCESSOR] = new CheckinConversationProcessor();
+            processors[HOME_UPDATE_PROFILE_PROCESSOR] = new UpdateProfileConversationProcessor();
+            processors[HOME_PROFILE_SEARCH_PROCESSOR] = new ProfileSearchProcessor();
+            processors[HOME_ADD_APPLICATION_SERVICE_PROCESSOR] = new AddApplicationServiceProcessor();
+            processors[HOME_PART_PROFILE_SEARCH_PROCESSOR] = new PartProfileSearchProcessor();
+            processors[GET_PROFILE_INFORMATION_PROCESSOR] = new GetProfileInformationProcessor();
+            processors[CALL_PROFILE_APP_SERVICE_PROCESSOR] = new CallIdentityApplicationServiceProcessor();
+            processors[APP_SERVICE_SEND_MESSAGE_PROCESSOR] = new ApplicationServiceSendMessageProcessor();
+            processors[CAN_STORE_DATA_PROCESSOR] = new CanStoreDataProcessor();
+            processors[CAN_PUBLISH_IPNS_RECORD_PROCESSOR] = new CanPublishIpnsRecordProcessor();
 
 
             // requests
-            processors.put(INCOMING_CALL_NOTIFICATION, new IncomingCallNotificationProcessor());
-            processors.put(INCOMING_APP_SERVICE_MSG_NOTIFICATION, new ApplicationServiceReceiveMessageNotificationRequestProcessor());
+            processors[INCOMING_CALL_NOTIFICATION] = new IncomingCallNotificationProcessor();
+            processors[INCOMING_APP_SERVICE_MSG_NOTIFICATION] = new ApplicationServiceReceiveMessageNotificationRequestProcessor();
         }
 
         @Override
@@ -793,7 +1008,8 @@ public class ProfSerEngine {
 
         @Override
         public void messageReceived(final IoSession session, final IopProfileServer.Message message) throws Exception {
-            executor.submit(new Runnable() {
+            lastActivity = System.currentTimeMillis();
+            boolean queued = inboundDispatch.execute(dispatchKey(session, message), new Runnable() {
                 @Override
                 public void run() {
                     try {
@@ -824,7 +1040,44 @@ public class ProfSerEngine {
                     }
                 }
             });
+            if (!queued) {
+                if (message.getMessageTypeCase() == IopProfileServer.Message.MessageTypeCase.RESPONSE) {
+                    // the response is lost, don't wait for the deadline
+                    failMsgListener(message.getId(), 400, "Inbound queue full, response discarded");
+                } else if (message.getMessageTypeCase() == IopProfileServer.Message.MessageTypeCase.REQUEST) {
+                    // the server retries or fails the request instead of waiting for a response that won't come
+                    try {
+                        profileServer.busyResponse(session.getPortType(), session.getId(), session.getSessionTokenId(), message.getId()).send();
+                    } catch (Exception e) {
+                        LOG.warn("Busy response not sent, message id: " + message.getId(), e);
+                    }
+                }
+            }
+        }
 
+        /**
+         * Messages of a session run in order: the app service sessions carry a single call and the conversation
+         * responses depend on the previous ones. The other single responses are independent and run in parallel.
+         *
+         * @return the dispatch order key, null for none
+         */
+        private Object dispatchKey(IoSession<?> session, IopProfileServer.Message message) {
+            if (message.getMessageTypeCase() == IopProfileServer.Message.MessageTypeCase.RESPONSE) {
+                IopProfileServer.Response response = message.getResponse();
+                if (response.getConversationTypeCase() == IopProfileServer.Response.ConversationTypeCase.SINGLERESPONSE
+                        && response.getSingleResponse().getResponseTypeCase() != IopProfileServer.SingleResponse.ResponseTypeCase.APPLICATIONSERVICESENDMESSAGE) {
+                    return null;
+                }
+            }
+            // the call id is set only on the app service sessions, the session itself is the key
+            return session;
+        }
+
+        /**
+         * @return incoming messages discarded because the queue of their session was full
+         */
+        public long getInboundOverflowCount() {
+            return inboundDispatch.getOverflowCount();
         }
 
         @Override
@@ -832,6 +1085,14 @@ public class ProfSerEngine {
 
         }
 
+        @Override
+        public void messageNotSent(IopProfileServer.ServerRoleType portType, IopProfileServer.Message message, Throwable cause) {
+            if (message.getMessageTypeCase() == IopProfileServer.Message.MessageTypeCase.REQUEST) {
+                // the port didn't connect, there will be no response
+                failMsgListener(message.getId(), RequestPipeline.STATUS_NOT_SENT, "Not sent, port: " + portType + ", " + cause.getMessage());
+            }
+        }
+
         @Override
         public void messageSent(IoSession session, IopProfileServer.Message message) throws Exception {
 
@@ -870,7 +1131,7 @@ public class ProfSerEngine {
             switch (request.getRequestTypeCase()) {
 
                 case INCOMINGCALLNOTIFICATION:
-                    processors.get(INCOMING_CALL_NOTIFICATION).execute(session, messageId, request.getIncomingCallNotification());
+                    processors[INCOMING_CALL_NOTIFICATION].execute(session, messageId, request.getIncomingCallNotification());
                     break;
                 default:
                     LOG.error("Request not implemented");
@@ -886,7 +1147,7 @@ public class ProfSerEngine {
             switch (request.getRequestTypeCase()) {
 
                 case APPLICATIONSERVICERECEIVEMESSAGENOTIFICATION:
-                    processors.get(INCOMING_APP_SERVICE_MSG_NOTIFICATION).execute(session, messageId, request.getApplicationServiceReceiveMessageNotification());
+                    processors[INCOMING_APP_SERVICE_MSG_NOTIFICATION].execute(session, messageId, request.getApplicationServiceReceiveMessageNotification());
                     break;
                 default:
                     LOG.error("Request not implemented");
@@ -914,6 +1175,7 @@ public class ProfSerEngine {
                         case ERROR_BAD_CONVERSATION_STATUS:
                             LOG.info("Message id: " + messageId + ", response: " + response.toString() + ", engine state: " + profSerConnectionState.toString());
 //                            profSerConnectionState = START_CONVERSATION_NON_CL;
+                            failMsgListener(messageId, response.getStatusValue(), "ERROR_BAD_CONVERSATION_STATUS, " + response.getDetails());
                             break;
                         // this happen whe the identity already exist or when the cl and non-cl port are the same in the StartConversation message
                         case ERROR_ALREADY_EXISTS:
@@ -923,42 +1185,43 @@ public class ProfSerEngine {
                                 profSerConnectionState = ProfSerConnectionState.START_CONVERSATION_CL;
                             else profSerConnectionState = ProfSerConnectionState.HOME_NODE_REQUEST;
                             profNodeConnection.setIsRegistered(true);
-                            msgListeners.get(messageId).onMsgFail(messageId, response.getStatusValue(), "ERROR_ALREADY_EXISTS, profile already exist on the server to request the home node request");
+                            failMsgListener(messageId, response.getStatusValue(), "ERROR_ALREADY_EXISTS, profile already exist on the server to request the home node request");
                             break;
                         case ERROR_INVALID_SIGNATURE:
                             LOG.error("response to msg id: " + messageId + " " + response.toString());
-
+                            failMsgListener(messageId, response.getStatusValue(), "ERROR_INVALID_SIGNATURE, " + response.getDetails());
                             break;
 
                         case ERROR_NOT_AVAILABLE:
                             LOG.error("response: to msg id: " + messageId + " ERROR_NOT_AVAILABLE");
-                            msgListeners.get(messageId).onMsgFail(messageId, response.getStatusValue(), "remote profile not available");
+                            failMsgListener(messageId, response.getStatusValue(), "remote profile not available");
                             break;
                         case ERROR_NOT_FOUND:
                             LOG.error("response: to msg id: " + messageId + " ERROR_NOT_FOUND");
-                            msgListeners.get(messageId).onMsgFail(messageId, response.getStatusValue(), "remote profile not found");
+                            failMsgListener(messageId, response.getStatusValue(), "remote profile not found");
                             break;
                         case ERROR_INVALID_VALUE:
                             LOG.error("response: to msg id: " + messageId + " ERROR_INVALID_VALUE, " + response.getDetails());
-                            msgListeners.get(messageId).onMsgFail(messageId, response.getStatusValue(), response.getDetails());
+                            failMsgListener(messageId, response.getStatusValue(), response.getDetails());
                             break;
                         case ERROR_UNINITIALIZED:
                             LOG.error("response: to msg id: " + messageId + " ERROR_UNINITIALIZED, " + response.getDetails());
-                            msgListeners.get(messageId).onMsgFail(messageId, response.getStatusValue(), response.getDetails());
+                            failMsgListener(messageId, response.getStatusValue(), response.getDetails());
                             break;
                         case ERROR_UNAUTHORIZED:
                             LOG.error("response: to msg id: " + messageId + " ERROR_UNAUTHORIZED, " + response.getDetails());
-                            msgListeners.get(messageId).onMsgFail(messageId, response.getStatusValue(), response.getDetails());
+                            failMsgListener(messageId, response.getStatusValue(), response.getDetails());
                             break;
                         case ERROR_PROTOCOL_VIOLATION:
                             // this should not happen..
                             LOG.error("response: to msg id: " + messageId + " ERROR_PROTOCOL_VIOLATION, " + response.getDetails());
                             LOG.error("Closing session for bad protocol: " + session.toString());
+                            failMsgListener(messageId, response.getStatusValue(), "ERROR_PROTOCOL_VIOLATION, " + response.getDetails());
                             session.closeNow();
                             break;
                         default:
                             LOG.error("response: to msg id: " + messageId + " " + response.toString());
-                            msgListeners.get(messageId).onMsgFail(messageId, response.getStatusValue(), response.getDetails());
+                            failMsgListener(messageId, response.getStatusValue(), response.getDetails());
                             throw new Exception("response with CONVERSATIONTYPE_NOT_SET, response: " + response.toString() + ", message id: " + messageId);
                     }
                     break;
@@ -969,20 +1232,20 @@ public class ProfSerEngine {
         private void dispatchSingleResponse(IoSession session, int messageId, IopProfileServer.SingleResponse singleResponse) {
             switch (singleResponse.getResponseTypeCase()) {
                 case PING:
-                    processors.get(PING_PROCESSOR).execute(session, messageId, singleResponse.getPing());
+                    processors[PING_PROCESSOR].execute(session, messageId, singleResponse.getPing());
                     break;
                 case LISTROLES:
                     LOG.info("ListRoles received");
-                    processors.get(LIST_ROLES_PROCESSOR).execute(session, messageId, singleResponse.getListRoles());
+                    processors[LIST_ROLES_PROCESSOR].execute(session, messageId, singleResponse.getListRoles());
                     break;
                 case GETPROFILEINFORMATION:
                     LOG.info("getProfileInformation received");
-                    processors.get(GET_PROFILE_INFORMATION_PROCESSOR).execute(session, messageId, singleResponse.getGetProfileInformation());
+                    processors[GET_PROFILE_INFORMATION_PROCESSOR].execute(session, messageId, singleResponse.getGetProfileInformation());
                     break;
 
                 case APPLICATIONSERVICESENDMESSAGE:
                     LOG.info("appServiceSendMessageResponse received");
-                    processors.get(APP_SERVICE_SEND_MESSAGE_PROCESSOR).execute(session, messageId, singleResponse.getApplicationServiceSendMessage());
+                    processors[APP_SERVICE_SEND_MESSAGE_PROCESSOR].execute(session, messageId, singleResponse.getApplicationServiceSendMessage());
                     break;
 
                 default:
@@ -1003,45 +1266,45 @@ public class ProfSerEngine {
                     LOG.info("challenge signed: " + org.libertaria.world.crypto.CryptoBytes.toHexString(signedChallenge));
 
                     if (profSerConnectionState == ProfSerConnectionState.WAITING_START_NON_CL)
-                        processors.get(START_CONVERSATION_NON_CL_PROCESSOR).execute(session, messageId, conversationResponse.getStart());
+                        processors[START_CONVERSATION_NON_CL_PROCESSOR].execute(session, messageId, conversationResponse.getStart());
                     else
-                        processors.get(HOME_START_CONVERSATION_CL_PROCESSOR).execute(session, messageId, conversationResponse.getStart());
+                        processors[HOME_START_CONVERSATION_CL_PROCESSOR].execute(session, messageId, conversationResponse.getStart());
                     break;
                 case REGISTERHOSTING:
                     LOG.info("home node response received in port: " + session.getPortType());
-                    processors.get(HOME_NODE_REQUEST_PROCESSOR).execute(session, messageId, conversationResponse.getRegisterHosting());
+                    processors[HOME_NODE_REQUEST_PROCESSOR].execute(session, messageId, conversationResponse.getRegisterHosting());
                     break;
                 case CHECKIN:
                     LOG.info("check in response ");
-                    processors.get(HOME_CHECK_IN_PROCESSOR).execute(session, messageId, conversationResponse.getCheckIn());
+                    processors[HOME_CHECK_IN_PROCESSOR].execute(session, messageId, conversationResponse.getCheckIn());
                     break;
                 case UPDATEPROFILE:
                     if (verifyIdentity(conversationResponse.getSignature().toByteArray(), conversationResponse.toByteArray())) {
-                        processors.get(HOME_UPDATE_PROFILE_PROCESSOR).execute(session, messageId, conversationResponse.getUpdateProfile());
+                        processors[HOME_UPDATE_PROFILE_PROCESSOR].execute(session, messageId, conversationResponse.getUpdateProfile());
                     } else {
                         throw new Exception("El nodo no es quien dice, acá tengo que desconectar todo");
                     }
                     break;
                 case PROFILESEARCH:
                     LOG.info("profile search response ");
-                    processors.get(HOME_PROFILE_SEARCH_PROCESSOR).execute(session, messageId, conversationResponse.getProfileSearch());
+                    processors[HOME_PROFILE_SEARCH_PROCESSOR].execute(session, messageId, conversationResponse.getProfileSearch());
                     break;
                 case PROFILESEARCHPART:
-                    processors.get(HOME_PART_PROFILE_SEARCH_PROCESSOR).execute(session, messageId, conversationResponse.getProfileSearchPart());
+                    processors[HOME_PART_PROFILE_SEARCH_PROCESSOR].execute(session, messageId, conversationResponse.getProfileSearchPart());
                     break;
                 case APPLICATIONSERVICEADD:
                     LOG.info("add application service");
-                    processors.get(HOME_ADD_APPLICATION_SERVICE_PROCESSOR).execute(session, messageId, conversationResponse.getApplicationServiceAdd());
+                    processors[HOME_ADD_APPLICATION_SERVICE_PROCESSOR].execute(session, messageId, conversationResponse.getApplicationServiceAdd());
                     break;
                 case CALLIDENTITYAPPLICATIONSERVICE:
                     LOG.info("call identity application service");
-                    processors.get(CALL_PROFILE_APP_SERVICE_PROCESSOR).execute(session, messageId, conversationResponse.getCallIdentityApplicationService());
+                    processors[CALL_PROFILE_APP_SERVICE_PROCESSOR].execute(session, messageId, conversationResponse.getCallIdentityApplicationService());
                     break;
                 case CANSTOREDATA:
-                    processors.get(CAN_STORE_DATA_PROCESSOR).execute(session, messageId, conversationResponse.getCanStoreData());
+                    processors[CAN_STORE_DATA_PROCESSOR].execute(session, messageId, conversationResponse.getCanStoreData());
                     break;
                 case CANPUBLISHIPNSRECORD:
-                    processors.get(CAN_PUBLISH_IPNS_RECORD_PROCESSOR).execute(session, messageId, conversationResponse.getCanPublishIpnsRecord());
+                    processors[CAN_PUBLISH_IPNS_RECORD_PROCESSOR].execute(session, messageId, conversationResponse.getCanPublishIpnsRecord());
                     break;
                 default:
                     LOG.info("algo llegó y no lo estoy controlando..");
@@ -1157,12 +1420,70 @@ public class ProfSerEngine {
             }
             LOG.info(stringBuilder.toString());
 
-            ((ProfSerMsgListener) msgListeners.get(messageId)).onMessageReceive(messageId, message.getProfilesList());
-            msgListeners.remove(messageId);
+            ProfSerMsgListener<?> listener = msgListeners.get(messageId);
+            if (listener instanceof ProfSerSearchListener) {
+                // the streams need the total to request the next parts
+                msgListeners.remove(messageId);
+                @SuppressWarnings("unchecked")
+                ProfSerSearchListener<List<IopProfileServer.ProfileQueryInformation>> searchListener =
+                        (ProfSerSearchListener<List<IopProfileServer.ProfileQueryInformation>>) listener;
+                if (searchListener instanceof ProfSerCoveredSearchListener) {
+                    List<String> coveredServers = new ArrayList<>();
+                    for (ByteString networkId : message.getCoveredServersList()) {
+                        coveredServers.add(org.libertaria.world.crypto.CryptoBytes.toHexString(networkId.toByteArray()));
+                    }
+                    ((ProfSerCoveredSearchListener<?>) searchListener).onCoveredServers(messageId, coveredServers);
+                }
+                searchListener.onMessageReceive(messageId, message.getProfilesList(), message.getTotalRecordCount());
+            } else {
+                onMsgReceived(messageId, message.getProfilesList());
+            }
 
         }
     }
 
+    /**
+     * Search requests of the streams
+     */
+    private class SearchPageSource implements SearchProfilesStream.PageSource {
+
+        @Override
+        public void search(SearchProfilesQuery query, ProfSerSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception {
+            sendRequest(searchProfilesRequest(query), listener);
+        }
+
+        @Override
+        public void searchPart(SearchProfilesQuery query, int recordIndex, int recordCount, ProfSerPartSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception {
+            sendRequest(profileServer.searchProfilePartRequest(recordIndex, recordCount), listener);
+        }
+
+        @Override
+        public void onClosed(SearchProfilesQuery query) {
+            if (removeCacheSearch(query)) {
+                openSearches.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Search requests of the federated searches
+     */
+    private class SearchServer extends SearchPageSource implements FederatedSearch.Server {
+
+        @Override
+        public String getId() {
+            byte[] networkId = profServerData.getNetworkId();
+            return (networkId != null) ? org.libertaria.world.crypto.CryptoBytes.toHexString(networkId) : null;
+        }
+
+        @Override
+        public void search(SearchProfilesQuery query, ProfSerSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception {
+            cacheSearch(query);
+            openSearches.incrementAndGet();
+            super.search(query, listener);
+        }
+    }
+
     /**
      * Specific Error Responses:
      * ERROR_NOT_AVAILABLE - No cached search results are available. Either the client did not send ProfileSearchRequest previously
@@ -1177,7 +1498,14 @@ public class ProfSerEngine {
         @Override
         public void execute(org.libertaria.world.profile_server.IoSession session, int messageId, IopProfileServer.ProfileSearchPartResponse message) {
             LOG.info("PartProfileSearchProcessor execute..");
-            ((ProfSerPartSearchListener) msgListeners.get(messageId)).onMessageReceive(messageId, message.getProfilesList(), message.getRecordIndex(), message.getRecordCount());
+            @SuppressWarnings("unchecked")
+            ProfSerPartSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener =
+                    (ProfSerPartSearchListener<List<IopProfileServer.ProfileQueryInformation>>) msgListeners.remove(messageId);
+            if (listener != null) {
+                listener.onMessageReceive(messageId, message.getProfilesList(), message.getRecordIndex(), message.getRecordCount());
+            } else {
+                LOG.warn("No msg listener for search part with id: " + messageId);
+            }
         }
     }
 
@@ -1246,11 +1574,18 @@ public class ProfSerEngine {
     private class IncomingCallNotificationProcessor implements MessageProcessor<IopProfileServer.IncomingCallNotificationRequest> {
 
         @Override
-        public void execute(org.libertaria.world.profile_server.IoSession session, int messageId, IopProfileServer.IncomingCallNotificationRequest message) {
+        public void execute(org.libertaria.world.profile_server.IoSession session, final int messageId, final IopProfileServer.IncomingCallNotificationRequest message) {
             LOG.info("IncomingCallNotificationProcessor");
-            if (callListener != null)
-                callListener.incomingCallNotification(messageId, message);
-            else
+            final CallsListener callListener = ProfSerEngine.this.callListener;
+            if (callListener != null) {
+                // the call opens his channel, out of the dispatch workers
+                callTasks.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callListener.incomingCallNotification(messageId, message);
+                    }
+                });
+            } else
                 LOG.error("IncomingCall arrive and no listener setted.");
         }
     }
@@ -1285,11 +1620,14 @@ public class ProfSerEngine {
         }
     }
 
+    /**
+     * The listener registered with the request receives the message type of his response
+     */
+    @SuppressWarnings("unchecked")
     private void onMsgReceived(int messageId, Object message) {
-        ProfSerMsgListener profSerMsgListener = ((ProfSerMsgListener) msgListeners.get(messageId));
+        ProfSerMsgListener<Object> profSerMsgListener = (ProfSerMsgListener<Object>) msgListeners.remove(messageId);
         if (profSerMsgListener != null) {
             profSerMsgListener.onMessageReceive(messageId, message);
-            msgListeners.remove(messageId);
         } else {
             throw new IllegalStateException("No msg listener for message with id: " + messageId + ", " + message);
         }
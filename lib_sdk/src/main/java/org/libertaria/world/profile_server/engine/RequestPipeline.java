@@ -0,0 +1,245 @@
+package org.libertaria.world.profile_server.engine;
+
+import org.libertaria.world.core.IoPScheduler;
+import org.libertaria.world.profile_server.client.ProfSerRequest;
+import org.libertaria.world.profile_server.engine.futures.BaseMsgFuture;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pipelined requests over the client ports of a profile server connection.
+ *
+ * The requests are written without waiting for the previous responses, the responses are matched by message id.
+ * At most a window of requests is in flight, the rest wait in order and go out as the responses arrive.
+ * Every request has a deadline, if the response doesn't arrive on time the listener fails with {@link #STATUS_TIMEOUT}
+ * and the slot is released. A request of a future that is cancelled leaves the queue, or releases his slot if it was
+ * already sent.
+ */
+public class RequestPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestPipeline.class);
+
+    /** Response not received before the request deadline */
+    public static final int STATUS_TIMEOUT = 408;
+    /** Request not sent, the connection is not available or the pipeline was stopped */
+    public static final int STATUS_NOT_SENT = 400;
+
+    /**
+     * Writes the requests, registering the listener of the response
+     */
+    interface Transport {
+
+        void send(ProfSerRequest request, ProfSerMsgListener<?> listener) throws Exception;
+
+        /** The response is not expected anymore */
+        void discard(int messageId);
+    }
+
+    private static final int QUEUED = 0;
+    private static final int SENT = 1;
+    private static final int DONE = 2;
+
+    private final Transport transport;
+    private final IoPScheduler.TaskGroup scheduler;
+    private final ConcurrentLinkedQueue<PipelinedRequest> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** Only one thread sends at a time, the requests go out in order */
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile int window;
+    private volatile boolean stopped;
+
+    RequestPipeline(Transport transport, IoPScheduler.TaskGroup scheduler, int window) {
+        this.transport = transport;
+        this.scheduler = scheduler;
+        setWindow(window);
+    }
+
+    public void setWindow(int window) {
+        if (window <= 0) throw new IllegalArgumentException("window <= 0");
+        this.window = window;
+        drain();
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Queue the request, it's sent as soon as there is room on the window
+     *
+     * @param timeout millis from now to receive the response, the wait on the queue included
+     */
+    public <O> void submit(ProfSerRequest request, ProfSerMsgListener<O> listener, long timeout) {
+        final PipelinedRequest<O> pipelinedRequest = new PipelinedRequest<>(request, listener);
+        if (stopped) {
+            pipelinedRequest.fail(STATUS_NOT_SENT, "Request pipeline stopped");
+            return;
+        }
+        pipelinedRequest.deadline = scheduler.schedule(new Deadline(pipelinedRequest), timeout, TimeUnit.MILLISECONDS);
+        pending.offer(pipelinedRequest);
+        if (listener instanceof BaseMsgFuture) {
+            // a cancelled request leaves the queue or his slot
+            ((BaseMsgFuture<?>) listener).onCancel(new Runnable() {
+                @Override
+                public void run() {
+                    pipelinedRequest.abandon();
+                }
+            });
+        }
+        drain();
+    }
+
+    /**
+     * Fail the queued requests, the ones in flight wait for their response or deadline
+     */
+    public void stop() {
+        stopped = true;
+        PipelinedRequest pipelinedRequest;
+        while ((pipelinedRequest = pending.poll()) != null) {
+            pipelinedRequest.fail(STATUS_NOT_SENT, "Request pipeline stopped");
+        }
+    }
+
+    private void drain() {
+        do {
+            if (!draining.compareAndSet(false, true)) {
+                // the thread draining sends it
+                return;
+            }
+            try {
+                while (inFlight.get() < window) {
+                    PipelinedRequest pipelinedRequest = pending.poll();
+                    if (pipelinedRequest == null) {
+                        break;
+                    }
+                    inFlight.incrementAndGet();
+                    if (!pipelinedRequest.state.compareAndSet(QUEUED, SENT)) {
+                        // expired on the queue
+                        inFlight.decrementAndGet();
+                        continue;
+                    }
+                    try {
+                        transport.send(pipelinedRequest.request, pipelinedRequest);
+                    } catch (Exception e) {
+                        LOG.warn("Pipelined request not sent, id: " + pipelinedRequest.request.getMessageId(), e);
+                        pipelinedRequest.fail(STATUS_NOT_SENT, e.getMessage());
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+        } while (!pending.isEmpty() && inFlight.get() < window);
+    }
+
+    private class Deadline implements Runnable {
+
+        private final PipelinedRequest pipelinedRequest;
+
+        Deadline(PipelinedRequest pipelinedRequest) {
+            this.pipelinedRequest = pipelinedRequest;
+        }
+
+        @Override
+        public void run() {
+            if (pipelinedRequest.state.get() == SENT) {
+                transport.discard(pipelinedRequest.request.getMessageId());
+            }
+            pipelinedRequest.fail(STATUS_TIMEOUT, "Response not received on time");
+        }
+    }
+
+    /**
+     * Listener registered for the response, completes once and releases his slot
+     */
+    private class PipelinedRequest<O> implements ProfSerMsgListener<O> {
+
+        private final ProfSerRequest request;
+        private final ProfSerMsgListener<O> listener;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private volatile IoPScheduler.Task deadline;
+
+        PipelinedRequest(ProfSerRequest request, ProfSerMsgListener<O> listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onMessageReceive(int messageId, O message) {
+            if (complete()) {
+                listener.onMessageReceive(messageId, message);
+                drain();
+            }
+        }
+
+        @Override
+        public void onMsgFail(int messageId, int statusValue, String details) {
+            if (complete()) {
+                listener.onMsgFail(messageId, statusValue, details);
+                drain();
+            }
+        }
+
+        void fail(int statusValue, String details) {
+            onMsgFail(request.getMessageId(), statusValue, details);
+        }
+
+        /**
+         * The listener doesn't want the response anymore
+         */
+        void abandon() {
+            int previous = finish();
+            if (previous == QUEUED) {
+                pending.remove(this);
+            } else if (previous == SENT) {
+                transport.discard(request.getMessageId());
+            }
+            if (previous != DONE) {
+                drain();
+            }
+        }
+
+        private boolean complete() {
+            return finish() != DONE;
+        }
+
+        /**
+         * @return the state before, DONE if it was already done
+         */
+        private int finish() {
+            int previous;
+            do {
+                previous = state.get();
+                if (previous == DONE) {
+                    return DONE;
+                }
+            } while (!state.compareAndSet(previous, DONE));
+            IoPScheduler.Task deadline = this.deadline;
+            if (deadline != null) {
+                deadline.cancel();
+            }
+            if (previous == SENT) {
+                inFlight.decrementAndGet();
+            }
+            return previous;
+        }
+
+        @Override
+        public String getMessageName() {
+            return listener.getMessageName();
+        }
+    }
+}
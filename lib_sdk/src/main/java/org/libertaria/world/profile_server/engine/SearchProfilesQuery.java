@@ -2,6 +2,7 @@ package org.libertaria.world.profile_server.engine;
 
 import org.libertaria.world.profile_server.protocol.IopProfileServer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,7 +46,7 @@ public class SearchProfilesQuery {
     private int totalRecordCountServer;
     /** Data cached for each request */
     private Map<Integer,List<IopProfileServer.ProfileQueryInformation>> cacheData;
-    /**  */
+    /** Servers already searched, network ids in hex or hosts */
     private List<String> coveredServers;
     /** Start with zero in the first search query, then for each partSearchRequest i will add one */
     private int lastRecordIndex;
@@ -53,6 +54,7 @@ public class SearchProfilesQuery {
 
     public SearchProfilesQuery() {
         this.cacheData = new HashMap<>();
+        this.coveredServers = new ArrayList<>();
     }
 
     public SearchProfilesQuery(String profileType, String profileName, int maxResponseRecordCount, int maxTotalRecordCount) {
@@ -71,6 +73,16 @@ public class SearchProfilesQuery {
         this.radius = radius;
         this.extraData = extraData;
         this.cacheData = new HashMap<>();
+        this.coveredServers = new ArrayList<>();
+    }
+
+    /**
+     * Same search without the id, the paging state and the cached results
+     */
+    public SearchProfilesQuery(SearchProfilesQuery query) {
+        this(query.onlyHostedProfiles, query.includeThumbnailImages, query.profileType, query.profileName, query.maxResponseRecordCount,
+                query.maxTotalRecordCount, query.latitude, query.longitude, query.radius, query.extraData);
+        this.recordCount = query.recordCount;
     }
 
     public void setOnlyHostedProfiles(boolean onlyHostedProfiles) {
@@ -204,4 +216,20 @@ public class SearchProfilesQuery {
     public void setLastRecordCount(int lastRecordCount) {
         this.lastRecordCount = lastRecordCount;
     }
+
+    public synchronized List<String> getCoveredServers() {
+        return new ArrayList<>(coveredServers);
+    }
+
+    public synchronized boolean isCoveredServer(String server) {
+        return coveredServers.contains(server);
+    }
+
+    /**
+     * @return false if it was already covered
+     */
+    public synchronized boolean addCoveredServer(String server) {
+        if (coveredServers.contains(server)) return false;
+        return coveredServers.add(server);
+    }
 }
@@ -0,0 +1,432 @@
+package org.libertaria.world.profile_server.engine;
+
+import org.libertaria.world.profile_server.engine.listeners.ProfSerCoveredSearchListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerPartSearchListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerSearchListener;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Results of a search read one by one while the next parts arrive.
+ *
+ * The first page comes with the search response, the rest are requested with part requests ahead of the consumer: the
+ * pages buffered plus the ones requested never go over the buffer size, a new one is requested every time that the
+ * consumer takes a page. The pages are released once consumed, so a search of thousands of results keeps a few pages
+ * in memory. The pages are kept by the record index requested, a part shorter than requested is read and the stream
+ * follows with the next request. The stream closes itself after the last result, on a failure or when it's closed by the consumer; then
+ * the query is forgotten by the engine.
+ *
+ * The server keeps the results of the last search of the session only, a new search on the same connection invalidates
+ * the parts of this one.
+ */
+public class SearchProfilesStream implements Iterator<IopProfileServer.ProfileQueryInformation>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchProfilesStream.class);
+
+    /** Pages requested or waiting for the consumer */
+    public static final int DEFAULT_BUFFERED_PAGES = 2;
+
+    /**
+     * Sends the requests of the stream
+     */
+    public interface PageSource {
+
+        void search(SearchProfilesQuery query, ProfSerSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception;
+
+        void searchPart(SearchProfilesQuery query, int recordIndex, int recordCount, ProfSerPartSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception;
+
+        /**
+         * The stream is done with the query
+         */
+        void onClosed(SearchProfilesQuery query);
+    }
+
+    /**
+     * Consumer that doesn't wait on the stream, it takes the results with {@link #poll()} when notified
+     */
+    interface Listener {
+
+        /**
+         * @param coveredServers network ids in hex of the servers whose databases produced the results
+         */
+        void onCoveredServers(SearchProfilesStream stream, List<String> coveredServers);
+
+        /**
+         * New results to poll, or the stream failed
+         */
+        void onUpdate(SearchProfilesStream stream);
+    }
+
+    private final SearchProfilesQuery query;
+    private final PageSource source;
+    private final int bufferedPages;
+    private final int pageSize;
+    private final Listener listener;
+
+    /** Guarded by this, pages received by the record index requested */
+    private final TreeMap<Integer, Page> pages = new TreeMap<>();
+    private List<IopProfileServer.ProfileQueryInformation> current;
+    private int position;
+    /** -1 until the search response arrives */
+    private int totalRecordCount = -1;
+    /** Record index of the next page to request and of the next page to consume */
+    private int requestIndex;
+    private int consumeIndex;
+    private int inFlight;
+    private int bufferedRecords;
+    private boolean started;
+    private boolean closed;
+    private boolean released;
+    private String failure;
+
+    SearchProfilesStream(SearchProfilesQuery query, PageSource source, int bufferedPages) {
+        this(query, source, bufferedPages, null);
+    }
+
+    SearchProfilesStream(SearchProfilesQuery query, PageSource source, int bufferedPages, Listener listener) {
+        if (bufferedPages < 1) throw new IllegalArgumentException("buffered pages < 1");
+        this.query = query;
+        this.source = source;
+        this.bufferedPages = bufferedPages;
+        this.pageSize = (query.getRecordCount() > 0) ? query.getRecordCount() : query.getMaxResponseRecordCount();
+        this.listener = listener;
+    }
+
+    /**
+     * Send the search
+     */
+    void start() {
+        synchronized (this) {
+            if (started) throw new IllegalStateException("Start already called");
+            started = true;
+            // closed before the start
+            if (closed) return;
+            inFlight++;
+        }
+        try {
+            source.search(query, new SearchListener());
+        } catch (Exception e) {
+            onFail("Search not sent, " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return advance(true);
+    }
+
+    /**
+     * Next result without waiting for it
+     *
+     * @return null if the next result didn't arrive yet or the stream is closed, the failure doesn't throw
+     */
+    IopProfileServer.ProfileQueryInformation poll() {
+        if (!advance(false)) return null;
+        return take();
+    }
+
+    /**
+     * Move to the next page once the current one is consumed
+     *
+     * @param block wait for the next page, a failure throws
+     * @return true if there is a result to take
+     */
+    private boolean advance(boolean block) {
+        while (true) {
+            List<Request> toSend;
+            synchronized (this) {
+                if (current != null && position < current.size()) return true;
+                current = null;
+                if (closed) {
+                    if (failure != null && block) throw new IllegalStateException("Search failed, " + failure);
+                    return false;
+                }
+                if (totalRecordCount >= 0 && consumeIndex >= totalRecordCount) {
+                    closeNow();
+                    return false;
+                }
+                Page page = pages.remove(consumeIndex);
+                if (page == null) {
+                    if (failure != null) {
+                        closeNow();
+                        if (block) throw new IllegalStateException("Search failed, " + failure);
+                        return false;
+                    }
+                    if (!block) return false;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        closeNow();
+                        throw new IllegalStateException("Interrupted waiting for the search results");
+                    }
+                    continue;
+                }
+                current = page.profiles;
+                position = 0;
+                // a short part leaves a gap, the next page is the next one requested
+                consumeIndex = page.nextIndex;
+                bufferedRecords -= page.profiles.size();
+                toSend = nextRequests();
+            }
+            send(toSend);
+        }
+    }
+
+    @Override
+    public IopProfileServer.ProfileQueryInformation next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return take();
+    }
+
+    private synchronized IopProfileServer.ProfileQueryInformation take() {
+        if (current == null) {
+            // closed by another thread
+            throw new NoSuchElementException();
+        }
+        IopProfileServer.ProfileQueryInformation profile = current.get(position++);
+        if (position == current.size()) {
+            // consumed, release it
+            current = null;
+        }
+        return profile;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Stop the stream, the pending results are dropped
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closeNow();
+        }
+    }
+
+    /**
+     * @return results saved by the server, -1 until the first page arrives
+     */
+    public synchronized int getTotalRecordCount() {
+        return totalRecordCount;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return the failure details, null if it didn't fail
+     */
+    public synchronized String getFailure() {
+        return failure;
+    }
+
+    public SearchProfilesQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @return results held by the stream and not consumed yet
+     */
+    synchronized int getBufferedRecords() {
+        return bufferedRecords + ((current != null) ? current.size() - position : 0);
+    }
+
+    private void closeNow() {
+        if (closed) return;
+        closed = true;
+        pages.clear();
+        bufferedRecords = 0;
+        current = null;
+        notifyAll();
+        release();
+    }
+
+    private void release() {
+        if (released) return;
+        released = true;
+        try {
+            source.onClosed(query);
+        } catch (Exception e) {
+            logger.warn("Error closing the search " + query.getId(), e);
+        }
+    }
+
+    /**
+     * Guarded by this
+     */
+    private List<Request> nextRequests() {
+        List<Request> requests = new ArrayList<>();
+        if (closed || failure != null || totalRecordCount < 0) return requests;
+        while (requestIndex < totalRecordCount && pages.size() + inFlight < bufferedPages) {
+            int count = Math.min(pageSize, totalRecordCount - requestIndex);
+            requests.add(new Request(requestIndex, count));
+            requestIndex += count;
+            inFlight++;
+        }
+        return requests;
+    }
+
+    private void send(List<Request> requests) {
+        for (Request request : requests) {
+            try {
+                source.searchPart(query, request.recordIndex, request.recordCount, new PartListener(request));
+            } catch (Exception e) {
+                onFail("Search part " + request.recordIndex + " not sent, " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param recordIndex index requested
+     * @param nextIndex   index of the next page requested, after the records requested with this one
+     * @param total       results of the search, -1 on the parts
+     */
+    private void onPage(int recordIndex, int nextIndex, List<IopProfileServer.ProfileQueryInformation> profiles, int total) {
+        List<Request> toSend;
+        synchronized (this) {
+            inFlight--;
+            if (closed) return;
+            if (total >= 0) {
+                // an empty first page ends the stream whatever the server counted
+                totalRecordCount = profiles.isEmpty() ? 0 : total;
+                requestIndex = profiles.size();
+            } else if (profiles.isEmpty() && recordIndex < totalRecordCount) {
+                // the results expired or shrank, nothing more to ask
+                logger.warn("Empty search part " + recordIndex + ", expected until " + totalRecordCount);
+                totalRecordCount = recordIndex;
+            }
+            if (!profiles.isEmpty()) {
+                pages.put(recordIndex, new Page(profiles, nextIndex));
+                bufferedRecords += profiles.size();
+            }
+            notifyAll();
+            toSend = nextRequests();
+        }
+        send(toSend);
+        notifyListener();
+    }
+
+    private void onFail(String details) {
+        synchronized (this) {
+            if (closed || failure != null) return;
+            logger.warn("Search " + query.getId() + " failed, " + details);
+            failure = details;
+            // the pages already received are still readable, there won't be more
+            release();
+            notifyAll();
+        }
+        notifyListener();
+    }
+
+    /**
+     * Outside the lock, the listener polls
+     */
+    private void notifyListener() {
+        if (listener != null) {
+            listener.onUpdate(this);
+        }
+    }
+
+    private void onCoveredServers(List<String> coveredServers) {
+        if (listener != null) {
+            listener.onCoveredServers(this, coveredServers);
+        }
+    }
+
+    private static final class Page {
+
+        private final List<IopProfileServer.ProfileQueryInformation> profiles;
+        private final int nextIndex;
+
+        Page(List<IopProfileServer.ProfileQueryInformation> profiles, int nextIndex) {
+            this.profiles = profiles;
+            this.nextIndex = nextIndex;
+        }
+    }
+
+    private static final class Request {
+
+        private final int recordIndex;
+        private final int recordCount;
+
+        Request(int recordIndex, int recordCount) {
+            this.recordIndex = recordIndex;
+            this.recordCount = recordCount;
+        }
+    }
+
+    private class SearchListener implements ProfSerCoveredSearchListener<List<IopProfileServer.ProfileQueryInformation>> {
+
+        @Override
+        public void onCoveredServers(int messageId, List<String> coveredServers) {
+            SearchProfilesStream.this.onCoveredServers(coveredServers);
+        }
+
+        @Override
+        public void onMessageReceive(int messageId, List<IopProfileServer.ProfileQueryInformation> message, int totalRecordCount) {
+            onPage(0, message.size(), message, totalRecordCount);
+        }
+
+        @Override
+        public void onMessageReceive(int messageId, List<IopProfileServer.ProfileQueryInformation> message) {
+            // without the total, the first page is the whole result
+            onPage(0, message.size(), message, message.size());
+        }
+
+        @Override
+        public void onMsgFail(int messageId, int statusValue, String details) {
+            onFail("status: " + statusValue + ", " + details);
+        }
+
+        @Override
+        public String getMessageName() {
+            return "searchProfiles";
+        }
+    }
+
+    private class PartListener implements ProfSerPartSearchListener<List<IopProfileServer.ProfileQueryInformation>> {
+
+        private final Request request;
+
+        PartListener(Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public void onMessageReceive(int messageId, List<IopProfileServer.ProfileQueryInformation> message, int recordIndex, int recordCount) {
+            if (message.size() < request.recordCount) {
+                logger.warn("Short search part " + request.recordIndex + ", " + message.size() + " of " + request.recordCount + " records");
+            }
+            onPage(request.recordIndex, request.recordIndex + request.recordCount, message, -1);
+        }
+
+        @Override
+        public void onMessageReceive(int messageId, Object message) {
+            // parts arrive with the index
+        }
+
+        @Override
+        public void onMsgFail(int messageId, int statusValue, String details) {
+            onFail("status: " + statusValue + ", " + details);
+        }
+
+        @Override
+        public String getMessageName() {
+            return "searchProfilesPart";
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.libertaria.world.profile_server.engine.app_services;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import org.libertaria.world.core.services.pairing.PairAcceptedMessage;
+import org.libertaria.world.core.services.pairing.PairDisconnectedMessage;
+import org.libertaria.world.core.services.pairing.PairRefusedMessage;
+import org.libertaria.world.core.services.pairing.PairRequestMessage;
+import org.libertaria.world.profile_server.client.ProfileServerFrameDecoder;
+import org.libertaria.world.services.chat.msg.ChatAcceptMsg;
+import org.libertaria.world.services.chat.msg.ChatMsg;
+import org.libertaria.world.services.chat.msg.ChatRefuseMsg;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Binary codec of the messages sent over the application service calls, the schema is on app_services.proto and the
+ * classes are generated on {@link AppServices}.
+ *
+ * The data starts with the format byte and follows with the wrapper, that carries the codec version, the message type
+ * and the message encoded by his own class. The class of a type is taken from the registry, every {@link BaseMsg} sent
+ * has to be registered with a prototype that decodes it. Nothing is instantiated by name from the received data. The
+ * decoding is bounded: a message bigger than a profile server message, of a newer version or of an unknown type is
+ * rejected, and the unknown fields are skipped so the next versions can add fields. The java serialized messages of
+ * the peers of before are recognized by the first byte and rejected with {@link LegacyFormatException}.
+ */
+public final class AppMsgCodec {
+
+    /** Version written on the messages, the ones of a newer version are rejected */
+    public static final int VERSION = 1;
+    /** First byte of the messages of this codec */
+    public static final byte FORMAT = 1;
+    /** An app service message can't be bigger than the profile server message that carries it */
+    public static final int MAX_MESSAGE_SIZE = ProfileServerFrameDecoder.MAX_MESSAGE_SIZE;
+
+    /** First bytes of a java serialization stream, the format of before */
+    private static final byte JAVA_STREAM_MAGIC_0 = (byte) 0xac;
+    private static final byte JAVA_STREAM_MAGIC_1 = (byte) 0xed;
+
+    /** Type -> prototype that decodes it */
+    private static final ConcurrentMap<String, BaseMsg<?>> REGISTRY = new ConcurrentHashMap<>();
+
+    static {
+        register(new CryptoMsg(null));
+        register(new ChatMsg(null));
+        register(new ChatAcceptMsg(0));
+        register(new ChatRefuseMsg());
+        register(new PairRequestMessage());
+        register(new PairAcceptedMessage());
+        register(new PairRefusedMessage());
+        register(new PairDisconnectedMessage());
+    }
+
+    private AppMsgCodec() {
+    }
+
+    /**
+     * Register the messages of a type, the prototype decodes the received ones
+     */
+    public static void register(BaseMsg<?> prototype) {
+        REGISTRY.put(prototype.getType(), prototype);
+    }
+
+    public static boolean isRegistered(String type) {
+        return REGISTRY.containsKey(type);
+    }
+
+    public static byte[] encode(MessageWrapper messageWrapper) throws IOException {
+        String type = messageWrapper.getMsgType();
+        if (type == null) throw new IOException("Message without type");
+        AppServices.AppServiceMsg.Builder builder = AppServices.AppServiceMsg.newBuilder()
+                .setVersion(VERSION)
+                .setType(type);
+        BaseMsg<?> msg = messageWrapper.getMsg();
+        if (msg != null) builder.setBody(ByteString.copyFrom(encodeMsg(msg)));
+        AppServices.AppServiceMsg wrapper = builder.build();
+        int size = 1 + wrapper.getSerializedSize();
+        if (size > MAX_MESSAGE_SIZE) throw new IOException("Message too big, type: " + type + ", size: " + size);
+        byte[] data = new byte[size];
+        data[0] = FORMAT;
+        CodedOutputStream out = CodedOutputStream.newInstance(data, 1, size - 1);
+        wrapper.writeTo(out);
+        out.checkNoSpaceLeft();
+        return data;
+    }
+
+    /**
+     * @throws LegacyFormatException if the data is java serialized, sent by a peer of before this codec
+     * @throws IOException if the data is not a valid message, of a supported version and of a registered type
+     */
+    public static MessageWrapper decode(byte[] data) throws IOException {
+        if (data.length == 0) throw new IOException("Empty message");
+        if (data[0] != FORMAT) {
+            if (isJavaSerialized(data)) throw new LegacyFormatException();
+            throw new IOException("Unknown message format: " + data[0]);
+        }
+        if (data.length > MAX_MESSAGE_SIZE) throw new IOException("Message too big, size: " + data.length);
+        CodedInputStream in = CodedInputStream.newInstance(data, 1, data.length - 1);
+        in.setSizeLimit(data.length);
+        in.setRecursionLimit(1);
+        AppServices.AppServiceMsg wrapper = AppServices.AppServiceMsg.parseFrom(in);
+        int version = wrapper.getVersion();
+        if (version < 1 || version > VERSION) throw new IOException("Unsupported message version: " + version);
+        String type = wrapper.getType();
+        if (type.isEmpty()) throw new IOException("Message without type");
+        BaseMsg<?> msg = null;
+        // proto3 doesn't tell an empty body from an absent one, the registered types decode it with the defaults
+        if (!wrapper.getBody().isEmpty() || isRegistered(type)) {
+            msg = decodeMsg(type, wrapper.getBody().toByteArray());
+        }
+        return new MessageWrapper(msg, type);
+    }
+
+    /**
+     * Data written with java serialization, the format of the messages before this codec
+     */
+    public static boolean isJavaSerialized(byte[] data) {
+        return data.length > 1 && data[0] == JAVA_STREAM_MAGIC_0 && data[1] == JAVA_STREAM_MAGIC_1;
+    }
+
+    public static byte[] encodeMsg(BaseMsg<?> msg) throws IOException {
+        try {
+            return msg.encode();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Message not encoded, type: " + msg.getType(), e);
+        }
+    }
+
+    /**
+     * Decode the message with the prototype of his type
+     */
+    public static BaseMsg<?> decodeMsg(String type, byte[] body) throws IOException {
+        BaseMsg<?> prototype = REGISTRY.get(type);
+        if (prototype == null) throw new IOException("Unknown message type: " + type);
+        if (body.length > MAX_MESSAGE_SIZE) throw new IOException("Message too big, type: " + type + ", size: " + body.length);
+        try {
+            return (BaseMsg<?>) prototype.decode(body);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Message not decoded, type: " + type, e);
+        }
+    }
+
+    /**
+     * Input bounded to the data, the messages parse their body with it
+     */
+    public static CodedInputStream newInput(byte[] data) throws IOException {
+        if (data.length > MAX_MESSAGE_SIZE) throw new IOException("Message too big, size: " + data.length);
+        CodedInputStream in = CodedInputStream.newInstance(data);
+        in.setSizeLimit(data.length);
+        // flat messages
+        in.setRecursionLimit(1);
+        return in;
+    }
+}
@@ -375,10 +375,12 @@ public class CallProfileAppService {
                 } else {
                     logger.warn("CallAppService msg received, not msgListener attached..");
                 }
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+        } catch (LegacyFormatException e) {
+            // the remote app has to be updated
+            logger.warn("CallAppService msg of a legacy peer received, dropped, remote: " + getRemotePubKey());
         } catch (IOException e) {
-            e.printStackTrace();
+            // not a valid message, dropped
+            logger.warn("CallAppService invalid msg received, " + e.getMessage());
         } catch (Exception e){
             e.printStackTrace();
         }
@@ -1,7 +1,5 @@
 package org.libertaria.world.profile_server.engine.app_services;
 
-import org.libertaria.world.global.utils.SerializationUtils;
-
 /**
  * Created by furszy on 6/15/17.
  */
@@ -16,13 +14,15 @@ public class CryptoMsg extends BaseMsg<CryptoMsg> {
 
     @Override
     public CryptoMsg decode(byte[] msg) throws Exception {
-        return SerializationUtils.deserialize(msg,CryptoMsg.class);
+        AppServices.CryptoMsg proto = AppServices.CryptoMsg.parseFrom(AppMsgCodec.newInput(msg));
+        return new CryptoMsg(proto.getAlgo());
     }
 
     @Override
     public byte[] encode() throws Exception {
-        // lazy encode to test the entire flow first..
-        return SerializationUtils.serialize(this);
+        AppServices.CryptoMsg.Builder builder = AppServices.CryptoMsg.newBuilder();
+        if (algo != null) builder.setAlgo(algo);
+        return builder.build().toByteArray();
     }
 
     public String getAlgo() {
@@ -0,0 +1,15 @@
+package org.libertaria.world.profile_server.engine.app_services;
+
+import java.io.IOException;
+
+/**
+ * A java serialized app service message, sent by a peer that doesn't use {@link AppMsgCodec} yet.
+ */
+public class LegacyFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LegacyFormatException() {
+        super("Java serialized message of a peer of before, not supported");
+    }
+}
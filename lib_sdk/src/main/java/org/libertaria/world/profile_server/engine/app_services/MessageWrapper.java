@@ -1,15 +1,12 @@
 package org.libertaria.world.profile_server.engine.app_services;
 
-import org.libertaria.world.global.utils.SerializationUtils;
-
 import java.io.IOException;
-import java.io.Serializable;
 
 /**
  * Created by furszy on 6/5/17.
  */
 
-public class MessageWrapper implements Serializable {
+public class MessageWrapper {
 
     private BaseMsg msg;
     private String msgType;
@@ -28,10 +25,13 @@ public class MessageWrapper implements Serializable {
     }
 
     public byte[] encode() throws IOException {
-        return SerializationUtils.serialize(this);
+        return AppMsgCodec.encode(this);
     }
 
-    public static MessageWrapper decode(byte[] data) throws IOException, ClassNotFoundException {
-        return SerializationUtils.deserialize(data,MessageWrapper.class);
+    /**
+     * @throws IOException if the data is not a valid message of a registered type, see {@link AppMsgCodec}
+     */
+    public static MessageWrapper decode(byte[] data) throws IOException {
+        return AppMsgCodec.decode(data);
     }
 }
@@ -1,74 +1,310 @@
 package org.libertaria.world.profile_server.engine.futures;
 
+import org.libertaria.world.core.IoPScheduler;
+import org.libertaria.world.profile_server.engine.RequestPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Future of the response of a request, completed once with the response or the failure.
+ *
+ * It doesn't hold any lock, the listeners are called in the order they were added by the thread that completes it (the
+ * caller's if it was already done). Nothing has to block: chain the work with {@link #map(Function)},
+ * {@link #then(Function)}, {@link #combine(BaseMsgFuture, BaseMsgFuture, Combiner)} and {@link #allOf(List)}, bound
+ * it with {@link #withTimeout(IoPScheduler.TaskGroup, long, TimeUnit)}. A cancelled or timed out future runs his
+ * cancel hooks, the engine uses them to drop the pending request, and cancels the futures it was derived from.
+ *
+ * As before, {@link #get()} returns null if the request failed, the reason is on {@link #getStatus()}, and
+ * {@link #get(long, TimeUnit)} returns null if it's not done after the timeout. {@link #setListener(Listener)} replaces
+ * the listener set before, {@link #addListener(Listener)} keeps them all.
+ *
  * Created by mati on 31/03/17.
  */
 
 public class BaseMsgFuture<O> implements Future<O> {
 
-    protected int messageId;
-    protected String msgName;
-    protected O object;
-    protected Listener listener;
+    private static final Logger logger = LoggerFactory.getLogger(BaseMsgFuture.class);
 
-    protected final Object reentrantLock = new Object();
+    public static final int STATUS_OK = 200;
+    /** Failure status of a cancelled future */
+    public static final int STATUS_CANCELLED = 499;
 
-    protected int status;
-    protected String statusDetail;
+    /** Head of the listeners once it's done */
+    private static final Node COMPLETED = new Node(null);
+
+    protected String msgName;
+
+    private final AtomicReference<Result<O>> result = new AtomicReference<>();
+    /** Listeners added before it was done, the last one first */
+    private final AtomicReference<Node> listeners = new AtomicReference<>();
+    /** Listener of {@link #setListener(Listener)}, the last one set */
+    private final AtomicReference<SetListener<O>> setListener = new AtomicReference<>();
+    /** Created by the first thread that waits on {@link #get()}, released once it's done */
+    private final AtomicReference<CountDownLatch> completion = new AtomicReference<>();
 
     public BaseMsgFuture() {
     }
 
+    /**
+     * Complete it with the response
+     *
+     * @return false if it was already done
+     */
+    protected boolean complete(int messageId, O object) {
+        return settle(new Result<>(messageId, object, STATUS_OK, null, false));
+    }
+
+    /**
+     * Complete it with the failure
+     *
+     * @return false if it was already done
+     */
+    protected boolean fail(int messageId, int status, String statusDetail) {
+        return settle(new Result<O>(messageId, null, status, statusDetail, false));
+    }
+
+    /**
+     * Give up waiting for the response, the cancel hooks are run
+     */
+    private boolean abandon(int status, String statusDetail) {
+        return settle(new Result<O>(0, null, status, statusDetail, true));
+    }
+
+    private boolean settle(Result<O> done) {
+        if (!result.compareAndSet(null, done)) {
+            return false;
+        }
+        Node head = listeners.getAndSet(COMPLETED);
+        // added order
+        Node reversed = null;
+        while (head != null) {
+            Node next = head.next;
+            head.next = reversed;
+            reversed = head;
+            head = next;
+        }
+        for (Node node = reversed; node != null; node = node.next) {
+            notify(node.listener, done);
+        }
+        CountDownLatch latch = completion.get();
+        if (latch != null) {
+            latch.countDown();
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void notify(Listener listener, Result<O> done) {
+        try {
+            if (done.status == STATUS_OK) {
+                listener.onAction(done.messageId, done.object);
+            } else {
+                listener.onFail(done.messageId, done.status, done.statusDetail);
+            }
+        } catch (Exception e) {
+            logger.error("Future listener fail, " + msgName, e);
+        }
+    }
+
+    /**
+     * Listener of the response or the failure, called right away if it's already done
+     */
+    public void addListener(Listener<? super O> listener) {
+        Node node = new Node(listener);
+        while (true) {
+            Node head = listeners.get();
+            if (head == COMPLETED) {
+                notify(listener, result.get());
+                return;
+            }
+            node.next = head;
+            if (listeners.compareAndSet(head, node)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Listener of the response or the failure, it replaces the one set before. Called right away if it's already done
+     */
+    public void setListener(Listener<O> listener) {
+        SetListener<O> set = new SetListener<>(listener);
+        if (setListener.getAndSet(set) == null) {
+            // the first one, notified in his place among the added listeners
+            addListener(new Listener<O>() {
+                @Override
+                public void onAction(int messageId, O object) {
+                    BaseMsgFuture.this.notify(setListener.get(), result.get());
+                }
+
+                @Override
+                public void onFail(int messageId, int status, String statusDetail) {
+                    BaseMsgFuture.this.notify(setListener.get(), result.get());
+                }
+            });
+        } else if (isDone()) {
+            // set after the others were notified
+            notify(set, result.get());
+        }
+    }
+
+    /**
+     * Hook run if the future is cancelled or times out before the response arrives, right away if it already was
+     */
+    public void onCancel(final Runnable hook) {
+        addListener(new Listener<O>() {
+            @Override
+            public void onAction(int messageId, O object) {
+                // answered
+            }
+
+            @Override
+            public void onFail(int messageId, int status, String statusDetail) {
+                if (result.get().abandoned) {
+                    hook.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Fail it with {@link #STATUS_CANCELLED} and run the cancel hooks, the response is ignored if it arrives later
+     *
+     * @param mayInterruptIfRunning ignored, no thread is waiting for the response
+     */
     @Override
-    public boolean cancel(boolean b) {
-        return false;
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return abandon(STATUS_CANCELLED, "Cancelled");
     }
 
     @Override
     public boolean isCancelled() {
-        return false;
+        Result<O> done = result.get();
+        return done != null && done.status == STATUS_CANCELLED;
     }
 
     @Override
     public boolean isDone() {
-        return messageId!=0;
+        return result.get() != null;
+    }
+
+    /**
+     * Fail it with {@link RequestPipeline#STATUS_TIMEOUT} if it's not done after the timeout, the cancel hooks are
+     * run then
+     *
+     * @return this future
+     */
+    public BaseMsgFuture<O> withTimeout(IoPScheduler.TaskGroup tasks, long timeout, TimeUnit unit) {
+        if (isDone()) return this;
+        final IoPScheduler.Task task = tasks.schedule(new Runnable() {
+            @Override
+            public void run() {
+                abandon(RequestPipeline.STATUS_TIMEOUT, "Response not received on time");
+            }
+        }, timeout, unit);
+        addListener(new Listener<O>() {
+            @Override
+            public void onAction(int messageId, O object) {
+                task.cancel();
+            }
+
+            @Override
+            public void onFail(int messageId, int status, String statusDetail) {
+                task.cancel();
+            }
+        });
+        return this;
     }
 
+    /**
+     * Blocks until it's done, use the listeners instead where a thread can't be parked
+     *
+     * @return the response, null if it failed
+     * @throws CancellationException if it was cancelled
+     */
     @Override
     public O get() throws InterruptedException, ExecutionException {
-        synchronized(reentrantLock) {
-            if (object == null) {
-                reentrantLock.wait();
-            }
+        Result<O> done = result.get();
+        if (done == null) {
+            completion().await();
+            done = result.get();
         }
-        return object;
+        return valueOf(done);
     }
 
+    /**
+     * Blocks until it's done or the timeout, nothing is left registered on the future after the timeout
+     *
+     * @return the response, null if it failed or it's not done after the timeout
+     * @throws CancellationException if it was cancelled
+     */
     @Override
-    public O get(long l, TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
-        synchronized(reentrantLock) {
-            if (object == null) {
-                reentrantLock.wait(timeUnit.toMillis(l));
+    public O get(long timeout, TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
+        Result<O> done = result.get();
+        if (done == null) {
+            if (!completion().await(timeout, timeUnit)) {
+                return null;
             }
+            done = result.get();
         }
-        return object;
+        return valueOf(done);
     }
 
-    public int getStatus() {
-        return status;
+    /**
+     * Latch released once it's done, shared by the waiting threads
+     */
+    private CountDownLatch completion() {
+        CountDownLatch latch = completion.get();
+        if (latch == null) {
+            completion.compareAndSet(null, new CountDownLatch(1));
+            latch = completion.get();
+        }
+        if (result.get() != null) {
+            // done before the latch was seen by settle
+            latch.countDown();
+        }
+        return latch;
     }
 
-    public String getStatusDetail() {
-        return statusDetail;
+    private O valueOf(Result<O> done) {
+        if (done.status == STATUS_CANCELLED) {
+            throw new CancellationException(msgName + " cancelled");
+        }
+        return done.object;
     }
 
-    public void setListener(Listener<O> listener) {
-        this.listener = listener;
+    /**
+     * @return 0 while it's not done
+     */
+    public int getMessageId() {
+        Result<O> done = result.get();
+        return (done != null) ? done.messageId : 0;
+    }
+
+    /**
+     * @return 0 while it's not done
+     */
+    public int getStatus() {
+        Result<O> done = result.get();
+        return (done != null) ? done.status : 0;
+    }
+
+    public String getStatusDetail() {
+        Result<O> done = result.get();
+        return (done != null) ? done.statusDetail : null;
     }
 
     public String getMessageName() {
@@ -79,6 +315,181 @@ public class BaseMsgFuture<O> implements Future<O> {
         this.msgName = msgName;
     }
 
+    /**
+     * Future of the response converted by the function, a failure or an exception of the function fails it.
+     * Cancelling it cancels this one.
+     */
+    public <R> BaseMsgFuture<R> map(final Function<? super O, ? extends R> function) {
+        final BaseMsgFuture<R> mapped = derive();
+        addListener(new Listener<O>() {
+            @Override
+            public void onAction(int messageId, O object) {
+                R converted;
+                try {
+                    converted = function.apply(object);
+                } catch (Exception e) {
+                    mapped.fail(messageId, 400, "Map fail, " + e.getMessage());
+                    return;
+                }
+                mapped.complete(messageId, converted);
+            }
+
+            @Override
+            public void onFail(int messageId, int status, String statusDetail) {
+                forwardFail(mapped, messageId, status, statusDetail);
+            }
+        });
+        return mapped;
+    }
+
+    /**
+     * Future of the request sent by the function with the response of this one, for requests that depend on the
+     * previous response. Cancelling it cancels the request in progress.
+     */
+    public <R> BaseMsgFuture<R> then(final Function<? super O, ? extends BaseMsgFuture<R>> function) {
+        final BaseMsgFuture<R> chained = derive();
+        addListener(new Listener<O>() {
+            @Override
+            public void onAction(int messageId, O object) {
+                final BaseMsgFuture<R> next;
+                try {
+                    next = function.apply(object);
+                } catch (Exception e) {
+                    chained.fail(messageId, 400, "Then fail, " + e.getMessage());
+                    return;
+                }
+                chained.onCancel(new Runnable() {
+                    @Override
+                    public void run() {
+                        next.cancel(false);
+                    }
+                });
+                next.addListener(new Listener<R>() {
+                    @Override
+                    public void onAction(int messageId, R object) {
+                        chained.complete(messageId, object);
+                    }
+
+                    @Override
+                    public void onFail(int messageId, int status, String statusDetail) {
+                        forwardFail(chained, messageId, status, statusDetail);
+                    }
+                });
+            }
+
+            @Override
+            public void onFail(int messageId, int status, String statusDetail) {
+                forwardFail(chained, messageId, status, statusDetail);
+            }
+        });
+        return chained;
+    }
+
+    /**
+     * Future of both responses combined, it fails with the first failure. Cancelling it cancels both.
+     */
+    public static <A, B, R> BaseMsgFuture<R> combine(final BaseMsgFuture<A> first, final BaseMsgFuture<B> second, final Combiner<? super A, ? super B, ? extends R> combiner) {
+        final BaseMsgFuture<R> combined = new BaseMsgFuture<>();
+        combined.setMsgName(first.msgName + " + " + second.msgName);
+        combined.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                first.cancel(false);
+                second.cancel(false);
+            }
+        });
+        final AtomicInteger pending = new AtomicInteger(2);
+        Listener<Object> listener = new Listener<Object>() {
+            @Override
+            public void onAction(int messageId, Object object) {
+                if (pending.decrementAndGet() > 0) return;
+                R value;
+                try {
+                    value = combiner.combine(first.result.get().object, second.result.get().object);
+                } catch (Exception e) {
+                    combined.fail(messageId, 400, "Combine fail, " + e.getMessage());
+                    return;
+                }
+                combined.complete(messageId, value);
+            }
+
+            @Override
+            public void onFail(int messageId, int status, String statusDetail) {
+                forwardFail(combined, messageId, status, statusDetail);
+            }
+        };
+        first.addListener(listener);
+        second.addListener(listener);
+        return combined;
+    }
+
+    /**
+     * Future of every response in the same order, it fails with the first failure. Cancelling it cancels them all.
+     */
+    public static <O> BaseMsgFuture<List<O>> allOf(List<? extends BaseMsgFuture<? extends O>> futures) {
+        final List<BaseMsgFuture<? extends O>> all = new ArrayList<>(futures);
+        final BaseMsgFuture<List<O>> combined = new BaseMsgFuture<>();
+        combined.setMsgName("allOf " + all.size());
+        if (all.isEmpty()) {
+            combined.complete(0, new ArrayList<O>());
+            return combined;
+        }
+        combined.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                for (BaseMsgFuture<? extends O> future : all) {
+                    future.cancel(false);
+                }
+            }
+        });
+        final Object[] values = new Object[all.size()];
+        final AtomicInteger pending = new AtomicInteger(all.size());
+        for (int i = 0; i < all.size(); i++) {
+            final int index = i;
+            all.get(i).addListener(new Listener<Object>() {
+                @Override
+                public void onAction(int messageId, Object object) {
+                    // published by the decrement
+                    values[index] = object;
+                    if (pending.decrementAndGet() == 0) {
+                        @SuppressWarnings("unchecked")
+                        List<O> list = (List<O>) Arrays.asList(values);
+                        combined.complete(messageId, list);
+                    }
+                }
+
+                @Override
+                public void onFail(int messageId, int status, String statusDetail) {
+                    forwardFail(combined, messageId, status, statusDetail);
+                }
+            });
+        }
+        return combined;
+    }
+
+    /**
+     * Future that cancels this one if it's cancelled
+     */
+    private <R> BaseMsgFuture<R> derive() {
+        BaseMsgFuture<R> derived = new BaseMsgFuture<>();
+        derived.setMsgName(msgName);
+        derived.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                cancel(false);
+            }
+        });
+        return derived;
+    }
+
+    private static void forwardFail(BaseMsgFuture<?> future, int messageId, int status, String statusDetail) {
+        if (status == STATUS_CANCELLED) {
+            future.cancel(false);
+        } else {
+            future.fail(messageId, status, statusDetail);
+        }
+    }
+
     public interface Listener<O>{
 
         void onAction(int messageId,O object);
@@ -86,4 +497,75 @@ public class BaseMsgFuture<O> implements Future<O> {
         void onFail(int messageId,int status,String statusDetail);
 
     }
+
+    /**
+     * Conversion of a response
+     */
+    public interface Function<I, R> {
+
+        R apply(I input) throws Exception;
+    }
+
+    /**
+     * Combination of two responses
+     */
+    public interface Combiner<A, B, R> {
+
+        R combine(A first, B second) throws Exception;
+    }
+
+    private static final class Result<O> {
+
+        private final int messageId;
+        private final O object;
+        private final int status;
+        private final String statusDetail;
+        /** Done without the response, cancelled or timed out */
+        private final boolean abandoned;
+
+        Result(int messageId, O object, int status, String statusDetail, boolean abandoned) {
+            this.messageId = messageId;
+            this.object = object;
+            this.status = status;
+            this.statusDetail = statusDetail;
+            this.abandoned = abandoned;
+        }
+    }
+
+    private static final class Node {
+
+        private final Listener listener;
+        private Node next;
+
+        Node(Listener listener) {
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Listener set with {@link #setListener(Listener)}, notified once even if it's set while the future completes
+     */
+    private static final class SetListener<O> implements Listener<O> {
+
+        private final Listener<O> listener;
+        private final AtomicBoolean notified = new AtomicBoolean();
+
+        SetListener(Listener<O> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onAction(int messageId, O object) {
+            if (notified.compareAndSet(false, true)) {
+                listener.onAction(messageId, object);
+            }
+        }
+
+        @Override
+        public void onFail(int messageId, int status, String statusDetail) {
+            if (notified.compareAndSet(false, true)) {
+                listener.onFail(messageId, status, statusDetail);
+            }
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package org.libertaria.world.profile_server.engine.futures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Combined future of a batch of requests, it's done once every request has his response or failure.
+ *
+ * The result maps every key with his response, the keys of the failed requests are on {@link #getFailures()}.
+ * Cancelling it cancels the requests still waiting for a response.
+ */
+public class BatchMsgFuture<O> extends MsgListenerFuture<Map<String, O>> {
+
+    private final Map<String, O> responses = new LinkedHashMap<>();
+    private final Map<String, String> failures = new LinkedHashMap<>();
+    private final List<MsgListenerFuture<O>> requests = new ArrayList<>();
+    private final AtomicInteger pending;
+
+    public BatchMsgFuture(int size) {
+        super();
+        this.pending = new AtomicInteger(size);
+        onCancel(new Runnable() {
+            @Override
+            public void run() {
+                List<MsgListenerFuture<O>> cancelled;
+                synchronized (responses) {
+                    cancelled = new ArrayList<>(requests);
+                }
+                // the last ones first, a released slot doesn't send a request about to be cancelled
+                for (int i = cancelled.size() - 1; i >= 0; i--) {
+                    cancelled.get(i).cancel(false);
+                }
+            }
+        });
+        if (size == 0) {
+            onMessageReceive(0, Collections.<String, O>emptyMap());
+        }
+    }
+
+    /**
+     * Listener of the request of the key, cancelled with the batch
+     */
+    public MsgListenerFuture<O> listenerFor(final String key) {
+        MsgListenerFuture<O> request = new MsgListenerFuture<>();
+        request.setMsgName(msgName);
+        request.addListener(new Listener<O>() {
+            @Override
+            public void onAction(int messageId, O object) {
+                synchronized (responses) {
+                    responses.put(key, object);
+                }
+                countDown();
+            }
+
+            @Override
+            public void onFail(int messageId, int status, String statusDetail) {
+                synchronized (responses) {
+                    failures.put(key, status + ", " + statusDetail);
+                }
+                countDown();
+            }
+        });
+        synchronized (responses) {
+            requests.add(request);
+        }
+        if (isCancelled()) {
+            request.cancel(false);
+        }
+        return request;
+    }
+
+    /**
+     * @return key -> status and detail of the failed requests
+     */
+    public Map<String, String> getFailures() {
+        synchronized (responses) {
+            return new LinkedHashMap<>(failures);
+        }
+    }
+
+    private void countDown() {
+        if (pending.decrementAndGet() == 0) {
+            Map<String, O> result;
+            synchronized (responses) {
+                result = new LinkedHashMap<>(responses);
+            }
+            onMessageReceive(0, result);
+        }
+    }
+}
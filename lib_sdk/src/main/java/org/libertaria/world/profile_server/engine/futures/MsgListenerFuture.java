@@ -14,27 +14,12 @@ public class MsgListenerFuture<O> extends BaseMsgFuture<O> implements ProfSerMsg
 
     @Override
     public void onMessageReceive(int messageId, O message) {
-        synchronized(reentrantLock) {
-            this.messageId = messageId;
-            this.status = 200;
-            object = message;
-            reentrantLock.notifyAll();
-        }
-        if (listener != null) {
-            listener.onAction(messageId,message);
-        }
+        complete(messageId, message);
     }
 
     @Override
     public void onMsgFail(int messageId, int statusValue, String details) {
-        synchronized(reentrantLock) {
-            this.status = statusValue;
-            this.statusDetail = details;
-            reentrantLock.notifyAll();
-        }
-        if (listener != null) {
-            listener.onFail(messageId,statusValue,details);
-        }
+        fail(messageId, statusValue, details);
     }
 
 }
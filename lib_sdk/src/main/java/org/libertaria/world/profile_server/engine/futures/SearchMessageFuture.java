@@ -18,21 +18,15 @@ public class SearchMessageFuture <O extends List<IopProfileServer.ProfileQueryIn
 
     @Override
     public void onMessageReceive(int messageId, O message) {
-        synchronized (reentrantLock) {
-            this.messageId = messageId;
+        if (!isDone()) {
             this.searchProfilesQuery.addListToChache(0, message);
-            object = message;
-            reentrantLock.notifyAll();
         }
+        complete(messageId, message);
     }
 
     @Override
     public void onMsgFail(int messageId, int statusValue, String details) {
-        synchronized(reentrantLock) {
-            this.status = statusValue;
-            this.statusDetail = details;
-            reentrantLock.notifyAll();
-        }
+        fail(messageId, statusValue, details);
     }
 
 }
@@ -20,19 +20,17 @@ public class SubsequentSearchMsgListenerFuture<O extends List<IopProfileServer.P
 
     @Override
     public void onMessageReceive(int messageId, O message, int recordIndex, int recordCount) {
-        this.messageId = messageId;
-        this.searchProfilesQuery.setLastRecordIndex(recordIndex);
-        this.searchProfilesQuery.setLastRecordCount(recordCount);
-        this.searchProfilesQuery.addListToChache(recordIndex,message);
-        object = message;
-        reentrantLock.notifyAll();
+        if (!isDone()) {
+            this.searchProfilesQuery.setLastRecordIndex(recordIndex);
+            this.searchProfilesQuery.setLastRecordCount(recordCount);
+            this.searchProfilesQuery.addListToChache(recordIndex, message);
+        }
+        complete(messageId, message);
     }
 
     @Override
     public void onMsgFail(int messageId, int statusValue, String details) {
-        this.status = statusValue;
-        this.statusDetail = details;
-        reentrantLock.notifyAll();
+        fail(messageId, statusValue, details);
     }
 
     @Override
@@ -0,0 +1,17 @@
+package org.libertaria.world.profile_server.engine.listeners;
+
+import java.util.List;
+
+/**
+ * Listener of the first response of a search that also wants the profile servers whose databases produced the results,
+ * they are notified before the results.
+ */
+
+public interface ProfSerCoveredSearchListener<O> extends ProfSerSearchListener<O> {
+
+    /**
+     * @param coveredServers network ids in hex
+     */
+    void onCoveredServers(int messageId, List<String> coveredServers);
+
+}
@@ -0,0 +1,11 @@
+package org.libertaria.world.profile_server.engine.listeners;
+
+/**
+ * Listener of the first response of a search, with the number of results that the server saved for the next parts.
+ */
+
+public interface ProfSerSearchListener<O> extends ProfSerMsgListener<O> {
+
+    void onMessageReceive(int messageId, O message, int totalRecordCount);
+
+}
@@ -140,6 +140,18 @@ public class ProfileInformationImp implements Serializable, org.libertaria.world
         return img;
     }
 
+    public byte[] getThumbnailImg() {
+        return thumbnailImg;
+    }
+
+    public byte[] getImgHash() {
+        return imgHash;
+    }
+
+    public byte[] getTumbnailImgHash() {
+        return tumbnailImgHash;
+    }
+
     public int getLatitude() {
         return latitude;
     }
@@ -118,6 +118,10 @@ public class ProfServerData {
         return networkId;
     }
 
+    public void setNetworkId(byte[] networkId) {
+        this.networkId = networkId;
+    }
+
     public float getLatitude() {
         return latitude;
     }
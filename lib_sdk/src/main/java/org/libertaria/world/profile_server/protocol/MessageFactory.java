@@ -435,6 +435,13 @@ public class MessageFactory {
         return buildMessage(org.libertaria.world.profile_server.protocol.IopShared.Status.ERROR_PROTOCOL_VIOLATION);
     }
 
+    /**
+     * The request was not processed, the client is busy
+     */
+    public static IopProfileServer.Message buildBusyResponse(int msgToRespondId) {
+        return buildMessage(IopProfileServer.Response.newBuilder().setStatus(org.libertaria.world.profile_server.protocol.IopShared.Status.ERROR_BUSY), msgToRespondId);
+    }
+
     public static IopProfileServer.Message buildVersionNotSupportResponse() {
         // todo: Creo que se devuelve el unnsopported cuando la versión no es valida, deberia chequear esto..
         return buildMessage(org.libertaria.world.profile_server.protocol.IopShared.Status.ERROR_UNSUPPORTED);
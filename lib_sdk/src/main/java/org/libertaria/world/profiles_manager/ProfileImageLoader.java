@@ -0,0 +1,361 @@
+package org.libertaria.world.profiles_manager;
+
+import org.libertaria.world.profile_server.CantConnectException;
+import org.libertaria.world.profile_server.CantSendMessageException;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Loads the full profile images on demand, the listings only carry the thumbnails.
+ *
+ * The requests wait in a queue ordered by priority (the higher first, FIFO between equals) and a few of them are fetched
+ * at the same time. The requests for an image already queued or fetching wait for it, a higher priority moves the
+ * queued one up. A cancelled request is removed from the queue once none of his callers wants it, one already fetching
+ * finishes and goes to the cache. The images are kept in memory bounded in bytes, the least recently used go first.
+ */
+public class ProfileImageLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileImageLoader.class);
+
+    /** Image on the screen */
+    public static final int PRIORITY_HIGH = 10;
+    /** Image that could be shown soon */
+    public static final int PRIORITY_LOW = 0;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    public static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Fetches the full image of a profile from the network
+     */
+    public interface Fetcher {
+
+        void fetch(String pubKey, ProfSerMsgListener<byte[]> listener) throws CantConnectException, CantSendMessageException;
+    }
+
+    /**
+     * Request of a caller, cancel it when the image is not needed anymore
+     */
+    public static final class Ticket {
+
+        private final ProfileImageLoader loader;
+        private final String pubKey;
+        private final Request request;
+        private final ProfSerMsgListener<byte[]> listener;
+        private volatile boolean cancelled;
+
+        private Ticket(ProfileImageLoader loader, String pubKey, Request request, ProfSerMsgListener<byte[]> listener) {
+            this.loader = loader;
+            this.pubKey = pubKey;
+            this.request = request;
+            this.listener = listener;
+        }
+
+        /**
+         * The listener is not notified after this
+         */
+        public void cancel() {
+            if (request != null) loader.cancel(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getPubKey() {
+            return pubKey;
+        }
+    }
+
+    private static final class Request {
+
+        private final String pubKey;
+        private final long sequence;
+        private final Fetcher fetcher;
+        private int priority;
+        private boolean queued = true;
+        private final List<Ticket> tickets = new ArrayList<>();
+
+        Request(String pubKey, int priority, long sequence, Fetcher fetcher) {
+            this.pubKey = pubKey;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.fetcher = fetcher;
+        }
+    }
+
+    private final int maxInFlight;
+    private final long maxBytes;
+
+    /** Guarded by this */
+    private final LinkedHashMap<String, byte[]> images = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Request> requests = new HashMap<>();
+    private final PriorityQueue<Request> queue = new PriorityQueue<>(16, new Comparator<Request>() {
+        @Override
+        public int compare(Request o1, Request o2) {
+            if (o1.priority != o2.priority) return (o1.priority > o2.priority) ? -1 : 1;
+            return (o1.sequence < o2.sequence) ? -1 : ((o1.sequence == o2.sequence) ? 0 : 1);
+        }
+    });
+    private long sequence;
+    private int inFlight;
+    private long bytes;
+    private long hits;
+    private long fetches;
+    private long bytesFetched;
+    private long cancelled;
+    private long evictions;
+
+    public ProfileImageLoader() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxInFlight images fetched at the same time
+     * @param maxBytes    size of the cached images at most
+     */
+    public ProfileImageLoader(int maxInFlight, long maxBytes) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("max in flight < 1");
+        if (maxBytes <= 0) throw new IllegalArgumentException("max bytes <= 0");
+        this.maxInFlight = maxInFlight;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the full image of a profile, a cached one is delivered on the caller thread
+     *
+     * @param priority the higher first
+     * @param fetcher  used if the image has to be fetched
+     */
+    public Ticket load(String pubKey, int priority, Fetcher fetcher, ProfSerMsgListener<byte[]> listener) {
+        byte[] cached;
+        Ticket ticket;
+        synchronized (this) {
+            cached = images.get(pubKey);
+            if (cached != null) {
+                hits++;
+                ticket = new Ticket(this, pubKey, null, listener);
+            } else {
+                Request request = requests.get(pubKey);
+                if (request == null) {
+                    request = new Request(pubKey, priority, sequence++, fetcher);
+                    requests.put(pubKey, request);
+                    queue.add(request);
+                } else if (request.queued && priority > request.priority) {
+                    // moved up
+                    queue.remove(request);
+                    request.priority = priority;
+                    queue.add(request);
+                }
+                ticket = new Ticket(this, pubKey, request, listener);
+                request.tickets.add(ticket);
+            }
+        }
+        if (cached != null) {
+            listener.onMessageReceive(0, cached);
+        } else {
+            dispatch();
+        }
+        return ticket;
+    }
+
+    /**
+     * Cancel every request of the image
+     */
+    public void cancel(String pubKey) {
+        List<Ticket> tickets;
+        synchronized (this) {
+            Request request = requests.get(pubKey);
+            if (request == null) return;
+            tickets = new ArrayList<>(request.tickets);
+        }
+        for (Ticket ticket : tickets) {
+            cancel(ticket);
+        }
+    }
+
+    private synchronized void cancel(Ticket ticket) {
+        if (ticket.cancelled) return;
+        ticket.cancelled = true;
+        Request request = ticket.request;
+        request.tickets.remove(ticket);
+        if (request.tickets.isEmpty() && request.queued) {
+            queue.remove(request);
+            requests.remove(request.pubKey);
+            cancelled++;
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            final Request request;
+            synchronized (this) {
+                if (inFlight >= maxInFlight || queue.isEmpty()) return;
+                request = queue.poll();
+                request.queued = false;
+                inFlight++;
+                fetches++;
+            }
+            try {
+                request.fetcher.fetch(request.pubKey, new ProfSerMsgListener<byte[]>() {
+                    @Override
+                    public void onMessageReceive(int messageId, byte[] message) {
+                        onFetched(request, messageId, message);
+                    }
+
+                    @Override
+                    public void onMsgFail(int messageId, int statusValue, String details) {
+                        onFetchFailed(request, messageId, statusValue, details);
+                    }
+
+                    @Override
+                    public String getMessageName() {
+                        return "fetchProfileImage";
+                    }
+                });
+            } catch (CantConnectException | CantSendMessageException | RuntimeException e) {
+                logger.warn("Profile image fetch not sent, " + request.pubKey, e);
+                onFetchFailed(request, 0, 400, "Profile image fetch not sent, " + e.getMessage());
+            }
+        }
+    }
+
+    private void onFetched(Request request, int messageId, byte[] img) {
+        if (img == null) img = new byte[0];
+        List<Ticket> tickets;
+        synchronized (this) {
+            inFlight--;
+            requests.remove(request.pubKey);
+            bytesFetched += img.length;
+            byte[] previous = images.remove(request.pubKey);
+            if (previous != null) bytes -= previous.length;
+            if (img.length <= maxBytes) {
+                images.put(request.pubKey, img);
+                bytes += img.length;
+                evict();
+            }
+            tickets = new ArrayList<>(request.tickets);
+        }
+        for (Ticket ticket : tickets) {
+            if (ticket.cancelled) continue;
+            try {
+                ticket.listener.onMessageReceive(messageId, img);
+            } catch (Exception e) {
+                logger.error("Profile image listener fail, " + request.pubKey, e);
+            }
+        }
+        dispatch();
+    }
+
+    private void onFetchFailed(Request request, int messageId, int status, String details) {
+        List<Ticket> tickets;
+        synchronized (this) {
+            inFlight--;
+            requests.remove(request.pubKey);
+            tickets = new ArrayList<>(request.tickets);
+        }
+        for (Ticket ticket : tickets) {
+            if (ticket.cancelled) continue;
+            try {
+                ticket.listener.onMsgFail(messageId, status, details);
+            } catch (Exception e) {
+                logger.error("Profile image listener fail, " + request.pubKey, e);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Guarded by this
+     */
+    private void evict() {
+        Iterator<byte[]> iterator = images.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().length;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * @return the cached image, null if it's not cached
+     */
+    public synchronized byte[] getCached(String pubKey) {
+        return images.get(pubKey);
+    }
+
+    /**
+     * Forget the image, it changed
+     */
+    public synchronized void invalidate(String pubKey) {
+        byte[] img = images.remove(pubKey);
+        if (img != null) bytes -= img.length;
+    }
+
+    public synchronized void clear() {
+        images.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return requests waiting to be fetched
+     */
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getFetchCount() {
+        return fetches;
+    }
+
+    public synchronized long getBytesFetched() {
+        return bytesFetched;
+    }
+
+    /**
+     * @return requests removed from the queue before being fetched
+     */
+    public synchronized long getCancelledCount() {
+        return cancelled;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ProfileImageLoader{" +
+                "images=" + images.size() +
+                ", bytes=" + bytes +
+                ", queued=" + queue.size() +
+                ", inFlight=" + inFlight +
+                ", hits=" + hits +
+                ", fetches=" + fetches +
+                ", bytesFetched=" + bytesFetched +
+                ", cancelled=" + cancelled +
+                ", evictions=" + evictions +
+                '}';
+    }
+}
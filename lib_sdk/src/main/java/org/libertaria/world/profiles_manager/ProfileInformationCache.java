@@ -0,0 +1,419 @@
+package org.libertaria.world.profiles_manager;
+
+import org.libertaria.world.profile_server.CantConnectException;
+import org.libertaria.world.profile_server.CantSendMessageException;
+import org.libertaria.world.profile_server.ProfileInformation;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.libertaria.world.profile_server.imp.ProfileInformationImp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profile information of the remote profiles fetched from the profile servers, by the local profile that asked for it
+ * (his connection and contacts give the context of the answer) and the public key.
+ *
+ * An entry is fresh during the ttl and served without asking the server. Once stale it's still served during the stale
+ * time while a refresh runs in background, after that it's loaded again before answering. The requests for a profile
+ * that is already loading wait for that load. The size is bounded in bytes (the images weight most), the least
+ * recently used entries are evicted first. A reload skips the cached entry and replaces it with the answer.
+ *
+ * The cached instances are shared by every caller, they shouldn't be modified.
+ */
+public class ProfileInformationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileInformationCache.class);
+
+    public static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(5);
+    public static final long DEFAULT_STALE_TIME = TimeUnit.MINUTES.toMillis(30);
+    /** Bytes counted for an entry besides his arrays and strings */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /**
+     * Fetches a profile from the network, for the local profile that asked for it
+     */
+    public interface Loader {
+
+        void load(String pubKey, ProfSerMsgListener<ProfileInformation> listener) throws CantConnectException, CantSendMessageException;
+    }
+
+    private final long maxBytes;
+    private volatile long ttl;
+    private volatile long staleTime;
+
+    /** Guarded by this, access ordered */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Profiles loading -> callers waiting for them */
+    private final Map<Key, List<ProfSerMsgListener<ProfileInformation>>> loading = new HashMap<>();
+    private long bytes;
+    private long hits;
+    private long staleHits;
+    private long misses;
+    private long coalesced;
+    private long loads;
+    private long evictions;
+
+    public ProfileInformationCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_TTL, DEFAULT_STALE_TIME);
+    }
+
+    /**
+     * @param maxBytes  size of the cached profiles at most
+     * @param ttl       millis a profile is fresh
+     * @param staleTime millis a profile is served after the ttl while it's refreshed
+     */
+    public ProfileInformationCache(long maxBytes, long ttl, long staleTime) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("max bytes <= 0");
+        this.maxBytes = maxBytes;
+        setTtl(ttl, staleTime);
+    }
+
+    public void setTtl(long ttl, long staleTime) {
+        if (ttl < 0 || staleTime < 0) throw new IllegalArgumentException("negative ttl");
+        this.ttl = ttl;
+        this.staleTime = staleTime;
+    }
+
+    /**
+     * @return millis a profile is fresh
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Answer with the cached profile or load it. A fresh or stale profile is delivered on the caller thread.
+     *
+     * @param localPubKey local profile that asks for it
+     * @throws CantConnectException     if the load started by this call can't be sent
+     * @throws CantSendMessageException if the load started by this call can't be sent
+     */
+    public void get(String localPubKey, String pubKey, Loader loader, ProfSerMsgListener<ProfileInformation> listener) throws CantConnectException, CantSendMessageException {
+        get(localPubKey, pubKey, loader, listener, false, System.currentTimeMillis());
+    }
+
+    /**
+     * Load the profile without looking at the cached one, the answer replaces it. Joins a load already running.
+     *
+     * @param localPubKey local profile that asks for it
+     * @throws CantConnectException     if the load started by this call can't be sent
+     * @throws CantSendMessageException if the load started by this call can't be sent
+     */
+    public void reload(String localPubKey, String pubKey, Loader loader, ProfSerMsgListener<ProfileInformation> listener) throws CantConnectException, CantSendMessageException {
+        get(localPubKey, pubKey, loader, listener, true, System.currentTimeMillis());
+    }
+
+    void get(String localPubKey, String pubKey, Loader loader, ProfSerMsgListener<ProfileInformation> listener, boolean reload, long now) throws CantConnectException, CantSendMessageException {
+        Key key = new Key(localPubKey, pubKey);
+        ProfileInformation cached = null;
+        boolean load = false;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            long age = (entry != null) ? now - entry.loadTime : -1;
+            if (reload) {
+                // the cached one stays until the answer replaces it
+                misses++;
+                List<ProfSerMsgListener<ProfileInformation>> waiting = loading.get(key);
+                if (waiting == null) {
+                    waiting = new ArrayList<>();
+                    loading.put(key, waiting);
+                    load = true;
+                } else {
+                    coalesced++;
+                }
+                waiting.add(listener);
+            } else if (entry != null && age < ttl) {
+                hits++;
+                cached = entry.profile;
+            } else if (entry != null && age < ttl + staleTime) {
+                staleHits++;
+                cached = entry.profile;
+                if (!loading.containsKey(key)) {
+                    // refresh in background
+                    loading.put(key, new ArrayList<ProfSerMsgListener<ProfileInformation>>());
+                    load = true;
+                }
+            } else {
+                if (entry != null) {
+                    remove(key);
+                }
+                misses++;
+                List<ProfSerMsgListener<ProfileInformation>> waiting = loading.get(key);
+                if (waiting == null) {
+                    waiting = new ArrayList<>();
+                    loading.put(key, waiting);
+                    load = true;
+                } else {
+                    coalesced++;
+                }
+                waiting.add(listener);
+            }
+            if (load) loads++;
+        }
+        if (cached != null) {
+            listener.onMessageReceive(0, cached);
+        }
+        if (load) {
+            load(key, loader, now, cached == null);
+        }
+    }
+
+    private void load(final Key key, Loader loader, final long now, boolean rethrow) throws CantConnectException, CantSendMessageException {
+        try {
+            loader.load(key.pubKey, new ProfSerMsgListener<ProfileInformation>() {
+                @Override
+                public void onMessageReceive(int messageId, ProfileInformation message) {
+                    onLoaded(key, messageId, message, now);
+                }
+
+                @Override
+                public void onMsgFail(int messageId, int statusValue, String details) {
+                    onLoadFailed(key, messageId, statusValue, details);
+                }
+
+                @Override
+                public String getMessageName() {
+                    return "loadProfileInformation";
+                }
+            });
+        } catch (CantConnectException | CantSendMessageException | RuntimeException e) {
+            List<ProfSerMsgListener<ProfileInformation>> waiting;
+            synchronized (this) {
+                waiting = loading.remove(key);
+            }
+            if (!rethrow) {
+                logger.warn("Profile refresh not sent, " + key, e);
+                return;
+            }
+            // the caller gets the exception, the rest the failure
+            if (waiting != null && waiting.size() > 1) {
+                notifyFail(waiting.subList(1, waiting.size()), 0, 400, "Profile load not sent, " + e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private void onLoaded(Key key, int messageId, ProfileInformation profile, long loadTime) {
+        List<ProfSerMsgListener<ProfileInformation>> waiting;
+        synchronized (this) {
+            waiting = loading.remove(key);
+            remove(key);
+            long size = sizeOf(profile);
+            if (size <= maxBytes) {
+                entries.put(key, new Entry(profile, size, loadTime));
+                bytes += size;
+                evict();
+            }
+        }
+        if (waiting != null) {
+            for (ProfSerMsgListener<ProfileInformation> listener : waiting) {
+                try {
+                    listener.onMessageReceive(messageId, profile);
+                } catch (Exception e) {
+                    logger.error("Profile listener fail, " + key, e);
+                }
+            }
+        }
+    }
+
+    private void onLoadFailed(Key key, int messageId, int status, String details) {
+        List<ProfSerMsgListener<ProfileInformation>> waiting;
+        synchronized (this) {
+            // a stale entry is kept until it expires
+            waiting = loading.remove(key);
+        }
+        if (waiting != null) {
+            notifyFail(waiting, messageId, status, details);
+        }
+    }
+
+    private void notifyFail(List<ProfSerMsgListener<ProfileInformation>> listeners, int messageId, int status, String details) {
+        for (ProfSerMsgListener<ProfileInformation> listener : listeners) {
+            try {
+                listener.onMsgFail(messageId, status, details);
+            } catch (Exception e) {
+                logger.error("Profile listener fail", e);
+            }
+        }
+    }
+
+    /**
+     * Guarded by this
+     */
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().size;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Guarded by this
+     */
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            bytes -= entry.size;
+        }
+    }
+
+    /**
+     * Forget a profile for every local profile, the next request goes to the server
+     */
+    public synchronized void invalidate(String pubKey) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> mapEntry = iterator.next();
+            if (mapEntry.getKey().pubKey.equals(pubKey)) {
+                bytes -= mapEntry.getValue().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return requests answered with a stale profile
+     */
+    public synchronized long getStaleHitCount() {
+        return staleHits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return misses that waited for a load already running
+     */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * @return loads started, the requests sent to the servers
+     */
+    public synchronized long getLoadCount() {
+        return loads;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ProfileInformationCache{" +
+                "size=" + entries.size() +
+                ", bytes=" + bytes +
+                ", hits=" + hits +
+                ", staleHits=" + staleHits +
+                ", misses=" + misses +
+                ", coalesced=" + coalesced +
+                ", loads=" + loads +
+                ", evictions=" + evictions +
+                '}';
+    }
+
+    /**
+     * @return approximated heap size of the profile
+     */
+    static long sizeOf(ProfileInformation profile) {
+        long size = ENTRY_OVERHEAD;
+        size += length(profile.getPublicKey());
+        size += length(profile.getImg()) + length(profile.getThumbnailImg());
+        size += length(profile.getProfileServerId());
+        size += length(profile.getName()) + length(profile.getType()) + length(profile.getExtraData()) + length(profile.getHomeHost());
+        if (profile.getServices() != null) {
+            for (String service : profile.getServices()) {
+                size += 16 + length(service);
+            }
+        }
+        if (profile instanceof ProfileInformationImp) {
+            ProfileInformationImp imp = (ProfileInformationImp) profile;
+            size += length(imp.getImgHash()) + length(imp.getTumbnailImgHash());
+        }
+        return size;
+    }
+
+    private static long length(byte[] bytes) {
+        return (bytes != null) ? bytes.length : 0;
+    }
+
+    private static long length(String string) {
+        return (string != null) ? 2 * string.length() : 0;
+    }
+
+    private static final class Key {
+
+        private final String localPubKey;
+        private final String pubKey;
+
+        Key(String localPubKey, String pubKey) {
+            if (localPubKey == null || pubKey == null) throw new IllegalArgumentException("null public key");
+            this.localPubKey = localPubKey;
+            this.pubKey = pubKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return localPubKey.equals(key.localPubKey) && pubKey.equals(key.pubKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * localPubKey.hashCode() + pubKey.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return pubKey + " of " + localPubKey;
+        }
+    }
+
+    private static final class Entry {
+
+        private final ProfileInformation profile;
+        private final long size;
+        private final long loadTime;
+
+        Entry(ProfileInformation profile, long size, long loadTime) {
+            this.profile = profile;
+            this.size = size;
+            this.loadTime = loadTime;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.libertaria.world.services.chat.msg;
 
+import org.libertaria.world.profile_server.engine.app_services.AppMsgCodec;
+import org.libertaria.world.profile_server.engine.app_services.AppServices;
+
 /**
  * Created by furszy on 7/5/17.
  */
@@ -19,11 +22,12 @@ public class ChatAcceptMsg extends org.libertaria.world.profile_server.engine.ap
 
     @Override
     public byte[] encode() throws Exception {
-        return org.libertaria.world.global.utils.SerializationUtils.serialize(this);
+        return AppServices.ChatAcceptMsg.newBuilder().setTimestamp(timestamp).build().toByteArray();
     }
 
     @Override
     public ChatAcceptMsg decode(byte[] msg) throws Exception {
-        return org.libertaria.world.global.utils.SerializationUtils.deserialize(msg,ChatAcceptMsg.class);
+        AppServices.ChatAcceptMsg proto = AppServices.ChatAcceptMsg.parseFrom(AppMsgCodec.newInput(msg));
+        return new ChatAcceptMsg(proto.getTimestamp());
     }
 }
@@ -1,12 +1,13 @@
 package org.libertaria.world.services.chat.msg;
 
-import java.io.Serializable;
+import org.libertaria.world.profile_server.engine.app_services.AppMsgCodec;
+import org.libertaria.world.profile_server.engine.app_services.AppServices;
 
 /**
  * Created by furszy on 7/3/17.
  */
 
-public class ChatMsg extends org.libertaria.world.profile_server.engine.app_services.BaseMsg<ChatMsg> implements Serializable{
+public class ChatMsg extends org.libertaria.world.profile_server.engine.app_services.BaseMsg<ChatMsg> {
 
     private String text;
     private long timestamp;
@@ -26,12 +27,17 @@ public class ChatMsg extends org.libertaria.world.profile_server.engine.app_serv
 
     @Override
     public ChatMsg decode(byte[] msg) throws Exception {
-        return org.libertaria.world.global.utils.SerializationUtils.deserialize(msg,ChatMsg.class);
+        AppServices.ChatMsg proto = AppServices.ChatMsg.parseFrom(AppMsgCodec.newInput(msg));
+        ChatMsg chatMsg = new ChatMsg(proto.getText());
+        chatMsg.timestamp = proto.getTimestamp();
+        return chatMsg;
     }
 
     @Override
     public byte[] encode() throws Exception {
-        return org.libertaria.world.global.utils.SerializationUtils.serialize(this);
+        AppServices.ChatMsg.Builder builder = AppServices.ChatMsg.newBuilder().setTimestamp(timestamp);
+        if (text != null) builder.setText(text);
+        return builder.build().toByteArray();
     }
 
     public long getTimestamp() {
@@ -1,6 +1,7 @@
 package org.libertaria.world.services.chat.msg;
 
-import org.libertaria.world.global.utils.SerializationUtils;
+import org.libertaria.world.profile_server.engine.app_services.AppMsgCodec;
+import org.libertaria.world.profile_server.engine.app_services.AppServices;
 import org.libertaria.world.profile_server.engine.app_services.BaseMsg;
 
 /**
@@ -19,11 +20,13 @@ public class ChatRefuseMsg extends BaseMsg<ChatRefuseMsg> {
 
     @Override
     public byte[] encode() throws Exception {
-        return SerializationUtils.serialize(this);
+        return AppServices.ChatRefuseMsg.getDefaultInstance().toByteArray();
     }
 
     @Override
     public ChatRefuseMsg decode(byte[] msg) throws Exception {
-        return SerializationUtils.deserialize(msg,ChatRefuseMsg.class);
+        // no fields, the ones of the next versions are skipped
+        AppServices.ChatRefuseMsg.parseFrom(AppMsgCodec.newInput(msg));
+        return new ChatRefuseMsg();
     }
 }
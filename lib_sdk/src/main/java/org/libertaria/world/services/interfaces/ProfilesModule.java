@@ -55,7 +55,20 @@ public interface ProfilesModule extends Module {
 
     void getProfileInformation(String localProfilePubKey,String profPubKey, ProfSerMsgListener<ProfileInformation> profileFuture) throws CantConnectException, CantSendMessageException;
 
+    /**
+     * The profiles fetched from the network come with the thumbnail only, getImg() is null unless the contact had the
+     * full image stored. The full image is loaded with {@link #getProfileImage(String, String, int, ProfSerMsgListener)}.
+     */
     void getProfileInformation(String localProfilePubKey,String profPubKey, boolean getInfo, ProfSerMsgListener<ProfileInformation> profileFuture) throws CantConnectException, CantSendMessageException;
 
+    /**
+     * Full image of a remote profile, the profile information only brings the thumbnail.
+     *
+     * @param priority ProfileImageLoader.PRIORITY_HIGH for the image on the screen
+     */
+    void getProfileImage(String localProfilePubKey, String profPubKey, int priority, ProfSerMsgListener<byte[]> listener);
+
+    void cancelProfileImage(String localProfilePubKey, String profPubKey);
+
     void restoreProfileFrom(File file, String password) throws IOException, IncorrectPasswordException;
 }
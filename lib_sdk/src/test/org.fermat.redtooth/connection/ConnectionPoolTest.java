@@ -0,0 +1,224 @@
+package org.libertaria.world.connection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reuse, sharing and eviction of the pooled connections.
+ */
+public class ConnectionPoolTest {
+
+    private static final long TTL = 60000;
+
+    @Test
+    public void reuseTest() throws Exception {
+        FakeConnector connector = new FakeConnector();
+        ConnectionPool<String, FakeConnection> pool = new ConnectionPool<>(connector, 4, TTL);
+        FakeConnection first = pool.acquire("host1", 0);
+        for (int i = 0; i < 9; i++) {
+            Assert.assertSame(first, pool.acquire("host1", i));
+        }
+        Assert.assertNotSame(first, pool.acquire("host2", 10));
+        Assert.assertEquals(2, connector.opened.get());
+        Assert.assertEquals(9, pool.getHits());
+        Assert.assertEquals(2, pool.getMisses());
+        Assert.assertEquals(9.0 / 11, pool.getHitRate(), 0.001);
+        Assert.assertEquals(2, pool.getLiveConnections());
+    }
+
+    @Test
+    public void concurrentOpenTest() throws Exception {
+        final FakeConnector connector = new FakeConnector();
+        connector.openDelay = 200;
+        final ConnectionPool<String, FakeConnection> pool = new ConnectionPool<>(connector, 4, TTL);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Future<FakeConnection>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<FakeConnection>() {
+                    @Override
+                    public FakeConnection call() throws Exception {
+                        start.await();
+                        return pool.acquire("host");
+                    }
+                }));
+            }
+            start.countDown();
+            FakeConnection connection = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<FakeConnection> future : futures) {
+                // the callers arriving while it's opening share it
+                Assert.assertSame(connection, future.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, connector.opened.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lruEvictionTest() throws Exception {
+        FakeConnector connector = new FakeConnector();
+        ConnectionPool<String, FakeConnection> pool = new ConnectionPool<>(connector, 3, TTL);
+        FakeConnection host1 = pool.acquire("host1", 0);
+        FakeConnection host2 = pool.acquire("host2", 1);
+        FakeConnection host3 = pool.acquire("host3", 2);
+        // host1 used again, host2 is the least recently used
+        pool.acquire("host1", 3);
+        pool.acquire("host4", 4);
+        Assert.assertTrue(host2.closed);
+        Assert.assertFalse(host1.closed);
+        Assert.assertEquals(3, pool.getLiveConnections());
+        // the connections with calls are kept while there is an idle one
+        host3.calls = 1;
+        pool.acquire("host1", 5);
+        pool.acquire("host5", 6);
+        Assert.assertFalse(host3.closed);
+        Assert.assertEquals(3, pool.getLiveConnections());
+        Assert.assertEquals(2, pool.getEvictions());
+    }
+
+    @Test
+    public void busyOverCapacityTest() throws Exception {
+        FakeConnector connector = new FakeConnector();
+        ConnectionPool<String, FakeConnection> pool = new ConnectionPool<>(connector, 2, TTL);
+        FakeConnection host1 = pool.acquire("host1", 0);
+        FakeConnection host2 = pool.acquire("host2", 1);
+        host1.calls = 1;
+        host2.calls = 1;
+        // every connection in use, the pool goes over his size
+        FakeConnection host3 = pool.acquire("host3", 2);
+        Assert.assertFalse(host1.closed);
+        Assert.assertFalse(host2.closed);
+        Assert.assertEquals(3, pool.getLiveConnections());
+        Assert.assertEquals(0, pool.getEvictions());
+        // back to his size once one is idle, the recent use is not expired
+        host2.calls = 0;
+        Assert.assertEquals(1, pool.evictExpired(3));
+        Assert.assertTrue(host2.closed);
+        Assert.assertFalse(host3.closed);
+        Assert.assertEquals(2, pool.getLiveConnections());
+        Assert.assertEquals(1, pool.getEvictions());
+    }
+
+    @Test
+    public void releaseAndActivityTest() throws Exception {
+        FakeConnector connector = new FakeConnector();
+        ConnectionPool<String, FakeConnection> pool = new ConnectionPool<>(connector, 4, TTL);
+        FakeConnection released = pool.acquire("released", 0);
+        FakeConnection active = pool.acquire("active", 0);
+        FakeConnection unused = pool.acquire("unused", 0);
+        pool.release("released", released, TTL / 2);
+        active.lastActivity = TTL / 2;
+        Assert.assertEquals(1, pool.evictExpired(TTL));
+        Assert.assertTrue(unused.closed);
+        Assert.assertFalse(released.closed);
+        Assert.assertFalse(active.closed);
+        // the release of a connection already replaced doesn't refresh the new one
+        pool.release("unused", unused, TTL);
+        Assert.assertEquals(2, pool.evictExpired(TTL + TTL / 2));
+        // the least recently used idle one makes room
+        ConnectionPool<String, FakeConnection> full = new ConnectionPool<>(connector, 2, TTL);
+        FakeConnection first = full.acquire("first", 0);
+        FakeConnection second = full.acquire("second", 1);
+        first.lastActivity = 2;
+        full.acquire("third", 3);
+        Assert.assertTrue(second.closed);
+        Assert.assertFalse(first.closed);
+    }
+
+    @Test
+    public void ttlEvictionTest() throws Exception {
+        FakeConnector connector = new FakeConnector();
+        ConnectionPool<String, FakeConnection> pool = new ConnectionPool<>(connector, 4, TTL);
+        FakeConnection idle = pool.acquire("idle", 0);
+        FakeConnection busy = pool.acquire("busy", 0);
+        FakeConnection recent = pool.acquire("recent", 0);
+        busy.calls = 1;
+        pool.acquire("recent", TTL / 2);
+        Assert.assertEquals(0, pool.evictExpired(TTL - 1));
+        Assert.assertEquals(1, pool.evictExpired(TTL));
+        Assert.assertTrue(idle.closed);
+        Assert.assertFalse(busy.closed);
+        Assert.assertFalse(recent.closed);
+        // failed connections are released and replaced on the next use
+        recent.failed = true;
+        Assert.assertEquals(1, pool.evictExpired(TTL));
+        Assert.assertTrue(recent.closed);
+        busy.failed = true;
+        FakeConnection replaced = pool.acquire("busy", TTL);
+        Assert.assertNotSame(busy, replaced);
+        Assert.assertTrue(busy.closed);
+        Assert.assertEquals(1, pool.getLiveConnections());
+    }
+
+    @Test
+    public void openFailTest() throws Exception {
+        FakeConnector connector = new FakeConnector();
+        connector.fail = true;
+        ConnectionPool<String, FakeConnection> pool = new ConnectionPool<>(connector, 4, TTL);
+        try {
+            pool.acquire("host", 0);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(0, pool.getLiveConnections());
+        connector.fail = false;
+        Assert.assertNotNull(pool.acquire("host", 1));
+    }
+
+    private static class FakeConnection {
+        volatile int calls;
+        volatile long lastActivity;
+        volatile boolean failed;
+        volatile boolean closed;
+    }
+
+    private static class FakeConnector implements ConnectionPool.Connector<String, FakeConnection> {
+
+        final AtomicInteger opened = new AtomicInteger();
+        volatile long openDelay;
+        volatile boolean fail;
+
+        @Override
+        public FakeConnection open(String key) throws Exception {
+            if (fail) throw new IllegalStateException("Can't connect to " + key);
+            if (openDelay > 0) {
+                Thread.sleep(openDelay);
+            }
+            opened.incrementAndGet();
+            return new FakeConnection();
+        }
+
+        @Override
+        public boolean isAlive(FakeConnection connection) {
+            return !connection.failed;
+        }
+
+        @Override
+        public boolean isIdle(FakeConnection connection) {
+            return connection.calls == 0;
+        }
+
+        @Override
+        public long getLastActivity(FakeConnection connection) {
+            return connection.lastActivity;
+        }
+
+        @Override
+        public void close(FakeConnection connection) {
+            connection.closed = true;
+        }
+    }
+}
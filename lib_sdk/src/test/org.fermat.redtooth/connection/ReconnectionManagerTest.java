@@ -0,0 +1,331 @@
+package org.libertaria.world.connection;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.libertaria.world.profile_server.engine.listeners.ConnectionListener;
+import org.libertaria.world.profile_server.model.Profile;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.libertaria.world.connection.ReconnectionManager.BASE_DELAY;
+import static org.libertaria.world.connection.ReconnectionManager.BREAKER_MAX_OPEN_TIME;
+import static org.libertaria.world.connection.ReconnectionManager.BREAKER_OPEN_TIME;
+import static org.libertaria.world.connection.ReconnectionManager.BREAKER_THRESHOLD;
+import static org.libertaria.world.connection.ReconnectionManager.MAX_DELAY;
+import static org.libertaria.world.connection.ReconnectionManager.NETWORK_RECOVERY_SPREAD;
+
+/**
+ * Backoff, circuit breaker and network changes of the reconnections, driven by a fake clock.
+ *
+ * The herd test takes a thousand devices that lose the same server and counts the reconnections per second while the
+ * server is down and once it's back.
+ */
+public class ReconnectionManagerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toMillis(1);
+
+    @Test
+    public void backoffTest() throws Exception {
+        Recorder recorder = new Recorder();
+        ReconnectionManager manager = new ReconnectionManager(null, null, new Random(1));
+        ReconnectionManager.ReconnectionParameters endpoint = parameters("host", recorder);
+        long now = 0;
+        long previous = BASE_DELAY;
+        for (int i = 0; i < BREAKER_THRESHOLD - 1; i++) {
+            long delay = manager.scheduleReconnection(endpoint, now);
+            Assert.assertTrue("delay " + delay, delay >= BASE_DELAY && delay <= Math.min(MAX_DELAY, previous * 3));
+            // the same failure reported twice doesn't grow the wait
+            Assert.assertEquals(delay, manager.scheduleReconnection(endpoint, now));
+            Assert.assertEquals(0, manager.tick(now + delay - 1));
+            Assert.assertEquals(1, manager.tick(now + delay));
+            previous = delay;
+            now += delay;
+        }
+        Assert.assertEquals(BREAKER_THRESHOLD - 1, recorder.attempts.size());
+        Assert.assertTrue(previous > BASE_DELAY);
+        // connected, the next failure starts from the base
+        manager.onReconnected(endpoint, now);
+        long delay = manager.scheduleReconnection(endpoint, now);
+        Assert.assertTrue("delay " + delay, delay >= BASE_DELAY && delay <= 3 * BASE_DELAY);
+        Assert.assertFalse(manager.isCircuitOpen("host", now));
+    }
+
+    @Test
+    public void capTest() throws Exception {
+        Recorder recorder = new Recorder();
+        ReconnectionManager manager = new ReconnectionManager(null, null, new Random(2));
+        ReconnectionManager.ReconnectionParameters endpoint = parameters("host", recorder);
+        long now = 0;
+        long max = 0;
+        for (int i = 0; i < 100; i++) {
+            long delay = manager.scheduleReconnection(endpoint, now);
+            if (i < BREAKER_THRESHOLD - 1) {
+                Assert.assertTrue("delay " + delay, delay <= MAX_DELAY);
+            }
+            // the breaker open time is capped too
+            Assert.assertTrue("delay " + delay, delay >= BASE_DELAY && delay <= BREAKER_MAX_OPEN_TIME + BASE_DELAY);
+            max = Math.max(max, delay);
+            now += delay;
+            Assert.assertEquals(1, manager.tick(now));
+        }
+        Assert.assertEquals(100, recorder.attempts.size());
+        Assert.assertTrue("max delay " + max, max >= BREAKER_MAX_OPEN_TIME);
+    }
+
+    @Test
+    public void circuitBreakerTest() throws Exception {
+        final Recorder recorder = new Recorder();
+        ReconnectionManager manager = new ReconnectionManager(null, null, new Random(4));
+        ReconnectionManager.ReconnectionParameters main = parameters("down", recorder);
+        long now = 0;
+        for (int i = 0; i < BREAKER_THRESHOLD - 1; i++) {
+            now += manager.scheduleReconnection(main, now);
+            manager.tick(now);
+        }
+        Assert.assertFalse(manager.isCircuitOpen("down", now));
+        // the last failure opens the breaker, the waits go past the open time
+        long openedAt = now;
+        Assert.assertTrue(manager.scheduleReconnection(main, now) >= BREAKER_OPEN_TIME);
+        Assert.assertTrue(manager.isCircuitOpen("down", now));
+        ReconnectionManager.ReconnectionParameters call1 = new ReconnectionManager.ReconnectionParameters(null, "down", IopProfileServer.ServerRoleType.CL_APP_SERVICE, "call1", "token1", recorder);
+        ReconnectionManager.ReconnectionParameters call2 = new ReconnectionManager.ReconnectionParameters(null, "down", IopProfileServer.ServerRoleType.CL_APP_SERVICE, "call2", "token2", recorder);
+        Assert.assertTrue(manager.scheduleReconnection(call1, now) >= BREAKER_OPEN_TIME);
+        Assert.assertTrue(manager.scheduleReconnection(call2, now) >= BREAKER_OPEN_TIME);
+        // other hosts are not affected
+        Assert.assertTrue(manager.scheduleReconnection(parameters("other", recorder), now) <= 3 * BASE_DELAY);
+        recorder.attempts.clear();
+        // until the open time passes nothing of the host runs, then a single trial
+        for (; now < openedAt + BREAKER_OPEN_TIME; now += SECOND) {
+            manager.tick(now);
+            Assert.assertEquals(0, recorder.count("down"));
+        }
+        for (long end = now + 2 * BASE_DELAY; now < end; now += SECOND) {
+            manager.tick(now);
+        }
+        Assert.assertEquals(1, recorder.count("down"));
+        // the trial failed, open again for twice the time
+        manager.scheduleReconnection(recorder.last("down"), now);
+        Assert.assertTrue(manager.isCircuitOpen("down", now + BREAKER_OPEN_TIME));
+        Assert.assertFalse(manager.isCircuitOpen("down", now + 2 * BREAKER_OPEN_TIME));
+        recorder.attempts.clear();
+        for (long end = now + 2 * BREAKER_OPEN_TIME + 2 * BASE_DELAY; now < end; now += SECOND) {
+            manager.tick(now);
+        }
+        Assert.assertEquals(1, recorder.count("down"));
+        // the trial connected, the rest come back soon
+        manager.onReconnected(recorder.last("down"), now);
+        Assert.assertFalse(manager.isCircuitOpen("down", now));
+        recorder.attempts.clear();
+        for (long end = now + NETWORK_RECOVERY_SPREAD + SECOND; now < end; now += SECOND) {
+            manager.tick(now);
+        }
+        Assert.assertEquals(2, recorder.count("down"));
+    }
+
+    @Test
+    public void networkChangeTest() throws Exception {
+        FakeNetwork network = new FakeNetwork();
+        Recorder recorder = new Recorder();
+        ReconnectionManager manager = new ReconnectionManager(null, network, new Random(5));
+        List<ReconnectionManager.ReconnectionParameters> endpoints = new ArrayList<>();
+        long now = 0;
+        for (int i = 0; i < 10; i++) {
+            ReconnectionManager.ReconnectionParameters endpoint = parameters("host" + i, recorder);
+            endpoints.add(endpoint);
+            // a few failures grow the waits
+            for (int j = 0; j < 3; j++) {
+                manager.scheduleReconnection(endpoint, now);
+                manager.tick(now + MAX_DELAY);
+            }
+        }
+        now += MAX_DELAY;
+        recorder.attempts.clear();
+        network.connected = false;
+        for (ReconnectionManager.ReconnectionParameters endpoint : endpoints) {
+            manager.scheduleReconnection(endpoint, now);
+        }
+        // offline nothing runs and the hosts are not blamed
+        for (long end = now + 2 * MAX_DELAY; now < end; now += SECOND) {
+            manager.tick(now);
+        }
+        Assert.assertEquals(0, recorder.attempts.size());
+        Assert.assertEquals(10, manager.getPendingCount());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertFalse(manager.isCircuitOpen("host" + i, now));
+        }
+        // online again, the pending ones are spread over the recovery time
+        network.connected = true;
+        Map<Long, Integer> perSecond = new HashMap<>();
+        for (long end = now + NETWORK_RECOVERY_SPREAD + SECOND; now < end; now += SECOND) {
+            perSecond.put(now, manager.tick(now));
+        }
+        Assert.assertEquals(10, recorder.attempts.size());
+        Assert.assertTrue("attempts per second: " + perSecond.values(), max(perSecond.values()) < 10);
+        // and the backoff starts again
+        long delay = manager.scheduleReconnection(endpoints.get(0), now);
+        Assert.assertTrue("delay " + delay, delay <= 3 * BASE_DELAY);
+        // a new network resets the waits too
+        for (int j = 0; j < 3; j++) {
+            manager.tick(now += MAX_DELAY);
+            manager.scheduleReconnection(endpoints.get(0), now);
+        }
+        Assert.assertTrue(manager.getWaitingTime(endpoints.get(0), now) > NETWORK_RECOVERY_SPREAD + SECOND);
+        network.type = ConnectionType.FOURG;
+        recorder.attempts.clear();
+        for (long end = now + NETWORK_RECOVERY_SPREAD + SECOND; now < end; now += SECOND) {
+            manager.tick(now);
+        }
+        Assert.assertEquals(1, recorder.attempts.size());
+    }
+
+    @Test
+    public void thunderingHerdTest() throws Exception {
+        int devices = 1000;
+        long downTime = TimeUnit.MINUTES.toMillis(3);
+        long simulation = TimeUnit.MINUTES.toMillis(30);
+        final boolean[] serverUp = {false};
+        final Map<Long, Integer> attemptsPerSecond = new HashMap<>();
+        final int[] reconnected = {0};
+        final int[] attemptsWhileDown = new int[devices];
+        final long[] now = {0};
+        List<ReconnectionManager> managers = new ArrayList<>();
+        // the first values of consecutive seeds are alike
+        Random seeds = new Random(7);
+        for (int i = 0; i < devices; i++) {
+            final int device = i;
+            final ReconnectionManager manager = new ReconnectionManager(null, null, new Random(seeds.nextLong()));
+            ConnectionListener listener = new ListenerAdapter() {
+                @Override
+                public void onConnectionLost(Profile localProfile, String psHost, IopProfileServer.ServerRoleType portType, String callId, String tokenId) {
+                    Integer count = attemptsPerSecond.get(now[0]);
+                    attemptsPerSecond.put(now[0], (count == null) ? 1 : count + 1);
+                    ReconnectionManager.ReconnectionParameters parameters = new ReconnectionManager.ReconnectionParameters(localProfile, psHost, portType, callId, tokenId, this);
+                    if (serverUp[0]) {
+                        manager.onReconnected(parameters, now[0]);
+                        reconnected[0]++;
+                    } else {
+                        attemptsWhileDown[device]++;
+                        manager.scheduleReconnection(parameters, now[0]);
+                    }
+                }
+            };
+            // every device lost the server at the same time
+            manager.scheduleReconnection(parameters("server", listener), 0);
+            managers.add(manager);
+        }
+        for (; now[0] < simulation; now[0] += SECOND) {
+            serverUp[0] = now[0] >= downTime;
+            for (ReconnectionManager manager : managers) {
+                manager.tick(now[0]);
+            }
+        }
+        int maxPerSecond = 0;
+        int maxPerSecondAfterRestart = 0;
+        for (Map.Entry<Long, Integer> entry : attemptsPerSecond.entrySet()) {
+            maxPerSecond = Math.max(maxPerSecond, entry.getValue());
+            if (entry.getKey() >= downTime) {
+                maxPerSecondAfterRestart = Math.max(maxPerSecondAfterRestart, entry.getValue());
+            }
+        }
+        int maxAttemptsWhileDown = 0;
+        for (int attempts : attemptsWhileDown) {
+            maxAttemptsWhileDown = Math.max(maxAttemptsWhileDown, attempts);
+        }
+        // a fixed wait sends every device in the same second
+        Assert.assertTrue(maxPerSecond < devices / 5);
+        Assert.assertTrue(maxPerSecondAfterRestart < devices / 5);
+        // the breaker keeps the devices quiet while the server is down
+        Assert.assertTrue(maxAttemptsWhileDown <= BREAKER_THRESHOLD + 2);
+        Assert.assertEquals(devices, reconnected[0]);
+        for (ReconnectionManager manager : managers) {
+            Assert.assertEquals(0, manager.getPendingCount());
+        }
+    }
+
+    private static int max(Iterable<Integer> values) {
+        int max = 0;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    private static ReconnectionManager.ReconnectionParameters parameters(String host, ConnectionListener listener) {
+        return new ReconnectionManager.ReconnectionParameters(null, host, IopProfileServer.ServerRoleType.CL_CUSTOMER, null, null, listener);
+    }
+
+    private static class Recorder extends ListenerAdapter {
+
+        final List<ReconnectionManager.ReconnectionParameters> attempts = new ArrayList<>();
+
+        @Override
+        public void onConnectionLost(Profile localProfile, String psHost, IopProfileServer.ServerRoleType portType, String callId, String tokenId) {
+            attempts.add(new ReconnectionManager.ReconnectionParameters(localProfile, psHost, portType, callId, tokenId, this));
+        }
+
+        int count(String host) {
+            int count = 0;
+            for (ReconnectionManager.ReconnectionParameters attempt : attempts) {
+                if (host.equals(attempt.getPsHost())) count++;
+            }
+            return count;
+        }
+
+        ReconnectionManager.ReconnectionParameters last(String host) {
+            for (int i = attempts.size() - 1; i >= 0; i--) {
+                if (host.equals(attempts.get(i).getPsHost())) return attempts.get(i);
+            }
+            return null;
+        }
+    }
+
+    private static class ListenerAdapter implements ConnectionListener {
+
+        @Override
+        public void onPortsReceived(String psHost, int nonClPort, int clPort, int appSerPort) {
+
+        }
+
+        @Override
+        public void onHostingPlanReceived(String host, IopProfileServer.HostingPlanContract contract) {
+
+        }
+
+        @Override
+        public void onNonClConnectionStablished(String host) {
+
+        }
+
+        @Override
+        public void onConnectionLost(Profile localProfile, String psHost, IopProfileServer.ServerRoleType portType, String callId, String tokenId) {
+
+        }
+    }
+
+    private static class FakeNetwork implements DeviceNetworkConnection {
+
+        volatile boolean connected = true;
+        volatile ConnectionType type = ConnectionType.WIFI;
+
+        @Override
+        public Boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public ConnectionType getConnectionType() {
+            return connected ? type : ConnectionType.NONE;
+        }
+
+        @Override
+        public NetworkSignalStrength getSignalStrength() {
+            return null;
+        }
+    }
+}
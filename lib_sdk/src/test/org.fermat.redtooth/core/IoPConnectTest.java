@@ -0,0 +1,265 @@
+package org.libertaria.world.core;
+
+import com.google.protobuf.ByteString;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.libertaria.world.profile_server.ProfileInformation;
+import org.libertaria.world.profile_server.ProfileServerConfigurations;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.libertaria.world.profile_server.imp.ProfileInformationImp;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.libertaria.world.profiles_manager.ProfilesManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stored and cached profiles answered by searchAndGetProfile against a stand-in connection that counts the requests
+ * sent to the profile server.
+ */
+public class IoPConnectTest {
+
+    private static final String LOCAL = "local";
+    private static final String REMOTE = "remote";
+
+    private IoPScheduler scheduler;
+    private StoredProfiles storedProfiles;
+    private StandInConnection server;
+    private IoPConnect ioPConnect;
+
+    @Before
+    public void setUp() {
+        scheduler = new IoPScheduler("test", 1);
+        storedProfiles = new StoredProfiles();
+        IoPConnectContext context = new IoPConnectContext() {
+            @Override
+            public ProfileServerConfigurations createProfSerConfig() {
+                return null;
+            }
+
+            @Override
+            public IoPScheduler getScheduler() {
+                return scheduler;
+            }
+        };
+        ioPConnect = new IoPConnect(context, null, null, null, storedProfiles, null, null, null, null);
+        server = new StandInConnection(context, ioPConnect);
+        ioPConnect.putConnection(LOCAL, server);
+    }
+
+    @After
+    public void tearDown() {
+        ioPConnect.stop();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void storedProfileTest() throws Exception {
+        // stored lately, the server is not asked
+        storedProfiles.put(stored("stored", System.currentTimeMillis()));
+        Assert.assertEquals("stored", search(false, false).getName());
+        Assert.assertEquals(0, server.requests.get());
+        // stored before the ttl, fetched again and saved
+        storedProfiles.put(stored("old", System.currentTimeMillis() - ioPConnect.getProfileInformationCache().getTtl()));
+        Assert.assertEquals(REMOTE + "-1", search(false, false).getName());
+        Assert.assertEquals(1, server.requests.get());
+        Assert.assertEquals(REMOTE + "-1", storedProfiles.profiles.get(REMOTE).getName());
+        Assert.assertEquals(REMOTE + "-1", search(false, false).getName());
+        Assert.assertEquals(1, server.requests.get());
+    }
+
+    @Test
+    public void getInfoTest() throws Exception {
+        storedProfiles.put(stored("stored", System.currentTimeMillis()));
+        // the stored one is skipped, the answer is cached
+        Assert.assertEquals(REMOTE + "-1", search(true, false).getName());
+        Assert.assertEquals(1, server.requests.get());
+        // the screen opened again, answered by the cache
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(REMOTE + "-1", search(true, false).getName());
+        }
+        Assert.assertEquals(1, server.requests.get());
+        Assert.assertEquals(5, ioPConnect.getProfileInformationCache().getHitCount());
+        // forced, the server is asked and the answer replaces the cached one
+        Assert.assertEquals(REMOTE + "-2", search(true, true).getName());
+        Assert.assertEquals(2, server.requests.get());
+        Assert.assertEquals(REMOTE + "-2", search(true, false).getName());
+        Assert.assertEquals(2, server.requests.get());
+    }
+
+    private ProfileInformation search(boolean getInfo, boolean forceRefresh) throws Exception {
+        Result result = new Result();
+        ioPConnect.searchAndGetProfile(LOCAL, REMOTE, getInfo, forceRefresh, result);
+        Assert.assertTrue(result.await());
+        Assert.assertNotNull("failed: " + result.status, result.profile);
+        return result.profile;
+    }
+
+    private static ProfileInformationImp stored(String name, long updateTimestamp) {
+        ProfileInformationImp profile = new ProfileInformationImp();
+        profile.setPubKey(new byte[32]);
+        profile.setName(name);
+        profile.setType("test");
+        profile.setUpdateTimestamp(updateTimestamp);
+        return profile;
+    }
+
+    private static class Result implements ProfSerMsgListener<ProfileInformation> {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile ProfileInformation profile;
+        private volatile int status;
+
+        @Override
+        public void onMessageReceive(int messageId, ProfileInformation message) {
+            profile = message;
+            done.countDown();
+        }
+
+        @Override
+        public void onMsgFail(int messageId, int statusValue, String details) {
+            status = statusValue;
+            done.countDown();
+        }
+
+        @Override
+        public String getMessageName() {
+            return "search";
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Answers on the caller thread, every answer has a new version in the name
+     */
+    private static class StandInConnection extends IoPProfileConnection {
+
+        final AtomicInteger requests = new AtomicInteger();
+
+        StandInConnection(IoPConnectContext context, IoPConnect ioPConnect) {
+            super(context, null, null, null, null, null, null, ioPConnect, null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void getProfileInformation(String publicKey, boolean includeProfileImage, boolean includeThumbnailImage, boolean includeApplicationServices, ProfSerMsgListener msgProfFuture) {
+            int request = requests.incrementAndGet();
+            IopProfileServer.GetProfileInformationResponse response = IopProfileServer.GetProfileInformationResponse.newBuilder()
+                    .setIsHosted(true)
+                    .setIsOnline(true)
+                    .setSignedProfile(IopProfileServer.SignedProfileInformation.newBuilder()
+                            .setProfile(IopProfileServer.ProfileInformation.newBuilder()
+                                    .setVersion(ByteString.copyFrom(new byte[]{1, 0, 0}))
+                                    .setPublicKey(ByteString.copyFrom(new byte[32]))
+                                    .setType("test")
+                                    .setName(publicKey + "-" + request)))
+                    .build();
+            msgProfFuture.onMessageReceive(request, response);
+        }
+
+        @Override
+        public void stop() {
+            // nothing opened
+        }
+    }
+
+    /**
+     * The contacts database, only the remote profile is used
+     */
+    private static class StoredProfiles implements ProfilesManager {
+
+        final Map<String, ProfileInformation> profiles = new HashMap<>();
+
+        void put(ProfileInformation profile) {
+            profiles.put(REMOTE, profile);
+        }
+
+        @Override
+        public long saveProfile(String localProfilePubKeyOwnerOfContact, ProfileInformation profile) {
+            put(profile);
+            return 1;
+        }
+
+        @Override
+        public long saveProfileIfNotExist(String localProfilePubKeyOwnerOfContact, ProfileInformation profile) {
+            return saveProfile(localProfilePubKeyOwnerOfContact, profile);
+        }
+
+        @Override
+        public void saveOrUpdateProfile(String localProfilePubKeyOwnerOfContact, ProfileInformation profile) {
+            put(profile);
+        }
+
+        @Override
+        public boolean updateProfile(String localProfilePubKeyOwnerOfContact, ProfileInformation profile) {
+            put(profile);
+            return true;
+        }
+
+        @Override
+        public ProfileInformation getProfile(long id) {
+            return profiles.get(REMOTE);
+        }
+
+        @Override
+        public boolean existProfile(String localProfileOwnerOfContacts, String pubKey) {
+            return profiles.containsKey(pubKey);
+        }
+
+        @Override
+        public List<ProfileInformation> listOwnProfiles(String localProfileOwnerOfContacts) {
+            return new ArrayList<>(profiles.values());
+        }
+
+        @Override
+        public ProfileInformation getProfile(String localProfileOwnerOfContacts, String pubKey) {
+            return profiles.get(pubKey);
+        }
+
+        @Override
+        public List<ProfileInformation> listConnectedProfiles(String localProfileOwnerOfContacts) {
+            return new ArrayList<>(profiles.values());
+        }
+
+        @Override
+        public List<ProfileInformation> listAll(String localProfilePubKeyOwnerOfContact) {
+            return new ArrayList<>(profiles.values());
+        }
+
+        @Override
+        public boolean updatePaired(String localProfilePubKey, String remotePubKey, ProfileInformationImp.PairStatus value) {
+            return false;
+        }
+
+        @Override
+        public boolean updateRemoteServices(String localProfilePubKey, String remotePubKey, Set<String> services) {
+            return false;
+        }
+
+        @Override
+        public void saveAllProfiles(String localProfilePubKey, List<ProfileInformation> profileInformationList) {
+        }
+
+        @Override
+        public int deleteProfileByPubKey(String localProfilePubKey, String remoteHexPubKey) {
+            return (profiles.remove(remoteHexPubKey) != null) ? 1 : 0;
+        }
+
+        @Override
+        public void truncate() {
+            profiles.clear();
+        }
+    }
+}
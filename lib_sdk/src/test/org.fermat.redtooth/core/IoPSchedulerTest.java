@@ -0,0 +1,212 @@
+package org.libertaria.world.core;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Groups, cancellation and lag of the shared scheduler.
+ *
+ * The threads test schedules the pings and call checks of hundreds of connections and checks that the thread count
+ * of the process doesn't grow with them.
+ */
+public class IoPSchedulerTest {
+
+    private IoPScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new IoPScheduler("test", 2);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void scheduleTest() throws Exception {
+        IoPScheduler.TaskGroup group = scheduler.newGroup("group");
+        final CountDownLatch once = new CountDownLatch(1);
+        final CountDownLatch periodic = new CountDownLatch(5);
+        IoPScheduler.Task task = group.schedule(countDown(once), 50, TimeUnit.MILLISECONDS);
+        group.scheduleAtFixedRate(countDown(periodic), 0, 20, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(once.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(periodic.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        Assert.assertTrue(task.isDone());
+        // the periodic one is still scheduled
+        Assert.assertEquals(1, group.getTaskCount());
+        group.cancel();
+        Thread.sleep(50);
+        Assert.assertTrue(group.getRuns() >= 6);
+        Assert.assertEquals(group.getRuns(), scheduler.getRuns());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        IoPScheduler.TaskGroup group = scheduler.newGroup("cancelled");
+        IoPScheduler.TaskGroup other = scheduler.newGroup("other");
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable increment = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        group.schedule(increment, 100, TimeUnit.MILLISECONDS);
+        group.scheduleAtFixedRate(increment, 100, 10, TimeUnit.MILLISECONDS);
+        CountDownLatch otherRun = new CountDownLatch(1);
+        other.schedule(countDown(otherRun), 200, TimeUnit.MILLISECONDS);
+        group.cancel();
+        Assert.assertEquals(0, group.getTaskCount());
+        Assert.assertFalse(scheduler.getGroups().contains(group));
+        // the other groups are not affected
+        Assert.assertTrue(otherRun.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, runs.get());
+        // a periodic task cancelled from his own run
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final IoPScheduler.Task[] self = new IoPScheduler.Task[1];
+        final AtomicInteger selfRuns = new AtomicInteger();
+        synchronized (self) {
+            self[0] = other.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (self) {
+                        selfRuns.incrementAndGet();
+                        self[0].cancel();
+                        cancelled.countDown();
+                    }
+                }
+            }, 0, 10, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        Assert.assertEquals(1, selfRuns.get());
+        Assert.assertEquals(0, other.getTaskCount());
+    }
+
+    @Test
+    public void lagTest() throws Exception {
+        IoPScheduler.TaskGroup busy = scheduler.newGroup("busy");
+        final CountDownLatch done = new CountDownLatch(3);
+        // the two workers are busy, the third task waits for one of them
+        for (int i = 0; i < 3; i++) {
+            busy.execute(new Runnable() {
+                @Override
+                public void run() {
+                    sleep(200);
+                    done.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(3, busy.getRuns());
+        Assert.assertTrue("max lag " + busy.getMaxLag(), busy.getMaxLag() >= 150);
+        Assert.assertTrue(scheduler.getMaxLag() >= 150);
+        Assert.assertTrue(busy.getAverageLag() <= busy.getMaxLag());
+    }
+
+    @Test
+    public void busyWorkersTest() throws Exception {
+        IoPScheduler.TaskGroup dispatch = scheduler.newGroup("dispatch");
+        IoPScheduler.TaskGroup ticks = scheduler.newTickerGroup("ticks");
+        IoPScheduler.TaskGroup calls = scheduler.newBlockingGroup("calls");
+        final CountDownLatch blocked = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            // every worker waits on a connection
+            for (int i = 0; i < 2; i++) {
+                dispatch.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        blocked.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+            Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            // the deadlines, the pings and the calls don't wait for them
+            CountDownLatch deadline = new CountDownLatch(1);
+            CountDownLatch pings = new CountDownLatch(3);
+            CountDownLatch call = new CountDownLatch(1);
+            ticks.schedule(countDown(deadline), 10, TimeUnit.MILLISECONDS);
+            ticks.scheduleAtFixedRate(countDown(pings), 0, 10, TimeUnit.MILLISECONDS);
+            calls.execute(countDown(call));
+            Assert.assertTrue(deadline.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(pings.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(call.await(5, TimeUnit.SECONDS));
+            // the dispatch waits for a free worker
+            CountDownLatch queued = new CountDownLatch(1);
+            dispatch.execute(countDown(queued));
+            Assert.assertEquals(1, scheduler.getQueuedTasks());
+            release.countDown();
+            Assert.assertTrue(queued.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            ticks.cancel();
+        }
+    }
+
+    @Test
+    public void threadsTest() throws Exception {
+        int threadsBefore = Thread.activeCount();
+        int connections = 500;
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch ran = new CountDownLatch(connections * 2);
+        List<IoPScheduler.TaskGroup> groups = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            IoPScheduler.TaskGroup group = scheduler.newGroup("connection " + i);
+            Runnable check = new Runnable() {
+                @Override
+                public void run() {
+                    runs.incrementAndGet();
+                    ran.countDown();
+                }
+            };
+            // ping and calls check
+            group.scheduleAtFixedRate(check, i % 50, 50, TimeUnit.MILLISECONDS);
+            group.scheduleAtFixedRate(check, i % 30, 30, TimeUnit.MILLISECONDS);
+            groups.add(group);
+        }
+        Assert.assertTrue(ran.await(10, TimeUnit.SECONDS));
+        int threads = Thread.activeCount() - threadsBefore;
+        Assert.assertTrue(threads <= scheduler.getThreadCount());
+        for (IoPScheduler.TaskGroup group : groups) {
+            group.cancel();
+        }
+        Assert.assertTrue(scheduler.getGroups().isEmpty());
+        Thread.sleep(100);
+        int runsAfterCancel = runs.get();
+        Thread.sleep(200);
+        Assert.assertEquals(runsAfterCancel, runs.get());
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.libertaria.world.profile_server.client;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Races against local listeners that answer right away or once they are released.
+ */
+public class EndpointRacerTest {
+
+    private ExecutorService executor;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Listener listener : listeners) {
+            listener.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void fastestWinsTest() throws Exception {
+        EndpointRacer racer = new EndpointRacer(executor, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        InetSocketAddress slow = listen(release);
+        InetSocketAddress slower = listen(release);
+        InetSocketAddress fast = listen();
+        GreetingConnector connector = new GreetingConnector();
+        EndpointRacer.Result<Socket> result = racer.race(Arrays.asList(slow, slower, fast), connector, 5000);
+        // started after two attempt delays, it answers while the others wait
+        Assert.assertEquals(fast, result.getEndpoint());
+        Assert.assertFalse(result.getConnection().isClosed());
+        result.getConnection().close();
+        // the losers are closed once they connect
+        release.countDown();
+        Assert.assertTrue(connector.closed.tryAcquire(2, 5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, racer.getStats(fast).getSuccesses());
+        // started before and answered after the winner
+        Assert.assertTrue(racer.getStats(fast).getRtt() < racer.getStats(slow).getRtt());
+        // the next race tries the fastest first
+        Assert.assertEquals(Arrays.asList(fast, slower, slow), racer.order(Arrays.asList(slow, slower, fast)));
+    }
+
+    @Test
+    public void failedEndpointTest() throws Exception {
+        // the attempt delay is longer than the race, the next attempt can only start on the failure
+        EndpointRacer racer = new EndpointRacer(executor, 60000);
+        InetSocketAddress dead = deadEndpoint();
+        InetSocketAddress alive = listen();
+        EndpointRacer.Result<Socket> result = racer.race(Arrays.asList(dead, alive), new GreetingConnector(), 5000);
+        result.getConnection().close();
+        // the refused connection starts the next attempt without waiting for the delay
+        Assert.assertEquals(alive, result.getEndpoint());
+        Assert.assertEquals(0, racer.getStats(dead).getSuccesses());
+        // the endpoints that fail go after the new ones
+        InetSocketAddress unknown = deadEndpoint();
+        Assert.assertEquals(Arrays.asList(alive, unknown, dead), racer.order(Arrays.asList(dead, unknown, alive)));
+    }
+
+    @Test
+    public void noWinnerTest() throws Exception {
+        EndpointRacer racer = new EndpointRacer(executor, 50);
+        try {
+            racer.race(Arrays.asList(deadEndpoint(), deadEndpoint()), new GreetingConnector(), 5000);
+            Assert.fail();
+        } catch (SocketTimeoutException e) {
+            Assert.fail("the failure of the last attempt expected");
+        } catch (IOException e) {
+            // refused
+        }
+        // never answered, the race gives up instead of waiting for the connections
+        CountDownLatch never = new CountDownLatch(1);
+        try {
+            racer.race(Arrays.asList(listen(never), listen(never)), new GreetingConnector(), 300);
+            Assert.fail();
+        } catch (SocketTimeoutException e) {
+            // no answer in time
+        }
+    }
+
+    @Test
+    public void interleaveTest() throws Exception {
+        EndpointRacer racer = new EndpointRacer(executor, 100);
+        InetSocketAddress v6a = new InetSocketAddress(InetAddress.getByName("2001:db8::1"), 1);
+        InetSocketAddress v6b = new InetSocketAddress(InetAddress.getByName("2001:db8::2"), 1);
+        InetSocketAddress v4a = new InetSocketAddress(InetAddress.getByName("192.0.2.1"), 1);
+        InetSocketAddress v4b = new InetSocketAddress(InetAddress.getByName("192.0.2.2"), 1);
+        Assert.assertEquals(Arrays.asList(v6a, v4a, v6b, v4b), racer.order(Arrays.asList(v6a, v6b, v4a, v4b)));
+        Assert.assertEquals(Arrays.asList(v4a, v6a, v4b, v6b), racer.order(Arrays.asList(v4a, v4b, v6a, v6b)));
+    }
+
+    private InetSocketAddress listen() throws IOException {
+        return listen(new CountDownLatch(0));
+    }
+
+    /**
+     * @param release the connections are greeted once it's released
+     */
+    private InetSocketAddress listen(CountDownLatch release) throws IOException {
+        Listener listener = new Listener(release);
+        listeners.add(listener);
+        return listener.getEndpoint();
+    }
+
+    private static InetSocketAddress deadEndpoint() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        InetSocketAddress endpoint = new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+        serverSocket.close();
+        return endpoint;
+    }
+
+    /**
+     * Connected once the server greeting arrives
+     */
+    private static class GreetingConnector implements EndpointRacer.Connector<Socket> {
+
+        final Semaphore closed = new Semaphore(0);
+
+        @Override
+        public Socket connect(InetSocketAddress endpoint) throws Exception {
+            Socket socket = new Socket();
+            try {
+                socket.connect(endpoint, 5000);
+                socket.setSoTimeout(5000);
+                if (socket.getInputStream().read() < 0) throw new IOException("closed");
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            return socket;
+        }
+
+        @Override
+        public void close(Socket socket) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing
+            }
+            closed.release();
+        }
+    }
+
+    /**
+     * Accepts and greets every connection once released
+     */
+    private static class Listener implements Runnable {
+
+        private final ServerSocket serverSocket;
+        private final CountDownLatch release;
+        private final Thread thread;
+
+        Listener(CountDownLatch release) throws IOException {
+            this.serverSocket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+            this.release = release;
+            this.thread = new Thread(this, "listener-" + serverSocket.getLocalPort());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        InetSocketAddress getEndpoint() {
+            return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!serverSocket.isClosed()) {
+                    final Socket socket = serverSocket.accept();
+                    // greeted on his own thread, the accepts don't wait for the release
+                    Thread greeter = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                release.await();
+                                socket.getOutputStream().write(1);
+                            } catch (Exception e) {
+                                // closed
+                            }
+                        }
+                    });
+                    greeter.setDaemon(true);
+                    greeter.start();
+                }
+            } catch (Exception e) {
+                // closed
+            }
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            thread.interrupt();
+        }
+    }
+}
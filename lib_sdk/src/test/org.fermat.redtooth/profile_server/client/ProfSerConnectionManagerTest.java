@@ -0,0 +1,365 @@
+package org.libertaria.world.profile_server.client;
+
+import org.furszy.client.IoManager;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.libertaria.world.profile_server.CantConnectException;
+import org.libertaria.world.profile_server.IoSession;
+import org.libertaria.world.profile_server.SslContextFactory;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.libertaria.world.profile_server.protocol.MessageFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * Checks the blocking sockets and the non-blocking client against a local stand-in profile server
+ * that echoes every frame back.
+ */
+public class ProfSerConnectionManagerTest {
+
+    private static final int CONNECTIONS = 50;
+
+    private static final SslContextFactory SSL_CONTEXT_FACTORY = new SslContextFactory() {
+        @Override
+        public SSLContext buildContext() throws Exception {
+            return SSLContext.getDefault();
+        }
+    };
+
+    private EchoServer echoServer;
+
+    @Before
+    public void setUp() throws IOException {
+        echoServer = new EchoServer();
+        echoServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        echoServer.stop();
+    }
+
+    @Test
+    public void blockingConnectionsTest() throws Exception {
+        Result result = connectAndPing(null);
+        Assert.assertEquals(CONNECTIONS, result.connected);
+    }
+
+    @Test
+    public void nonBlockingConnectionsTest() throws Exception {
+        IoManager ioManager = new IoManager(1, 1);
+        try {
+            Result result = connectAndPing(ioManager);
+            Assert.assertEquals(CONNECTIONS, result.connected);
+            // the connector loop and the processor loop serve every connection
+            Assert.assertTrue("threads created: " + result.threads, result.threads <= 2);
+        } finally {
+            ioManager.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelConnectTest() throws Exception {
+        // never accepts, the TLS handshake doesn't get an answer
+        ServerSocket silentServer = new ServerSocket(0, CONNECTIONS, InetAddress.getByName("127.0.0.1"));
+        IoManager ioManager = new IoManager(1, 1);
+        try {
+            checkParallelConnect(null, silentServer.getLocalPort());
+            checkParallelConnect(ioManager, silentServer.getLocalPort());
+        } finally {
+            ioManager.shutdown();
+            silentServer.close();
+        }
+    }
+
+    @Test
+    public void queuedWriteTest() throws Exception {
+        // never accepts, the TLS handshake doesn't get an answer
+        ServerSocket silentServer = new ServerSocket(0, CONNECTIONS, InetAddress.getByName("127.0.0.1"));
+        final CountDownLatch echoes = new CountDownLatch(2);
+        final CountDownLatch notSent = new CountDownLatch(1);
+        final List<Integer> notSentIds = new ArrayList<>();
+        ProfSerConnectionManager manager = new ProfSerConnectionManager("127.0.0.1", SSL_CONTEXT_FACTORY, new HandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, IopProfileServer.Message message) throws Exception {
+                echoes.countDown();
+            }
+
+            @Override
+            public void messageNotSent(IopProfileServer.ServerRoleType portType, IopProfileServer.Message message, Throwable cause) {
+                notSentIds.add(message.getId());
+                notSent.countDown();
+            }
+        }, null);
+        manager.setConnectTimeouts(1000, 1000, 500);
+        try {
+            // the writes wait for the connection on the connect threads
+            manager.write(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort(), ping(1));
+            manager.write(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort(), ping(2));
+            Assert.assertTrue("echoes not received", echoes.await(10, TimeUnit.SECONDS));
+            // a failed connection reports the message
+            manager.write(IopProfileServer.ServerRoleType.CL_NON_CUSTOMER, silentServer.getLocalPort(), ping(3));
+            Assert.assertTrue(notSent.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(Integer.valueOf(3), notSentIds.get(0));
+        } finally {
+            manager.shutdown();
+            silentServer.close();
+        }
+    }
+
+    @Test
+    public void shutdownTest() throws Exception {
+        IoManager ioManager = new IoManager(1, 1);
+        // the echo blocks the only processor, the next sessions are not opened until it's released
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ProfSerConnectionManager blocker = new ProfSerConnectionManager("127.0.0.1", SSL_CONTEXT_FACTORY, new HandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, IopProfileServer.Message message) throws Exception {
+                blocked.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+        }, ioManager);
+        ProfSerConnectionManager manager = new ProfSerConnectionManager("127.0.0.1", SSL_CONTEXT_FACTORY, new HandlerAdapter(), ioManager);
+        try {
+            Assert.assertTrue(blocker.connectToUnSecurePort(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort()));
+            blocker.write(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort(), ping(1));
+            Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+            PsConnectFuture pending = manager.connectAsync(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort(), null, null);
+            // connected, the session waits for the processor
+            awaitCount(echoServer.acceptedChannels, 2);
+            Assert.assertFalse(pending.isDone());
+            manager.shutdown();
+            // the callers don't wait for the attempt
+            Assert.assertTrue(pending.isDone());
+            Assert.assertTrue(String.valueOf(pending.getException()), pending.getException() instanceof CantConnectException);
+            Assert.assertEquals(0, manager.getPendingConnectsCount());
+            // refused after the shutdown
+            PsConnectFuture refused = manager.connectAsync(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort(), null, null);
+            Assert.assertTrue(refused.isDone());
+            Assert.assertTrue(refused.getException() instanceof CantConnectException);
+            Assert.assertFalse(manager.connectToUnSecurePort(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort()));
+            // the attempt connects after the shutdown, his socket is closed
+            release.countDown();
+            awaitCount(echoServer.closedChannels, 1);
+        } finally {
+            release.countDown();
+            blocker.shutdown();
+            ioManager.shutdown();
+        }
+    }
+
+    private static void awaitCount(AtomicInteger counter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (counter.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(count, counter.get());
+    }
+
+    private static IopProfileServer.Message ping(int id) {
+        return MessageFactory.buildPingRequestMessage(new byte[]{1, 2, 3}, new byte[]{1, 0, 0}).toBuilder().setId(id).build();
+    }
+
+    private void checkParallelConnect(IoManager ioManager, int silentPort) throws Exception {
+        ProfSerConnectionManager manager = new ProfSerConnectionManager("127.0.0.1", SSL_CONTEXT_FACTORY, new HandlerAdapter(), ioManager);
+        manager.setConnectTimeouts(1000, 1000, 1500);
+        PsConnectFuture slow = manager.connectAsync(IopProfileServer.ServerRoleType.CL_NON_CUSTOMER, silentPort, null, null);
+        // the callers of a port connecting share the attempt
+        Assert.assertSame(slow, manager.connectAsync(IopProfileServer.ServerRoleType.CL_NON_CUSTOMER, silentPort, null, null));
+        PsConnectFuture call1 = manager.connectAsync(IopProfileServer.ServerRoleType.CL_APP_SERVICE, silentPort, "call1", "token1");
+        PsConnectFuture call2 = manager.connectAsync(IopProfileServer.ServerRoleType.CL_APP_SERVICE, silentPort, "call2", "token2");
+        Assert.assertNotSame(call1, call2);
+        // the other ports don't wait for the slow one
+        Assert.assertTrue(manager.connectToUnSecurePort(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort()));
+        Assert.assertFalse(slow.isDone());
+        Assert.assertFalse(call1.isDone());
+        Assert.assertFalse(call2.isDone());
+        Assert.assertEquals(3, manager.getPendingConnectsCount());
+        Assert.assertTrue(slow.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(call1.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(call2.await(5, TimeUnit.SECONDS));
+        // the calls ran in parallel, each one failed on his own handshake timeout
+        for (PsConnectFuture future : new PsConnectFuture[]{slow, call1, call2}) {
+            Assert.assertFalse(future.isConnected());
+            Assert.assertTrue(String.valueOf(future.getException()), future.getException() instanceof SocketTimeoutException);
+        }
+        Assert.assertEquals(0, manager.getPendingConnectsCount());
+        manager.shutdown();
+    }
+
+    private Result connectAndPing(IoManager ioManager) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(CONNECTIONS);
+        PsSocketHandler<IopProfileServer.Message> handler = new HandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, IopProfileServer.Message message) throws Exception {
+                latch.countDown();
+            }
+        };
+        int threadsBefore = Thread.activeCount();
+        List<ProfSerConnectionManager> managers = new ArrayList<>();
+        Result result = new Result();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            ProfSerConnectionManager manager = new ProfSerConnectionManager("127.0.0.1", SSL_CONTEXT_FACTORY, handler, ioManager);
+            managers.add(manager);
+            if (manager.connectToUnSecurePort(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort())) {
+                result.connected++;
+            }
+        }
+        for (int i = 0; i < managers.size(); i++) {
+            managers.get(i).write(IopProfileServer.ServerRoleType.PRIMARY, echoServer.getPort(), ping(i));
+        }
+        Assert.assertTrue("echoes not received", latch.await(30, TimeUnit.SECONDS));
+        result.threads = Thread.activeCount() - threadsBefore;
+        for (ProfSerConnectionManager manager : managers) {
+            manager.shutdown();
+        }
+        return result;
+    }
+
+    private static class Result {
+        int connected;
+        int threads;
+    }
+
+    private static class HandlerAdapter implements PsSocketHandler<IopProfileServer.Message> {
+
+        @Override
+        public void messageSent(IoSession session, IopProfileServer.Message message) throws Exception {
+
+        }
+
+        @Override
+        public void sessionCreated(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionClosed(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+
+        }
+
+        @Override
+        public void messageReceived(IoSession session, IopProfileServer.Message message) throws Exception {
+
+        }
+
+        @Override
+        public void portStarted(IopProfileServer.ServerRoleType portType) {
+
+        }
+
+        @Override
+        public void messageNotSent(IopProfileServer.ServerRoleType portType, IopProfileServer.Message message, Throwable cause) {
+
+        }
+
+        @Override
+        public void inputClosed(IoSession session) throws Exception {
+
+        }
+    }
+
+    /**
+     * Single thread server that writes back every byte received, frames included.
+     */
+    private static class EchoServer implements Runnable {
+
+        private final Selector selector;
+        private final ServerSocketChannel serverChannel;
+        private Thread thread;
+        final AtomicInteger acceptedChannels = new AtomicInteger();
+        /** Channels closed by the clients */
+        final AtomicInteger closedChannels = new AtomicInteger();
+
+        EchoServer() throws IOException {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0), CONNECTIONS);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        }
+
+        int getPort() {
+            return serverChannel.socket().getLocalPort();
+        }
+
+        void start() {
+            thread = new Thread(this, "echo-server");
+            thread.start();
+        }
+
+        void stop() throws IOException {
+            thread.interrupt();
+            selector.close();
+            serverChannel.close();
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isAcceptable()) {
+                            SocketChannel channel = serverChannel.accept();
+                            if (channel != null) {
+                                channel.configureBlocking(false);
+                                channel.register(selector, SelectionKey.OP_READ);
+                                acceptedChannels.incrementAndGet();
+                            }
+                        } else if (key.isReadable()) {
+                            SocketChannel channel = (SocketChannel) key.channel();
+                            buffer.clear();
+                            if (channel.read(buffer) < 0) {
+                                key.cancel();
+                                channel.close();
+                                closedChannels.incrementAndGet();
+                                continue;
+                            }
+                            buffer.flip();
+                            while (buffer.hasRemaining()) {
+                                channel.write(buffer);
+                            }
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // closed
+            }
+        }
+    }
+}
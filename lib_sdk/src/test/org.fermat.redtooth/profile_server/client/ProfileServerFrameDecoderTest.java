@@ -0,0 +1,137 @@
+package org.libertaria.world.profile_server.client;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import org.junit.Test;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.libertaria.world.profile_server.protocol.MessageFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProfileServerFrameDecoderTest {
+
+    private static IopProfileServer.Message buildMessage(int id, int payloadSize) {
+        byte[] payload = new byte[payloadSize];
+        for (int i = 0; i < payloadSize; i++) {
+            payload[i] = (byte) i;
+        }
+        return MessageFactory.buildPingRequestMessage(payload, new byte[]{1, 0, 0})
+                .toBuilder()
+                .setId(id)
+                .build();
+    }
+
+    private static byte[] frame(IopProfileServer.Message message) {
+        return IopProfileServer.MessageWithHeader.newBuilder()
+                .setHeader(CodedOutputStream.computeMessageSize(2, message))
+                .setBody(message)
+                .build()
+                .toByteArray();
+    }
+
+    private static List<IopProfileServer.Message> drain(ProfileServerFrameDecoder decoder) throws InvalidProtocolBufferException {
+        List<IopProfileServer.Message> messages = new ArrayList<>();
+        IopProfileServer.Message message;
+        while ((message = decoder.nextMessage()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    public void splitFrameTest() throws Exception {
+        IopProfileServer.Message message = buildMessage(1, 20000);
+        byte[] bytes = frame(message);
+        ProfileServerFrameDecoder decoder = new ProfileServerFrameDecoder(16);
+        // one byte at a time
+        for (int i = 0; i < bytes.length - 1; i++) {
+            decoder.write(bytes, i, 1);
+            assertNull(decoder.nextMessage());
+        }
+        decoder.write(bytes, bytes.length - 1, 1);
+        assertEquals(message, decoder.nextMessage());
+        assertEquals(0, decoder.pendingBytes());
+    }
+
+    @Test
+    public void coalescedFramesTest() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        List<IopProfileServer.Message> sent = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            IopProfileServer.Message message = buildMessage(i, i * 331);
+            sent.add(message);
+            stream.write(frame(message));
+        }
+        byte[] bytes = stream.toByteArray();
+        ProfileServerFrameDecoder decoder = new ProfileServerFrameDecoder();
+        List<IopProfileServer.Message> received = new ArrayList<>();
+        // chunks that never match the frames boundaries
+        int chunk = 7919;
+        for (int offset = 0; offset < bytes.length; offset += chunk) {
+            decoder.write(bytes, offset, Math.min(chunk, bytes.length - offset));
+            received.addAll(drain(decoder));
+        }
+        assertEquals(sent, received);
+        assertEquals(0, decoder.pendingBytes());
+    }
+
+    @Test
+    public void encoderTest() throws Exception {
+        ProfileServerProtocolEncoder encoder = new ProfileServerProtocolEncoder();
+        IopProfileServer.Message message = buildMessage(1, 20000);
+        ByteBuffer encoded = encoder.encode(message);
+        byte[] expected = frame(message);
+        // the estimation accounted on the session queue is the exact frame size
+        assertEquals(expected.length, encoder.estimateSize(message));
+        assertEquals(expected.length, encoded.position());
+        assertArrayEquals(expected, encoded.array());
+        // the same frame on the direct buffer of the writer, after the frames already there
+        ByteBuffer out = ByteBuffer.allocateDirect(expected.length + 10);
+        out.position(10);
+        assertTrue(encoder.encode(message, out));
+        assertEquals(expected.length + 10, out.position());
+        out.flip();
+        out.position(10);
+        byte[] written = new byte[expected.length];
+        out.get(written);
+        assertArrayEquals(expected, written);
+        // no room, nothing written
+        out.clear();
+        out.position(11);
+        assertFalse(encoder.encode(message, out));
+        assertEquals(11, out.position());
+        // and on a heap one
+        ByteBuffer heap = ByteBuffer.allocate(expected.length + 10);
+        heap.position(10);
+        assertTrue(encoder.encode(message, heap));
+        assertEquals(expected.length + 10, heap.position());
+        assertArrayEquals(expected, Arrays.copyOfRange(heap.array(), 10, heap.position()));
+    }
+
+    @Test(expected = InvalidProtocolBufferException.class)
+    public void invalidHeaderTest() throws Exception {
+        ProfileServerFrameDecoder decoder = new ProfileServerFrameDecoder();
+        byte[] bytes = new byte[]{0x0A, 0, 0, 0, 0};
+        decoder.write(bytes, 0, bytes.length);
+        decoder.nextMessage();
+    }
+
+    @Test(expected = InvalidProtocolBufferException.class)
+    public void tooLargeFrameTest() throws Exception {
+        ProfileServerFrameDecoder decoder = new ProfileServerFrameDecoder();
+        byte[] bytes = new byte[]{0x0D, 0, 0, 0x20, 0};
+        decoder.write(bytes, 0, bytes.length);
+        decoder.nextMessage();
+    }
+}
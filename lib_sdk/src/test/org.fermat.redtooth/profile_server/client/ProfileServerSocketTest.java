@@ -0,0 +1,286 @@
+package org.libertaria.world.profile_server.client;
+
+import com.google.protobuf.CodedOutputStream;
+
+import org.furszy.client.IoManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.libertaria.world.profile_server.ConnectionSaturatedException;
+import org.libertaria.world.profile_server.IoSession;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+import org.libertaria.world.profile_server.protocol.MessageFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.net.SocketFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Frames written by the blocking socket and by the non-blocking one.
+ *
+ * The single serialization into the reused output writes the same frames as the previous path, that serialized the
+ * message to size it and the whole frame again, allocating less per message.
+ * A saturated non-blocking socket refuses the requests but keeps the responses until it drains.
+ */
+public class ProfileServerSocketTest {
+
+    private static final int MESSAGES = 20000;
+
+    private ServerSocket serverSocket;
+
+    @Before
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        serverSocket.close();
+    }
+
+    private static IopProfileServer.Message buildMessage(int id, int payloadSize) {
+        byte[] payload = new byte[payloadSize];
+        for (int i = 0; i < payloadSize; i++) {
+            payload[i] = (byte) i;
+        }
+        return MessageFactory.buildPingRequestMessage(payload, new byte[]{1, 0, 0})
+                .toBuilder()
+                .setId(id)
+                .build();
+    }
+
+    @Test
+    public void writeTest() throws Exception {
+        final List<IopProfileServer.Message> sent = new ArrayList<>();
+        ProfileServerSocket psSocket = new ProfileServerSocket(SocketFactory.getDefault(), "127.0.0.1", serverSocket.getLocalPort(), IopProfileServer.ServerRoleType.CL_NON_CUSTOMER);
+        psSocket.setHandler(new HandlerAdapter() {
+            @Override
+            public void messageSent(IoSession session, IopProfileServer.Message message) throws Exception {
+                sent.add(message);
+            }
+        });
+        psSocket.connect();
+        Socket serverSide = serverSocket.accept();
+        try {
+            List<IopProfileServer.Message> messages = new ArrayList<>();
+            // small messages and an image bigger than the write buffer
+            for (int i = 0; i < 10; i++) {
+                messages.add(buildMessage(i, i == 5 ? 300 * 1024 : i * 100));
+            }
+            for (IopProfileServer.Message message : messages) {
+                psSocket.write(message);
+            }
+            assertEquals(messages, sent);
+
+            ProfileServerFrameDecoder decoder = new ProfileServerFrameDecoder();
+            InputStream in = serverSide.getInputStream();
+            List<IopProfileServer.Message> received = new ArrayList<>();
+            while (received.size() < messages.size()) {
+                int length = decoder.prepareForWrite();
+                int count = in.read(decoder.array(), decoder.writeIndex(), length);
+                assertTrue(count > 0);
+                decoder.written(count);
+                IopProfileServer.Message message;
+                while ((message = decoder.nextMessage()) != null) {
+                    received.add(message);
+                }
+            }
+            assertEquals(messages, received);
+        } finally {
+            psSocket.closeNow();
+            serverSide.close();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void saturatedResponseTest() throws Exception {
+        IoManager ioManager = new IoManager(1, 1);
+        ProfileServerNioSocket psSocket = new ProfileServerNioSocket(ioManager, null, "127.0.0.1", serverSocket.getLocalPort(), IopProfileServer.ServerRoleType.CL_NON_CUSTOMER);
+        psSocket.setHandler(new HandlerAdapter());
+        psSocket.connect();
+        Socket serverSide = serverSocket.accept();
+        try {
+            // the server doesn't read, the socket buffers and then the session queue fill up
+            int accepted = 0;
+            boolean saturated = false;
+            while (!saturated && accepted < 2000) {
+                try {
+                    psSocket.write(buildMessage(accepted, 16 * 1024));
+                    accepted++;
+                } catch (ConnectionSaturatedException e) {
+                    saturated = true;
+                }
+            }
+            assertTrue(saturated);
+            // the ack is not refused
+            psSocket.write(MessageFactory.buildBusyResponse(accepted));
+
+            ProfileServerFrameDecoder decoder = new ProfileServerFrameDecoder();
+            InputStream in = serverSide.getInputStream();
+            List<IopProfileServer.Message> received = new ArrayList<>();
+            IopProfileServer.Message response = null;
+            while (response == null) {
+                int length = decoder.prepareForWrite();
+                int count = in.read(decoder.array(), decoder.writeIndex(), length);
+                assertTrue(count > 0);
+                decoder.written(count);
+                IopProfileServer.Message message;
+                while ((message = decoder.nextMessage()) != null) {
+                    if (message.getMessageTypeCase() == IopProfileServer.Message.MessageTypeCase.RESPONSE) {
+                        response = message;
+                    } else {
+                        received.add(message);
+                    }
+                }
+            }
+            assertEquals(accepted, response.getId());
+            // written once the requests queued before it drained
+            assertEquals(accepted, received.size());
+        } finally {
+            psSocket.closeNow();
+            serverSide.close();
+            ioManager.shutdown();
+        }
+    }
+
+    @Test
+    public void writeAllocationTest() throws Exception {
+        for (int payloadSize : new int[]{64, 200 * 1024}) {
+            IopProfileServer.Message message = buildMessage(1, payloadSize);
+            int messages = payloadSize > 1024 ? MESSAGES / 20 : MESSAGES;
+            // warm up
+            run(message, messages, true);
+            run(message, messages, false);
+            Result previous = run(message, messages, true);
+            Result single = run(message, messages, false);
+            assertEquals(previous.written, single.written);
+            if (previous.allocated >= 0) {
+                assertTrue(single.allocated < previous.allocated);
+            }
+        }
+    }
+
+    private Result run(IopProfileServer.Message message, int messages, boolean previous) throws IOException {
+        DiscardOutputStream out = new DiscardOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(out, 8192);
+        long allocated = allocatedBytes();
+        for (int i = 0; i < messages; i++) {
+            if (previous) {
+                writeTwice(out, message);
+            } else {
+                ProfileServerSocket.writeFrame(output, message);
+                output.flush();
+            }
+        }
+        long allocatedAfter = allocatedBytes();
+        return new Result(out.written, allocated < 0 ? -1 : (allocatedAfter - allocated) / messages);
+    }
+
+    /**
+     * Write path before the single serialization
+     */
+    private static void writeTwice(OutputStream out, IopProfileServer.Message message) throws IOException {
+        int messageSize = message.toByteArray().length;
+        IopProfileServer.MessageWithHeader messageWithHeader = IopProfileServer.MessageWithHeader.newBuilder()
+                .setHeader(CodedOutputStream.computeMessageSize(2, message))
+                .setBody(message)
+                .build();
+        byte[] frame = messageWithHeader.toByteArray();
+        if (messageSize > frame.length) throw new IllegalStateException();
+        out.write(frame);
+        out.flush();
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static class Result {
+        final long written;
+        /** Bytes allocated per message, -1 if the jvm doesn't tell */
+        final long allocated;
+
+        Result(long written, long allocated) {
+            this.written = written;
+            this.allocated = allocated;
+        }
+    }
+
+    private static class DiscardOutputStream extends OutputStream {
+
+        long written;
+
+        @Override
+        public void write(int b) {
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            written += len;
+        }
+    }
+
+    private static class HandlerAdapter implements PsSocketHandler<IopProfileServer.Message> {
+
+        @Override
+        public void messageSent(IoSession session, IopProfileServer.Message message) throws Exception {
+
+        }
+
+        @Override
+        public void sessionCreated(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionClosed(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+
+        }
+
+        @Override
+        public void messageReceived(IoSession session, IopProfileServer.Message message) throws Exception {
+
+        }
+
+        @Override
+        public void portStarted(IopProfileServer.ServerRoleType portType) {
+
+        }
+
+        @Override
+        public void messageNotSent(IopProfileServer.ServerRoleType portType, IopProfileServer.Message message, Throwable cause) {
+
+        }
+
+        @Override
+        public void inputClosed(IoSession session) throws Exception {
+
+        }
+    }
+}
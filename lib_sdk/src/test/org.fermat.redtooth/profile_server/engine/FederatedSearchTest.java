@@ -0,0 +1,264 @@
+package org.libertaria.world.profile_server.engine;
+
+import com.google.protobuf.ByteString;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerCoveredSearchListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerPartSearchListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerSearchListener;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out, merge, covered servers and deadline of the federated search against stand-in servers with overlapping
+ * profiles that answer after a fixed latency.
+ */
+public class FederatedSearchTest {
+
+    private static final long LATENCY = 20;
+    private static final int PAGE_SIZE = 500;
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void mergeTest() throws Exception {
+        // 1000 profiles shared by each pair of neighbours
+        StandInServer a = new StandInServer("a", 0, 1500);
+        StandInServer b = new StandInServer("b", 1000, 2500);
+        StandInServer c = new StandInServer("c", 2000, 3500);
+        SearchProfilesQuery query = query();
+        FederatedSearch search = new FederatedSearch(query, Arrays.asList(a, b, c), 3, 5000);
+        search.start();
+        // in parallel, every server is asked before the first page of any of them
+        for (StandInServer server : Arrays.asList(a, b, c)) {
+            Assert.assertEquals(1, server.requests.get());
+        }
+        Assert.assertTrue(search.hasNext());
+        Set<Integer> read = new HashSet<>();
+        while (search.hasNext()) {
+            Assert.assertTrue("duplicated", read.add(index(search.next())));
+        }
+        Assert.assertEquals(3500, read.size());
+        Assert.assertEquals(1000, search.getDuplicates());
+        Assert.assertFalse(search.isTimedOut());
+        Assert.assertTrue(search.isClosed());
+        for (StandInServer server : Arrays.asList(a, b, c)) {
+            // a search and two parts each
+            Assert.assertEquals(3, server.requests.get());
+            Assert.assertEquals(1, server.closed.get());
+        }
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), search.getCoveredServers());
+        // the query of the caller is not modified
+        Assert.assertTrue(query.getCoveredServers().isEmpty());
+    }
+
+    @Test
+    public void coveredTest() throws Exception {
+        StandInServer a = new StandInServer("a", 0, 100);
+        StandInServer b = new StandInServer("b", 100, 200);
+        StandInServer c = new StandInServer("c", 200, 300);
+        StandInServer d = new StandInServer("d", 300, 400);
+        // a searched the database of c for his response
+        a.covered = Collections.singletonList("c");
+        SearchProfilesQuery query = query();
+        query.addCoveredServer("b");
+        FederatedSearch search = new FederatedSearch(query, Arrays.asList(a, b, c, d, a), 1, 5000);
+        search.start();
+        int read = 0;
+        while (search.hasNext()) {
+            search.next();
+            read++;
+        }
+        Assert.assertEquals(200, read);
+        Assert.assertEquals(1, a.requests.get());
+        Assert.assertEquals(0, b.requests.get());
+        Assert.assertEquals(0, c.requests.get());
+        Assert.assertEquals(1, d.requests.get());
+        Assert.assertEquals(2, search.getSkippedServers());
+        Assert.assertEquals(2, search.getSearchedServers());
+        Assert.assertEquals(Collections.singletonList("b"), query.getCoveredServers());
+        // the next search with the same query asks the same servers
+        FederatedSearch again = new FederatedSearch(query, Arrays.asList(a, b, c, d), 1, 5000);
+        again.start();
+        read = 0;
+        while (again.hasNext()) {
+            again.next();
+            read++;
+        }
+        Assert.assertEquals(200, read);
+        Assert.assertEquals(2, a.requests.get());
+        Assert.assertEquals(2, d.requests.get());
+        // a query with the servers covered by the first search asks nobody
+        SearchProfilesQuery covered = query();
+        for (String server : search.getCoveredServers()) {
+            covered.addCoveredServer(server);
+        }
+        FederatedSearch none = new FederatedSearch(covered, Arrays.asList(a, b, c, d), 1, 5000);
+        none.start();
+        Assert.assertFalse(none.hasNext());
+        Assert.assertEquals(4, none.getSkippedServers());
+        Assert.assertEquals(2, a.requests.get());
+    }
+
+    @Test
+    public void unknownIdTest() throws Exception {
+        // the id of a neighbour is known once connected, then his covered servers apply
+        StandInServer a = new StandInServer(null, 0, 100);
+        a.connectedId = "a";
+        a.covered = Collections.singletonList("b");
+        StandInServer b = new StandInServer("b", 100, 200);
+        FederatedSearch search = new FederatedSearch(query(), Arrays.asList(a, b), 1, 5000);
+        search.start();
+        int read = 0;
+        while (search.hasNext()) {
+            search.next();
+            read++;
+        }
+        Assert.assertEquals(100, read);
+        Assert.assertEquals(0, b.requests.get());
+        Assert.assertEquals(Arrays.asList("a", "b"), search.getCoveredServers());
+    }
+
+    @Test(timeout = 10000)
+    public void deadlineTest() throws Exception {
+        StandInServer fast = new StandInServer("fast", 0, 100);
+        StandInServer slow = new StandInServer("slow", 50, 150);
+        // doesn't answer before the test timeout, only the deadline ends the search
+        slow.latency = 60000;
+        FederatedSearch search = new FederatedSearch(query(), Arrays.asList(fast, slow), 2, 200);
+        search.start();
+        int read = 0;
+        while (search.hasNext()) {
+            search.next();
+            read++;
+        }
+        Assert.assertEquals(100, read);
+        Assert.assertTrue(search.isTimedOut());
+        // dropped, nothing more is asked
+        Assert.assertEquals(1, slow.closed.get());
+        Assert.assertEquals(1, slow.requests.get());
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        StandInServer a = new StandInServer("a", 0, 1000);
+        StandInServer b = new StandInServer("b", 1000, 2000);
+        StandInServer c = new StandInServer("c", 1500, 2500);
+        b.failAt = PAGE_SIZE;
+        c.disconnected = true;
+        FederatedSearch search = new FederatedSearch(query(), Arrays.asList(a, b, c), 3, 5000);
+        search.start();
+        Set<Integer> read = new HashSet<>();
+        while (search.hasNext()) {
+            read.add(index(search.next()));
+        }
+        // a whole and the first page of b
+        Assert.assertEquals(1500, read.size());
+        Assert.assertFalse(search.isTimedOut());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("b", "c")), new HashSet<>(search.getFailedServers()));
+        Assert.assertEquals(1, b.closed.get());
+    }
+
+    private static int index(IopProfileServer.ProfileQueryInformation profile) {
+        ByteString key = profile.getSignedProfile().getProfile().getPublicKey();
+        return (key.byteAt(0) & 0xff) | ((key.byteAt(1) & 0xff) << 8);
+    }
+
+    private static SearchProfilesQuery query() {
+        return new SearchProfilesQuery("test", null, PAGE_SIZE, 10000);
+    }
+
+    /**
+     * Keeps the profiles from one index to another and answers after the latency
+     */
+    private class StandInServer implements FederatedSearch.Server {
+
+        private volatile String id;
+        /** Id learned when the search is sent */
+        volatile String connectedId;
+        private final List<IopProfileServer.ProfileQueryInformation> results = new ArrayList<>();
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+        volatile long latency = LATENCY;
+        volatile List<String> covered = Collections.emptyList();
+        volatile int failAt = -1;
+        volatile boolean disconnected;
+
+        StandInServer(String id, int from, int to) {
+            this.id = id;
+            for (int i = from; i < to; i++) {
+                byte[] key = new byte[32];
+                key[0] = (byte) i;
+                key[1] = (byte) (i >> 8);
+                results.add(IopProfileServer.ProfileQueryInformation.newBuilder()
+                        .setIsHosted(false)
+                        .setSignedProfile(IopProfileServer.SignedProfileInformation.newBuilder()
+                                .setProfile(IopProfileServer.ProfileInformation.newBuilder()
+                                        .setPublicKey(ByteString.copyFrom(key))
+                                        .setType("test")
+                                        .setName("profile-" + i)))
+                        .build());
+            }
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void search(SearchProfilesQuery query, final ProfSerSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception {
+            if (disconnected) throw new IllegalStateException("disconnected");
+            requests.incrementAndGet();
+            if (connectedId != null) id = connectedId;
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (listener instanceof ProfSerCoveredSearchListener) {
+                        List<String> coveredServers = new ArrayList<>(covered);
+                        if (id != null) coveredServers.add(id);
+                        ((ProfSerCoveredSearchListener<?>) listener).onCoveredServers(0, coveredServers);
+                    }
+                    listener.onMessageReceive(0, new ArrayList<>(results.subList(0, Math.min(PAGE_SIZE, results.size()))), results.size());
+                }
+            }, latency, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void searchPart(SearchProfilesQuery query, final int recordIndex, final int recordCount, final ProfSerPartSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) throws Exception {
+            requests.incrementAndGet();
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (recordIndex == failAt) {
+                        listener.onMsgFail(0, 400, "ERROR_NOT_AVAILABLE");
+                        return;
+                    }
+                    listener.onMessageReceive(0, new ArrayList<>(results.subList(recordIndex, recordIndex + recordCount)), recordIndex, recordCount);
+                }
+            }, latency, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void onClosed(SearchProfilesQuery query) {
+            closed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.libertaria.world.profile_server.engine;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order per key and parallelism between keys of the inbound dispatch.
+ */
+public class KeyedSerialExecutorTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void orderTest() throws Exception {
+        KeyedSerialExecutor serialExecutor = new KeyedSerialExecutor(executor, 10000);
+        int keys = 8;
+        int tasksPerKey = 2000;
+        final List<List<Integer>> executed = new ArrayList<>();
+        final AtomicInteger concurrentSameKey = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(keys * tasksPerKey);
+        final AtomicInteger[] runningPerKey = new AtomicInteger[keys];
+        for (int k = 0; k < keys; k++) {
+            executed.add(Collections.synchronizedList(new ArrayList<Integer>()));
+            runningPerKey[k] = new AtomicInteger();
+        }
+        for (int i = 0; i < tasksPerKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                final int key = k;
+                final int index = i;
+                Assert.assertTrue(serialExecutor.execute("session " + key, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runningPerKey[key].incrementAndGet() > 1) {
+                            concurrentSameKey.incrementAndGet();
+                        }
+                        executed.get(key).add(index);
+                        runningPerKey[key].decrementAndGet();
+                        done.countDown();
+                    }
+                }));
+            }
+        }
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, concurrentSameKey.get());
+        for (int k = 0; k < keys; k++) {
+            List<Integer> keyExecuted = executed.get(k);
+            Assert.assertEquals(tasksPerKey, keyExecuted.size());
+            for (int i = 0; i < tasksPerKey; i++) {
+                Assert.assertEquals(Integer.valueOf(i), keyExecuted.get(i));
+            }
+        }
+        // the idle queues are released
+        Thread.sleep(100);
+        Assert.assertEquals(0, serialExecutor.getActiveKeys());
+        Assert.assertEquals(0, serialExecutor.getQueuedCount());
+    }
+
+    @Test
+    public void slowKeyTest() throws Exception {
+        KeyedSerialExecutor serialExecutor = new KeyedSerialExecutor(executor, 100);
+        final CountDownLatch release = new CountDownLatch(1);
+        // a slow listener blocks his session only
+        serialExecutor.execute("slow", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        final CountDownLatch others = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            serialExecutor.execute((i % 2 == 0) ? "other" : null, countDown(others));
+        }
+        Assert.assertTrue(others.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void overflowTest() throws Exception {
+        KeyedSerialExecutor serialExecutor = new KeyedSerialExecutor(executor, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        serialExecutor.execute("key", new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        CountDownLatch queued = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(serialExecutor.execute("key", countDown(queued)));
+        }
+        // full queue, rejected and counted
+        Assert.assertFalse(serialExecutor.execute("key", countDown(queued)));
+        Assert.assertFalse(serialExecutor.execute("key", countDown(queued)));
+        Assert.assertEquals(2, serialExecutor.getOverflowCount());
+        Assert.assertEquals(10, serialExecutor.getQueuedCount());
+        // the other keys have their own queue
+        Assert.assertTrue(serialExecutor.execute("other", countDown(new CountDownLatch(1))));
+        release.countDown();
+        Assert.assertTrue(queued.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void rejectedHandOffTest() throws Exception {
+        final AtomicInteger rejecting = new AtomicInteger(1);
+        KeyedSerialExecutor serialExecutor = new KeyedSerialExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (rejecting.get() == 1) throw new RejectedExecutionException("saturated");
+                executor.execute(command);
+            }
+        }, 10);
+        CountDownLatch done = new CountDownLatch(1);
+        // not queued when the executor rejects the hand off
+        Assert.assertFalse(serialExecutor.execute("key", countDown(done)));
+        Assert.assertFalse(serialExecutor.execute(null, countDown(done)));
+        Assert.assertEquals(2, serialExecutor.getOverflowCount());
+        Assert.assertEquals(0, serialExecutor.getQueuedCount());
+        Assert.assertEquals(0, serialExecutor.getActiveKeys());
+        rejecting.set(0);
+        Assert.assertTrue(serialExecutor.execute("key", countDown(done)));
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+}
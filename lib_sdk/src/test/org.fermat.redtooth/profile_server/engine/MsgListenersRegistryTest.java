@@ -0,0 +1,156 @@
+package org.libertaria.world.profile_server.engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deadlines of the requests listeners, the wheel is ticked with a fake clock.
+ *
+ * The soak test registers millions of requests answering most of them and dropping the rest, the pending requests,
+ * the wheel and the heap have to stay bounded by the requests sent within a timeout.
+ */
+public class MsgListenersRegistryTest {
+
+    private static final long TICK = 100;
+    private static final long TIMEOUT = 30000;
+    /** Requests sent while waiting for a response */
+    private static final int LATE = 64;
+
+    @Test
+    public void timeoutTest() {
+        MsgListenersRegistry registry = new MsgListenersRegistry(TICK, 64);
+        CountingListener listener = new CountingListener();
+        long now = 1000000;
+        registry.register(1, listener, TIMEOUT, now);
+        registry.register(2, listener, 500, now);
+        registry.expire(now);
+        Assert.assertEquals(2, registry.getPendingCount());
+        Assert.assertEquals(0, registry.getOldestAge(now));
+        // the short deadline elapses
+        registry.expire(now + 600);
+        Assert.assertEquals(1, listener.failed.get());
+        Assert.assertEquals(RequestPipeline.STATUS_TIMEOUT, listener.lastStatus);
+        Assert.assertNull(registry.get(2));
+        Assert.assertEquals(1, registry.getPendingCount());
+        Assert.assertEquals(600, registry.getOldestAge(now + 600));
+        // several rounds of the wheel before the long deadline
+        registry.expire(now + TIMEOUT - TICK);
+        Assert.assertEquals(1, listener.failed.get());
+        registry.expire(now + TIMEOUT);
+        Assert.assertEquals(2, listener.failed.get());
+        Assert.assertEquals(0, registry.getPendingCount());
+        Assert.assertEquals(0, registry.getWheelSize());
+        Assert.assertEquals(0, registry.getOldestAge(now + TIMEOUT));
+    }
+
+    @Test
+    public void removeTest() {
+        MsgListenersRegistry registry = new MsgListenersRegistry(TICK, 64);
+        CountingListener listener = new CountingListener();
+        long now = 1000000;
+        registry.register(1, listener, TIMEOUT, now);
+        Assert.assertSame(listener, registry.get(1));
+        Assert.assertSame(listener, registry.remove(1));
+        // removed once
+        Assert.assertNull(registry.remove(1));
+        Assert.assertEquals(0, registry.getPendingCount());
+        registry.expire(now + TIMEOUT);
+        Assert.assertEquals(0, listener.failed.get());
+        Assert.assertEquals(0, registry.getWheelSize());
+        // an id reused replaces the previous listener, the deadline of the old one doesn't fail the new one
+        CountingListener second = new CountingListener();
+        registry.register(2, listener, 500, now + TIMEOUT);
+        registry.register(2, second, TIMEOUT, now + TIMEOUT);
+        registry.expire(now + TIMEOUT + 1000);
+        Assert.assertEquals(0, listener.failed.get());
+        Assert.assertEquals(0, second.failed.get());
+        Assert.assertSame(second, registry.remove(2));
+    }
+
+    @Test
+    public void soakTest() {
+        int requests = 2000000;
+        // a request every 2 ms
+        long interval = 2;
+        long maxPending = TIMEOUT / interval + TIMEOUT / TICK;
+        MsgListenersRegistry registry = new MsgListenersRegistry(TICK, 512);
+        CountingListener listener = new CountingListener();
+        Random random = new Random(42);
+        boolean[] drops = new boolean[LATE];
+        int dropped = 0;
+        int answered = 0;
+        long now = 1000000;
+        long heapAfterWarmUp = -1;
+        long maxHeap = 0;
+        int maxWheel = 0;
+        for (int i = 0; i < requests; i++) {
+            now += interval;
+            int messageId = i;
+            registry.register(messageId, listener, TIMEOUT, now);
+            // the response never arrives
+            drops[i & (LATE - 1)] = random.nextInt(10) == 0;
+            if (drops[i & (LATE - 1)]) {
+                dropped++;
+            }
+            // the response of the request sent LATE requests ago arrives
+            int late = i - LATE + 1;
+            if (late >= 0 && !drops[late & (LATE - 1)] && registry.remove(late) != null) {
+                answered++;
+            }
+            if (i % 50 == 0) {
+                registry.expire(now);
+                Assert.assertTrue(registry.getPendingCount() <= maxPending);
+                Assert.assertTrue(registry.getOldestAge(now) <= TIMEOUT + TICK);
+                maxWheel = Math.max(maxWheel, registry.getWheelSize());
+            }
+            if (i % 200000 == 0 && i > 0) {
+                long heap = usedHeap();
+                if (heapAfterWarmUp < 0) {
+                    heapAfterWarmUp = heap;
+                }
+                maxHeap = Math.max(maxHeap, heap);
+            }
+        }
+        registry.expire(now + TIMEOUT + TICK);
+        Assert.assertTrue(dropped > 0);
+        // every request completes once
+        Assert.assertEquals(requests, answered + listener.failed.get());
+        Assert.assertEquals(0, registry.getPendingCount());
+        Assert.assertEquals(0, registry.getWheelSize());
+        Assert.assertTrue(maxWheel <= maxPending);
+        // the heap doesn't grow with the requests sent
+        Assert.assertTrue(maxHeap < heapAfterWarmUp + 32 * 1024 * 1024);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class CountingListener implements ProfSerMsgListener<Object> {
+
+        final AtomicInteger failed = new AtomicInteger();
+        volatile int lastStatus;
+
+        @Override
+        public void onMessageReceive(int messageId, Object message) {
+
+        }
+
+        @Override
+        public void onMsgFail(int messageId, int statusValue, String details) {
+            lastStatus = statusValue;
+            failed.incrementAndGet();
+        }
+
+        @Override
+        public String getMessageName() {
+            return "counting";
+        }
+    }
+}
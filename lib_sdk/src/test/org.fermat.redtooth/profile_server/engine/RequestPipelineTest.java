@@ -0,0 +1,159 @@
+package org.libertaria.world.profile_server.engine;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.libertaria.world.core.IoPScheduler;
+import org.libertaria.world.profile_server.CantSendMessageException;
+import org.libertaria.world.profile_server.client.ProfSerRequest;
+import org.libertaria.world.profile_server.engine.futures.BatchMsgFuture;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Window and deadlines of the pipelined requests, the stand-in server answers every request after a fixed latency.
+ */
+public class RequestPipelineTest {
+
+    private static final long LATENCY = 20;
+
+    private IoPScheduler scheduler;
+    private IoPScheduler.TaskGroup deadlines;
+    private StandInServer server;
+
+    @Before
+    public void setUp() {
+        scheduler = new IoPScheduler("test", 1);
+        deadlines = scheduler.newGroup("deadlines");
+        server = new StandInServer(LATENCY);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    public void windowTest() throws Exception {
+        RequestPipeline pipeline = new RequestPipeline(server, deadlines, 4);
+        BatchMsgFuture<Integer> future = submit(pipeline, 0, 40, 10000);
+        Map<String, Integer> responses = future.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(40, responses.size());
+        for (int i = 0; i < 40; i++) {
+            // the response of every request
+            Assert.assertEquals(Integer.valueOf(i), responses.get(String.valueOf(i)));
+        }
+        Assert.assertEquals(4, server.maxInFlight.get());
+        Assert.assertEquals(0, pipeline.getInFlight());
+        Assert.assertEquals(0, server.listeners.size());
+    }
+
+    @Test
+    public void deadlineTest() throws Exception {
+        RequestPipeline pipeline = new RequestPipeline(server, deadlines, 1);
+        // lost response, the slot is released on the deadline and the next request goes out
+        server.drop.set(0);
+        BatchMsgFuture<Integer> lost = submit(pipeline, 0, 1, 300);
+        BatchMsgFuture<Integer> future = submit(pipeline, 1, 2, 5000);
+        Assert.assertTrue(lost.get(5, TimeUnit.SECONDS).isEmpty());
+        Assert.assertTrue(lost.getFailures().get("0").startsWith(String.valueOf(RequestPipeline.STATUS_TIMEOUT)));
+        Assert.assertEquals(2, future.get(5, TimeUnit.SECONDS).size());
+        Assert.assertEquals(0, pipeline.getInFlight());
+        // the listener of the lost response was discarded
+        Assert.assertEquals(0, server.listeners.size());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        RequestPipeline pipeline = new RequestPipeline(server, deadlines, 1);
+        // the first one never answered, the rest wait on the queue
+        server.drop.set(0);
+        BatchMsgFuture<Integer> future = submit(pipeline, 0, 4, 10000);
+        Assert.assertEquals(1, pipeline.getInFlight());
+        Assert.assertEquals(3, pipeline.getPending());
+        future.cancel(false);
+        Assert.assertTrue(future.isCancelled());
+        // the slot released and the listener discarded, nothing else sent
+        Assert.assertEquals(0, pipeline.getInFlight());
+        Assert.assertEquals(0, pipeline.getPending());
+        Assert.assertEquals(0, server.listeners.size());
+        Assert.assertEquals(1, server.maxInFlight.get());
+        Assert.assertEquals(4, future.getFailures().size());
+        // the pipeline goes on
+        Assert.assertEquals(2, submit(pipeline, 4, 2, 5000).get(5, TimeUnit.SECONDS).size());
+    }
+
+    private BatchMsgFuture<Integer> submit(RequestPipeline pipeline, int first, int requests, long timeout) {
+        BatchMsgFuture<Integer> future = new BatchMsgFuture<>(requests);
+        for (int i = first; i < first + requests; i++) {
+            pipeline.submit(new ProfSerRequestImp(i + 1) {
+                @Override
+                public void send() throws CantSendMessageException {
+                    throw new UnsupportedOperationException("written by the transport");
+                }
+            }, future.listenerFor(String.valueOf(i)), timeout);
+        }
+        return future;
+    }
+
+    /**
+     * Answers the message id minus one after the latency, the requests are served concurrently
+     */
+    private static class StandInServer implements RequestPipeline.Transport {
+
+        private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+        private final long latency;
+        final ConcurrentMap<Integer, ProfSerMsgListener> listeners = new ConcurrentHashMap<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        /** Request index without response, -1 for none */
+        final AtomicInteger drop = new AtomicInteger(-1);
+
+        StandInServer(long latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public void send(ProfSerRequest request, ProfSerMsgListener listener) {
+            final int messageId = request.getMessageId();
+            listeners.put(messageId, listener);
+            int current = inFlight.incrementAndGet();
+            int max;
+            while (current > (max = maxInFlight.get()) && !maxInFlight.compareAndSet(max, current)) {
+                // retry
+            }
+            if (drop.get() == messageId - 1) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    inFlight.decrementAndGet();
+                    ProfSerMsgListener listener = listeners.remove(messageId);
+                    if (listener != null) {
+                        listener.onMessageReceive(messageId, messageId - 1);
+                    }
+                }
+            }, latency, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void discard(int messageId) {
+            listeners.remove(messageId);
+        }
+
+        void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package org.libertaria.world.profile_server.engine;
+
+import com.google.protobuf.ByteString;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerPartSearchListener;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerSearchListener;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Paging of the search streams against a stand-in server that answers every request after a fixed latency.
+ */
+public class SearchProfilesStreamTest {
+
+    private static final long LATENCY = 20;
+    private static final int TOTAL = 10000;
+    private static final int PAGE_SIZE = 1000;
+
+    private StandInServer server;
+
+    @Before
+    public void setUp() {
+        server = new StandInServer(LATENCY, TOTAL);
+    }
+
+    @After
+    public void tearDown() {
+        server.shutdown();
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        SearchProfilesQuery query = query();
+        SearchProfilesStream stream = new SearchProfilesStream(query, server, 2);
+        stream.start();
+        int read = 0;
+        int maxHeld = 0;
+        while (stream.hasNext()) {
+            maxHeld = Math.max(maxHeld, stream.getBufferedRecords());
+            Assert.assertEquals("profile-" + read, stream.next().getSignedProfile().getProfile().getName());
+            read++;
+        }
+        Assert.assertEquals(TOTAL, read);
+        Assert.assertEquals(TOTAL, stream.getTotalRecordCount());
+        Assert.assertTrue(stream.isClosed());
+        Assert.assertEquals(1, server.closed.get());
+        // a search and a part per page after the first, never more than two ahead
+        Assert.assertEquals(TOTAL / PAGE_SIZE, server.requests.get());
+        Assert.assertTrue("outstanding " + server.maxOutstanding.get(), server.maxOutstanding.get() <= 2);
+        Assert.assertTrue("held " + maxHeld, maxHeld <= 3 * PAGE_SIZE);
+        Assert.assertFalse(stream.hasNext());
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        server.failAt = 3 * PAGE_SIZE;
+        SearchProfilesStream stream = new SearchProfilesStream(query(), server, 2);
+        stream.start();
+        int read = 0;
+        try {
+            while (stream.hasNext()) {
+                stream.next();
+                read++;
+            }
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // the pages received before the failure are read
+        }
+        Assert.assertEquals(3 * PAGE_SIZE, read);
+        Assert.assertTrue(stream.isClosed());
+        Assert.assertEquals(1, server.closed.get());
+    }
+
+    @Test(timeout = 10000)
+    public void shortPartTest() throws Exception {
+        // the server answers the third page with half of the records
+        server.shortAt = 2 * PAGE_SIZE;
+        SearchProfilesStream stream = new SearchProfilesStream(query(), server, 2);
+        stream.start();
+        int read = 0;
+        while (stream.hasNext()) {
+            String name = stream.next().getSignedProfile().getProfile().getName();
+            if (read == 2 * PAGE_SIZE + PAGE_SIZE / 2) {
+                // the stream follows with the next page requested
+                Assert.assertEquals("profile-" + 3 * PAGE_SIZE, name);
+            }
+            read++;
+        }
+        Assert.assertEquals(TOTAL - PAGE_SIZE / 2, read);
+        Assert.assertNull(stream.getFailure());
+        // the same without waiting on the stream
+        SearchProfilesStream polled = new SearchProfilesStream(query(), server, 2);
+        polled.start();
+        read = 0;
+        while (!polled.isClosed()) {
+            if (polled.poll() != null) {
+                read++;
+            } else {
+                Thread.sleep(1);
+            }
+        }
+        Assert.assertEquals(TOTAL - PAGE_SIZE / 2, read);
+    }
+
+    @Test
+    public void closeTest() throws Exception {
+        SearchProfilesStream stream = new SearchProfilesStream(query(), server, 2);
+        stream.start();
+        for (int i = 0; i < 10; i++) {
+            stream.next();
+        }
+        stream.close();
+        Thread.sleep(LATENCY * 5);
+        int requests = server.requests.get();
+        Assert.assertTrue("requests " + requests, requests <= 3);
+        Assert.assertFalse(stream.hasNext());
+        Assert.assertEquals(0, stream.getBufferedRecords());
+        Assert.assertEquals(1, server.closed.get());
+    }
+
+    @Test
+    public void firstResultTest() throws Exception {
+        // the subsequent search api needs every part before the first result, the stream only the first page
+        SearchProfilesStream stream = new SearchProfilesStream(query(), server, SearchProfilesStream.DEFAULT_BUFFERED_PAGES);
+        stream.start();
+        Assert.assertTrue(stream.hasNext());
+        int requests = server.requests.get();
+        Assert.assertTrue("requests " + requests, requests <= 1 + SearchProfilesStream.DEFAULT_BUFFERED_PAGES);
+        Assert.assertTrue(requests < TOTAL / PAGE_SIZE);
+        int read = 0;
+        int maxHeld = 0;
+        while (stream.hasNext()) {
+            maxHeld = Math.max(maxHeld, stream.getBufferedRecords());
+            stream.next();
+            read++;
+        }
+        Assert.assertEquals(TOTAL, read);
+        Assert.assertTrue("held " + maxHeld, maxHeld < TOTAL / 2);
+    }
+
+    private static SearchProfilesQuery query() {
+        SearchProfilesQuery query = new SearchProfilesQuery("test", null, PAGE_SIZE, TOTAL);
+        query.setId("query");
+        return query;
+    }
+
+    /**
+     * Keeps the results of a search and answers the parts after the latency
+     */
+    private static class StandInServer implements SearchProfilesStream.PageSource {
+
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        private final long latency;
+        private final List<IopProfileServer.ProfileQueryInformation> results = new ArrayList<>();
+        private final AtomicInteger messageIds = new AtomicInteger();
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger maxOutstanding = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+        volatile int failAt = -1;
+        volatile int shortAt = -1;
+
+        StandInServer(long latency, int total) {
+            this.latency = latency;
+            byte[] key = new byte[32];
+            for (int i = 0; i < total; i++) {
+                key[0] = (byte) i;
+                key[1] = (byte) (i >> 8);
+                results.add(IopProfileServer.ProfileQueryInformation.newBuilder()
+                        .setIsHosted(true)
+                        .setSignedProfile(IopProfileServer.SignedProfileInformation.newBuilder()
+                                .setProfile(IopProfileServer.ProfileInformation.newBuilder()
+                                        .setPublicKey(ByteString.copyFrom(key))
+                                        .setType("test")
+                                        .setName("profile-" + i)
+                                        .setExtraData("extra data of the profile " + i)))
+                        .build());
+            }
+        }
+
+        @Override
+        public void search(SearchProfilesQuery query, final ProfSerSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) {
+            final int messageId = messageIds.incrementAndGet();
+            sent();
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    outstanding.decrementAndGet();
+                    listener.onMessageReceive(messageId, new ArrayList<>(results.subList(0, Math.min(PAGE_SIZE, results.size()))), results.size());
+                }
+            }, latency, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void searchPart(SearchProfilesQuery query, final int recordIndex, final int recordCount, final ProfSerPartSearchListener<List<IopProfileServer.ProfileQueryInformation>> listener) {
+            final int messageId = messageIds.incrementAndGet();
+            sent();
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    outstanding.decrementAndGet();
+                    if (recordIndex == failAt) {
+                        listener.onMsgFail(messageId, 400, "ERROR_NOT_AVAILABLE");
+                        return;
+                    }
+                    int count = (recordIndex == shortAt) ? recordCount / 2 : recordCount;
+                    listener.onMessageReceive(messageId, new ArrayList<>(results.subList(recordIndex, recordIndex + count)), recordIndex, count);
+                }
+            }, latency, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void onClosed(SearchProfilesQuery query) {
+            closed.incrementAndGet();
+        }
+
+        private void sent() {
+            requests.incrementAndGet();
+            int now = outstanding.incrementAndGet();
+            int max;
+            while ((max = maxOutstanding.get()) < now && !maxOutstanding.compareAndSet(max, now)) {
+                // retry
+            }
+        }
+
+        void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+}
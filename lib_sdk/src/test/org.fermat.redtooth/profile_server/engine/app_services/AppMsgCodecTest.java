@@ -0,0 +1,169 @@
+package org.libertaria.world.profile_server.engine.app_services;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.libertaria.world.core.services.pairing.PairAcceptedMessage;
+import org.libertaria.world.core.services.pairing.PairDisconnectedMessage;
+import org.libertaria.world.core.services.pairing.PairRefusedMessage;
+import org.libertaria.world.core.services.pairing.PairRequestMessage;
+import org.libertaria.world.core.services.pairing.PairingMessageType;
+import org.libertaria.world.global.utils.SerializationUtils;
+import org.libertaria.world.services.chat.msg.ChatAcceptMsg;
+import org.libertaria.world.services.chat.msg.ChatMsg;
+import org.libertaria.world.services.chat.msg.ChatMsgTypes;
+import org.libertaria.world.services.chat.msg.ChatRefuseMsg;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Round trip, versioning and limits of the app service messages codec.
+ */
+public class AppMsgCodecTest {
+
+    @Test
+    public void roundTripTest() throws Exception {
+        ChatMsg chatMsg = (ChatMsg) roundTrip(new ChatMsg("hello, ¿cómo estás? 😀"));
+        Assert.assertEquals("hello, ¿cómo estás? 😀", chatMsg.getText());
+        Assert.assertNotNull(roundTrip(new ChatAcceptMsg(1500000000000L)));
+        Assert.assertTrue(roundTrip(new ChatRefuseMsg()) instanceof ChatRefuseMsg);
+        Assert.assertEquals("box", ((CryptoMsg) roundTrip(new CryptoMsg("box"))).getAlgo());
+        PairRequestMessage pairRequest = (PairRequestMessage) roundTrip(new PairRequestMessage("name", "192.168.0.1", 7));
+        Assert.assertEquals("name", pairRequest.getName());
+        Assert.assertEquals("192.168.0.1", pairRequest.getSenderHost());
+        Assert.assertEquals(7, pairRequest.getPairingRequestId());
+        Assert.assertEquals(-3, ((PairAcceptedMessage) roundTrip(new PairAcceptedMessage(-3))).getExternalRequestId());
+        Assert.assertEquals(5, ((PairRefusedMessage) roundTrip(new PairRefusedMessage(5))).getExternalPairingId());
+        Assert.assertEquals(0, ((PairDisconnectedMessage) roundTrip(new PairDisconnectedMessage(0))).getRemoteId());
+        // only the type
+        MessageWrapper typeOnly = MessageWrapper.decode(new MessageWrapper(null, "ping").encode());
+        Assert.assertEquals("ping", typeOnly.getMsgType());
+        Assert.assertNull(typeOnly.getMsg());
+        // a registered type without body is his message with the defaults
+        byte[] noBody = new MessageWrapper(null, PairingMessageType.PAIR_ACCEPT.getType()).encode();
+        Assert.assertEquals(0, ((PairAcceptedMessage) MessageWrapper.decode(noBody).getMsg()).getExternalRequestId());
+        // the format byte and the generated wrapper
+        byte[] data = new ChatMsg("hi").buildMessageWrapper().encode();
+        Assert.assertEquals(AppMsgCodec.FORMAT, data[0]);
+        AppServices.AppServiceMsg wrapper = AppServices.AppServiceMsg.parseFrom(CodedInputStream.newInstance(data, 1, data.length - 1));
+        Assert.assertEquals(ChatMsgTypes.TEXT.name(), wrapper.getType());
+        Assert.assertEquals("hi", AppServices.ChatMsg.parseFrom(wrapper.getBody()).getText());
+    }
+
+    @Test
+    public void versionTest() throws Exception {
+        // a newer version with a field this one doesn't know, the field is skipped
+        byte[] body = new byte[CodedOutputStream.computeStringSize(1, "hi") + CodedOutputStream.computeStringSize(9, "new")];
+        CodedOutputStream bodyOut = CodedOutputStream.newInstance(body);
+        bodyOut.writeString(1, "hi");
+        bodyOut.writeString(9, "new");
+        MessageWrapper wrapper = MessageWrapper.decode(wrapper(AppMsgCodec.VERSION, ChatMsgTypes.TEXT.name(), body, true));
+        Assert.assertEquals("hi", ((ChatMsg) wrapper.getMsg()).getText());
+        // unsupported versions
+        assertRejected(wrapper(AppMsgCodec.VERSION + 1, ChatMsgTypes.TEXT.name(), body, false));
+        assertRejected(wrapper(0, ChatMsgTypes.TEXT.name(), body, false));
+    }
+
+    @Test
+    public void limitsTest() throws Exception {
+        // nothing is instantiated by name
+        assertRejected(wrapper(AppMsgCodec.VERSION, "java.lang.Runtime", new byte[]{10, 1, 'a'}, false));
+        // the format of before
+        byte[] legacy = SerializationUtils.serialize(new LegacyWrapper(new LegacyChatMsg("hi"), ChatMsgTypes.TEXT.name()));
+        Assert.assertTrue(AppMsgCodec.isJavaSerialized(legacy));
+        try {
+            MessageWrapper.decode(legacy);
+            Assert.fail();
+        } catch (LegacyFormatException e) {
+            // expected
+        }
+        // unknown format
+        assertRejected(new byte[]{2, 8, 1});
+        assertRejected(new byte[0]);
+        // truncated
+        byte[] data = new ChatMsg("hello").buildMessageWrapper().encode();
+        byte[] truncated = new byte[data.length - 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertRejected(truncated);
+        // a length bigger than the data
+        assertRejected(new byte[]{AppMsgCodec.FORMAT, 8, 1, 26, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0x7f});
+        // bigger than a profile server message
+        byte[] big = new byte[AppMsgCodec.MAX_MESSAGE_SIZE + 1];
+        big[0] = AppMsgCodec.FORMAT;
+        assertRejected(big);
+        StringBuilder text = new StringBuilder();
+        while (text.length() <= AppMsgCodec.MAX_MESSAGE_SIZE) {
+            text.append("0123456789abcdef");
+        }
+        try {
+            new ChatMsg(text.toString()).buildMessageWrapper().encode();
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+        // a registered type
+        Assert.assertTrue(AppMsgCodec.isRegistered(PairingMessageType.PAIR_REQUEST.getType()));
+        Assert.assertFalse(AppMsgCodec.isRegistered("unknown"));
+    }
+
+    private static BaseMsg<?> roundTrip(BaseMsg<?> msg) throws Exception {
+        MessageWrapper wrapper = MessageWrapper.decode(msg.buildMessageWrapper().encode());
+        Assert.assertEquals(msg.getType(), wrapper.getMsgType());
+        Assert.assertEquals(msg.getClass(), wrapper.getMsg().getClass());
+        return wrapper.getMsg();
+    }
+
+    private static byte[] wrapper(int version, String type, byte[] body, boolean unknownField) throws IOException {
+        int size = 1 + CodedOutputStream.computeUInt32Size(1, version) + CodedOutputStream.computeStringSize(2, type)
+                + CodedOutputStream.computeByteArraySize(3, body);
+        if (unknownField) size += CodedOutputStream.computeInt64Size(15, 1);
+        byte[] data = new byte[size];
+        data[0] = AppMsgCodec.FORMAT;
+        CodedOutputStream out = CodedOutputStream.newInstance(data, 1, size - 1);
+        out.writeUInt32(1, version);
+        out.writeString(2, type);
+        out.writeByteArray(3, body);
+        if (unknownField) out.writeInt64(15, 1);
+        out.checkNoSpaceLeft();
+        return data;
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            MessageWrapper.decode(data);
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * The message wrapper as it was serialized before
+     */
+    private static class LegacyWrapper implements Serializable {
+
+        private final Serializable msg;
+        private final String msgType;
+
+        LegacyWrapper(Serializable msg, String msgType) {
+            this.msg = msg;
+            this.msgType = msgType;
+        }
+    }
+
+    /**
+     * The chat message as it was serialized before
+     */
+    private static class LegacyChatMsg implements Serializable {
+
+        private final String text;
+        private long timestamp;
+
+        LegacyChatMsg(String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package org.libertaria.world.profile_server.engine.futures;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.libertaria.world.core.IoPScheduler;
+import org.libertaria.world.profile_server.engine.RequestPipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Listeners, cancellation, timeouts and composition of the msg futures.
+ *
+ * The refresh of 1000 contacts against a stand-in server that answers after a fixed latency parks a thread per request
+ * in progress waiting on get, and none chaining the futures.
+ */
+public class MsgFutureTest {
+
+    private static final long LATENCY = 50;
+    private static final int CONTACTS = 1000;
+    /** Threads of the refresh that waits on get */
+    private static final int REFRESH_THREADS = 64;
+
+    private IoPScheduler scheduler;
+    private IoPScheduler.TaskGroup tasks;
+    private ScheduledExecutorService server;
+
+    @Before
+    public void setUp() {
+        scheduler = new IoPScheduler("test", 1);
+        tasks = scheduler.newGroup("timeouts");
+        server = Executors.newScheduledThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void listenerTest() throws Exception {
+        MsgListenerFuture<String> future = new MsgListenerFuture<>();
+        final List<String> calls = new ArrayList<>();
+        future.addListener(new Recorder<String>(calls, "first"));
+        future.addListener(new Recorder<String>(calls, "second"));
+        Assert.assertFalse(future.isDone());
+        future.onMessageReceive(7, "response");
+        // once
+        future.onMsgFail(8, 400, "late");
+        future.onMessageReceive(9, "late");
+        // right away once it's done
+        future.addListener(new Recorder<String>(calls, "third"));
+        Assert.assertEquals(Arrays.asList("first response", "second response", "third response"), calls);
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals("response", future.get());
+        Assert.assertEquals(7, future.getMessageId());
+        Assert.assertEquals(200, future.getStatus());
+
+        // the set listener replaces the one set before, the added ones are kept
+        List<String> setCalls = new ArrayList<>();
+        MsgListenerFuture<String> replaced = new MsgListenerFuture<>();
+        replaced.addListener(new Recorder<String>(setCalls, "added"));
+        replaced.setListener(new Recorder<String>(setCalls, "replaced"));
+        replaced.setListener(new Recorder<String>(setCalls, "set"));
+        replaced.onMessageReceive(1, "response");
+        replaced.setListener(new Recorder<String>(setCalls, "late"));
+        Assert.assertEquals(Arrays.asList("added response", "set response", "late response"), setCalls);
+
+        MsgListenerFuture<String> failed = new MsgListenerFuture<>();
+        failed.onMsgFail(3, 404, "ERROR_NOT_FOUND");
+        // as before, the status says why
+        Assert.assertNull(failed.get());
+        Assert.assertEquals(404, failed.getStatus());
+        Assert.assertEquals("ERROR_NOT_FOUND", failed.getStatusDetail());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        MsgListenerFuture<String> future = new MsgListenerFuture<>();
+        final AtomicInteger hooks = new AtomicInteger();
+        Runnable hook = new Runnable() {
+            @Override
+            public void run() {
+                hooks.incrementAndGet();
+            }
+        };
+        future.onCancel(hook);
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertFalse(future.cancel(true));
+        // the response arrives later
+        future.onMessageReceive(1, "response");
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertEquals(BaseMsgFuture.STATUS_CANCELLED, future.getStatus());
+        // right away once cancelled
+        future.onCancel(hook);
+        Assert.assertEquals(2, hooks.get());
+        try {
+            future.get();
+            Assert.fail();
+        } catch (CancellationException e) {
+            // expected
+        }
+        // answered, not run
+        MsgListenerFuture<String> answered = new MsgListenerFuture<>();
+        answered.onCancel(hook);
+        answered.onMessageReceive(1, "response");
+        Assert.assertFalse(answered.cancel(true));
+        Assert.assertEquals(2, hooks.get());
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        MsgListenerFuture<String> future = new MsgListenerFuture<>();
+        // as before, null if it's not done
+        Assert.assertNull(future.get(50, TimeUnit.MILLISECONDS));
+        Assert.assertFalse(future.isDone());
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        future.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                cancelled.countDown();
+            }
+        });
+        future.withTimeout(tasks, 100, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(RequestPipeline.STATUS_TIMEOUT, future.getStatus());
+        Assert.assertFalse(future.isCancelled());
+        Assert.assertNull(future.get(1, TimeUnit.SECONDS));
+        // answered on time, the timeout is dropped
+        BaseMsgFuture<String> onTime = request("response", LATENCY).withTimeout(tasks, 5000, TimeUnit.MILLISECONDS);
+        Assert.assertEquals("response", onTime.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(200, onTime.getStatus());
+    }
+
+    @Test
+    public void compositionTest() throws Exception {
+        // map
+        BaseMsgFuture<Integer> length = request("response", LATENCY).map(new BaseMsgFuture.Function<String, Integer>() {
+            @Override
+            public Integer apply(String input) {
+                return input.length();
+            }
+        });
+        Assert.assertEquals(Integer.valueOf(8), length.get(5, TimeUnit.SECONDS));
+        // then, the second request with the first response
+        BaseMsgFuture<String> chained = request("a", LATENCY).then(new BaseMsgFuture.Function<String, BaseMsgFuture<String>>() {
+            @Override
+            public BaseMsgFuture<String> apply(String input) {
+                return request(input + "b", LATENCY);
+            }
+        });
+        Assert.assertEquals("ab", chained.get(5, TimeUnit.SECONDS));
+        // combine
+        BaseMsgFuture<String> combined = BaseMsgFuture.combine(request("a", LATENCY), request(1, LATENCY), new BaseMsgFuture.Combiner<String, Integer, String>() {
+            @Override
+            public String combine(String first, Integer second) {
+                return first + second;
+            }
+        });
+        Assert.assertEquals("a1", combined.get(5, TimeUnit.SECONDS));
+        // allOf in order, the first failure fails it
+        List<BaseMsgFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(request(i, LATENCY * (10 - i) / 10));
+        }
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), BaseMsgFuture.allOf(futures).get(5, TimeUnit.SECONDS));
+        MsgListenerFuture<Integer> failing = new MsgListenerFuture<>();
+        BaseMsgFuture<List<Integer>> all = BaseMsgFuture.allOf(Arrays.asList(request(1, LATENCY), failing));
+        failing.onMsgFail(2, 400, "ERROR_NOT_AVAILABLE");
+        Assert.assertTrue(all.isDone());
+        Assert.assertEquals(400, all.getStatus());
+        Assert.assertTrue(BaseMsgFuture.allOf(new ArrayList<BaseMsgFuture<Integer>>()).get().isEmpty());
+    }
+
+    @Test
+    public void cancelCompositionTest() throws Exception {
+        // cancelling the derived future cancels the requests in progress
+        MsgListenerFuture<String> first = new MsgListenerFuture<>();
+        final MsgListenerFuture<String> second = new MsgListenerFuture<>();
+        BaseMsgFuture<String> chained = first.then(new BaseMsgFuture.Function<String, BaseMsgFuture<String>>() {
+            @Override
+            public BaseMsgFuture<String> apply(String input) {
+                return second;
+            }
+        });
+        first.onMessageReceive(1, "a");
+        chained.cancel(false);
+        Assert.assertTrue(second.isCancelled());
+
+        List<MsgListenerFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(new MsgListenerFuture<Integer>());
+        }
+        futures.get(0).onMessageReceive(1, 0);
+        BaseMsgFuture<List<Integer>> all = BaseMsgFuture.allOf(futures);
+        all.cancel(false);
+        Assert.assertFalse(futures.get(0).isCancelled());
+        Assert.assertTrue(futures.get(1).isCancelled());
+        Assert.assertTrue(futures.get(2).isCancelled());
+
+        // a cancelled request cancels what depends on it
+        MsgListenerFuture<String> upstream = new MsgListenerFuture<>();
+        BaseMsgFuture<Integer> mapped = upstream.map(new BaseMsgFuture.Function<String, Integer>() {
+            @Override
+            public Integer apply(String input) {
+                return input.length();
+            }
+        });
+        upstream.cancel(false);
+        Assert.assertTrue(mapped.isCancelled());
+
+        // the batch cancels the requests without response
+        BatchMsgFuture<Integer> batch = new BatchMsgFuture<>(2);
+        MsgListenerFuture<Integer> answered = batch.listenerFor("a");
+        MsgListenerFuture<Integer> waiting = batch.listenerFor("b");
+        answered.onMessageReceive(1, 1);
+        batch.cancel(false);
+        Assert.assertFalse(answered.isCancelled());
+        Assert.assertTrue(waiting.isCancelled());
+    }
+
+    @Test
+    public void blockedThreadsTest() throws Exception {
+        // before: a refresh thread parked on get for every request in progress
+        final AtomicInteger parked = new AtomicInteger();
+        final AtomicInteger maxParked = new AtomicInteger();
+        final AtomicInteger refreshed = new AtomicInteger();
+        ExecutorService refreshPool = Executors.newFixedThreadPool(REFRESH_THREADS);
+        for (int i = 0; i < CONTACTS; i++) {
+            final int contact = i;
+            refreshPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    BaseMsgFuture<Integer> future = request(contact, LATENCY);
+                    int current = parked.incrementAndGet();
+                    int max;
+                    while (current > (max = maxParked.get()) && !maxParked.compareAndSet(max, current)) {
+                        // retry
+                    }
+                    try {
+                        if (future.get() != null) refreshed.incrementAndGet();
+                    } catch (Exception e) {
+                        // not refreshed
+                    } finally {
+                        parked.decrementAndGet();
+                    }
+                }
+            });
+        }
+        refreshPool.shutdown();
+        Assert.assertTrue(refreshPool.awaitTermination(60, TimeUnit.SECONDS));
+        Assert.assertEquals(CONTACTS, refreshed.get());
+        Assert.assertEquals(REFRESH_THREADS, maxParked.get());
+
+        // after: every request sent at once, the responses handled by the listeners
+        final AtomicInteger callbacks = new AtomicInteger();
+        List<BaseMsgFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < CONTACTS; i++) {
+            futures.add(request(i, LATENCY).map(new BaseMsgFuture.Function<Integer, Integer>() {
+                @Override
+                public Integer apply(Integer input) {
+                    callbacks.incrementAndGet();
+                    return input;
+                }
+            }));
+        }
+        final CountDownLatch done = new CountDownLatch(1);
+        BaseMsgFuture.allOf(futures).addListener(new BaseMsgFuture.Listener<List<Integer>>() {
+            @Override
+            public void onAction(int messageId, List<Integer> object) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFail(int messageId, int status, String statusDetail) {
+                // not refreshed
+            }
+        });
+        // the test waits for the result, the refresh doesn't hold any thread
+        Assert.assertTrue(done.await(60, TimeUnit.SECONDS));
+        Assert.assertEquals(CONTACTS, callbacks.get());
+    }
+
+    /**
+     * Request to the stand-in server, answered with the value after the latency
+     */
+    private <O> BaseMsgFuture<O> request(final O value, long latency) {
+        final MsgListenerFuture<O> future = new MsgListenerFuture<>();
+        server.schedule(new Runnable() {
+            @Override
+            public void run() {
+                future.onMessageReceive(1, value);
+            }
+        }, latency, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private static class Recorder<O> implements BaseMsgFuture.Listener<O> {
+
+        private final List<String> calls;
+        private final String name;
+
+        Recorder(List<String> calls, String name) {
+            this.calls = calls;
+            this.name = name;
+        }
+
+        @Override
+        public void onAction(int messageId, O object) {
+            calls.add(name + " " + object);
+        }
+
+        @Override
+        public void onFail(int messageId, int status, String statusDetail) {
+            calls.add(name + " " + status);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package org.libertaria.world.profiles_manager;
+
+import com.google.protobuf.ByteString;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.libertaria.world.profile_server.CantConnectException;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.libertaria.world.profile_server.imp.ProfileInformationImp;
+import org.libertaria.world.profile_server.protocol.IopProfileServer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Priorities, deduplication, cancellation and size bound of the full images loader against a stand-in server that
+ * answers when the test says so.
+ *
+ * A listing of 5000 contacts fetched with the thumbnail plus the full images of the profiles opened transfers and holds
+ * less than the same listing fetched with the full image.
+ */
+public class ProfileImageLoaderTest {
+
+    /** Max profile image size accepted by the profile servers */
+    private static final int IMG_SIZE = 20 * 1024;
+    private static final int THUMBNAIL_SIZE = 4 * 1024;
+    private static final int CONTACTS = 5000;
+    private static final int OPENED = 50;
+
+    @Test
+    public void priorityTest() throws Exception {
+        StandInServer server = new StandInServer();
+        ProfileImageLoader loader = new ProfileImageLoader(1, ProfileImageLoader.DEFAULT_MAX_BYTES);
+        loader.load("a", ProfileImageLoader.PRIORITY_LOW, server, new Result());
+        loader.load("b", ProfileImageLoader.PRIORITY_LOW, server, new Result());
+        loader.load("c", ProfileImageLoader.PRIORITY_LOW, server, new Result());
+        loader.load("d", ProfileImageLoader.PRIORITY_HIGH, server, new Result());
+        // b moved up by a second request
+        loader.load("b", ProfileImageLoader.PRIORITY_HIGH, server, new Result());
+        Assert.assertEquals(3, loader.getQueuedCount());
+        server.answerAll();
+        Assert.assertEquals("[a, b, d, c]", server.fetched.toString());
+    }
+
+    @Test
+    public void dedupTest() throws Exception {
+        StandInServer server = new StandInServer();
+        ProfileImageLoader loader = new ProfileImageLoader();
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Result result = new Result();
+            results.add(result);
+            loader.load("a", ProfileImageLoader.PRIORITY_LOW, server, result);
+        }
+        server.answerAll();
+        Assert.assertEquals(1, server.fetched.size());
+        for (Result result : results) {
+            Assert.assertEquals(IMG_SIZE, result.img.length);
+        }
+        // cached, answered on the caller thread
+        Result result = new Result();
+        loader.load("a", ProfileImageLoader.PRIORITY_LOW, server, result);
+        Assert.assertNotNull(result.img);
+        Assert.assertEquals(1, loader.getHitCount());
+        Assert.assertEquals(1, loader.getFetchCount());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        StandInServer server = new StandInServer();
+        ProfileImageLoader loader = new ProfileImageLoader(1, ProfileImageLoader.DEFAULT_MAX_BYTES);
+        Result fetching = new Result();
+        ProfileImageLoader.Ticket a = loader.load("a", ProfileImageLoader.PRIORITY_LOW, server, fetching);
+        Result first = new Result();
+        Result second = new Result();
+        ProfileImageLoader.Ticket b1 = loader.load("b", ProfileImageLoader.PRIORITY_LOW, server, first);
+        loader.load("b", ProfileImageLoader.PRIORITY_LOW, server, second);
+        loader.load("c", ProfileImageLoader.PRIORITY_LOW, server, new Result());
+        // b is still wanted by the second caller
+        b1.cancel();
+        Assert.assertTrue(b1.isCancelled());
+        Assert.assertEquals(2, loader.getQueuedCount());
+        // nobody wants c
+        loader.cancel("c");
+        Assert.assertEquals(1, loader.getQueuedCount());
+        Assert.assertEquals(1, loader.getCancelledCount());
+        // a is fetching, it's cached but not delivered
+        a.cancel();
+        server.answerAll();
+        Assert.assertEquals("[a, b]", server.fetched.toString());
+        Assert.assertNull(fetching.img);
+        Assert.assertNotNull(loader.getCached("a"));
+        Assert.assertNull(first.img);
+        Assert.assertNotNull(second.img);
+        // a failed fetch is not cached, the next request asks again
+        server.disconnected = true;
+        Result failed = new Result();
+        loader.load("d", ProfileImageLoader.PRIORITY_LOW, server, failed);
+        Assert.assertEquals(400, failed.status);
+        server.disconnected = false;
+        loader.load("d", ProfileImageLoader.PRIORITY_LOW, server, new Result());
+        Assert.assertEquals(1, loader.getQueuedCount() + server.pending.size());
+    }
+
+    @Test
+    public void sizeTest() throws Exception {
+        StandInServer server = new StandInServer();
+        ProfileImageLoader loader = new ProfileImageLoader(ProfileImageLoader.DEFAULT_MAX_IN_FLIGHT, 3 * IMG_SIZE + IMG_SIZE / 2);
+        for (String pubKey : new String[]{"a", "b", "c"}) {
+            loader.load(pubKey, ProfileImageLoader.PRIORITY_LOW, server, new Result());
+            server.answerAll();
+        }
+        // used lately, it stays
+        loader.load("a", ProfileImageLoader.PRIORITY_LOW, server, new Result());
+        loader.load("d", ProfileImageLoader.PRIORITY_LOW, server, new Result());
+        server.answerAll();
+        Assert.assertEquals(1, loader.getEvictionCount());
+        Assert.assertTrue(loader.getBytes() <= loader.getMaxBytes());
+        Assert.assertNotNull(loader.getCached("a"));
+        Assert.assertNull(loader.getCached("b"));
+    }
+
+    @Test
+    public void listingSizeTest() throws Exception {
+        byte[] img = new byte[IMG_SIZE];
+        byte[] thumbnail = new byte[THUMBNAIL_SIZE];
+        ByteString imgBytes = ByteString.copyFrom(img);
+        ByteString thumbnailBytes = ByteString.copyFrom(thumbnail);
+
+        // before: every contact fetched and listed with the full image
+        long beforeTransferred = 0;
+        long beforeHeld = 0;
+        for (int i = 0; i < CONTACTS; i++) {
+            beforeTransferred += response(i).setProfileImage(imgBytes).build().getSerializedSize();
+            ProfileInformationImp profile = contact(i);
+            // the arrays are shared by the test, a listing holds one per contact
+            profile.setImg(img);
+            beforeHeld += ProfileInformationCache.sizeOf(profile);
+        }
+
+        // after: every contact with the thumbnail, the full images of the profiles opened on demand
+        long afterTransferred = 0;
+        long afterHeld = 0;
+        for (int i = 0; i < CONTACTS; i++) {
+            afterTransferred += response(i).setThumbnailImage(thumbnailBytes).build().getSerializedSize();
+            ProfileInformationImp profile = contact(i);
+            profile.setThumbnailImg(thumbnail);
+            afterHeld += ProfileInformationCache.sizeOf(profile);
+        }
+        StandInServer server = new StandInServer();
+        ProfileImageLoader loader = new ProfileImageLoader();
+        for (int i = 0; i < OPENED; i++) {
+            // every profile opened twice, the second one from memory
+            loader.load("contact-" + i, ProfileImageLoader.PRIORITY_HIGH, server, new Result());
+            server.answerAll();
+            loader.load("contact-" + i, ProfileImageLoader.PRIORITY_HIGH, server, new Result());
+        }
+        afterTransferred += server.transferred;
+        afterHeld += loader.getBytes();
+
+        Assert.assertEquals(OPENED, loader.getFetchCount());
+        Assert.assertEquals(OPENED, loader.getHitCount());
+        Assert.assertTrue(afterTransferred < beforeTransferred / 3);
+        Assert.assertTrue(afterHeld < beforeHeld / 3);
+    }
+
+    private static IopProfileServer.GetProfileInformationResponse.Builder response(int i) {
+        byte[] key = new byte[32];
+        key[0] = (byte) i;
+        key[1] = (byte) (i >> 8);
+        return IopProfileServer.GetProfileInformationResponse.newBuilder()
+                .setIsHosted(true)
+                .setIsOnline(true)
+                .setSignedProfile(IopProfileServer.SignedProfileInformation.newBuilder()
+                        .setProfile(IopProfileServer.ProfileInformation.newBuilder()
+                                .setPublicKey(ByteString.copyFrom(key))
+                                .setType("test")
+                                .setName("contact-" + i)
+                                .setProfileImageHash(ByteString.copyFrom(new byte[32]))
+                                .setThumbnailImageHash(ByteString.copyFrom(new byte[32]))));
+    }
+
+    private static ProfileInformationImp contact(int i) {
+        ProfileInformationImp profile = new ProfileInformationImp();
+        profile.setPubKey(new byte[32]);
+        profile.setName("contact-" + i);
+        profile.setType("test");
+        profile.setImgHash(new byte[32]);
+        profile.setTumbnailImgHash(new byte[32]);
+        return profile;
+    }
+
+    private static class Result implements ProfSerMsgListener<byte[]> {
+
+        private byte[] img;
+        private int status;
+
+        @Override
+        public void onMessageReceive(int messageId, byte[] message) {
+            img = message;
+        }
+
+        @Override
+        public void onMsgFail(int messageId, int statusValue, String details) {
+            status = statusValue;
+        }
+
+        @Override
+        public String getMessageName() {
+            return "load";
+        }
+    }
+
+    /**
+     * Keeps the fetches until answerAll is called, counts the bytes of the responses
+     */
+    private static class StandInServer implements ProfileImageLoader.Fetcher {
+
+        final List<String> fetched = new ArrayList<>();
+        final List<ProfSerMsgListener<byte[]>> pending = new ArrayList<>();
+        long transferred;
+        boolean disconnected;
+
+        @Override
+        public void fetch(String pubKey, ProfSerMsgListener<byte[]> listener) throws CantConnectException {
+            if (disconnected) throw new CantConnectException("disconnected");
+            fetched.add(pubKey);
+            pending.add(listener);
+        }
+
+        void answerAll() {
+            while (!pending.isEmpty()) {
+                ProfSerMsgListener<byte[]> listener = pending.remove(0);
+                IopProfileServer.GetProfileInformationResponse response = response(fetched.size())
+                        .setProfileImage(ByteString.copyFrom(new byte[IMG_SIZE]))
+                        .build();
+                transferred += response.getSerializedSize();
+                listener.onMessageReceive(fetched.size(), response.getProfileImage().toByteArray());
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package org.libertaria.world.profiles_manager;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.libertaria.world.profile_server.CantConnectException;
+import org.libertaria.world.profile_server.ProfileInformation;
+import org.libertaria.world.profile_server.engine.listeners.ProfSerMsgListener;
+import org.libertaria.world.profile_server.imp.ProfileInformationImp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ttl, stale refreshes, coalescing and size bound of the profiles cache against a stand-in server that counts the
+ * requests.
+ */
+public class ProfileInformationCacheTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toMillis(5);
+    private static final long STALE_TIME = TimeUnit.MINUTES.toMillis(30);
+    private static final int IMG_SIZE = 10 * 1024;
+    /** Local profile that asks */
+    private static final String LOCAL = "local";
+
+    private StandInServer server;
+
+    @Before
+    public void setUp() {
+        server = new StandInServer();
+    }
+
+    @After
+    public void tearDown() {
+        server.shutdown();
+    }
+
+    @Test
+    public void ttlTest() throws Exception {
+        ProfileInformationCache cache = new ProfileInformationCache(ProfileInformationCache.DEFAULT_MAX_BYTES, TTL, STALE_TIME);
+        Assert.assertEquals("a-1", get(cache, "a", 0).getName());
+        // fresh, the server is not asked
+        Assert.assertEquals("a-1", get(cache, "a", TTL - 1).getName());
+        Assert.assertEquals(1, server.requests.get());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        // stale, answered with the old one while refreshed
+        Assert.assertEquals("a-1", get(cache, "a", TTL).getName());
+        Assert.assertEquals(2, server.requests.get());
+        Assert.assertEquals(1, cache.getStaleHitCount());
+        Assert.assertEquals("a-2", get(cache, "a", TTL + 1).getName());
+        // expired, loaded before answering
+        Assert.assertEquals("a-3", get(cache, "a", TTL + TTL + STALE_TIME).getName());
+        Assert.assertEquals(3, server.requests.get());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(3, cache.getLoadCount());
+        // invalidated, loaded again
+        cache.invalidate("a");
+        Assert.assertEquals("a-4", get(cache, "a", TTL + TTL + STALE_TIME).getName());
+        Assert.assertEquals(4, server.requests.get());
+    }
+
+    @Test
+    public void contextTest() throws Exception {
+        ProfileInformationCache cache = new ProfileInformationCache(ProfileInformationCache.DEFAULT_MAX_BYTES, TTL, STALE_TIME);
+        Assert.assertEquals("a-1", get(cache, "a", 0).getName());
+        // another local profile has his own answer
+        Result other = new Result();
+        cache.get("other", "a", server, other, false, 1);
+        Assert.assertTrue(other.await());
+        Assert.assertEquals("a-2", other.profile.getName());
+        Assert.assertEquals("a-1", get(cache, "a", 2).getName());
+        Assert.assertEquals(2, server.requests.get());
+        Assert.assertEquals(2, cache.getSize());
+        // the profile is forgotten for both
+        cache.invalidate("a");
+        Assert.assertEquals(0, cache.getSize());
+        Assert.assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    public void reloadTest() throws Exception {
+        ProfileInformationCache cache = new ProfileInformationCache(ProfileInformationCache.DEFAULT_MAX_BYTES, TTL, STALE_TIME);
+        Assert.assertEquals("a-1", get(cache, "a", 0).getName());
+        // fresh, but the caller wants it from the server
+        Result reloaded = new Result();
+        cache.get(LOCAL, "a", server, reloaded, true, 1);
+        Assert.assertTrue(reloaded.await());
+        Assert.assertEquals("a-2", reloaded.profile.getName());
+        Assert.assertEquals(2, server.requests.get());
+        // the answer replaced the cached one
+        Assert.assertEquals("a-2", get(cache, "a", 2).getName());
+        Assert.assertEquals(2, server.requests.get());
+        // a failed reload keeps it
+        server.fail = true;
+        Result failed = new Result();
+        cache.get(LOCAL, "a", server, failed, true, 3);
+        Assert.assertTrue(failed.await());
+        Assert.assertEquals(404, failed.status);
+        Assert.assertEquals("a-2", get(cache, "a", 4).getName());
+    }
+
+    @Test
+    public void coalesceTest() throws Exception {
+        final ProfileInformationCache cache = new ProfileInformationCache(ProfileInformationCache.DEFAULT_MAX_BYTES, TTL, STALE_TIME);
+        server.latency = 100;
+        int callers = 20;
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            Result result = new Result();
+            results.add(result);
+            cache.get(LOCAL, "a", server, result, false, 0);
+        }
+        for (Result result : results) {
+            Assert.assertTrue(result.await());
+            Assert.assertEquals("a-1", result.profile.getName());
+        }
+        Assert.assertEquals(1, server.requests.get());
+        Assert.assertEquals(callers - 1, cache.getCoalescedCount());
+        // the stale refreshes are coalesced too
+        for (int i = 0; i < callers; i++) {
+            Assert.assertEquals("a-1", get(cache, "a", TTL + i).getName());
+        }
+        Thread.sleep(300);
+        Assert.assertEquals(2, server.requests.get());
+        Assert.assertEquals("a-2", get(cache, "a", TTL + callers).getName());
+    }
+
+    @Test
+    public void sizeTest() throws Exception {
+        long profileSize = ProfileInformationCache.sizeOf(server.profile("a"));
+        ProfileInformationCache cache = new ProfileInformationCache(3 * profileSize + profileSize / 2, TTL, STALE_TIME);
+        get(cache, "a", 0);
+        get(cache, "b", 0);
+        get(cache, "c", 0);
+        // used lately, it stays
+        get(cache, "a", 1);
+        get(cache, "d", 2);
+        Assert.assertEquals(3, cache.getSize());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertTrue(cache.getBytes() <= cache.getMaxBytes());
+        int requests = server.requests.get();
+        get(cache, "a", 3);
+        Assert.assertEquals(requests, server.requests.get());
+        get(cache, "b", 3);
+        Assert.assertEquals(requests + 1, server.requests.get());
+        // bigger than the cache, not kept
+        ProfileInformationCache small = new ProfileInformationCache(profileSize / 2, TTL, STALE_TIME);
+        get(small, "a", 0);
+        get(small, "a", 0);
+        Assert.assertEquals(0, small.getSize());
+        Assert.assertEquals(requests + 3, server.requests.get());
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        ProfileInformationCache cache = new ProfileInformationCache(ProfileInformationCache.DEFAULT_MAX_BYTES, TTL, STALE_TIME);
+        server.fail = true;
+        Result result = new Result();
+        cache.get(LOCAL, "a", server, result, false, 0);
+        Assert.assertTrue(result.await());
+        Assert.assertEquals(404, result.status);
+        // failures are not cached
+        server.fail = false;
+        Assert.assertEquals("a-2", get(cache, "a", 0).getName());
+        // a failed refresh keeps the stale one
+        server.fail = true;
+        Assert.assertEquals("a-2", get(cache, "a", TTL).getName());
+        Assert.assertEquals("a-2", get(cache, "a", TTL + 1).getName());
+        Assert.assertEquals(4, server.requests.get());
+        // not sent, the caller gets the exception
+        server.disconnected = true;
+        try {
+            cache.get(LOCAL, "b", server, new Result(), false, 0);
+            Assert.fail();
+        } catch (CantConnectException e) {
+            // expected
+        }
+        server.disconnected = false;
+        server.fail = false;
+        Assert.assertEquals("b-5", get(cache, "b", 0).getName());
+    }
+
+    private ProfileInformation get(ProfileInformationCache cache, String pubKey, long now) throws Exception {
+        Result result = new Result();
+        cache.get(LOCAL, pubKey, server, result, false, now);
+        Assert.assertTrue(result.await());
+        Assert.assertNotNull("failed: " + result.status, result.profile);
+        return result.profile;
+    }
+
+    private static class Result implements ProfSerMsgListener<ProfileInformation> {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile ProfileInformation profile;
+        private volatile int status;
+
+        @Override
+        public void onMessageReceive(int messageId, ProfileInformation message) {
+            profile = message;
+            done.countDown();
+        }
+
+        @Override
+        public void onMsgFail(int messageId, int statusValue, String details) {
+            status = statusValue;
+            done.countDown();
+        }
+
+        @Override
+        public String getMessageName() {
+            return "get";
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Answers after the latency, on the caller thread without latency. Every answer has a new version in the name.
+     */
+    private static class StandInServer implements ProfileInformationCache.Loader {
+
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        final AtomicInteger requests = new AtomicInteger();
+        volatile long latency;
+        volatile boolean fail;
+        volatile boolean disconnected;
+
+        @Override
+        public void load(final String pubKey, final ProfSerMsgListener<ProfileInformation> listener) throws CantConnectException {
+            if (disconnected) throw new CantConnectException("disconnected");
+            final int request = requests.incrementAndGet();
+            Runnable answer = new Runnable() {
+                @Override
+                public void run() {
+                    if (fail) {
+                        listener.onMsgFail(request, 404, "ERROR_NOT_FOUND");
+                    } else {
+                        ProfileInformationImp profile = profile(pubKey);
+                        profile.setName(pubKey + "-" + request);
+                        listener.onMessageReceive(request, profile);
+                    }
+                }
+            };
+            if (latency > 0) {
+                executor.schedule(answer, latency, TimeUnit.MILLISECONDS);
+            } else {
+                answer.run();
+            }
+        }
+
+        ProfileInformationImp profile(String pubKey) {
+            ProfileInformationImp profile = new ProfileInformationImp();
+            profile.setPubKey(pubKey.getBytes());
+            profile.setName(pubKey);
+            profile.setType("test");
+            profile.setImg(new byte[IMG_SIZE]);
+            return profile;
+        }
+
+        void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.furszy.client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of direct buffers of a fixed size.
+ *
+ * Direct buffers are expensive to allocate and are released only by the GC, so the processor keeps the free ones here
+ * instead of allocating a new one on every operation. Requests bigger than the pooled size are allocated on demand and
+ * dropped on release.
+ *
+ * The pool is owned by a single processor and is only accessed from his thread, it's not thread safe.
+ */
+public class ByteBufferPool {
+
+    /** Size of the pooled buffers */
+    private final int bufferSize;
+    /** Max amount of free buffers retained */
+    private final int maxPooled;
+
+    private final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+
+    public ByteBufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("buffer size <= 0");
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Take a cleared buffer with at least the requested capacity
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        if (minCapacity > bufferSize) {
+            return ByteBuffer.allocateDirect(minCapacity);
+        }
+        ByteBuffer byteBuffer = freeBuffers.poll();
+        return (byteBuffer != null) ? byteBuffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Return a buffer to the pool, the caller must not use it anymore
+     */
+    public void release(ByteBuffer byteBuffer) {
+        if (byteBuffer == null || !byteBuffer.isDirect() || byteBuffer.capacity() != bufferSize) {
+            return;
+        }
+        if (freeBuffers.size() < maxPooled) {
+            byteBuffer.clear();
+            freeBuffers.push(byteBuffer);
+        }
+    }
+
+    /**
+     * Copy the content of the buffer (in write mode) into a bigger one, releasing the old one
+     */
+    public ByteBuffer enlarge(ByteBuffer byteBuffer, int minCapacity) {
+        return resize(byteBuffer, Math.max(minCapacity, byteBuffer.capacity() << 1));
+    }
+
+    /**
+     * Copy the content of the buffer (in write mode) into one of the given capacity, releasing the old one
+     */
+    public ByteBuffer resize(ByteBuffer byteBuffer, int capacity) {
+        ByteBuffer newBuffer = acquire(capacity);
+        byteBuffer.flip();
+        newBuffer.put(byteBuffer);
+        release(byteBuffer);
+        return newBuffer;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /** Free buffers retained */
+    public int size() {
+        return freeBuffers.size();
+    }
+
+}
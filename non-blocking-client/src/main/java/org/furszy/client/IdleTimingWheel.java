@@ -0,0 +1,161 @@
+package org.furszy.client;
+
+import org.furszy.client.basic.IdleStatus;
+import org.furszy.client.basic.IoSessionImp;
+
+import java.util.List;
+
+/**
+ * Hashed timing wheel with the idle deadlines of the sessions of a processor.
+ *
+ * Every bucket is a linked list of the timeouts that expire on a tick, a deadline falls on the bucket of his tick
+ * modulo the wheel size, so scheduling and cancelling are O(1) and the processor only visits the buckets of the
+ * elapsed ticks. The timeouts of further rounds stay on the bucket until their tick comes.
+ *
+ * The timeouts are not moved on every read or write, once expired the processor checks the session last activity
+ * and schedules the timeout again on the real deadline.
+ *
+ * Like the rest of the session I/O this class is used only from the processor thread.
+ */
+public class IdleTimingWheel {
+
+    /**
+     * Idle deadline of a session
+     */
+    public static class Timeout {
+
+        private final IoSessionImp session;
+        /** Idle status checked, null for the release of the session read buffer */
+        private final IdleStatus status;
+        private long tick;
+        private Timeout prev;
+        private Timeout next;
+        private boolean scheduled;
+
+        public Timeout(IoSessionImp session, IdleStatus status) {
+            this.session = session;
+            this.status = status;
+        }
+
+        public IoSessionImp getSession() {
+            return session;
+        }
+
+        public IdleStatus getStatus() {
+            return status;
+        }
+
+        public boolean isScheduled() {
+            return scheduled;
+        }
+    }
+
+    private final long tickDuration;
+    private final Timeout[] buckets;
+    private final int mask;
+    /** Last tick expired */
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickDuration precision of the deadlines in millis
+     * @param ticksPerWheel buckets, rounded up to a power of two
+     * @param startTime
+     */
+    public IdleTimingWheel(long tickDuration, int ticksPerWheel, long startTime) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("tick duration <= 0");
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) throw new IllegalArgumentException("ticks per wheel out of range");
+        int wheelSize = 1;
+        while (wheelSize < ticksPerWheel) {
+            wheelSize <<= 1;
+        }
+        this.tickDuration = tickDuration;
+        this.buckets = new Timeout[wheelSize];
+        this.mask = wheelSize - 1;
+        this.currentTick = startTime / tickDuration;
+    }
+
+    /**
+     * Schedule the timeout, it's moved if it was already scheduled.
+     * The deadline is rounded up to the tick, a timeout never expires before it.
+     */
+    public void schedule(Timeout timeout, long deadline) {
+        if (timeout.scheduled) {
+            cancel(timeout);
+        }
+        long tick = Math.max((deadline + tickDuration - 1) / tickDuration, currentTick + 1);
+        int index = (int) (tick & mask);
+        timeout.tick = tick;
+        timeout.prev = null;
+        timeout.next = buckets[index];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        buckets[index] = timeout;
+        timeout.scheduled = true;
+        size++;
+    }
+
+    public void cancel(Timeout timeout) {
+        if (!timeout.scheduled) {
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[(int) (timeout.tick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+        size--;
+    }
+
+    /**
+     * Remove the timeouts of the elapsed ticks
+     *
+     * @param currentTime
+     * @param expired the expired timeouts are added here
+     */
+    public void expire(long currentTime, List<Timeout> expired) {
+        long lastTick = currentTime / tickDuration;
+        // a full round visits every bucket
+        long fromTick = Math.max(currentTick + 1, lastTick - mask);
+        for (long tick = fromTick; tick <= lastTick && size > 0; tick++) {
+            Timeout timeout = buckets[(int) (tick & mask)];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.tick <= lastTick) {
+                    cancel(timeout);
+                    expired.add(timeout);
+                }
+                timeout = next;
+            }
+        }
+        currentTick = Math.max(currentTick, lastTick);
+    }
+
+    /**
+     * Time until the first tick with timeouts, the selector doesn't wait longer than this.
+     *
+     * @return millis, 0 if it's already due, -1 if there are no timeouts
+     */
+    public long nextTickDelay(long currentTime) {
+        if (size == 0) {
+            return -1;
+        }
+        for (long tick = currentTick + 1; tick <= currentTick + buckets.length; tick++) {
+            if (buckets[(int) (tick & mask)] != null) {
+                return Math.max(0, tick * tickDuration - currentTime);
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+}
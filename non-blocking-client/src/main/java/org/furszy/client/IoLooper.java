@@ -5,6 +5,7 @@ import org.furszy.client.basic.IoSessionImp;
 import org.furszy.client.exceptions.ConnectionFailureException;
 import org.furszy.client.interfaces.ConnectFuture;
 import org.furszy.client.interfaces.IoHandler;
+import org.furszy.client.interfaces.IoProcessor;
 import org.furszy.client.interfaces.IoSessionConf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +45,7 @@ public class IoLooper {
     /** loop reference */
     private AtomicReference<Looper> looperRef = new AtomicReference<>();
     /** In charge of processing connected sessions */
-    private IoProcessorImp processor;
+    private IoProcessor processor;
     /** Main executor */
     private ExecutorService executor;
 
@@ -54,11 +55,18 @@ public class IoLooper {
 
 
 
-    public IoLooper(ExecutorService executor,IoProcessorImp ioProcessorImp) {
+    public IoLooper(ExecutorService executor,IoProcessor ioProcessor) {
+        this(executor, ioProcessor, new SessionHelper());
+    }
+
+    /**
+     * @param sessionHelper session factory, it must be shared by the connectors of a manager to keep the session ids unique
+     */
+    public IoLooper(ExecutorService executor,IoProcessor ioProcessor,SessionHelper sessionHelper) {
         try {
             this.executor = executor;
-            sessionHelper = new SessionHelper();
-            this.processor = ioProcessorImp;
+            this.sessionHelper = sessionHelper;
+            this.processor = ioProcessor;
             selectorWrapper = new SelectorWrapper(SelectorProvider.provider());
             isSelectable.set(true);
         } catch (IOException e) {
@@ -68,6 +76,28 @@ public class IoLooper {
         }
     }
 
+    IoLooper(ExecutorService executor,IoProcessor ioProcessor,SessionHelper sessionHelper,SelectorWrapper selectorWrapper) {
+        this.executor = executor;
+        this.sessionHelper = sessionHelper;
+        this.processor = ioProcessor;
+        this.selectorWrapper = selectorWrapper;
+        isSelectable.set(true);
+    }
+
+    /**
+     * @see SelectorWrapper#setSpinDetection(int, long)
+     */
+    public void setSpinDetection(int spinThreshold, long minSelectTime) {
+        selectorWrapper.setSpinDetection(spinThreshold, minSelectTime);
+    }
+
+    /**
+     * @return selectors replaced because of the epoll spin bug
+     */
+    public long getSelectorRebuildCount() {
+        return selectorWrapper.getRebuildCount();
+    }
+
 
 
     public ConnectFuture connect(SocketAddress remoteAddress, SocketAddress localAddress, IoHandler ioHandler, IoSessionConf ioSessionConf) throws ConnectionFailureException {
@@ -129,12 +159,14 @@ public class IoLooper {
     private SocketChannel newSocketChannel(SocketAddress localAddress, IoSessionConf ioSessionConf) throws Exception {
         SocketChannel ch = SocketChannel.open();
 
-        int receiveBufferSize = ioSessionConf.getReadBufferSize();
+        int receiveBufferSize = ioSessionConf.getSocketReadBufferSize();
 
         if (receiveBufferSize > 65535) {
             ch.socket().setReceiveBufferSize(receiveBufferSize);
         }
 
+        ch.socket().setTcpNoDelay(ioSessionConf.isTcpNoDelay());
+
         if (localAddress != null) {
             try {
                 ch.socket().setReuseAddress(true);
@@ -230,11 +262,9 @@ public class IoLooper {
      * @throws IOException
      */
     private boolean close(SocketChannel socketChannel) throws IOException {
-        if (socketChannel.finishConnect()){
-            selectorWrapper.close(socketChannel);
-            return true;
-        }
-        return false;
+        selectorWrapper.close(socketChannel);
+        socketChannel.close();
+        return true;
     }
 
 
@@ -321,10 +351,11 @@ public class IoLooper {
 
             int nHandles = 0;
 
-            while (isSelectable.get()) {
+            while (isSelectable.get() && !Thread.currentThread().isInterrupted()) {
                 try {
                     // the timeout for select shall be smaller of the connect
                     // timeout or 1 second...
+                    // The wrapper replaces the selector if it's spinning.
                     int timeout = (int) Math.min(connectTimeoutInMillis, 1000L);
                     int selected = selectorWrapper.select(timeout);
                     // registerConnect queued connections on selector.
@@ -9,85 +9,215 @@ import org.furszy.client.interfaces.ConnectFuture;
 import org.furszy.client.interfaces.IoHandler;
 import org.furszy.client.interfaces.IoProcessor;
 import org.furszy.client.interfaces.IoSessionConf;
+import org.furszy.client.interfaces.ProtocolEncoder;
 import org.furszy.client.interfaces.write.WriteFuture;
 import org.furszy.client.interfaces.write.WriteRequest;
 
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.channels.spi.SelectorProvider;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by mati on 14/05/17.
+ *
+ * Sessions are distributed across the processors, every connector and every processor loop runs on his own thread.
+ * The processors share the active sessions registry so any session is found with a single lookup.
  */
 
 public class IoManager implements IoProcessor {
 
-    public static AtomicInteger connectorsId = new AtomicInteger(0);
-    public static AtomicInteger processorsId = new AtomicInteger(0);
-
-    private Map<Integer,IoLooper> connectors;
-    private Map<Integer,IoProcessorImp> ioProcessor;
+    private final IoLooper[] connectors;
+    private final IoProcessorImp[] processors;
+    /** Active sessions of every processor */
+    private final ConcurrentMap<ConnectionId,IoSessionImp> sessions = new ConcurrentHashMap<>();
+    /** Round robin start, used to break the ties between processors with the same load */
+    private final AtomicInteger nextProcessor = new AtomicInteger();
+    private final AtomicInteger nextConnector = new AtomicInteger();
 
     private ExecutorService executorService;
 
     public IoManager(int numConnectors,int numProcessors) throws IOException {
-        connectors = new HashMap<>();
-        ioProcessor = new HashMap<>();
+        if (numConnectors<=0 || numProcessors<=0) throw new IllegalArgumentException("At least one connector and one processor");
+        connectors = new IoLooper[numConnectors];
+        processors = new IoProcessorImp[numProcessors];
+
+        // a thread per loop, daemon threads to not retain the process.
+        executorService = Executors.newFixedThreadPool(numConnectors + numProcessors, new ThreadFactory() {
 
-        executorService = Executors.newFixedThreadPool(2);
+            private final AtomicInteger threadId = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "IoManager-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
 
         for (int i = 0; i < numProcessors; i++) {
-            ioProcessor.put(connectorsId.getAndIncrement(), new IoProcessorImp(SelectorProvider.provider(), executorService));
+            processors[i] = new IoProcessorImp(SelectorProvider.provider(), executorService, sessions);
         }
 
+        // the connectors hand the connected sessions to the manager, the ids must be unique across them
+        SessionHelper sessionHelper = new SessionHelper();
         for (int i = 0; i < numConnectors; i++) {
-            connectors.put(processorsId.getAndIncrement(), new IoLooper(executorService, ioProcessor.get(0)));
+            connectors[i] = new IoLooper(executorService, this, sessionHelper);
         }
 
     }
 
 
+    /**
+     * Assign the session to the processor with less sessions
+     */
     @Override
     public void add(IoSessionImp ioSessionImp) throws Exception {
-        ioProcessor.get(0).add(ioSessionImp);
+        chooseProcessor().add(ioSessionImp);
     }
 
-    @Override
-    public IoSessionImp getActiveSession(ConnectionId connectionId) {
-        for (Map.Entry<Integer, IoProcessorImp> integerIoProcessorImpEntry : ioProcessor.entrySet()) {
-            IoSessionImp ioSessionImp = integerIoProcessorImpEntry.getValue().getActiveSession(connectionId);
-            if (ioSessionImp!=null){
-                return ioSessionImp;
+    private IoProcessorImp chooseProcessor() {
+        int start = (nextProcessor.getAndIncrement() & Integer.MAX_VALUE) % processors.length;
+        IoProcessorImp chosen = processors[start];
+        int minLoad = chosen.getSessionCount();
+        for (int i = 1; i < processors.length && minLoad > 0; i++) {
+            IoProcessorImp processor = processors[(start + i) % processors.length];
+            int load = processor.getSessionCount();
+            if (load < minLoad) {
+                chosen = processor;
+                minLoad = load;
             }
         }
-        return null;
+        return chosen;
+    }
+
+    @Override
+    public IoSessionImp getActiveSession(ConnectionId connectionId) {
+        return sessions.get(connectionId);
     }
 
     @Override
     public <M> void scheduleForFlush(IoSessionImp session) {
-        for (Map.Entry<Integer, IoProcessorImp> integerIoProcessorImpEntry : ioProcessor.entrySet()) {
-            IoSessionImp ioSessionImp = integerIoProcessorImpEntry.getValue().getActiveSession(new ConnectionId(session.getId()));
-            if (ioSessionImp!=null){
-                ioSessionImp.setScheduledForFlush();
-            }
-        }
+        // the session knows his processor
+        session.setScheduledForFlush();
     }
 
 
+    /**
+     * Queue the message, the queue is not bounded. The session is not writable while the queued bytes are over
+     * the high watermark.
+     */
     public WriteRequest send(Object msg, ConnectionId connectionId){
+        IoSessionImp session = getSessionOrFail(connectionId);
+        return send(session, msg);
+    }
+
+    /**
+     * Queue the message only if the session is writable, it doesn't block.
+     * Concurrent senders could take the queued bytes a few messages over the high watermark.
+     *
+     * @return the request or null if the session is saturated
+     */
+    public WriteRequest trySend(Object msg, ConnectionId connectionId){
+        IoSessionImp session = getSessionOrFail(connectionId);
+        if (!session.isWritable()) {
+            return null;
+        }
+        return send(session, msg);
+    }
+
+    private WriteRequest send(IoSessionImp session, Object msg) {
         WriteFuture writeFuture = new WriteFutureImp();
-        WriteRequest writeRequest = new WriteRequestImp(msg,writeFuture);
-        ioProcessor.get(0).getActiveSession(connectionId).addWriteRequest(writeRequest);
+        WriteRequest writeRequest = new WriteRequestImp(msg,writeFuture,encoder(session).estimateSize(msg));
+        session.addWriteRequest(writeRequest);
         return writeRequest;
     }
 
+    /**
+     * The encoder configured on the session takes every message sent to it
+     */
+    @SuppressWarnings("unchecked")
+    private static ProtocolEncoder<Object> encoder(IoSessionImp<?> session) {
+        return session.getProtocolEncoder();
+    }
+
+    private IoSessionImp getSessionOrFail(ConnectionId connectionId) {
+        IoSessionImp session = sessions.get(connectionId);
+        if (session==null) throw new IllegalStateException("Session not active, "+connectionId);
+        return session;
+    }
+
+    @Override
+    public void remove(IoSessionImp ioSessionImp) {
+        ioSessionImp.getProcessor().remove(ioSessionImp);
+    }
+
+    /**
+     * Close the connection, the handler is notified with sessionClosed once the channel is released.
+     *
+     * @param connectionId
+     */
+    public void close(ConnectionId connectionId){
+        IoSessionImp ioSessionImp = sessions.get(connectionId);
+        if (ioSessionImp!=null){
+            remove(ioSessionImp);
+        }
+    }
+
 
     public ConnectFuture connect(SocketAddress remoteAddress, SocketAddress localAddress, IoHandler ioHandler, IoSessionConf ioSessionConf) throws ConnectionFailureException {
-        return connectors.get(0).connect(remoteAddress,localAddress,ioHandler,ioSessionConf);
+        IoLooper connector = connectors[(nextConnector.getAndIncrement() & Integer.MAX_VALUE) % connectors.length];
+        return connector.connect(remoteAddress,localAddress,ioHandler,ioSessionConf);
+    }
+
+    /**
+     * @return sessions served by every processor
+     */
+    public int[] getProcessorsLoad() {
+        int[] load = new int[processors.length];
+        for (int i = 0; i < processors.length; i++) {
+            load[i] = processors[i].getSessionCount();
+        }
+        return load;
+    }
+
+    /**
+     * Epoll spin detection thresholds of every connector and processor loop
+     *
+     * @see SelectorWrapper#setSpinDetection(int, long)
+     */
+    public void setSpinDetection(int spinThreshold, long minSelectTime) {
+        for (IoLooper connector : connectors) {
+            connector.setSpinDetection(spinThreshold, minSelectTime);
+        }
+        for (IoProcessorImp processor : processors) {
+            processor.setSpinDetection(spinThreshold, minSelectTime);
+        }
+    }
+
+    /**
+     * @return selectors replaced by the connectors and the processors because of the epoll spin bug
+     */
+    public long getSelectorRebuildCount() {
+        long count = 0;
+        for (IoLooper connector : connectors) {
+            count += connector.getSelectorRebuildCount();
+        }
+        for (IoProcessorImp processor : processors) {
+            count += processor.getSelectorRebuildCount();
+        }
+        return count;
+    }
+
+    /**
+     * Stop the loops, the open sessions are not notified.
+     */
+    public void shutdown(){
+        executorService.shutdownNow();
     }
 }
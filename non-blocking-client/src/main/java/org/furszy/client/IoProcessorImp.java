@@ -1,6 +1,7 @@
 package org.furszy.client;
 
 import org.furszy.client.basic.ConnectionId;
+import org.furszy.client.basic.IdleStatus;
 import org.furszy.client.basic.IoSessionImp;
 import org.furszy.client.basic.SessionState;
 import org.furszy.client.interfaces.ConnectFuture;
@@ -9,20 +10,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
 import static org.furszy.client.basic.IoSessionImp.ATTR_CONNECT_FUTURE;
 
 /**
@@ -34,8 +42,18 @@ public class IoProcessorImp implements IoProcessor {
     private Logger log = LoggerFactory.getLogger(IoProcessorImp.class);
 
     private static final long SELECT_TIMEOUT = 1000L;
-    /** Sessions references */
-    private ConcurrentMap<ConnectionId,IoSessionImp> sessions = new ConcurrentHashMap<>();
+    /** Pooled buffer size, enough for a TLS record and his plaintext and for the default session read buffer */
+    private static final int POOLED_BUFFER_SIZE = 17 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 64;
+    /** Time without reads after which an empty session read buffer goes back to the pool */
+    private static final long READ_BUFFER_IDLE_TIME = 10000L;
+    /** Idle deadlines precision */
+    private static final long IDLE_TICK_DURATION = 100L;
+    private static final int IDLE_TICKS_PER_WHEEL = 512;
+    /** Sessions references, it could be shared with other processors */
+    private final ConcurrentMap<ConnectionId,IoSessionImp> sessions;
+    /** Sessions assigned to this processor, the new ones included */
+    private final AtomicInteger sessionCount = new AtomicInteger();
 
     /** The processor thread : it handles the incoming messages */
     private final AtomicReference<ProcessorLoop> processorRef = new AtomicReference<ProcessorLoop>();
@@ -52,11 +70,29 @@ public class IoProcessorImp implements IoProcessor {
     private AtomicBoolean disposed = new AtomicBoolean(false);
 
     private ExecutorService executor;
+    /** Direct buffers for the reads and the TLS sessions of this processor */
+    private final ByteBufferPool bufferPool = new ByteBufferPool(POOLED_BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    /** Idle deadlines of the sessions, the read buffer release included */
+    private final IdleTimingWheel idleWheel = new IdleTimingWheel(IDLE_TICK_DURATION, IDLE_TICKS_PER_WHEEL, System.currentTimeMillis());
+    /** Expired timeouts, reused on every check */
+    private final List<IdleTimingWheel.Timeout> expiredTimeouts = new ArrayList<>();
 
     public IoProcessorImp(SelectorProvider selectorProvider, ExecutorService executorService) throws IOException {
+        this(selectorProvider, executorService, new ConcurrentHashMap<ConnectionId, IoSessionImp>());
+    }
+
+    /**
+     * @param sessions active sessions registry, shared by the processors of a manager to find any session with a single lookup
+     */
+    public IoProcessorImp(SelectorProvider selectorProvider, ExecutorService executorService, ConcurrentMap<ConnectionId,IoSessionImp> sessions) throws IOException {
+        this(new SelectorWrapper(selectorProvider), executorService, sessions);
+    }
+
+    IoProcessorImp(SelectorWrapper selectorWrapper, ExecutorService executorService, ConcurrentMap<ConnectionId,IoSessionImp> sessions) {
+        this.sessions = sessions;
         ioProcessorReader = new IoProcessorReader(this);
         ioProcessorWriter = new IoProcessorWriter(this);
-        selectorWrapper = new SelectorWrapper(selectorProvider);
+        this.selectorWrapper = selectorWrapper;
         executor = executorService;
     }
 
@@ -92,6 +128,7 @@ public class IoProcessorImp implements IoProcessor {
             throw new IllegalStateException("Already disposed.");
         }
         log.info("Adding session to processor",ioSessionImp);
+        sessionCount.incrementAndGet();
         newSessions.add(ioSessionImp);
         ioSessionImp.setProcessor(this);
         startupProcessor();
@@ -102,23 +139,63 @@ public class IoProcessorImp implements IoProcessor {
         return sessions.get(connectionId);
     }
 
+    /**
+     * @return number of sessions served by this processor, used to balance the load
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    /**
+     * Called once the session flush flag was switched on, so the session is not on the queue.
+     * @param mIoSessionImp
+     */
     @Override
     public <M> void scheduleForFlush(IoSessionImp mIoSessionImp) {
-        if (!flushingSessions.contains(mIoSessionImp)){
-            flushingSessions.add(mIoSessionImp);
-        }
+        flushingSessions.add(mIoSessionImp);
+        // don't wait for the select timeout to write
+        selectorWrapper.wakeup();
     }
 
     /**
-     * Add session to remove queue
+     * Add session to remove queue, only the first call for a session adds it
      * @param session
      */
     public void scheduleRemove(IoSessionImp session) {
-        if (!removingSessions.contains(session)) {
+        if (session.setScheduledForRemove()) {
             removingSessions.add(session);
         }
     }
 
+    /**
+     * Close the session and release it from the processor as soon as possible
+     * @param session
+     */
+    @Override
+    public void remove(IoSessionImp session) {
+        session.close();
+        scheduleRemove(session);
+        selectorWrapper.wakeup();
+    }
+
+    /**
+     * @see SelectorWrapper#setSpinDetection(int, long)
+     */
+    public void setSpinDetection(int spinThreshold, long minSelectTime) {
+        selectorWrapper.setSpinDetection(spinThreshold, minSelectTime);
+    }
+
+    /**
+     * @return selectors replaced because of the epoll spin bug
+     */
+    public long getSelectorRebuildCount() {
+        return selectorWrapper.getRebuildCount();
+    }
+
+    ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     public void setInterestedInWrite(IoSessionImp session, boolean flag) throws Exception {
         selectorWrapper.setInterestedInWrite(session.getSelectionKey(),flag);
     }
@@ -141,42 +218,21 @@ public class IoProcessorImp implements IoProcessor {
         public void run() {
 
             int nSessions = 0;
-//            lastIdleCheckTime = System.currentTimeMillis();
 
 
             for (; ; )
                 try {
-                    // This select has a timeout so that we can manage
-                    // idle session when we get out of the select every
-                    // second. (note : this is a hack to avoid creating
-                    // a dedicated thread).
-                    long t0 = System.currentTimeMillis();
-                    int selected = selectorWrapper.select(SELECT_TIMEOUT);
-                    long t1 = System.currentTimeMillis();
-                    long delta = (t1 - t0);
-                    if (!selectorWrapper.getWakeUpAndSet(false) && (selected == 0) && (delta < 100)) {
-                        // Last chance : the select() may have been
-                        // interrupted because we have had an closed channel.
-                        if (selectorWrapper.isBrokenConnection()) {
-                            log.warn("Broken connection");
-                        } else {
-                            log.warn("Create a new selector. Selected is 0, delta = " + (t1 - t0));
-                            // Ok, we are hit by the nasty epoll
-                            // spinning.
-                            // Basically, there is a race condition
-                            // which causes a closing file descriptor not to be
-                            // considered as available as a selected channel,
-                            // but
-                            // it stopped the select. The next time we will
-                            // call select(), it will exit immediately for the
-                            // same
-                            // reason, and do so forever, consuming 100%
-                            // CPU.
-                            // We have to destroy the selector, and
-                            // registerConnect all the socket on a new one.
-                            selectorWrapper.registerNewSelector();
-                        }
+                    if (Thread.currentThread().isInterrupted()) {
+                        // executor shutdown
+                        processorRef.set(null);
+                        break;
                     }
+                    // This select has a timeout so that we can manage
+                    // idle session when we get out of the select, at most
+                    // every second or at the next idle deadline.
+                    // (note : this is a hack to avoid creating a dedicated thread).
+                    // The wrapper replaces the selector if it's spinning.
+                    int selected = selectorWrapper.select(selectTimeout(System.currentTimeMillis()));
                     // Manage newly created session first
                     nSessions += handleNewSessions();
 
@@ -196,7 +252,7 @@ public class IoProcessorImp implements IoProcessor {
                     nSessions -= removeSessions();
 
                     // Last, not least, send Idle events to the idle sessions
-//                    notifyIdleSessions(currentTime);
+                    notifyIdleSessions(currentTime);
 
 
                     // Get a chance to exit the infinite loop if there are no
@@ -255,6 +311,7 @@ public class IoProcessorImp implements IoProcessor {
                         Thread.sleep(1000);
                     } catch (InterruptedException e1) {
                         log.error("Main loop",e1);
+                        Thread.currentThread().interrupt();
                     }
                 }
         }
@@ -272,6 +329,8 @@ public class IoProcessorImp implements IoProcessor {
             if (addNow(session)) {
                 // A new session has been created
                 addedSessions++;
+            } else {
+                sessionCount.decrementAndGet();
             }
         }
         return addedSessions;
@@ -290,7 +349,8 @@ public class IoProcessorImp implements IoProcessor {
         try {
             init(session);
             registered = true;
-            // todo: acá deberia agregar el sslEngine y demás cosas.
+            scheduleIdleTimeouts(session, System.currentTimeMillis());
+            initSsl(session);
 
             // raise creation notification
             try {
@@ -306,6 +366,10 @@ public class IoProcessorImp implements IoProcessor {
             sessions.put(connectionId,session);
             // release the future setting the id
             connectFuture.setConnectionId(connectionId);
+            if (session.getSslHandler() == null) {
+                // the secure sessions are opened once the handshake finishes
+                fireSessionOpened(session);
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -334,6 +398,52 @@ public class IoProcessorImp implements IoProcessor {
         session.setSelectionKey(selectorWrapper.registerRead((SocketChannel) ch,session));
     }
 
+    /**
+     * Add the TLS filter if the session is configured as secure and start the handshake
+     * @param session
+     * @throws Exception
+     */
+    private void initSsl(IoSessionImp session) throws Exception {
+        SSLContext sslContext = session.getSessionConf().getSslContext();
+        if (sslContext == null) {
+            return;
+        }
+        SocketChannel ch = (SocketChannel) session.getChannel();
+        InetSocketAddress remoteAddress = (InetSocketAddress) ch.socket().getRemoteSocketAddress();
+        SSLEngine sslEngine = sslContext.createSSLEngine(remoteAddress.getHostString(), remoteAddress.getPort());
+        sslEngine.setUseClientMode(true);
+        SslHandler sslHandler = new SslHandler(sslEngine, ch, bufferPool);
+        session.setSslHandler(sslHandler);
+        sslHandler.beginHandshake();
+        // the client hello is sent on the flush
+        scheduleFlush(session);
+    }
+
+    /**
+     * Notify the handler that the session can carry messages
+     * @param session
+     */
+    void fireSessionOpened(IoSessionImp session) {
+        try {
+            session.getIoHandler().sessionOpened(session);
+        } catch (Exception e) {
+            log.error("sessionOpened fail",e,session);
+            try {
+                session.getIoHandler().exceptionCaught(session,e);
+            } catch (Exception e1) {
+                log.error("exceptionCaught fail",e1,session);
+            }
+        }
+    }
+
+    /**
+     * Continue the TLS handshake with the records already received
+     * @param session
+     */
+    void processSsl(IoSessionImp session) throws Exception {
+        ioProcessorReader.processSsl(session);
+    }
+
     /**
      * Destroy session
      * @param session
@@ -345,9 +455,117 @@ public class IoProcessorImp implements IoProcessor {
         if (key != null) {
             key.cancel();
         }
+        SslHandler sslHandler = session.getSslHandler();
+        if (sslHandler != null) {
+            // close_notify
+            sslHandler.close();
+        }
+        cancelIdleTimeouts(session);
+        ioProcessorReader.releaseBuffer(session);
+        ioProcessorWriter.release(session);
         ch.close();
     }
 
+    /**
+     * Select timeout, the processor wakes up for the next idle deadline
+     * @param currentTime
+     */
+    private long selectTimeout(long currentTime) {
+        long delay = idleWheel.nextTickDelay(currentTime);
+        if (delay < 0) {
+            return SELECT_TIMEOUT;
+        }
+        // 0 would block forever
+        return Math.max(1, Math.min(SELECT_TIMEOUT, delay));
+    }
+
+    /**
+     * Add the idle deadlines of a new session, one per configured idle status and the read buffer release.
+     * @param session
+     * @param currentTime
+     */
+    private void scheduleIdleTimeouts(IoSessionImp session, long currentTime) {
+        session.setLastReadTime(currentTime);
+        session.setLastWriteTime(currentTime);
+        IdleStatus[] statuses = IdleStatus.values();
+        IdleTimingWheel.Timeout[] timeouts = new IdleTimingWheel.Timeout[statuses.length + 1];
+        for (IdleStatus status : statuses) {
+            long idleTime = session.getSessionConf().getIdleTimeInMillis(status);
+            if (idleTime > 0) {
+                timeouts[status.ordinal()] = new IdleTimingWheel.Timeout(session, status);
+                idleWheel.schedule(timeouts[status.ordinal()], currentTime + idleTime);
+            }
+        }
+        timeouts[statuses.length] = new IdleTimingWheel.Timeout(session, null);
+        idleWheel.schedule(timeouts[statuses.length], currentTime + READ_BUFFER_IDLE_TIME);
+        session.setIdleTimeouts(timeouts);
+    }
+
+    private void cancelIdleTimeouts(IoSessionImp session) {
+        IdleTimingWheel.Timeout[] timeouts = session.getIdleTimeouts();
+        if (timeouts == null) {
+            return;
+        }
+        for (IdleTimingWheel.Timeout timeout : timeouts) {
+            if (timeout != null) {
+                idleWheel.cancel(timeout);
+            }
+        }
+        session.setIdleTimeouts(null);
+    }
+
+    /**
+     * Fire sessionIdle on the sessions without activity since the idle time and release the idle read buffers.
+     * An expired timeout of a session with activity is moved to the deadline of his last read or write.
+     * @param currentTime
+     */
+    private void notifyIdleSessions(long currentTime) {
+        idleWheel.expire(currentTime, expiredTimeouts);
+        if (expiredTimeouts.isEmpty()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < expiredTimeouts.size(); i++) {
+                IdleTimingWheel.Timeout timeout = expiredTimeouts.get(i);
+                IoSessionImp session = timeout.getSession();
+                IdleStatus status = timeout.getStatus();
+                if (!session.isConnected()) {
+                    // closed without being destroyed here, the timeout is dropped
+                    continue;
+                }
+                if (status == null) {
+                    ioProcessorReader.releaseIdleBuffer(session, currentTime, READ_BUFFER_IDLE_TIME);
+                    idleWheel.schedule(timeout, Math.max(session.getLastReadTime(), currentTime) + READ_BUFFER_IDLE_TIME);
+                    continue;
+                }
+                long idleTime = session.getSessionConf().getIdleTimeInMillis(status);
+                long lastIoTime = session.getLastIoTime(status);
+                if (idleTime <= 0) {
+                    // disabled after the session was registered
+                    continue;
+                }
+                if (currentTime - lastIoTime < idleTime) {
+                    idleWheel.schedule(timeout, lastIoTime + idleTime);
+                    continue;
+                }
+                // schedule first, the handler could close the session
+                idleWheel.schedule(timeout, currentTime + idleTime);
+                session.increaseIdleCount(status, currentTime);
+                try {
+                    session.getIoHandler().sessionIdle(session, status);
+                } catch (Exception e) {
+                    try {
+                        session.getIoHandler().exceptionCaught(session, e);
+                    } catch (Exception e1) {
+                        log.info("exception exceptionCaught", e1, session);
+                    }
+                }
+            }
+        } finally {
+            expiredTimeouts.clear();
+        }
+    }
+
     /**
      * Loop every single open session
      * @throws Exception
@@ -429,6 +647,7 @@ public class IoProcessorImp implements IoProcessor {
                 case OPENED:
                     try {
                         boolean flushedAll = ioProcessorWriter.flushNow(session, currentTime);
+                        ioProcessorWriter.fireWritabilityChanged(session);
 
                         if (flushedAll && !session.getWriteRequestQueue().isEmpty() && !session.isScheduledForFlush()) {
                             scheduleFlush(session);
@@ -477,6 +696,9 @@ public class IoProcessorImp implements IoProcessor {
                 log.info("exception exceptionCaught",e1,session);
             }
         } finally {
+            if (sessions.remove(new ConnectionId(session.getId())) != null) {
+                sessionCount.decrementAndGet();
+            }
             try {
                 //clearWriteRequestQueue(session);
                 session.getIoHandler().sessionClosed(session);
@@ -520,7 +742,9 @@ public class IoProcessorImp implements IoProcessor {
                 case OPENING:
                     // Remove session from the newSessions queue and
                     // remove it
-                    newSessions.remove(session);
+                    if (newSessions.remove(session)) {
+                        sessionCount.decrementAndGet();
+                    }
 
                     if (removeNow(session)) {
                         removedSessions++;
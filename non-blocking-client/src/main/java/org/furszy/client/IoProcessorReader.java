@@ -1,7 +1,9 @@
 package org.furszy.client;
 
 import org.furszy.client.basic.IoSessionImp;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
 import org.furszy.client.interfaces.IoSessionConf;
+import org.furszy.client.interfaces.ProtocolDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,9 +11,16 @@ import java.io.IOException;
 import java.net.PortUnreachableException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by mati on 14/05/17.
+ *
+ * Every session accumulates the bytes received on a direct buffer taken from the processor pool, the decoder consumes
+ * the complete messages and the partial one stays there for the next read.
+ * The buffer grows up to the max read buffer size to fit the largest message seen and it's kept while the session
+ * is receiving, it goes back to the pool once it's empty and the session is idle.
  */
 
 public class IoProcessorReader {
@@ -19,6 +28,8 @@ public class IoProcessorReader {
     private Logger log = LoggerFactory.getLogger(IoProcessorReader.class);
 
     private IoProcessorImp processor;
+    /** Messages decoded on the current read, reused for every read of this processor */
+    private final List<Object> messages = new ArrayList<>();
 
     public IoProcessorReader(IoProcessorImp processor) {
         this.processor = processor;
@@ -26,37 +37,25 @@ public class IoProcessorReader {
 
     /**
      * Read operation
-     * The read is complete, there is no fragmentation.
+     * The bytes are appended to the session buffer, a message could be split in several reads.
      * @param session
      */
     public void read(IoSessionImp session) {
-        IoSessionConf config = session.getSessionConf();
-        int bufferSize = config.getReadBufferSize();
-        ByteBuffer buf = ByteBuffer.allocate(bufferSize);
-//        IoBuffer buf = IoBuffer.allocate(bufferSize);
-
         try {
-            int readBytes = 0;
             int ret;
-
-            try {
-                ret = read(session, buf);
-
+            SslHandler sslHandler = session.getSslHandler();
+            if (sslHandler != null) {
+                // TLS records first, the decoder receives only application data
+                ret = readSsl(session, sslHandler);
+            } else {
+                ret = read(session, prepareReadBuffer(session, 1));
                 if (ret > 0) {
-                    readBytes = ret;
+                    decode(session);
                 }
-            } finally {
-                buf.flip();
             }
 
-            if (readBytes > 0) {
-                // todo: here i can add the ssl engine before the decoder.
-                // first i decode the message
-                Object o = session.getProtocolDecoder().decode(buf);
-                // notify user message arrived
-                session.getIoHandler().messageReceived(session,o);
-
-                buf = null;
+            if (ret > 0) {
+                session.setLastReadTime(System.currentTimeMillis());
             }
 
             if (ret < 0) {
@@ -70,11 +69,146 @@ public class IoProcessorReader {
                 }
             }
 
-            try {
-                session.getIoHandler().exceptionCaught(session,e);
-            } catch (Exception e1) {
-                log.error("Exception on read",e1);
+            fireExceptionCaught(session, e);
+        }
+    }
+
+    /**
+     * Continue the TLS handshake with the records already buffered
+     * @param session
+     */
+    void processSsl(IoSessionImp session) throws Exception {
+        SslHandler sslHandler = session.getSslHandler();
+        deliver(session, sslHandler, sslHandler.process());
+    }
+
+    /**
+     * Return the session buffer to the pool if there is no partial message on it and the session didn't receive
+     * anything for the idle time.
+     */
+    void releaseIdleBuffer(IoSessionImp session, long currentTime, long idleTime) {
+        ByteBuffer buf = session.getReadBuffer();
+        if (buf != null && buf.position() == 0 && currentTime - session.getLastReadTime() >= idleTime) {
+            releaseBuffer(session);
+        }
+    }
+
+    /**
+     * Return the session buffer to the pool, the pending bytes are discarded
+     */
+    void releaseBuffer(IoSessionImp session) {
+        ByteBuffer buf = session.getReadBuffer();
+        if (buf != null) {
+            session.setReadBuffer(null);
+            processor.getBufferPool().release(buf);
+        }
+    }
+
+    private int readSsl(IoSessionImp session, SslHandler sslHandler) throws Exception {
+        ByteBufferPool pool = processor.getBufferPool();
+        ByteBuffer encrypted = pool.acquire(pool.getBufferSize());
+        try {
+            int ret = read(session, encrypted);
+            if (ret > 0) {
+                encrypted.flip();
+                deliver(session, sslHandler, sslHandler.unwrap(encrypted));
+            }
+            return ret;
+        } finally {
+            pool.release(encrypted);
+        }
+    }
+
+    private void deliver(IoSessionImp session, SslHandler sslHandler, ByteBuffer plain) throws Exception {
+        try {
+            if (plain != null) {
+                prepareReadBuffer(session, plain.remaining()).put(plain);
+                decode(session);
+            }
+        } finally {
+            sslHandler.release(plain);
+        }
+        if (sslHandler.hasPendingOutput()) {
+            // the socket didn't accept the handshake records
+            processor.setInterestedInWrite(session, true);
+        } else if (sslHandler.isHandshakeComplete() && session.hasPendingWrites()) {
+            // messages queued during the handshake
+            processor.scheduleFlush(session);
+        }
+        if (sslHandler.markOpened()) {
+            processor.fireSessionOpened(session);
+        }
+        if (sslHandler.isInboundDone()) {
+            // close_notify received
+            processor.scheduleRemove(session);
+        }
+    }
+
+    /**
+     * Session buffer with room for at least the required bytes, it's taken from the pool or enlarged if needed.
+     */
+    private ByteBuffer prepareReadBuffer(IoSessionImp session, int required) throws InvalidProtocolViolationException {
+        ByteBuffer buf = session.getReadBuffer();
+        ByteBufferPool pool = processor.getBufferPool();
+        IoSessionConf config = session.getSessionConf();
+        if (buf == null) {
+            buf = pool.acquire(Math.max(required, config.getReadBufferSize()));
+            session.setReadBuffer(buf);
+        } else if (buf.remaining() < required) {
+            int maxSize = config.getMaxReadBufferSize();
+            int minCapacity = buf.position() + required;
+            if (minCapacity > maxSize) {
+                // the decoder can't consume the message, the stream can't continue
+                processor.scheduleRemove(session);
+                throw new InvalidProtocolViolationException("Message bigger than the max read buffer size: " + maxSize);
+            }
+            buf = pool.resize(buf, Math.min(maxSize, Math.max(minCapacity, buf.capacity() << 1)));
+            session.setReadBuffer(buf);
+        }
+        return buf;
+    }
+
+    /**
+     * The decoder configured on the session, his messages are delivered to the handler as they are
+     */
+    @SuppressWarnings("unchecked")
+    private static ProtocolDecoder<Object> decoder(IoSessionImp<?> session) {
+        return session.getProtocolDecoder();
+    }
+
+    private void decode(IoSessionImp session) {
+        ByteBuffer buf = session.getReadBuffer();
+        InvalidProtocolViolationException decodeException = null;
+        buf.flip();
+        try {
+            decoder(session).decode(buf, messages);
+        } catch (InvalidProtocolViolationException e) {
+            decodeException = e;
+        } finally {
+            buf.compact();
+        }
+        try {
+            // notify user message arrived, the messages decoded before an error are delivered too
+            for (int i = 0; i < messages.size(); i++) {
+                try {
+                    session.getIoHandler().messageReceived(session, messages.get(i));
+                } catch (Exception e) {
+                    fireExceptionCaught(session, e);
+                }
             }
+        } finally {
+            messages.clear();
+        }
+        if (decodeException != null) {
+            fireExceptionCaught(session, decodeException);
+        }
+    }
+
+    private void fireExceptionCaught(IoSessionImp session, Exception e) {
+        try {
+            session.getIoHandler().exceptionCaught(session,e);
+        } catch (Exception e1) {
+            log.error("Exception on read",e1);
         }
     }
 
@@ -1,6 +1,8 @@
 package org.furszy.client;
 
 import org.furszy.client.basic.IoSessionImp;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ProtocolEncoder;
 import org.furszy.client.interfaces.write.WriteRequest;
 import org.furszy.client.interfaces.write.WriteRequestQueue;
 import org.slf4j.Logger;
@@ -12,6 +14,10 @@ import java.nio.channels.SocketChannel;
 
 /**
  * Created by mati on 14/05/17.
+ *
+ * The queued requests are drained in batches, the small messages are coalesced on pooled buffers and every batch
+ * goes out with a single gathering write. The messages bigger than a pooled buffer are written from the buffer of
+ * the encoder.
  */
 
 public class IoProcessorWriter {
@@ -30,149 +36,169 @@ public class IoProcessorWriter {
             return false;
         }
 
-        final WriteRequestQueue writeRequestQueue = session.getWriteRequestQueue();
-
         // Set limitation for the number of written bytes for read-write
-        // fairness. I used maxReadBufferSize * 3 / 2, which yields best
+        // fairness. I used writeBufferSize * 3 / 2, which yields best
         // performance in my experience while not breaking fairness much.
-        final int maxWrittenBytes = session.getSessionConf().getMaxReadBufferSize() + (session.getSessionConf().getMaxReadBufferSize() >>> 1);
+        // (the max read buffer size follows the largest frame of the protocol, it's not a good limit here)
+        final int maxWrittenBytes = session.getSessionConf().getWriteBufferSize() + (session.getSessionConf().getWriteBufferSize() >>> 1);
         int writtenBytes = 0;
-        WriteRequest req = null;
+        WriteBatch batch = session.getWriteBatch();
 
         try {
             // Clear OP_WRITE
             processor.setInterestedInWrite(session, false);
 
+            SslHandler sslHandler = session.getSslHandler();
+            if (sslHandler != null) {
+                // pending handshake records go first
+                if (!sslHandler.flush()) {
+                    processor.setInterestedInWrite(session, true);
+                    return false;
+                }
+                if (sslHandler.markOpened()) {
+                    processor.fireSessionOpened(session);
+                }
+                if (!sslHandler.isHandshakeComplete()) {
+                    processor.processSsl(session);
+                    // the messages are sent once the handshake finishes
+                    return false;
+                }
+            }
+
+            if (batch == null) {
+                batch = new WriteBatch(processor.getBufferPool(), session.getSessionConf().getMaxWriteBatchSize());
+                session.setWriteBatch(batch);
+            }
+
             do {
                 // Check for pending writes.
-                req = session.getCurrentWriteRequest();
-
-                if (req == null) {
-                    req = writeRequestQueue.poll();
+                if (batch.isEmpty()) {
+                    fill(session, batch, sslHandler, maxWrittenBytes - writtenBytes);
 
-                    if (req == null) {
+                    if (batch.isEmpty()) {
                         break;
                     }
-
-                    session.setCurrentWriteRequest(req);
-                }
-
-                int localWrittenBytes = 0;
-                Object message = req.getMessageFiltered();
-                // if the filtered message is not encoded yet
-                if (message==null){
-                    ByteBuffer byteBuffer = session.getProtocolEncoder().encode(req.getMessage());
-                    byteBuffer.flip();
-                    message = byteBuffer;
-                    req.setFilteredMessage((ByteBuffer) message);
                 }
 
-                if (message instanceof ByteBuffer) {
-                    localWrittenBytes = writeBuffer(session, req, maxWrittenBytes - writtenBytes,
-                            currentTime);
+                writtenBytes += write(session, batch, currentTime);
 
-                    if ((localWrittenBytes > 0) && ((ByteBuffer) message).hasRemaining()) {
-                        // the buffer isn't empty, we re-interest it in writing
-                        writtenBytes += localWrittenBytes;
-                        processor.setInterestedInWrite(session, true);
-                        return false;
-                    }
-                } else {
-                    throw new IllegalStateException("Don't know how to handle message of type '"
-                            + message.getClass().getName() + "'.  Are you missing a protocol encoder?");
-                }
-
-                if (localWrittenBytes == 0) {
-                    // Kernel buffer is full.
+                if (batch.hasRemaining()) {
+                    // the kernel buffer is full, we re-interest it in writing
                     processor.setInterestedInWrite(session, true);
                     return false;
                 }
 
-                writtenBytes += localWrittenBytes;
+                // the batch is complete, continue with the next requests
+                batch.clear();
 
                 if (writtenBytes >= maxWrittenBytes) {
                     // Wrote too much
                     processor.scheduleFlush(session);
                     return false;
                 }
-
-                if (message instanceof ByteBuffer) {
-                    ((ByteBuffer) message).clear();
-                }
             } while (writtenBytes < maxWrittenBytes);
         } catch (Exception e) {
-            e.printStackTrace();
-            if (req != null) {
-                req.getFuture().setException(e);
+            if (e instanceof IOException) {
+                // We have had an issue while trying to send data to the
+                // peer : let's close the session.
+                session.close();
+                processor.scheduleRemove(session);
             }
-            try {
-                session.getIoHandler().exceptionCaught(session,e);
-            } catch (Exception e1) {
-                log.info("Exception on exceptionCaught",e1);
+            if (batch != null) {
+                for (WriteRequest req = batch.nextPending(); req != null; req = batch.nextPending()) {
+                    session.writeRequestDone(req);
+                    req.getFuture().setException(e);
+                }
+                batch.clear();
             }
+            fireExceptionCaught(session, e);
 
             return false;
         }
         return true;
     }
 
-    private int writeBuffer(IoSessionImp session, WriteRequest req, int maxLength, long currentTime)
-            throws Exception {
-        ByteBuffer buf = (ByteBuffer) req.getMessageFiltered();
-        int localWrittenBytes = 0;
-
-        if (buf.hasRemaining()) {
-            int length;
-
-
-            length = buf.remaining();
-
-
+    /**
+     * Notify the handler if the writes moved the session across the watermarks
+     */
+    void fireWritabilityChanged(IoSessionImp session) {
+        if (session.updateWritability()) {
             try {
-                localWrittenBytes = write(session, buf, length);
-            } catch (IOException ioe) {
-                // We have had an issue while trying to send data to the
-                // peer : let's close the session.
-                buf.clear();
-                session.close();
-                processor.destroy(session);
-
-                return 0;
+                session.getIoHandler().writabilityChanged(session, session.isWritable());
+            } catch (Exception e) {
+                fireExceptionCaught(session, e);
             }
-
         }
+    }
 
-//        session.increaseWrittenBytes(localWrittenBytes, currentTime);
+    /**
+     * Return the buffers of the pending batch to the pool, the session is being destroyed
+     */
+    void release(IoSessionImp session) {
+        WriteBatch batch = session.getWriteBatch();
+        if (batch != null) {
+            batch.clear();
+        }
+    }
 
-        if (!buf.hasRemaining() || ((localWrittenBytes != 0))) {
-            // Buffer has been sent, clear the current request.
-            int pos = buf.position();
-            buf.clear();
+    /**
+     * Drain and encode the queued requests, up to the max requests per batch and the bytes left for this flush.
+     */
+    private void fill(IoSessionImp session, WriteBatch batch, SslHandler sslHandler, int maxBytes) throws IOException {
+        WriteRequestQueue writeRequestQueue = session.getWriteRequestQueue();
+        while (!batch.isFull() && batch.length() < maxBytes) {
+            WriteRequest req = writeRequestQueue.poll();
 
-            fireMessageSent(session, req);
+            if (req == null) {
+                break;
+            }
 
-            // And set it back to its position
-            buf.position(pos);
+            ByteBuffer byteBuffer;
+            try {
+                if (batch.add(req, encoder(session), sslHandler)) {
+                    // encoded on the pooled buffer
+                    continue;
+                }
+                byteBuffer = encoder(session).encode(req.getMessage());
+            } catch (InvalidProtocolViolationException e) {
+                // only this message is discarded
+                session.writeRequestDone(req);
+                req.getFuture().setException(e);
+                fireExceptionCaught(session, e);
+                continue;
+            }
+            byteBuffer.flip();
+            batch.add(req, byteBuffer, sslHandler);
         }
+        batch.seal(sslHandler);
+    }
 
-        return localWrittenBytes;
+    /**
+     * The encoder configured on the session takes every message sent to it
+     */
+    @SuppressWarnings("unchecked")
+    private static ProtocolEncoder<Object> encoder(IoSessionImp<?> session) {
+        return session.getProtocolEncoder();
     }
 
-    private int write(IoSessionImp session, ByteBuffer buf, int length) throws Exception {
-        if (buf.remaining() <= length) {
-            return ((SocketChannel)session.getChannel()).write(buf);
+    private int write(IoSessionImp session, WriteBatch batch, long currentTime) throws IOException {
+        int localWrittenBytes = (int) batch.write((SocketChannel) session.getChannel());
+
+//        session.increaseWrittenBytes(localWrittenBytes, currentTime);
+        if (localWrittenBytes > 0) {
+            session.setLastWriteTime(currentTime);
         }
 
-        int oldLimit = buf.limit();
-        buf.limit(buf.position() + length);
-        try {
-            return ((SocketChannel)session.getChannel()).write(buf);
-        } finally {
-            buf.limit(oldLimit);
+        for (WriteRequest req = batch.nextCompleted(); req != null; req = batch.nextCompleted()) {
+            // Message has been sent
+            fireMessageSent(session, req);
         }
+
+        return localWrittenBytes;
     }
 
     private void fireMessageSent(IoSessionImp session, WriteRequest req) {
+        session.writeRequestDone(req);
 
         // first notity future:
         req.getFuture().notifySend();
@@ -180,11 +206,15 @@ public class IoProcessorWriter {
         try {
             session.getIoHandler().messageSent(session,req);
         } catch (Exception e) {
-            try {
-                session.getIoHandler().exceptionCaught(session,e);
-            } catch (Exception e1) {
-                log.info("Exception caught",e1);
-            }
+            fireExceptionCaught(session, e);
+        }
+    }
+
+    private void fireExceptionCaught(IoSessionImp session, Exception e) {
+        try {
+            session.getIoHandler().exceptionCaught(session,e);
+        } catch (Exception e1) {
+            log.info("Exception caught",e1);
         }
     }
 
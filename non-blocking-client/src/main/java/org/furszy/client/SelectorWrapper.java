@@ -2,8 +2,11 @@ package org.furszy.client;
 
 
 import org.furszy.client.basic.IoSessionImp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectableChannel;
@@ -13,17 +16,37 @@ import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.SelectorProvider;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by mati on 12/05/17.
+ *
+ * The wrapper detects the epoll spin bug: a selector that keeps returning from select() without selected keys and
+ * without a wakeup, before the timeout, consuming a full core. After a number of consecutive premature selects the
+ * selector is replaced by a new one and every live key is registered again with his interest ops and attachment.
+ * A single premature select is expected, a wakeup could arrive between the select and the reset of the wakeup flag.
  */
 
 public class SelectorWrapper {
 
+    /** Consecutive premature selects before the selector is rebuilt */
+    public static final int DEFAULT_SPIN_THRESHOLD = 512;
+    /** A select without keys that returns before this time, or before the half of his timeout, is premature */
+    public static final long DEFAULT_MIN_SELECT_TIME = 100L;
+
+    private Logger log = LoggerFactory.getLogger(SelectorWrapper.class);
+
     private AtomicBoolean wakeupCalled = new AtomicBoolean(false);
     private SelectorProvider selectorProvider;
-    private Selector selector;
+    /** Replaced by the loop thread on a rebuild, the wakeups come from any thread */
+    private volatile Selector selector;
+    private volatile int spinThreshold = DEFAULT_SPIN_THRESHOLD;
+    private volatile long minSelectTime = DEFAULT_MIN_SELECT_TIME;
+    /** Consecutive premature selects, used only from the loop thread */
+    private int prematureSelects;
+    private final AtomicLong rebuildCount = new AtomicLong();
 
     public SelectorWrapper(SelectorProvider selectorProvider) throws IOException {
         this.selectorProvider = selectorProvider;
@@ -40,9 +63,57 @@ public class SelectorWrapper {
      * @throws Exception any exception thrown by the underlying systems calls
      */
     int select(long timeout) throws Exception{
+        long t0 = System.nanoTime();
+        int selected = doSelect(selector, timeout);
+        long delta = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        // a short timeout for an idle deadline is not a spinning selector
+        if (!wakeupCalled.getAndSet(false) && selected == 0 && delta < Math.min(minSelectTime, timeout / 2)) {
+            if (++prematureSelects >= spinThreshold) {
+                prematureSelects = 0;
+                // Last chance : the select() may have been interrupted because we have had a closed channel.
+                if (isBrokenConnection()) {
+                    log.warn("Broken connection");
+                } else {
+                    log.warn("Selector spinning, " + spinThreshold + " selects returned 0 before the timeout. Create a new selector");
+                    // Ok, we are hit by the nasty epoll spinning. A closing file descriptor stops the select
+                    // without being selected and the next select exits immediately for the same reason forever.
+                    // We have to destroy the selector and register all the channels on a new one.
+                    registerNewSelector();
+                }
+            }
+        } else {
+            prematureSelects = 0;
+        }
+        return selected;
+    }
+
+    /**
+     * Blocking select, overridden by the tests to inject a spinning selector
+     */
+    int doSelect(Selector selector, long timeout) throws IOException {
         return selector.select(timeout);
     }
 
+    /**
+     * Spin detection thresholds
+     *
+     * @param spinThreshold consecutive premature selects before the selector is rebuilt
+     * @param minSelectTime a select without keys that returns before this time in millis, or before the half of his timeout, is premature
+     */
+    public void setSpinDetection(int spinThreshold, long minSelectTime) {
+        if (spinThreshold <= 0) throw new IllegalArgumentException("spin threshold <= 0");
+        if (minSelectTime < 0) throw new IllegalArgumentException("min select time < 0");
+        this.spinThreshold = spinThreshold;
+        this.minSelectTime = minSelectTime;
+    }
+
+    /**
+     * @return selectors replaced because of the spin bug
+     */
+    public long getRebuildCount() {
+        return rebuildCount.get();
+    }
+
 
     Iterator<IoLooper.ConnectionRequest> selectedHandles(){
         return new IoIterator(selector.selectedKeys());
@@ -97,28 +168,31 @@ public class SelectorWrapper {
     }
 
 
+    /**
+     * Cancel the keys of the sessions with a channel not connected anymore, the pending connections are not broken.
+     *
+     * @return true if a key was cancelled
+     */
     public boolean isBrokenConnection() throws IOException {
         // A flag set to true if we find a broken session
         boolean brokenSession = false;
 
-        synchronized (selector) {
-            // Get the selector keys
-            Set<SelectionKey> keys = selector.keys();
-
-            // Loop on all the keys to see if one of them
-            // has a closed channel
-            for (SelectionKey key : keys) {
-                SelectableChannel channel = key.channel();
+        // Loop on all the keys to see if one of them
+        // has a closed channel
+        for (SelectionKey key : selector.keys()) {
+            if (!(key.attachment() instanceof IoSessionImp)) {
+                continue;
+            }
+            SelectableChannel channel = key.channel();
 
-                if ((((channel instanceof DatagramChannel) && !((DatagramChannel) channel).isConnected()))
-                        || ((channel instanceof SocketChannel) && !((SocketChannel) channel).isConnected())) {
-                    // The channel is not connected anymore. Cancel
-                    // the associated key then.
-                    key.cancel();
+            if ((((channel instanceof DatagramChannel) && !((DatagramChannel) channel).isConnected()))
+                    || ((channel instanceof SocketChannel) && !((SocketChannel) channel).isConnected())) {
+                // The channel is not connected anymore. Cancel
+                // the associated key then.
+                key.cancel();
 
-                    // Set the flag to true to avoid a selector switch
-                    brokenSession = true;
-                }
+                // Set the flag to true to avoid a selector switch
+                brokenSession = true;
             }
         }
 
@@ -129,33 +203,48 @@ public class SelectorWrapper {
         return wakeupCalled.getAndSet(value);
     }
 
+    /**
+     * Replace the selector, every live key is registered on the new one with his interest ops and attachment.
+     * It must be called from the loop thread, the registrations are done there.
+     */
     public void registerNewSelector() throws IOException {
-        synchronized (selector) {
-            Set<SelectionKey> keys = selector.keys();
+        Selector oldSelector = selector;
+        Selector newSelector;
 
-            // Open a new selector
-            Selector newSelector = null;
+        if (selectorProvider == null) {
+            newSelector = Selector.open();
+        } else {
+            newSelector = selectorProvider.openSelector();
+        }
 
-            if (selectorProvider == null) {
-                newSelector = Selector.open();
-            } else {
-                newSelector = selectorProvider.openSelector();
+        int migrated = 0;
+        // Loop on all the registered keys, and register them on the new selector
+        for (SelectionKey key : oldSelector.keys()) {
+            if (!key.isValid()) {
+                continue;
             }
-
-            // Loop on all the registered keys, and registerConnect them on the new selector
-            for (SelectionKey key : keys) {
-                SelectableChannel ch = key.channel();
-
-                // Don't forget to attache the session, and back !
-                IoSessionImp session = (IoSessionImp) key.attachment();
-                SelectionKey newKey = ch.register(newSelector, key.interestOps(), session);
-                session.setSelectionKey(newKey);
+            try {
+                // Don't forget to attach the session or the connection request, and back !
+                Object attachment = key.attachment();
+                SelectionKey newKey = key.channel().register(newSelector, key.interestOps(), attachment);
+                if (attachment instanceof IoSessionImp) {
+                    ((IoSessionImp) attachment).setSelectionKey(newKey);
+                }
+                migrated++;
+            } catch (CancelledKeyException | ClosedChannelException e) {
+                // closed meanwhile, the session is removed by the loop
             }
+        }
 
-            // Now we can close the old selector and switch it
-            selector.close();
-            selector = newSelector;
+        // Now we can close the old selector and switch it
+        selector = newSelector;
+        oldSelector.close();
+        rebuildCount.incrementAndGet();
+        // a wakeup could have hit the old selector
+        if (wakeupCalled.get()) {
+            newSelector.wakeup();
         }
+        log.info("New selector with " + migrated + " keys");
     }
 
 
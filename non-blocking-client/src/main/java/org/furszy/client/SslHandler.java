@@ -0,0 +1,284 @@
+package org.furszy.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+
+import static javax.net.ssl.SSLEngineResult.HandshakeStatus.FINISHED;
+import static javax.net.ssl.SSLEngineResult.HandshakeStatus.NEED_TASK;
+import static javax.net.ssl.SSLEngineResult.HandshakeStatus.NEED_WRAP;
+import static javax.net.ssl.SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING;
+
+/**
+ * TLS filter between the session channel and the protocol decoder/encoder.
+ *
+ * The handshake (and any renegotiation or post-handshake message) is driven by the engine status:
+ * every time records arrive they are unwrapped and the engine answers are wrapped and written here,
+ * the application data is returned to the reader. Outgoing messages are wrapped only once the handshake is complete.
+ *
+ * Encrypted bytes that can't be processed yet (a partial record or output not accepted by the socket)
+ * are kept on pooled direct buffers, they are returned to the pool as soon as they are empty.
+ *
+ * Like the rest of the session I/O this class is used only from the processor thread.
+ */
+public class SslHandler {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SSLEngine engine;
+    private final SocketChannel channel;
+    private final ByteBufferPool pool;
+    /** Encrypted bytes received and not unwrapped yet (write mode), null if there is nothing pending */
+    private ByteBuffer netIn;
+    /** Encrypted bytes not written yet (read mode), null if there is nothing pending */
+    private ByteBuffer netOut;
+    /** close_notify received */
+    private boolean inboundDone;
+    /** The first handshake finished and the session was reported as opened */
+    private boolean opened;
+
+    public SslHandler(SSLEngine engine, SocketChannel channel, ByteBufferPool pool) {
+        this.engine = engine;
+        this.channel = channel;
+        this.pool = pool;
+    }
+
+    /**
+     * Start the handshake, the first flight is written on the next {@link #flush()}
+     */
+    public void beginHandshake() throws SSLException {
+        engine.beginHandshake();
+    }
+
+    public boolean isHandshakeComplete() {
+        SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+        return status == NOT_HANDSHAKING || status == FINISHED;
+    }
+
+    /**
+     * @return true only the first time that it's called with the initial handshake complete
+     */
+    public boolean markOpened() {
+        if (opened || !isHandshakeComplete()) return false;
+        opened = true;
+        return true;
+    }
+
+    /** The peer closed the TLS session */
+    public boolean isInboundDone() {
+        return inboundDone;
+    }
+
+    /** There are encrypted bytes waiting for the socket */
+    public boolean hasPendingOutput() {
+        return netOut != null;
+    }
+
+    /**
+     * Decrypt the bytes read from the channel.
+     *
+     * @param encrypted buffer in read mode, it's consumed completely.
+     * @return the application data in read mode or null if there is none, the buffer must be returned with {@link #release(ByteBuffer)}
+     */
+    public ByteBuffer unwrap(ByteBuffer encrypted) throws IOException {
+        if (encrypted.hasRemaining()) {
+            int packetSize = engine.getSession().getPacketBufferSize();
+            if (netIn == null) {
+                netIn = pool.acquire(Math.max(packetSize, encrypted.remaining()));
+            } else if (netIn.remaining() < encrypted.remaining()) {
+                netIn = pool.enlarge(netIn, netIn.position() + encrypted.remaining());
+            }
+            netIn.put(encrypted);
+        }
+        return process();
+    }
+
+    /**
+     * Continue with the handshake and unwrap the records already received.
+     *
+     * @return the application data in read mode or null if there is none
+     */
+    public ByteBuffer process() throws IOException {
+        ByteBuffer appIn = null;
+        try {
+            loop:
+            for (;;) {
+                SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+                if (status == NEED_TASK) {
+                    runDelegatedTasks();
+                    continue;
+                }
+                if (status == NEED_WRAP) {
+                    if (wrapHandshake()) continue;
+                    break;
+                }
+                if (netIn == null || netIn.position() == 0 || inboundDone) {
+                    break;
+                }
+                int appBufferSize = engine.getSession().getApplicationBufferSize();
+                if (appIn == null) {
+                    appIn = pool.acquire(appBufferSize);
+                }
+                SSLEngineResult result;
+                netIn.flip();
+                try {
+                    result = engine.unwrap(netIn, appIn);
+                } finally {
+                    netIn.compact();
+                }
+                switch (result.getStatus()) {
+                    case BUFFER_OVERFLOW:
+                        appIn = pool.enlarge(appIn, appIn.position() + appBufferSize);
+                        break;
+                    case BUFFER_UNDERFLOW:
+                        // partial record, wait for more bytes
+                        int packetSize = engine.getSession().getPacketBufferSize();
+                        if (netIn.capacity() < packetSize) {
+                            netIn = pool.enlarge(netIn, packetSize);
+                        }
+                        break loop;
+                    case CLOSED:
+                        inboundDone = true;
+                        break;
+                    case OK:
+                        if (result.bytesConsumed() == 0 && result.bytesProduced() == 0 && result.getHandshakeStatus() != NEED_TASK && result.getHandshakeStatus() != NEED_WRAP) {
+                            break loop;
+                        }
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            release(appIn);
+            throw e;
+        }
+        if (netIn != null && netIn.position() == 0) {
+            pool.release(netIn);
+            netIn = null;
+        }
+        if (appIn != null && appIn.position() == 0) {
+            release(appIn);
+            return null;
+        }
+        if (appIn != null) {
+            appIn.flip();
+        }
+        return appIn;
+    }
+
+    /**
+     * Encrypt an outgoing message.
+     *
+     * @param plain message in read mode
+     * @return the records in read mode, to be written and returned with {@link #release(ByteBuffer)}
+     */
+    public ByteBuffer wrap(ByteBuffer plain) throws IOException {
+        if (!isHandshakeComplete()) throw new SSLException("Handshake in progress");
+        int packetSize = engine.getSession().getPacketBufferSize();
+        ByteBuffer out = pool.acquire(packetSize);
+        try {
+            while (plain.hasRemaining()) {
+                SSLEngineResult result = engine.wrap(plain, out);
+                switch (result.getStatus()) {
+                    case BUFFER_OVERFLOW:
+                        out = pool.enlarge(out, out.position() + packetSize);
+                        break;
+                    case CLOSED:
+                        throw new SSLException("TLS session closed");
+                    default:
+                        if (result.bytesConsumed() == 0) {
+                            throw new SSLException("Cant wrap message, handshake status: " + result.getHandshakeStatus());
+                        }
+                }
+            }
+        } catch (IOException e) {
+            release(out);
+            throw e;
+        }
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Write the pending handshake records.
+     *
+     * @return true if everything was written, false if the socket is full
+     */
+    public boolean flush() throws IOException {
+        if (netOut != null) {
+            channel.write(netOut);
+            if (netOut.hasRemaining()) {
+                return false;
+            }
+            pool.release(netOut);
+            netOut = null;
+        }
+        return true;
+    }
+
+    /**
+     * Send the close_notify, best effort, the channel is closed right after this.
+     */
+    public void close() {
+        try {
+            engine.closeOutbound();
+            while (!engine.isOutboundDone() && wrapHandshake()) {
+                // continue until the close_notify is produced
+            }
+        } catch (IOException e) {
+            // the channel is going to be closed anyway
+        } finally {
+            pool.release(netIn);
+            pool.release(netOut);
+            netIn = null;
+            netOut = null;
+        }
+    }
+
+    public void release(ByteBuffer byteBuffer) {
+        pool.release(byteBuffer);
+    }
+
+    /**
+     * Wrap and write a handshake message
+     *
+     * @return true if the message was completely written and the handshake can continue
+     */
+    private boolean wrapHandshake() throws IOException {
+        if (!flush()) {
+            return false;
+        }
+        int packetSize = engine.getSession().getPacketBufferSize();
+        ByteBuffer out = pool.acquire(packetSize);
+        SSLEngineResult result;
+        for (;;) {
+            result = engine.wrap(EMPTY, out);
+            if (result.getStatus() != SSLEngineResult.Status.BUFFER_OVERFLOW) break;
+            out = pool.enlarge(out, out.position() + packetSize);
+        }
+        out.flip();
+        if (out.hasRemaining()) {
+            netOut = out;
+            if (!flush()) {
+                return false;
+            }
+        } else {
+            pool.release(out);
+        }
+        // continue only if there was progress, otherwise wait for the peer
+        return result.getStatus() != SSLEngineResult.Status.CLOSED && (result.bytesProduced() > 0 || engine.getHandshakeStatus() != NEED_WRAP);
+    }
+
+    /**
+     * Certificate validation and key agreement tasks, executed inline to keep the session ordered.
+     */
+    private void runDelegatedTasks() {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.furszy.client;
+
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ProtocolEncoder;
+import org.furszy.client.interfaces.write.WriteRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * Write requests encoded and being written on a session.
+ *
+ * The writer drains several requests from the session queue, the small messages are coalesced on pooled direct buffers
+ * (and wrapped together on TLS sessions) and the batch is written with a single gathering write. The encoders that can
+ * write on a buffer encode the small messages straight on the pooled one, without an intermediate copy.
+ * Every request keeps the offset of his last byte on the batch, so his future is completed as soon as that byte
+ * leaves even if the batch needs several writes.
+ *
+ * Like the rest of the session I/O this class is used only from the processor thread.
+ */
+public class WriteBatch {
+
+    private final ByteBufferPool pool;
+    private final WriteRequest[] requests;
+    /** Offset of the end of every request on the batch, -1 until his buffer is closed */
+    private final long[] ends;
+    private int size;
+    /** First request not completed yet */
+    private int next;
+    /** Buffers to write in read mode, every request adds two at most */
+    private final ByteBuffer[] buffers;
+    private int bufferCount;
+    /** First buffer with remaining bytes */
+    private int firstBuffer;
+    /** Bytes on the closed buffers */
+    private long length;
+    private long written;
+    /** Buffer coalescing the small messages (write mode), null if there is none open */
+    private ByteBuffer coalesce;
+
+    public WriteBatch(ByteBufferPool pool, int maxRequests) {
+        if (maxRequests <= 0) throw new IllegalArgumentException("max requests <= 0");
+        this.pool = pool;
+        this.requests = new WriteRequest[maxRequests];
+        this.ends = new long[maxRequests];
+        this.buffers = new ByteBuffer[maxRequests * 2];
+    }
+
+    /**
+     * Add an encoded request
+     *
+     * @param request
+     * @param encoded message in read mode
+     * @param sslHandler TLS filter, null for plain sessions
+     */
+    public void add(WriteRequest request, ByteBuffer encoded, SslHandler sslHandler) throws IOException {
+        if (isFull()) throw new IllegalStateException("Batch full");
+        int messageSize = encoded.remaining();
+        if (messageSize <= pool.getBufferSize()) {
+            if (coalesce != null && coalesce.remaining() < messageSize) {
+                closeCoalesce(sslHandler);
+            }
+            if (coalesce == null) {
+                coalesce = pool.acquire(pool.getBufferSize());
+            }
+            coalesce.put(encoded);
+            requests[size] = request;
+            // the records boundaries are not known until the buffer is wrapped
+            ends[size++] = (sslHandler == null) ? length + coalesce.position() : -1;
+        } else {
+            closeCoalesce(sslHandler);
+            requests[size] = request;
+            ends[size++] = -1;
+            addBuffer((sslHandler == null) ? encoded : sslHandler.wrap(encoded));
+        }
+    }
+
+    /**
+     * Add a request encoding it on the coalescing buffer
+     *
+     * @param encoder encoder of the session
+     * @param sslHandler TLS filter, null for plain sessions
+     * @return false if the message doesn't fit on a pooled buffer or the encoder can't write on it, nothing is added
+     * and the caller adds it encoded
+     */
+    public boolean add(WriteRequest request, ProtocolEncoder<Object> encoder, SslHandler sslHandler) throws IOException, InvalidProtocolViolationException {
+        if (isFull()) throw new IllegalStateException("Batch full");
+        // the estimation of the encoders that write on a buffer is the exact size
+        int messageSize = request.getSize();
+        if (messageSize > pool.getBufferSize()) {
+            return false;
+        }
+        if (coalesce != null && coalesce.remaining() < messageSize) {
+            closeCoalesce(sslHandler);
+        }
+        if (coalesce == null) {
+            coalesce = pool.acquire(pool.getBufferSize());
+        }
+        int start = coalesce.position();
+        boolean encoded = false;
+        try {
+            encoded = encoder.encode(request.getMessage(), coalesce);
+        } finally {
+            if (!encoded) {
+                // a partial message is discarded
+                coalesce.position(start);
+            }
+        }
+        if (encoded) {
+            requests[size] = request;
+            ends[size++] = (sslHandler == null) ? length + coalesce.position() : -1;
+        }
+        return encoded;
+    }
+
+    /**
+     * Close the open buffer, the batch is ready to write
+     */
+    public void seal(SslHandler sslHandler) throws IOException {
+        closeCoalesce(sslHandler);
+    }
+
+    /**
+     * Write as much as the channel accepts
+     *
+     * @return bytes written
+     */
+    public long write(GatheringByteChannel channel) throws IOException {
+        long localWritten = channel.write(buffers, firstBuffer, bufferCount - firstBuffer);
+        written += localWritten;
+        while (firstBuffer < bufferCount && !buffers[firstBuffer].hasRemaining()) {
+            firstBuffer++;
+        }
+        return localWritten;
+    }
+
+    /**
+     * @return the next request completely written or null if there is none
+     */
+    public WriteRequest nextCompleted() {
+        if (next < size && ends[next] != -1 && ends[next] <= written) {
+            return requests[next++];
+        }
+        return null;
+    }
+
+    /**
+     * @return the next request not completed, used to fail them, or null if there is none
+     */
+    public WriteRequest nextPending() {
+        return (next < size) ? requests[next++] : null;
+    }
+
+    /** There are bytes waiting for the socket */
+    public boolean hasRemaining() {
+        return firstBuffer < bufferCount;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == requests.length;
+    }
+
+    /** Encoded bytes, plaintext of the open buffer included */
+    public long length() {
+        return length + ((coalesce != null) ? coalesce.position() : 0);
+    }
+
+    /**
+     * Return the buffers to the pool and forget the requests
+     */
+    public void clear() {
+        pool.release(coalesce);
+        coalesce = null;
+        for (int i = 0; i < bufferCount; i++) {
+            pool.release(buffers[i]);
+            buffers[i] = null;
+        }
+        for (int i = 0; i < size; i++) {
+            requests[i] = null;
+        }
+        size = 0;
+        next = 0;
+        bufferCount = 0;
+        firstBuffer = 0;
+        length = 0;
+        written = 0;
+    }
+
+    private void closeCoalesce(SslHandler sslHandler) throws IOException {
+        if (coalesce == null) {
+            return;
+        }
+        ByteBuffer plain = coalesce;
+        coalesce = null;
+        plain.flip();
+        if (sslHandler == null) {
+            addBuffer(plain);
+        } else {
+            try {
+                addBuffer(sslHandler.wrap(plain));
+            } finally {
+                pool.release(plain);
+            }
+        }
+    }
+
+    private void addBuffer(ByteBuffer byteBuffer) {
+        buffers[bufferCount++] = byteBuffer;
+        length += byteBuffer.remaining();
+        // the requests without end finish with this buffer
+        for (int i = size - 1; i >= 0 && ends[i] == -1; i--) {
+            ends[i] = length;
+        }
+    }
+}
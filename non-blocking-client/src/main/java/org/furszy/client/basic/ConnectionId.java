@@ -12,4 +12,27 @@ public class ConnectionId {
     public ConnectionId(long id) {
         this.id = id;
     }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return id == ((ConnectionId) o).id;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (id ^ (id >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionId{" +
+                "id=" + id +
+                '}';
+    }
 }
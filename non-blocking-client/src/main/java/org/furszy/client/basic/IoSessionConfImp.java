@@ -6,6 +6,8 @@ import org.furszy.client.interfaces.ProtocolEncoder;
 
 import java.util.concurrent.TimeUnit;
 
+import javax.net.ssl.SSLContext;
+
 /**
  * Created by mati on 12/05/17.
  */
@@ -16,17 +18,32 @@ public class IoSessionConfImp implements IoSessionConf{
 
     ProtocolEncoder protocolEncoder;
 
+    SSLContext sslContext;
+
+    int readBufferSize = 16 * 1024;
+
+    int maxReadBufferSize = 65353;
+
+    int maxWriteBatchSize = 64;
+
+    int writeBufferLowWaterMark = 32 * 1024;
+
+    int writeBufferHighWaterMark = 64 * 1024;
+
+    /** Idle times in millis indexed by the idle status ordinal, disabled by default */
+    final long[] idleTimes = new long[IdleStatus.values().length];
+
     public IoSessionConfImp() {
     }
 
     @Override
     public int getReadBufferSize() {
-        return 65353;
+        return readBufferSize;
     }
 
     @Override
     public int getMaxReadBufferSize() {
-        return 65353;
+        return maxReadBufferSize;
     }
 
     @Override
@@ -34,6 +51,21 @@ public class IoSessionConfImp implements IoSessionConf{
         return 65353;
     }
 
+    @Override
+    public int getMaxWriteBatchSize() {
+        return maxWriteBatchSize;
+    }
+
+    @Override
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    @Override
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
     @Override
     public int getSocketTimeout() {
         return (int) TimeUnit.SECONDS.toMillis(60);
@@ -41,12 +73,12 @@ public class IoSessionConfImp implements IoSessionConf{
 
     @Override
     public int getIdleTime(IdleStatus status) {
-        return (int) TimeUnit.SECONDS.toMillis(60);
+        return (int) TimeUnit.MILLISECONDS.toSeconds(idleTimes[status.ordinal()]);
     }
 
     @Override
     public long getIdleTimeInMillis(IdleStatus idleStatus) {
-        return (int) TimeUnit.SECONDS.toMillis(60);
+        return idleTimes[idleStatus.ordinal()];
     }
 
     @Override
@@ -59,6 +91,11 @@ public class IoSessionConfImp implements IoSessionConf{
         return 65353;
     }
 
+    @Override
+    public boolean isTcpNoDelay() {
+        return true;
+    }
+
     @Override
     public Class<? extends IoSessionImp> getIoSessionClass() {
         return null;// PfSession.class;
@@ -74,6 +111,11 @@ public class IoSessionConfImp implements IoSessionConf{
         return protocolEncoder;
     }
 
+    @Override
+    public SSLContext getSslContext() {
+        return sslContext;
+    }
+
     public void setProtocolDecoder(ProtocolDecoder protocolDecoder) {
         this.protocolDecoder = protocolDecoder;
     }
@@ -81,4 +123,51 @@ public class IoSessionConfImp implements IoSessionConf{
     public void setProtocolEncoder(ProtocolEncoder protocolEncoder) {
         this.protocolEncoder = protocolEncoder;
     }
+
+    /**
+     * Secure the session with TLS, the handshake starts as soon as the channel is connected.
+     */
+    public void setSslContext(SSLContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
+    /**
+     * Initial size of the session read buffer, sizes up to the processor pooled buffer size don't allocate.
+     */
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    /**
+     * Max size of the session read buffer, it must fit the largest message of the protocol.
+     */
+    public void setMaxReadBufferSize(int maxReadBufferSize) {
+        this.maxReadBufferSize = maxReadBufferSize;
+    }
+
+    /**
+     * Max queued messages drained and written with a single gathering write, 1 writes every message on his own.
+     */
+    public void setMaxWriteBatchSize(int maxWriteBatchSize) {
+        this.maxWriteBatchSize = maxWriteBatchSize;
+    }
+
+    /**
+     * Bytes queued on the session, estimated by the encoder, above which the session is not writable and
+     * {@link org.furszy.client.IoManager#trySend} fails, until the writes take them below the low watermark.
+     */
+    public void setWriteBufferWaterMarks(int lowWaterMark, int highWaterMark) {
+        if (lowWaterMark < 0 || highWaterMark < lowWaterMark) throw new IllegalArgumentException("Invalid watermarks, low: " + lowWaterMark + ", high: " + highWaterMark);
+        this.writeBufferLowWaterMark = lowWaterMark;
+        this.writeBufferHighWaterMark = highWaterMark;
+    }
+
+    /**
+     * Notify the handler with sessionIdle once the session is this time without reading, writing or both,
+     * and again every idle time while it stays quiet. 0 disables it.
+     */
+    public void setIdleTime(IdleStatus status, long idleTimeMillis) {
+        if (idleTimeMillis < 0) throw new IllegalArgumentException("idle time < 0");
+        idleTimes[status.ordinal()] = idleTimeMillis;
+    }
 }
@@ -1,5 +1,8 @@
 package org.furszy.client.basic;
 
+import org.furszy.client.SslHandler;
+import org.furszy.client.IdleTimingWheel;
+import org.furszy.client.WriteBatch;
 import org.furszy.client.interfaces.IoHandler;
 import org.furszy.client.interfaces.IoProcessor;
 import org.furszy.client.interfaces.IoSession;
@@ -9,11 +12,13 @@ import org.furszy.client.interfaces.ProtocolEncoder;
 import org.furszy.client.interfaces.write.WriteRequest;
 import org.furszy.client.interfaces.write.WriteRequestQueue;
 
+import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by mati on 12/05/17.
@@ -41,16 +46,33 @@ public abstract class IoSessionImp<M> implements IoSession<M> {
     private HashMap<String,Object> attributes;
 
     private boolean isSecure;
+    /** TLS filter, null for plain sessions */
+    private SslHandler sslHandler;
     private AtomicBoolean isReadSuspended = new AtomicBoolean(false);
     private AtomicBoolean isWriteSuspended = new AtomicBoolean(false);
 
     private long lastWriteTime;
     private long lastReadTime;
+    /** Consecutive idle events and time of the last one, indexed by the idle status ordinal */
+    private final int[] idleCounts = new int[IdleStatus.values().length];
+    private final long[] lastIdleTimes = new long[IdleStatus.values().length];
+    /** Idle deadlines on the processor timing wheel, null until the session is registered */
+    private IdleTimingWheel.Timeout[] idleTimeouts;
+    /** Bytes received and not decoded yet (write mode), null while the session doesn't hold a buffer */
+    private ByteBuffer readBuffer;
 
     private AtomicBoolean isClosing = new AtomicBoolean(false);
     /** Flush flag */
     private AtomicBoolean scheduledForFlush = new AtomicBoolean(false);
-    private WriteRequest currentWriteRequest;
+    /** Remove flag, it's never cleared, a removed session is not used again */
+    private AtomicBoolean scheduledForRemove = new AtomicBoolean(false);
+    /** Requests being written, reused by the writer */
+    private WriteBatch writeBatch;
+    /** Estimated bytes of the requests queued and not written yet */
+    private final AtomicLong scheduledWriteBytes = new AtomicLong();
+    private final AtomicBoolean writable = new AtomicBoolean(true);
+    /** Writability notified to the handler, used only from the processor thread */
+    private boolean notifiedWritable = true;
 
     protected IoSessionImp(long id, Channel channel, IoSessionConf ioSessionConf) {
         this.id = id;
@@ -82,10 +104,52 @@ public abstract class IoSessionImp<M> implements IoSession<M> {
 
     @Override
     public void addWriteRequest(WriteRequest writeRequest) {
+        if (scheduledWriteBytes.addAndGet(writeRequest.getSize()) > sessionConf.getWriteBufferHighWaterMark()) {
+            // the processor notifies the handler on the flush
+            writable.set(false);
+        }
         writeRequestQueue.offer(writeRequest);
         setScheduledForFlush();
     }
 
+    @Override
+    public boolean isWritable() {
+        return writable.get();
+    }
+
+    @Override
+    public long getScheduledWriteBytes() {
+        return scheduledWriteBytes.get();
+    }
+
+    /**
+     * The request was written or failed, his bytes are not queued anymore
+     */
+    public void writeRequestDone(WriteRequest writeRequest) {
+        scheduledWriteBytes.addAndGet(-writeRequest.getSize());
+    }
+
+    /**
+     * Move the writability between the watermarks, called from the processor thread after the writes.
+     * The senders only switch it off, so a stale switch is corrected here on the next flush.
+     *
+     * @return true if the writability changed since the last time it returned true
+     */
+    public boolean updateWritability() {
+        long queued = scheduledWriteBytes.get();
+        if (queued < sessionConf.getWriteBufferLowWaterMark()) {
+            writable.set(true);
+        } else if (queued > sessionConf.getWriteBufferHighWaterMark()) {
+            writable.set(false);
+        }
+        boolean current = writable.get();
+        if (current != notifiedWritable) {
+            notifiedWritable = current;
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public SelectableChannel getChannel() {
         return (SelectableChannel) channel;
@@ -96,6 +160,15 @@ public abstract class IoSessionImp<M> implements IoSession<M> {
         this.isSecure = isSecure;
     }
 
+    public SslHandler getSslHandler() {
+        return sslHandler;
+    }
+
+    public void setSslHandler(SslHandler sslHandler) {
+        this.sslHandler = sslHandler;
+        setSecure(sslHandler!=null);
+    }
+
     @Override
     public void setSelectionKey(SelectionKey key) {
         this.selectionKey = key;
@@ -126,9 +199,55 @@ public abstract class IoSessionImp<M> implements IoSession<M> {
         return lastReadTime;
     }
 
+    public void setLastReadTime(long lastReadTime) {
+        this.lastReadTime = lastReadTime;
+    }
+
+    public void setLastWriteTime(long lastWriteTime) {
+        this.lastWriteTime = lastWriteTime;
+    }
+
+    /**
+     * @return the last time that the session read or wrote something, depending on the idle status
+     */
+    public long getLastIoTime(IdleStatus status) {
+        switch (status) {
+            case IDLE_READ:
+                return lastReadTime;
+            case IDLE_WRITE:
+                return lastWriteTime;
+            default:
+                return Math.max(lastReadTime, lastWriteTime);
+        }
+    }
+
+    public IdleTimingWheel.Timeout[] getIdleTimeouts() {
+        return idleTimeouts;
+    }
+
+    public void setIdleTimeouts(IdleTimingWheel.Timeout[] idleTimeouts) {
+        this.idleTimeouts = idleTimeouts;
+    }
+
+    public ByteBuffer getReadBuffer() {
+        return readBuffer;
+    }
+
+    public void setReadBuffer(ByteBuffer readBuffer) {
+        this.readBuffer = readBuffer;
+    }
+
     @Override
     public void increaseIdleCount(IdleStatus status, long currentTimeMillis) {
+        int i = status.ordinal();
+        // the count restarts if there was activity since the last idle event
+        idleCounts[i] = (getLastIoTime(status) > lastIdleTimes[i]) ? 1 : idleCounts[i] + 1;
+        lastIdleTimes[i] = currentTimeMillis;
+    }
 
+    @Override
+    public int getIdleCount(IdleStatus status) {
+        return (getLastIoTime(status) > lastIdleTimes[status.ordinal()]) ? 0 : idleCounts[status.ordinal()];
     }
 
     @Override
@@ -189,22 +308,45 @@ public abstract class IoSessionImp<M> implements IoSession<M> {
         return scheduledForFlush.get();
     }
 
+    /**
+     * Switch on the remove flag
+     * @return false if the session was already scheduled for remove
+     */
+    public boolean setScheduledForRemove() {
+        return scheduledForRemove.compareAndSet(false, true);
+    }
+
+    public boolean isScheduledForRemove() {
+        return scheduledForRemove.get();
+    }
+
     public boolean isConnected() {
         return channel.isOpen();
     }
 
-    public WriteRequest getCurrentWriteRequest() {
-        return currentWriteRequest;
+    public WriteBatch getWriteBatch() {
+        return writeBatch;
     }
 
-    public void setCurrentWriteRequest(WriteRequest currentWriteRequest) {
-        this.currentWriteRequest = currentWriteRequest;
+    public void setWriteBatch(WriteBatch writeBatch) {
+        this.writeBatch = writeBatch;
+    }
+
+    /**
+     * @return true if there are requests queued or being written
+     */
+    public boolean hasPendingWrites() {
+        return (writeBatch != null && !writeBatch.isEmpty()) || !writeRequestQueue.isEmpty();
     }
 
     public boolean isActive() {
         return selectionKey.isValid();
     }
 
+    public IoProcessor getProcessor() {
+        return processor;
+    }
+
     public void setProcessor(IoProcessor processor) {
         this.processor = processor;
     }
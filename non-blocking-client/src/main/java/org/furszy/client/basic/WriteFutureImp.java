@@ -20,12 +20,20 @@ public class WriteFutureImp implements WriteFuture {
         notifyAll();
     }
 
+    @Override
+    public synchronized Exception getException() {
+        return exception;
+    }
+
     @Override
     public synchronized void get(long millis) throws InterruptedException {
-        if (isSent.get()==true){
-            return;
+        long deadline = System.currentTimeMillis() + millis;
+        long remaining = millis;
+        // loop, the wait could return spuriously
+        while (!isSent.get() && exception==null && remaining>0){
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
         }
-        wait(millis);
     }
 
     @Override
@@ -16,10 +16,17 @@ public class WriteRequestImp implements WriteRequest {
     private Object filteredMessage;
 
     private WriteFuture writeFuture;
+    /** Estimated encoded size */
+    private final int size;
 
     public WriteRequestImp(Object msg,WriteFuture writeFuture) {
+        this(msg,writeFuture,0);
+    }
+
+    public WriteRequestImp(Object msg,WriteFuture writeFuture,int size) {
         this.msg = msg;
         this.writeFuture = writeFuture;
+        this.size = size;
     }
 
     @Override
@@ -32,6 +39,11 @@ public class WriteRequestImp implements WriteRequest {
         return msg;
     }
 
+    @Override
+    public int getSize() {
+        return size;
+    }
+
     @Override
     public Object getMessageFiltered() {
         return filteredMessage;
@@ -1,5 +1,7 @@
 package org.furszy.client.interfaces;
 
+import org.furszy.client.basic.IdleStatus;
+
 import java.io.IOException;
 
 /**
@@ -24,6 +26,7 @@ public interface IoHandler<M> {
      * {@link #sessionCreated(IoSession)}.  The biggest difference from
      * {@link #sessionCreated(IoSession)} is that it's invoked from other thread
      * than an I/O processor thread once thread model is configured properly.
+     * The secure sessions are opened once the TLS handshake finished.
      *
      * @param session The session being opened
      * @throws Exception If we get an exception while processing the open event
@@ -39,15 +42,27 @@ public interface IoHandler<M> {
     void sessionClosed(IoSession session) throws Exception;
 
     /**
-     * Invoked with the related {@link IdleStatus} when a connection becomes idle.
-     * This method is not invoked if the transport type is UDP; it's a known bug,
-     * and will be fixed in 2.0.
+     * Invoked with the related {@link IdleStatus} when a connection becomes idle,
+     * and again every idle time while it stays idle. It's invoked from the I/O processor
+     * thread, so it's the place to send a keepalive without another thread.
+     * The idle times are set on the session configuration, 0 disables the event.
      *
      * @param session The idling session
      * @param status The session's status
      * @throws Exception If we get an exception while processing the idle event
      */
-//    void sessionIdle(IoSession session, IdleStatus status) throws Exception;
+    void sessionIdle(IoSession session, IdleStatus status) throws Exception;
+
+    /**
+     * Invoked from the I/O processor thread when the bytes queued on the session
+     * cross the high watermark, the session is not writable, and when they drop
+     * below the low watermark again.
+     *
+     * @param session The session
+     * @param writable The new writability
+     * @throws Exception If we get an exception while processing the event
+     */
+    void writabilityChanged(IoSession session, boolean writable) throws Exception;
 
     /**
      * Invoked when any exception is thrown by user
@@ -15,4 +15,7 @@ public interface IoProcessor {
     IoSessionImp getActiveSession(ConnectionId connectionId);
 
     <M> void scheduleForFlush(IoSessionImp mIoSessionImp);
+
+    /** Close the session and release it as soon as possible */
+    void remove(IoSessionImp ioSessionImp);
 }
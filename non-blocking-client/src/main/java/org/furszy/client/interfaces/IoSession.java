@@ -30,6 +30,10 @@ public interface IoSession<M> {
     WriteRequestQueue getWriteRequestQueue();
     /** Offer a write request to the queue */
     void addWriteRequest(WriteRequest writeRequest);
+    /** False while the queued bytes are over the high watermark, until they drop below the low one */
+    boolean isWritable();
+    /** Estimated bytes queued and not written yet */
+    long getScheduledWriteBytes();
     /** Session channel */
     SelectableChannel getChannel();
     /** Add an attribute to the attributes map */
@@ -52,6 +56,8 @@ public interface IoSession<M> {
     long getLastReadTime();
     /** Increase the idle status */
     void increaseIdleCount(IdleStatus status, long currentTimeMillis);
+    /** Consecutive idle events without reads or writes in between */
+    int getIdleCount(IdleStatus status);
     /** close method */
     void close();
 
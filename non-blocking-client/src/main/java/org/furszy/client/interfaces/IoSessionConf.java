@@ -3,6 +3,8 @@ package org.furszy.client.interfaces;
 import org.furszy.client.basic.IdleStatus;
 import org.furszy.client.basic.IoSessionImp;
 
+import javax.net.ssl.SSLContext;
+
 /**
  * Created by mati on 11/05/17.
  */
@@ -10,27 +12,39 @@ import org.furszy.client.basic.IoSessionImp;
 public interface IoSessionConf {
 
 
-    /** Read buffer size */
+    /** Initial size of the session read buffer */
     int getReadBufferSize();
-    /** Max read buffer size */
+    /** Max read buffer size, the buffer grows up to this size to fit a partial message */
     int getMaxReadBufferSize();
     /** Write buffer size */
     int getWriteBufferSize();
+    /** Max queued messages written with a single gathering write */
+    int getMaxWriteBatchSize();
+    /** Queued bytes above which the session is not writable */
+    int getWriteBufferHighWaterMark();
+    /** Queued bytes below which a not writable session is writable again */
+    int getWriteBufferLowWaterMark();
     /** Get socket timeout in millis */
     int getSocketTimeout();
-    /** Max time that this session could be open on idle status */
+    /** Time without activity after which the handler is notified with sessionIdle in seconds, 0 disables it */
     int getIdleTime(IdleStatus status);
-    /** Max time that this session could be open on idle status in millis */
+    /** Time without activity after which the handler is notified with sessionIdle in millis, 0 disables it */
     long getIdleTimeInMillis(IdleStatus idleStatus);
 
     long getWriteTimeoutInMillis();
 
     int getSocketReadBufferSize();
 
+    /** Disable Nagle's algorithm, small request/response messages are sent immediately */
+    boolean isTcpNoDelay();
+
     Class<? extends IoSessionImp> getIoSessionClass();
 
     ProtocolDecoder getProtocolDecoder();
 
     ProtocolEncoder getProtocolEncoder();
 
+    /** TLS context, null for plain connections */
+    SSLContext getSslContext();
+
 }
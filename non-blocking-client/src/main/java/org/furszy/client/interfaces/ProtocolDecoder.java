@@ -4,13 +4,27 @@ package org.furszy.client.interfaces;
 import org.furszy.client.exceptions.InvalidProtocolViolationException;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * Created by mati on 11/05/17.
+ *
+ * Cumulative decoder, the reader keeps the bytes of every read on a session buffer until they are consumed.
  */
 
 public abstract class ProtocolDecoder<M> {
 
-    public abstract M decode(ByteBuffer byteBuffer) throws InvalidProtocolViolationException;
+    /**
+     * Decode the complete messages available on the buffer.
+     *
+     * The buffer is in read mode and starts with the first byte not consumed yet, it could contain part of a message
+     * or several of them. The decoder must advance the position only over the messages decoded, the remaining
+     * bytes are presented again, together with the new ones, on the next read.
+     * The buffer is reused by the reader, it must not be retained after this call.
+     *
+     * @param byteBuffer accumulated bytes
+     * @param out decoded messages, zero, one or many per call
+     */
+    public abstract void decode(ByteBuffer byteBuffer, List<M> out) throws InvalidProtocolViolationException;
 
 }
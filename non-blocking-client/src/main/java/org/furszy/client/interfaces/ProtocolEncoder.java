@@ -11,6 +11,29 @@ import java.nio.ByteBuffer;
 
 public abstract class ProtocolEncoder<M> {
 
+    /** Size accounted for a message if the encoder can't know it before encoding */
+    public static final int DEFAULT_ESTIMATED_SIZE = 64;
+
     public abstract ByteBuffer encode(M message) throws InvalidProtocolViolationException;
 
+    /**
+     * Encode the message at the position of the buffer (write mode), the writer passes his pooled buffer and the
+     * message is not copied from the one returned by {@link #encode(Object)}.
+     * It's worth for the encoders that know the exact size before encoding.
+     *
+     * @return false if the encoder doesn't support it or the message doesn't fit on the remaining bytes, the
+     * message is encoded with {@link #encode(Object)} then
+     */
+    public boolean encode(M message, ByteBuffer out) throws InvalidProtocolViolationException {
+        return false;
+    }
+
+    /**
+     * Encoded size of the message, it's accounted on the session queued bytes until the message is written.
+     * It's called from the sender thread, before the encoding.
+     */
+    public int estimateSize(M message) {
+        return DEFAULT_ESTIMATED_SIZE;
+    }
+
 }
@@ -7,8 +7,14 @@ package org.furszy.client.interfaces.write;
 public interface WriteFuture {
 
     void setException(Exception e);
+
+    /**
+     * @return the exception if the message couldn't be sent, null otherwise
+     */
+    Exception getException();
+
     /**
-     * Wait until the operation finish
+     * Wait until the operation finish, the message is sent or failed, or the timeout expires
      *
      */
     void get(long millis) throws InterruptedException;
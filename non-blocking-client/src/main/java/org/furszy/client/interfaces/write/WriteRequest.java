@@ -19,6 +19,11 @@ public interface WriteRequest {
      */
     Object getMessage();
 
+    /**
+     * @return estimated encoded size, accounted on the session queued bytes
+     */
+    int getSize();
+
     /**
      * MessageFiltered
      */
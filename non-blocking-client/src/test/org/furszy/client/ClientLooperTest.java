@@ -1,6 +1,7 @@
 package org.furszy.client;
 
 import org.furszy.client.basic.ConnectionId;
+import org.furszy.client.basic.IdleStatus;
 import org.furszy.client.basic.IoSessionConfImp;
 import org.furszy.client.exceptions.ConnectionFailureException;
 import org.furszy.client.exceptions.InvalidProtocolViolationException;
@@ -19,6 +20,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -103,6 +105,16 @@ public class ClientLooperTest {
             System.out.println("Session closed!"+session.getId());
         }
 
+        @Override
+        public void sessionIdle(org.furszy.client.interfaces.IoSession session, IdleStatus status) throws Exception {
+
+        }
+
+        @Override
+        public void writabilityChanged(org.furszy.client.interfaces.IoSession session, boolean writable) throws Exception {
+
+        }
+
         @Override
         public void exceptionCaught(org.furszy.client.interfaces.IoSession session, Throwable cause) throws Exception {
             System.out.println("Session exception caught!"+session.getId()+", "+cause.getMessage());
@@ -127,9 +139,11 @@ public class ClientLooperTest {
     static class StringDecoder extends ProtocolDecoder<String> {
 
         @Override
-        public String decode(ByteBuffer byteBuffer) throws InvalidProtocolViolationException {
+        public void decode(ByteBuffer byteBuffer, List<String> out) throws InvalidProtocolViolationException {
             try {
-                return new String(byteBuffer.array(),"UTF-8");
+                byte[] bytes = new byte[byteBuffer.remaining()];
+                byteBuffer.get(bytes);
+                out.add(new String(bytes,"UTF-8"));
             } catch (UnsupportedEncodingException e) {
                 throw new InvalidProtocolViolationException("error decoder",e);
             }
@@ -0,0 +1,73 @@
+package org.furszy.client;
+
+import org.furszy.client.basic.IdleStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timing wheel with a fixed clock
+ */
+public class IdleTimingWheelTest {
+
+    @Test
+    public void expireTest() {
+        IdleTimingWheel wheel = new IdleTimingWheel(100, 8, 0);
+        IdleTimingWheel.Timeout first = new IdleTimingWheel.Timeout(null, IdleStatus.IDLE_READ);
+        IdleTimingWheel.Timeout second = new IdleTimingWheel.Timeout(null, IdleStatus.IDLE_WRITE);
+        // more than a round, same bucket
+        IdleTimingWheel.Timeout later = new IdleTimingWheel.Timeout(null, IdleStatus.IDLE_BOTH);
+        wheel.schedule(first, 250);
+        wheel.schedule(second, 300);
+        wheel.schedule(later, 1050);
+        Assert.assertEquals(3, wheel.size());
+        Assert.assertEquals(250, wheel.nextTickDelay(50));
+
+        List<IdleTimingWheel.Timeout> expired = new ArrayList<>();
+        // never before the deadline
+        wheel.expire(250, expired);
+        Assert.assertTrue(expired.isEmpty());
+        wheel.expire(300, expired);
+        Assert.assertEquals(2, expired.size());
+        Assert.assertFalse(first.isScheduled());
+        expired.clear();
+
+        wheel.expire(1000, expired);
+        Assert.assertTrue(expired.isEmpty());
+        Assert.assertTrue(later.isScheduled());
+        wheel.expire(1100, expired);
+        Assert.assertEquals(1, expired.size());
+        Assert.assertSame(later, expired.get(0));
+        Assert.assertEquals(-1, wheel.nextTickDelay(1100));
+    }
+
+    @Test
+    public void rescheduleAndCancelTest() {
+        IdleTimingWheel wheel = new IdleTimingWheel(100, 8, 0);
+        IdleTimingWheel.Timeout timeout = new IdleTimingWheel.Timeout(null, IdleStatus.IDLE_READ);
+        IdleTimingWheel.Timeout other = new IdleTimingWheel.Timeout(null, IdleStatus.IDLE_READ);
+        wheel.schedule(other, 200);
+        wheel.schedule(timeout, 200);
+        wheel.schedule(timeout, 500);
+        Assert.assertEquals(2, wheel.size());
+
+        List<IdleTimingWheel.Timeout> expired = new ArrayList<>();
+        wheel.expire(200, expired);
+        Assert.assertEquals(1, expired.size());
+        Assert.assertSame(other, expired.get(0));
+
+        wheel.cancel(timeout);
+        wheel.cancel(timeout);
+        Assert.assertEquals(0, wheel.size());
+        expired.clear();
+        wheel.expire(5000, expired);
+        Assert.assertTrue(expired.isEmpty());
+
+        // a deadline already due expires on the next tick
+        wheel.schedule(timeout, 1000);
+        wheel.expire(5100, expired);
+        Assert.assertEquals(1, expired.size());
+    }
+}
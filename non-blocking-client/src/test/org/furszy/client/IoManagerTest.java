@@ -0,0 +1,143 @@
+package org.furszy.client;
+
+import org.furszy.client.basic.ConnectionId;
+import org.furszy.client.basic.IoSessionConfImp;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ConnectFuture;
+import org.furszy.client.interfaces.ProtocolDecoder;
+import org.furszy.client.interfaces.write.WriteRequest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sessions sharded across the processors of a manager, writing from several sessions at the same time.
+ */
+public class IoManagerTest {
+
+    private static final int SESSIONS = 8;
+    private static final int MESSAGES_PER_SESSION = 10000;
+
+    private IoProcessorWriterTest.SinkServer sinkServer;
+    private List<IoManager> managers = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        sinkServer = new IoProcessorWriterTest.SinkServer();
+        sinkServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (IoManager manager : managers) {
+            manager.shutdown();
+        }
+        sinkServer.stop();
+    }
+
+    @Test
+    public void sessionsDistributionTest() throws Throwable {
+        IoManager ioManager = newManager(4);
+        List<ConnectionId> connectionIds = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            connectionIds.add(connect(ioManager));
+        }
+        Assert.assertArrayEquals(new int[]{4, 4, 4, 4}, ioManager.getProcessorsLoad());
+        for (ConnectionId connectionId : connectionIds) {
+            Assert.assertNotNull(ioManager.getActiveSession(connectionId));
+        }
+
+        // the released processor takes the next sessions
+        ioManager.close(connectionIds.get(0));
+        ioManager.close(connectionIds.get(4));
+        awaitLoad(ioManager, 14);
+        connect(ioManager);
+        connect(ioManager);
+        Assert.assertArrayEquals(new int[]{4, 4, 4, 4}, ioManager.getProcessorsLoad());
+        Assert.assertNull(ioManager.getActiveSession(connectionIds.get(0)));
+    }
+
+    @Test
+    public void concurrentProcessorsTest() throws Throwable {
+        for (int processors : new int[]{1, 2, 4}) {
+            IoManager ioManager = newManager(processors);
+            run(ioManager);
+            // every session closed, his processor released
+            awaitLoad(ioManager, 0);
+        }
+        Assert.assertNull(sinkServer.error);
+    }
+
+    private void run(IoManager ioManager) throws Throwable {
+        ConnectionId[] connectionIds = new ConnectionId[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            connectionIds[i] = connect(ioManager);
+        }
+        int processors = ioManager.getProcessorsLoad().length;
+        for (int load : ioManager.getProcessorsLoad()) {
+            Assert.assertEquals(SESSIONS / processors, load);
+        }
+        int base = sinkServer.received.get();
+        WriteRequest[] last = new WriteRequest[SESSIONS];
+        // interleaved, every processor has work at the same time
+        for (int m = 0; m < MESSAGES_PER_SESSION; m++) {
+            for (int i = 0; i < SESSIONS; i++) {
+                last[i] = ioManager.send(m, connectionIds[i]);
+            }
+        }
+        for (WriteRequest writeRequest : last) {
+            writeRequest.getFuture().get(TimeUnit.SECONDS.toMillis(60));
+            Assert.assertTrue(writeRequest.getFuture().isSent());
+        }
+        sinkServer.awaitMessages(base + SESSIONS * MESSAGES_PER_SESSION);
+        for (ConnectionId connectionId : connectionIds) {
+            ioManager.close(connectionId);
+        }
+    }
+
+    private IoManager newManager(int processors) throws IOException {
+        IoManager ioManager = new IoManager(1, processors);
+        managers.add(ioManager);
+        return ioManager;
+    }
+
+    private void awaitLoad(IoManager ioManager, int sessions) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        int load = 0;
+        while (System.currentTimeMillis() < deadline) {
+            load = 0;
+            for (int processorLoad : ioManager.getProcessorsLoad()) {
+                load += processorLoad;
+            }
+            if (load == sessions) return;
+            Thread.sleep(10);
+        }
+        Assert.fail("load " + Arrays.toString(ioManager.getProcessorsLoad()));
+    }
+
+    private ConnectionId connect(IoManager ioManager) throws Throwable {
+        IoSessionConfImp ioSessionConf = new IoSessionConfImp();
+        ioSessionConf.setProtocolDecoder(new ProtocolDecoder<Object>() {
+            @Override
+            public void decode(ByteBuffer byteBuffer, List<Object> out) throws InvalidProtocolViolationException {
+                byteBuffer.position(byteBuffer.limit());
+            }
+        });
+        ioSessionConf.setProtocolEncoder(new IoProcessorWriterTest.SequenceEncoder(false));
+        ConnectFuture connectFuture = ioManager.connect(new InetSocketAddress("127.0.0.1", sinkServer.getPort()), null, new IoProcessorWriterTest.HandlerAdapter(), ioSessionConf);
+        connectFuture.get(TimeUnit.SECONDS.toMillis(10));
+        if (connectFuture.getConnectionId() == null) {
+            throw connectFuture.getException();
+        }
+        return connectFuture.getConnectionId();
+    }
+}
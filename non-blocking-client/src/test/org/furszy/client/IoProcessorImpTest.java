@@ -0,0 +1,242 @@
+package org.furszy.client;
+
+import org.furszy.client.basic.ConnectionId;
+import org.furszy.client.basic.IdleStatus;
+import org.furszy.client.basic.IoSessionConfImp;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ConnectFuture;
+import org.furszy.client.interfaces.IoSession;
+import org.furszy.client.interfaces.ProtocolDecoder;
+import org.furszy.client.interfaces.ProtocolEncoder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flush and remove scheduling of a processor with thousands of sessions written from many producer threads, and the
+ * idle events.
+ */
+public class IoProcessorImpTest {
+
+    private static final int SESSIONS = 2000;
+    private static final int PRODUCERS = 16;
+    private static final int MESSAGES_PER_PRODUCER = 20000;
+
+    private IoManager ioManager;
+    private DiscardServer discardServer;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicInteger closed = new AtomicInteger();
+    private final AtomicInteger[] idleEvents = {new AtomicInteger(), new AtomicInteger(), new AtomicInteger()};
+
+    @Before
+    public void setUp() throws IOException {
+        ioManager = new IoManager(1, 1);
+        discardServer = new DiscardServer();
+        discardServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        ioManager.shutdown();
+        discardServer.stop();
+    }
+
+    @Test
+    public void removeOnceTest() throws Throwable {
+        ConnectionId connectionId = connect(0, 0);
+        ioManager.close(connectionId);
+        ioManager.close(connectionId);
+        ioManager.getActiveSession(connectionId);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (closed.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        Assert.assertEquals(1, closed.get());
+        Assert.assertNull(ioManager.getActiveSession(connectionId));
+    }
+
+    @Test
+    public void sessionIdleTest() throws Throwable {
+        // the server never writes, the writes keep the session out of write idle
+        ConnectionId connectionId = connect(200, 300);
+        long end = System.currentTimeMillis() + 1000;
+        while (System.currentTimeMillis() < end) {
+            ioManager.send(1, connectionId);
+            Thread.sleep(50);
+        }
+        int readIdle = idleEvents[IdleStatus.IDLE_READ.ordinal()].get();
+        // every idle time while it stays quiet
+        Assert.assertTrue("read idle events: " + readIdle, readIdle >= 3 && readIdle <= 5);
+        Assert.assertEquals(0, idleEvents[IdleStatus.IDLE_WRITE.ordinal()].get());
+        Assert.assertEquals(0, idleEvents[IdleStatus.IDLE_BOTH.ordinal()].get());
+        Assert.assertTrue(ioManager.getActiveSession(connectionId).getIdleCount(IdleStatus.IDLE_READ) >= 3);
+
+        Thread.sleep(450);
+        Assert.assertEquals(1, idleEvents[IdleStatus.IDLE_WRITE.ordinal()].get());
+        Assert.assertEquals(1, ioManager.getActiveSession(connectionId).getIdleCount(IdleStatus.IDLE_WRITE));
+        ioManager.send(1, connectionId);
+        Thread.sleep(50);
+        Assert.assertEquals(0, ioManager.getActiveSession(connectionId).getIdleCount(IdleStatus.IDLE_WRITE));
+
+        // no events after the close
+        ioManager.close(connectionId);
+        Thread.sleep(100);
+        int events = idleEvents[IdleStatus.IDLE_READ.ordinal()].get();
+        Thread.sleep(500);
+        Assert.assertEquals(events, idleEvents[IdleStatus.IDLE_READ.ordinal()].get());
+    }
+
+    @Test
+    public void concurrentProducersTest() throws Throwable {
+        final ConnectionId[] connectionIds = new ConnectionId[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            connectionIds[i] = connect(0, 0);
+        }
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch producersLatch = new CountDownLatch(PRODUCERS);
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                            ioManager.send(i, connectionIds[(producer * 7919 + i * 31) % SESSIONS]);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        producersLatch.countDown();
+                    }
+                }
+            }, "producer-" + p).start();
+        }
+        long total = (long) PRODUCERS * MESSAGES_PER_PRODUCER;
+        startLatch.countDown();
+        Assert.assertTrue(producersLatch.await(120, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 120000;
+        while (sent.get() < total && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(total, sent.get());
+    }
+
+    private ConnectionId connect(long readIdleTime, long writeIdleTime) throws Throwable {
+        IoSessionConfImp ioSessionConf = new IoSessionConfImp();
+        ioSessionConf.setIdleTime(IdleStatus.IDLE_READ, readIdleTime);
+        ioSessionConf.setIdleTime(IdleStatus.IDLE_WRITE, writeIdleTime);
+        ioSessionConf.setProtocolDecoder(new ProtocolDecoder<Object>() {
+            @Override
+            public void decode(ByteBuffer byteBuffer, List<Object> out) throws InvalidProtocolViolationException {
+                byteBuffer.position(byteBuffer.limit());
+            }
+        });
+        ioSessionConf.setProtocolEncoder(new ProtocolEncoder<Integer>() {
+            @Override
+            public ByteBuffer encode(Integer message) throws InvalidProtocolViolationException {
+                return ByteBuffer.allocate(4).putInt(message);
+            }
+        });
+        ConnectFuture connectFuture = ioManager.connect(new InetSocketAddress("127.0.0.1", discardServer.getPort()), null, new IoProcessorWriterTest.HandlerAdapter() {
+            @Override
+            public void messageSent(IoSession session, Object message) throws Exception {
+                sent.incrementAndGet();
+            }
+
+            @Override
+            public void sessionClosed(IoSession session) throws Exception {
+                closed.incrementAndGet();
+            }
+
+            @Override
+            public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+                idleEvents[status.ordinal()].incrementAndGet();
+            }
+        }, ioSessionConf);
+        connectFuture.get(TimeUnit.SECONDS.toMillis(10));
+        if (connectFuture.getConnectionId() == null) {
+            throw connectFuture.getException();
+        }
+        return connectFuture.getConnectionId();
+    }
+
+    /**
+     * Single thread server that discards every byte received
+     */
+    private static class DiscardServer implements Runnable {
+
+        private final Selector selector;
+        private final ServerSocketChannel serverChannel;
+        private Thread thread;
+
+        DiscardServer() throws IOException {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0), SESSIONS);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        }
+
+        int getPort() {
+            return serverChannel.socket().getLocalPort();
+        }
+
+        void start() {
+            thread = new Thread(this, "discard-server");
+            thread.start();
+        }
+
+        void stop() throws IOException {
+            thread.interrupt();
+            selector.close();
+            serverChannel.close();
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isAcceptable()) {
+                            SocketChannel channel = serverChannel.accept();
+                            if (channel != null) {
+                                channel.configureBlocking(false);
+                                channel.register(selector, SelectionKey.OP_READ);
+                            }
+                        } else if (key.isReadable()) {
+                            buffer.clear();
+                            if (((SocketChannel) key.channel()).read(buffer) < 0) {
+                                key.cancel();
+                                key.channel().close();
+                            }
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // closed
+            }
+        }
+    }
+}
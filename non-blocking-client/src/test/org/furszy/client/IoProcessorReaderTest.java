@@ -0,0 +1,349 @@
+package org.furszy.client;
+
+import org.furszy.client.basic.IdleStatus;
+import org.furszy.client.basic.IoSessionConfImp;
+import org.furszy.client.basic.IoSessionImp;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.IoHandler;
+import org.furszy.client.interfaces.IoSession;
+import org.furszy.client.interfaces.ProtocolDecoder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame reassembly on the session read buffer.
+ *
+ * The reader is driven directly from the test thread over a loopback connection, the pooled session buffer reads the
+ * same frames as a heap buffer allocated on every read (the previous reader) allocating less on the reading thread.
+ */
+public class IoProcessorReaderTest {
+
+    private static final int ALLOCATION_MESSAGES = 200000;
+    private static final int ALLOCATION_PAYLOAD = 64;
+
+    private ExecutorService executor;
+    private ServerSocketChannel serverChannel;
+    private SocketChannel clientChannel;
+    private SocketChannel serverSide;
+    private IoProcessorImp processor;
+    private IoProcessorReader reader;
+
+    @Before
+    public void setUp() throws IOException {
+        executor = Executors.newSingleThreadExecutor();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        clientChannel = SocketChannel.open(new InetSocketAddress("127.0.0.1", serverChannel.socket().getLocalPort()));
+        serverSide = serverChannel.accept();
+        processor = new IoProcessorImp(SelectorProvider.provider(), executor);
+        reader = new IoProcessorReader(processor);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        clientChannel.close();
+        serverSide.close();
+        serverChannel.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void reassemblyTest() throws Exception {
+        Random random = new Random(7);
+        final List<byte[]> frames = new ArrayList<>();
+        int largest = 0;
+        for (int i = 0; i < 500; i++) {
+            // mostly small frames and a few bigger than the pooled buffer
+            int size = (i % 50 == 0) ? 20000 + random.nextInt(30000) : random.nextInt(300);
+            byte[] payload = new byte[size];
+            random.nextBytes(payload);
+            frames.add(payload);
+            largest = Math.max(largest, size + 4);
+        }
+        // coalesced and split frames, the chunks don't follow the frame boundaries
+        Thread writer = startWriter(frames, 1 + random.nextInt(5000));
+
+        CollectorHandler handler = new CollectorHandler();
+        IoSessionImp session = newSession(handler, 64 * 1024);
+        while (handler.messages.size() < frames.size() && handler.exception == null) {
+            reader.read(session);
+        }
+        writer.join();
+        Assert.assertNull(handler.exception);
+        for (int i = 0; i < frames.size(); i++) {
+            Assert.assertArrayEquals("frame " + i, frames.get(i), handler.messages.get(i));
+        }
+        // the buffer grew to the largest frame and it's kept while the session is receiving
+        Assert.assertTrue(session.getReadBuffer().capacity() >= largest);
+        Assert.assertEquals(0, session.getReadBuffer().position());
+
+        reader.releaseIdleBuffer(session, System.currentTimeMillis(), TimeUnit.MINUTES.toMillis(1));
+        Assert.assertNotNull(session.getReadBuffer());
+        reader.releaseIdleBuffer(session, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(1));
+        Assert.assertNull(session.getReadBuffer());
+    }
+
+    @Test
+    public void pooledBufferTest() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            frames.add(new byte[]{(byte) i});
+        }
+        startWriter(frames, 7).join();
+        CollectorHandler handler = new CollectorHandler();
+        IoSessionImp session = newSession(handler, 64 * 1024);
+        while (handler.messages.size() < frames.size()) {
+            reader.read(session);
+        }
+        ByteBuffer buffer = session.getReadBuffer();
+        Assert.assertTrue(buffer.isDirect());
+        Assert.assertEquals(processor.getBufferPool().getBufferSize(), buffer.capacity());
+        reader.releaseBuffer(session);
+        Assert.assertEquals(1, processor.getBufferPool().size());
+
+        // the next session takes the same buffer
+        IoSessionImp other = newSession(handler, 64 * 1024);
+        startWriter(frames, 100).join();
+        handler.messages.clear();
+        while (handler.messages.size() < frames.size()) {
+            reader.read(other);
+        }
+        Assert.assertSame(buffer, other.getReadBuffer());
+    }
+
+    @Test
+    public void frameBiggerThanMaxTest() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(new byte[40000]);
+        Thread writer = startWriter(frames, 40004);
+        CollectorHandler handler = new CollectorHandler();
+        IoSessionImp session = newSession(handler, 32 * 1024);
+        while (handler.exception == null) {
+            reader.read(session);
+        }
+        writer.join();
+        Assert.assertTrue(handler.exception instanceof InvalidProtocolViolationException);
+        Assert.assertTrue(handler.messages.isEmpty());
+    }
+
+    @Test
+    public void readAllocationTest() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        byte[] payload = new byte[ALLOCATION_PAYLOAD];
+        for (int i = 0; i < ALLOCATION_MESSAGES; i++) {
+            frames.add(payload);
+        }
+
+        // previous reader: a heap buffer per read copied to the decoder accumulation buffer
+        CountingHandler perReadHandler = new CountingHandler();
+        IoSessionImp perReadSession = newSession(perReadHandler, 64 * 1024);
+        ByteBuffer accumulation = ByteBuffer.allocate(64 * 1024);
+        List<Object> out = new ArrayList<>();
+        Thread writer = startWriter(frames, 8192);
+        long allocated = allocatedBytes();
+        while (perReadHandler.count < ALLOCATION_MESSAGES) {
+            ByteBuffer buf = ByteBuffer.allocate(perReadSession.getSessionConf().getReadBufferSize());
+            reader.read(perReadSession, buf);
+            buf.flip();
+            accumulation.put(buf);
+            accumulation.flip();
+            perReadSession.getProtocolDecoder().decode(accumulation, out);
+            accumulation.compact();
+            for (Object message : out) {
+                perReadHandler.messageReceived(perReadSession, message);
+            }
+            out.clear();
+        }
+        long perRead = allocatedBytes() - allocated;
+        writer.join();
+        Assert.assertEquals(ALLOCATION_MESSAGES, perReadHandler.count);
+
+        CountingHandler pooledHandler = new CountingHandler();
+        IoSessionImp pooledSession = newSession(pooledHandler, 64 * 1024);
+        writer = startWriter(frames, 8192);
+        allocated = allocatedBytes();
+        while (pooledHandler.count < ALLOCATION_MESSAGES) {
+            reader.read(pooledSession);
+        }
+        long pooled = allocatedBytes() - allocated;
+        writer.join();
+        Assert.assertEquals(ALLOCATION_MESSAGES, pooledHandler.count);
+
+        if (allocated >= 0) {
+            Assert.assertTrue(pooled < perRead);
+        }
+    }
+
+    private IoSessionImp newSession(IoHandler handler, int maxReadBufferSize) throws Exception {
+        IoSessionConfImp conf = new IoSessionConfImp();
+        conf.setProtocolDecoder(new LengthFieldDecoder());
+        conf.setMaxReadBufferSize(maxReadBufferSize);
+        IoSessionImp session = new SessionHelper().newSession(clientChannel, conf);
+        session.setHandler(handler);
+        return session;
+    }
+
+    /**
+     * Write the frames, 4 bytes length + payload, in chunks of the given size
+     */
+    private Thread startWriter(final List<byte[]> frames, final int chunkSize) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+                try {
+                    for (byte[] frame : frames) {
+                        ByteBuffer header = ByteBuffer.allocate(4).putInt(0, frame.length);
+                        write(chunk, header.array());
+                        write(chunk, frame);
+                    }
+                    chunk.flip();
+                    while (chunk.hasRemaining()) {
+                        serverSide.write(chunk);
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+
+            private void write(ByteBuffer chunk, byte[] bytes) throws IOException {
+                int offset = 0;
+                while (offset < bytes.length) {
+                    int count = Math.min(chunk.remaining(), bytes.length - offset);
+                    chunk.put(bytes, offset, count);
+                    offset += count;
+                    if (!chunk.hasRemaining()) {
+                        chunk.flip();
+                        while (chunk.hasRemaining()) {
+                            serverSide.write(chunk);
+                        }
+                        chunk.clear();
+                    }
+                }
+            }
+        }, "frame-writer");
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Bytes allocated by the current thread or -1 if the JVM doesn't provide it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * 4 bytes big-endian length + payload
+     */
+    static class LengthFieldDecoder extends ProtocolDecoder<byte[]> {
+
+        @Override
+        public void decode(ByteBuffer byteBuffer, List<byte[]> out) throws InvalidProtocolViolationException {
+            while (byteBuffer.remaining() >= 4) {
+                int length = byteBuffer.getInt(byteBuffer.position());
+                if (byteBuffer.remaining() < 4 + length) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                byteBuffer.position(byteBuffer.position() + 4);
+                byteBuffer.get(payload);
+                out.add(payload);
+            }
+        }
+    }
+
+    private static class CollectorHandler extends HandlerAdapter {
+
+        final List<byte[]> messages = new ArrayList<>();
+        Throwable exception;
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+            exception = cause;
+        }
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            messages.add((byte[]) message);
+        }
+    }
+
+    private static class CountingHandler extends HandlerAdapter {
+
+        int count;
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            count++;
+        }
+    }
+
+    private static class HandlerAdapter implements IoHandler {
+
+        @Override
+        public void sessionCreated(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionClosed(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+
+        }
+
+        @Override
+        public void writabilityChanged(IoSession session, boolean writable) throws Exception {
+
+        }
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+            cause.printStackTrace();
+        }
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+
+        }
+
+        @Override
+        public void messageSent(IoSession session, Object message) throws Exception {
+
+        }
+
+        @Override
+        public void inputClosed(IoSession session) throws Exception {
+
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package org.furszy.client;
+
+import org.furszy.client.basic.ConnectionId;
+import org.furszy.client.basic.IdleStatus;
+import org.furszy.client.basic.IoSessionConfImp;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ConnectFuture;
+import org.furszy.client.interfaces.IoHandler;
+import org.furszy.client.interfaces.IoSession;
+import org.furszy.client.interfaces.ProtocolDecoder;
+import org.furszy.client.interfaces.ProtocolEncoder;
+import org.furszy.client.interfaces.write.WriteRequest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gathering writes against a local server that reads and checks every message, from 1 to 10000 small messages queued
+ * with a write per message (batch size 1) and with the default batch.
+ */
+public class IoProcessorWriterTest {
+
+    static final int MESSAGE_SIZE = 32;
+    private static final int[] QUEUED = {1, 10, 100, 1000, 10000};
+
+    private IoManager ioManager;
+    private SinkServer sinkServer;
+
+    @Before
+    public void setUp() throws IOException {
+        ioManager = new IoManager(1, 1);
+        sinkServer = new SinkServer();
+        sinkServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        ioManager.shutdown();
+        sinkServer.stop();
+    }
+
+    @Test
+    public void futuresCompleteInOrderTest() throws Throwable {
+        final List<Integer> sent = Collections.synchronizedList(new ArrayList<Integer>());
+        ConnectionId connectionId = connect(64, true, new HandlerAdapter() {
+            @Override
+            public void messageSent(IoSession session, Object message) throws Exception {
+                sent.add((Integer) ((WriteRequest) message).getMessage());
+            }
+        });
+        // big messages too, they go on their own buffer and the socket fills before the server reads them
+        sinkServer.pause();
+        List<WriteRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            requests.add(ioManager.send(i, connectionId));
+        }
+        Thread.sleep(200);
+        sinkServer.resume();
+        requests.get(requests.size() - 1).getFuture().get(TimeUnit.SECONDS.toMillis(30));
+        for (WriteRequest request : requests) {
+            Assert.assertTrue(request.getFuture().isSent());
+            Assert.assertNull(request.getFuture().getException());
+        }
+        Assert.assertEquals(requests.size(), sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            Assert.assertEquals(i, sent.get(i).intValue());
+        }
+        sinkServer.awaitMessages(requests.size());
+        Assert.assertNull(sinkServer.error);
+    }
+
+    @Test
+    public void watermarksTest() throws Throwable {
+        final List<Boolean> writabilityChanges = Collections.synchronizedList(new ArrayList<Boolean>());
+        final int lowWaterMark = 4 * 1024;
+        final int highWaterMark = 16 * 1024;
+        ConnectionId connectionId = connect(64, false, new HandlerAdapter() {
+            @Override
+            public void writabilityChanged(IoSession session, boolean writable) throws Exception {
+                Assert.assertEquals(writable, session.isWritable());
+                writabilityChanges.add(writable);
+            }
+        }, lowWaterMark, highWaterMark);
+        IoSession session = ioManager.getActiveSession(connectionId);
+        // the server stops reading, once the socket buffers are full the messages stay on the session queue
+        sinkServer.pause();
+        List<WriteRequest> requests = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            WriteRequest request = ioManager.trySend(requests.size(), connectionId);
+            if (request != null) {
+                requests.add(request);
+            } else if (!awaitWritable(session, 200)) {
+                // saturated for good, the socket doesn't take more bytes
+                break;
+            }
+        }
+        Assert.assertFalse(session.isWritable());
+        // it stays not writable between the watermarks
+        Assert.assertTrue(session.getScheduledWriteBytes() >= lowWaterMark);
+        // the sender is not blocked, it fails until the queue drains
+        Assert.assertNull(ioManager.trySend(requests.size(), connectionId));
+        awaitWritability(writabilityChanges, false);
+
+        sinkServer.resume();
+        awaitWritability(writabilityChanges, true);
+        Assert.assertTrue(session.isWritable());
+        Assert.assertTrue(session.getScheduledWriteBytes() < lowWaterMark);
+        requests.add(ioManager.trySend(requests.size(), connectionId));
+        requests.get(requests.size() - 1).getFuture().get(TimeUnit.SECONDS.toMillis(30));
+        for (WriteRequest request : requests) {
+            Assert.assertTrue(request.getFuture().isSent());
+        }
+        Assert.assertEquals(0, session.getScheduledWriteBytes());
+        sinkServer.awaitMessages(requests.size());
+        Assert.assertNull(sinkServer.error);
+    }
+
+    private static boolean awaitWritable(IoSession session, long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        while (!session.isWritable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        return session.isWritable();
+    }
+
+    /**
+     * Wait for the last notified writability, the changes alternate
+     */
+    private static void awaitWritability(List<Boolean> writabilityChanges, boolean writable) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((writabilityChanges.isEmpty() || writabilityChanges.get(writabilityChanges.size() - 1) != writable) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse(writabilityChanges.isEmpty());
+        Assert.assertEquals(writable, writabilityChanges.get(writabilityChanges.size() - 1));
+        for (int i = 0; i < writabilityChanges.size(); i++) {
+            Assert.assertEquals(i % 2 == 1, writabilityChanges.get(i));
+        }
+    }
+
+    @Test
+    public void queuedMessagesTest() throws Throwable {
+        for (int queued : QUEUED) {
+            send(connect(1, false, new HandlerAdapter()), queued);
+            send(connect(64, false, new HandlerAdapter()), queued);
+        }
+        Assert.assertNull(sinkServer.error);
+    }
+
+    @Test
+    public void encodeOnBufferTest() throws Throwable {
+        for (int maxWriteBatchSize : new int[]{1, 64}) {
+            BufferSequenceEncoder encoder = new BufferSequenceEncoder();
+            send(connect(maxWriteBatchSize, encoder, new HandlerAdapter(), 32 * 1024, 64 * 1024), 1000);
+            // only the messages bigger than a pooled buffer are encoded on their own buffer
+            Assert.assertEquals(10, encoder.ownBuffers.get());
+            Assert.assertEquals(990, encoder.pooledBuffers.get());
+        }
+        Assert.assertNull(sinkServer.error);
+    }
+
+    private void send(ConnectionId connectionId, int messages) throws Exception {
+        int base = sinkServer.received.get();
+        WriteRequest last = null;
+        for (int i = 0; i < messages; i++) {
+            // the sequence restarts on every connection
+            last = ioManager.send(i, connectionId);
+        }
+        last.getFuture().get(TimeUnit.SECONDS.toMillis(30));
+        Assert.assertTrue(last.getFuture().isSent());
+        sinkServer.awaitMessages(base + messages);
+        ioManager.close(connectionId);
+    }
+
+    private ConnectionId connect(int maxWriteBatchSize, boolean bigMessages, IoHandler handler) throws Throwable {
+        return connect(maxWriteBatchSize, bigMessages, handler, 32 * 1024, 64 * 1024);
+    }
+
+    private ConnectionId connect(int maxWriteBatchSize, boolean bigMessages, IoHandler handler, int lowWaterMark, int highWaterMark) throws Throwable {
+        return connect(maxWriteBatchSize, new SequenceEncoder(bigMessages), handler, lowWaterMark, highWaterMark);
+    }
+
+    private ConnectionId connect(int maxWriteBatchSize, SequenceEncoder encoder, IoHandler handler, int lowWaterMark, int highWaterMark) throws Throwable {
+        IoSessionConfImp ioSessionConf = new IoSessionConfImp();
+        ioSessionConf.setWriteBufferWaterMarks(lowWaterMark, highWaterMark);
+        ioSessionConf.setProtocolDecoder(new ProtocolDecoder<Object>() {
+            @Override
+            public void decode(ByteBuffer byteBuffer, List<Object> out) throws InvalidProtocolViolationException {
+                byteBuffer.position(byteBuffer.limit());
+            }
+        });
+        ioSessionConf.setProtocolEncoder(encoder);
+        ioSessionConf.setMaxWriteBatchSize(maxWriteBatchSize);
+        ConnectFuture connectFuture = ioManager.connect(new InetSocketAddress("127.0.0.1", sinkServer.getPort()), null, handler, ioSessionConf);
+        connectFuture.get(TimeUnit.SECONDS.toMillis(10));
+        if (connectFuture.getConnectionId() == null) {
+            throw connectFuture.getException();
+        }
+        return connectFuture.getConnectionId();
+    }
+
+    /**
+     * 4 bytes length + 4 bytes sequence + padding, with big messages every 100th message is bigger than a pooled buffer
+     */
+    static class SequenceEncoder extends ProtocolEncoder<Integer> {
+
+        private final boolean bigMessages;
+
+        SequenceEncoder(boolean bigMessages) {
+            this.bigMessages = bigMessages;
+        }
+
+        @Override
+        public ByteBuffer encode(Integer message) throws InvalidProtocolViolationException {
+            int size = estimateSize(message);
+            ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+            byteBuffer.putInt(size - 4);
+            byteBuffer.putInt(message);
+            byteBuffer.position(size);
+            return byteBuffer;
+        }
+
+        @Override
+        public int estimateSize(Integer message) {
+            return (bigMessages && message % 100 == 99) ? 40000 : MESSAGE_SIZE;
+        }
+    }
+
+    /**
+     * Encodes the messages on the buffer of the writer when they fit, counting both paths
+     */
+    static class BufferSequenceEncoder extends SequenceEncoder {
+
+        final AtomicInteger ownBuffers = new AtomicInteger();
+        final AtomicInteger pooledBuffers = new AtomicInteger();
+
+        BufferSequenceEncoder() {
+            super(true);
+        }
+
+        @Override
+        public ByteBuffer encode(Integer message) throws InvalidProtocolViolationException {
+            ownBuffers.incrementAndGet();
+            return super.encode(message);
+        }
+
+        @Override
+        public boolean encode(Integer message, ByteBuffer out) throws InvalidProtocolViolationException {
+            int size = estimateSize(message);
+            if (out.remaining() < size) {
+                return false;
+            }
+            pooledBuffers.incrementAndGet();
+            out.putInt(size - 4);
+            out.putInt(message);
+            out.position(out.position() + size - 8);
+            return true;
+        }
+    }
+
+    /**
+     * Reads the messages of every connection checking the sequence
+     */
+    static class SinkServer implements Runnable {
+
+        private final ServerSocket serverSocket;
+        final AtomicInteger received = new AtomicInteger();
+        private volatile boolean paused;
+        volatile Throwable error;
+        private Thread thread;
+
+        SinkServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, null);
+            serverSocket.setReceiveBufferSize(16 * 1024);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void start() {
+            thread = new Thread(this, "sink-server");
+            thread.start();
+        }
+
+        void stop() throws IOException {
+            serverSocket.close();
+        }
+
+        synchronized void pause() {
+            paused = true;
+        }
+
+        synchronized void resume() {
+            paused = false;
+            notifyAll();
+        }
+
+        synchronized void awaitMessages(int messages) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 30000;
+            while (received.get() < messages && System.currentTimeMillis() < deadline) {
+                wait(10);
+            }
+            Assert.assertEquals(messages, received.get());
+        }
+
+        private synchronized void awaitResume() throws InterruptedException {
+            while (paused) {
+                wait();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final Socket socket = serverSocket.accept();
+                    new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                                for (int expected = 0; ; expected++) {
+                                    awaitResume();
+                                    int length = in.readInt();
+                                    int sequence = in.readInt();
+                                    in.skipBytes(length - 4);
+                                    if (sequence != expected) {
+                                        error = new AssertionError("expected " + expected + ", received " + sequence);
+                                    }
+                                    received.incrementAndGet();
+                                }
+                            } catch (EOFException e) {
+                                // closed
+                            } catch (Exception e) {
+                                if (!socket.isClosed()) error = e;
+                            } finally {
+                                try {
+                                    socket.close();
+                                } catch (IOException e) {
+                                    // ignore
+                                }
+                            }
+                        }
+                    }, "sink-connection").start();
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    static class HandlerAdapter implements IoHandler {
+
+        @Override
+        public void sessionCreated(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionClosed(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+
+        }
+
+        @Override
+        public void writabilityChanged(IoSession session, boolean writable) throws Exception {
+
+        }
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+            cause.printStackTrace();
+        }
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+
+        }
+
+        @Override
+        public void messageSent(IoSession session, Object message) throws Exception {
+
+        }
+
+        @Override
+        public void inputClosed(IoSession session) throws Exception {
+
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.furszy.client;
+
+import org.furszy.client.basic.ConnectionId;
+import org.furszy.client.basic.IoSessionConfImp;
+import org.furszy.client.basic.IoSessionImp;
+import org.furszy.client.basic.WriteFutureImp;
+import org.furszy.client.basic.WriteRequestImp;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ConnectFuture;
+import org.furszy.client.interfaces.ProtocolDecoder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selector rebuild of the connector and the processor loops on the epoll spin bug.
+ *
+ * The fault is injected on the select, the broken selector returns 0 immediately without a wakeup like a spinning
+ * epoll selector.
+ */
+public class SelectorWrapperTest {
+
+    private static final int SESSIONS = 20;
+    private static final int MESSAGES = 100;
+
+    private ExecutorService executor;
+    private IoProcessorWriterTest.SinkServer sinkServer;
+
+    @Before
+    public void setUp() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        sinkServer = new IoProcessorWriterTest.SinkServer();
+        sinkServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        sinkServer.stop();
+    }
+
+    @Test
+    public void rebuildTest() throws Throwable {
+        SpinningSelectorWrapper processorSelector = new SpinningSelectorWrapper();
+        SpinningSelectorWrapper connectorSelector = new SpinningSelectorWrapper();
+        IoProcessorImp processor = new IoProcessorImp(processorSelector, executor, new ConcurrentHashMap<ConnectionId, IoSessionImp>());
+        IoLooper connector = new IoLooper(executor, processor, new SessionHelper(), connectorSelector);
+        connector.setSpinDetection(64, SelectorWrapper.DEFAULT_MIN_SELECT_TIME);
+        processor.setSpinDetection(64, SelectorWrapper.DEFAULT_MIN_SELECT_TIME);
+
+        // the pending connections are moved to the new connector selector
+        connectorSelector.spin();
+        IoSessionImp[] sessions = new IoSessionImp[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions[i] = processor.getActiveSession(connect(connector));
+        }
+        Assert.assertEquals(1, connector.getSelectorRebuildCount());
+        send(sessions, 0);
+        sinkServer.awaitMessages(SESSIONS * MESSAGES);
+
+        // the processor selector breaks with every session registered
+        processorSelector.spin();
+        Assert.assertTrue("selector not replaced", processorSelector.replaced.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, processor.getSelectorRebuildCount());
+        int brokenSelects = processorSelector.brokenSelects.get();
+
+        // no session lost
+        for (IoSessionImp session : sessions) {
+            Assert.assertTrue(session.isActive());
+            Assert.assertTrue(session.getSelectionKey().isValid());
+            Assert.assertNotSame(processorSelector.broken, session.getSelectionKey().selector());
+        }
+        Assert.assertEquals(SESSIONS, processor.getSessionCount());
+        send(sessions, MESSAGES);
+        sinkServer.awaitMessages(2 * SESSIONS * MESSAGES);
+        Assert.assertNull(sinkServer.error);
+        // the loop selects on the new selector only
+        Assert.assertEquals(brokenSelects, processorSelector.brokenSelects.get());
+        Assert.assertEquals(1, processor.getSelectorRebuildCount());
+    }
+
+    @Test
+    public void sporadicPrematureSelectTest() throws Throwable {
+        SpinningSelectorWrapper connectorSelector = new SpinningSelectorWrapper();
+        IoProcessorImp processor = new IoProcessorImp(SelectorProvider.provider(), executor);
+        IoLooper connector = new IoLooper(executor, processor, new SessionHelper(), connectorSelector);
+        connector.setSpinDetection(2, SelectorWrapper.DEFAULT_MIN_SELECT_TIME);
+        connectorSelector.intermittent = true;
+        connectorSelector.spin();
+        connect(connector);
+        // every premature select is followed by a full one, a lost wakeup is not a spinning selector
+        Thread.sleep(1500);
+        Assert.assertTrue(connectorSelector.selects.get() > 2);
+        Assert.assertEquals(0, connector.getSelectorRebuildCount());
+    }
+
+    private void send(IoSessionImp[] sessions, int first) {
+        for (int m = first; m < first + MESSAGES; m++) {
+            for (IoSessionImp session : sessions) {
+                session.addWriteRequest(new WriteRequestImp(m, new WriteFutureImp(), IoProcessorWriterTest.MESSAGE_SIZE));
+            }
+        }
+    }
+
+    private ConnectionId connect(IoLooper connector) throws Throwable {
+        IoSessionConfImp ioSessionConf = new IoSessionConfImp();
+        ioSessionConf.setProtocolDecoder(new ProtocolDecoder<Object>() {
+            @Override
+            public void decode(ByteBuffer byteBuffer, List<Object> out) throws InvalidProtocolViolationException {
+                byteBuffer.position(byteBuffer.limit());
+            }
+        });
+        ioSessionConf.setProtocolEncoder(new IoProcessorWriterTest.SequenceEncoder(false));
+        ConnectFuture connectFuture = connector.connect(new InetSocketAddress("127.0.0.1", sinkServer.getPort()), null, new IoProcessorWriterTest.HandlerAdapter(), ioSessionConf);
+        connectFuture.get(TimeUnit.SECONDS.toMillis(10));
+        if (connectFuture.getConnectionId() == null) {
+            throw connectFuture.getException();
+        }
+        return connectFuture.getConnectionId();
+    }
+
+    /**
+     * Once spinning the current selector is broken, his selects return 0 immediately
+     */
+    private static class SpinningSelectorWrapper extends SelectorWrapper {
+
+        private volatile boolean spinning;
+        /** Only every other select returns prematurely */
+        private volatile boolean intermittent;
+        private volatile Selector broken;
+        private final AtomicInteger selects = new AtomicInteger();
+        private final AtomicInteger brokenSelects = new AtomicInteger();
+        /** Released on the first select of a new selector */
+        private final CountDownLatch replaced = new CountDownLatch(1);
+
+        SpinningSelectorWrapper() throws IOException {
+            super(SelectorProvider.provider());
+        }
+
+        void spin() {
+            spinning = true;
+        }
+
+        @Override
+        int doSelect(Selector selector, long timeout) throws IOException {
+            int select = selects.incrementAndGet();
+            if (spinning) {
+                if (broken == null) {
+                    broken = selector;
+                }
+                if (broken == selector) {
+                    brokenSelects.incrementAndGet();
+                    if (!intermittent || select % 2 == 0) {
+                        return 0;
+                    }
+                } else {
+                    replaced.countDown();
+                }
+            }
+            return super.doSelect(selector, timeout);
+        }
+    }
+}
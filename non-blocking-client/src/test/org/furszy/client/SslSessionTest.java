@@ -0,0 +1,403 @@
+package org.furszy.client;
+
+import org.furszy.client.basic.ConnectionId;
+import org.furszy.client.basic.IdleStatus;
+import org.furszy.client.basic.IoSessionConfImp;
+import org.furszy.client.exceptions.InvalidProtocolViolationException;
+import org.furszy.client.interfaces.ConnectFuture;
+import org.furszy.client.interfaces.IoHandler;
+import org.furszy.client.interfaces.IoSession;
+import org.furszy.client.interfaces.ProtocolDecoder;
+import org.furszy.client.interfaces.ProtocolEncoder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * TLS sessions against a local blocking echo server: handshake, bulk echo, renegotiation and close_notify of the
+ * non-blocking client, with a blocking SSLSocket on loopback as reference.
+ */
+public class SslSessionTest {
+
+    /** Self-signed EC certificate for CN=localhost, PKCS12 with password "password" */
+    private static final String KEY_STORE =
+            "3082034c0201033082030506092a864886f70d010701a08202f6048202f2308202ee3081db06092a864886f70d010701a081cd0481ca3081c73081c4060b2a86" +
+            "4886f70d010c0a0102a07730753029060a2a864886f70d010c0103301b0414ed85127ceac35210908274fa20290fa9ca9b1b82020300c3500448a9d8bf4add18" +
+            "db50af9f8bb0283a3823a60e679a84855a9663d51b105d837af6ab694033c332cc2da162298f027cb2a742b109bf5e7a3a6ac82ba42efd0953cf2e25cf6c45fb" +
+            "a73b313c301706092a864886f70d010914310a1e080074006500730074302106092a864886f70d0109153114041254696d652031373932323838373436383133" +
+            "3082020c06092a864886f70d010706a08201fd308201f9020100308201f206092a864886f70d0107013029060a2a864886f70d010c0106301b0414336eb0cb42" +
+            "c5bce7360b619cc70515b73a84f7ce020300c350808201b83bc71dc55af40529a1b84e82f3c6a1ce3fe452042cce0bf8c0bdacfa638bccf1f56cb3fb3bb09214" +
+            "03459ec8a1990401d06a0eab810b0af260c8d2ce01de25d6ef9bbd876a71d24f7965c847ab920fca7b9e846cdf8af89a8dd0a9b37eda60f5cb0a9c2cf90d43e7" +
+            "077edb5e8146ec968abcc0ad2f0d50c1f20a42afbb883ad626609d255b531d35327433286f3a812cf18ce30152f2984cbd10bcd6ae3a6260d4a2ad2c3572ce7e" +
+            "9df74da1cbb23529883994726522a6a48103991d09e6e677dda741b3d7786f375592b1123e89ed0b43de3cc4322ac6bc217ba5dee910c85182ca6cf653f3a8ba" +
+            "119c80cd10f2d91c5eea14ec438572a058f5e3ad8eee75062e09a05c554e9e8a3d15af392d6859ffedc0e8cfd3724cd9478f0761d9580791c95b8b9a1a982cb9" +
+            "ad90fda1c937517f5796fd3c4cb1ee272293efadd7b853755f12217f3f6d99117f8ad3b56f096299f6bde7feac652bafc219b89214ae13a85eb40760ecfd38c9" +
+            "e8aacb73b50a88d02e8f99d335f6677266fadca87cbd76c0ecf0fda4726dee5024a139f7ff0b0f71de1a05227cc015aa2ab993a333a9b331124e25577c6c7317" +
+            "75d1a44470ca84bad9656e24310e1c68303e3021300906052b0e03021a0500041476f1c9f49da1ceb33cc7953439ceb5c38ee51d5f04147365f71be7edda0fab" +
+            "b958109cda6d8a21de679f02030186a0";
+
+    private static final String PASSWORD = "password";
+
+    private static final int HANDSHAKES = 20;
+    private static final int BULK_MESSAGE_SIZE = 16 * 1024;
+    private static final int BULK_MESSAGES = 512;
+
+    private EchoServer echoServer;
+    private SSLContext clientContext;
+
+    @Before
+    public void setUp() throws Exception {
+        echoServer = new EchoServer(serverContext());
+        echoServer.start();
+        clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, new TrustManager[]{new TrustAllManager()}, null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        echoServer.stop();
+    }
+
+    @Test
+    public void handshakeTest() throws Throwable {
+        for (int i = 0; i < HANDSHAKES; i++) {
+            SSLSocket socket = (SSLSocket) clientContext.getSocketFactory().createSocket("127.0.0.1", echoServer.getPort());
+            socket.setTcpNoDelay(true);
+            socket.startHandshake();
+            socket.getOutputStream().write(1);
+            Assert.assertEquals(1, socket.getInputStream().read());
+            socket.close();
+        }
+        IoManager ioManager = new IoManager(1, 1);
+        try {
+            for (int i = 0; i < HANDSHAKES; i++) {
+                EchoHandler handler = new EchoHandler();
+                ConnectionId connectionId = connect(ioManager, handler);
+                ioManager.send(new byte[]{1}, connectionId);
+                handler.await(1);
+                ioManager.close(connectionId);
+            }
+        } finally {
+            ioManager.shutdown();
+        }
+    }
+
+    @Test
+    public void bulkEchoTest() throws Throwable {
+        byte[] message = new byte[BULK_MESSAGE_SIZE];
+        long total = (long) BULK_MESSAGE_SIZE * BULK_MESSAGES;
+
+        final SSLSocket socket = (SSLSocket) clientContext.getSocketFactory().createSocket("127.0.0.1", echoServer.getPort());
+        socket.setTcpNoDelay(true);
+        socket.startHandshake();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    OutputStream outputStream = socket.getOutputStream();
+                    byte[] data = new byte[BULK_MESSAGE_SIZE];
+                    for (int i = 0; i < BULK_MESSAGES; i++) {
+                        outputStream.write(data);
+                    }
+                    outputStream.flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        writer.start();
+        InputStream inputStream = socket.getInputStream();
+        byte[] buffer = new byte[BULK_MESSAGE_SIZE];
+        long received = 0;
+        while (received < total) {
+            int read = inputStream.read(buffer);
+            Assert.assertTrue(read > 0);
+            received += read;
+        }
+        Assert.assertEquals(total, received);
+        socket.close();
+
+        IoManager ioManager = new IoManager(1, 1);
+        try {
+            EchoHandler handler = new EchoHandler();
+            ConnectionId connectionId = connect(ioManager, handler);
+            // wait for the handshake
+            ioManager.send(new byte[]{1}, connectionId);
+            handler.await(1);
+            for (int i = 0; i < BULK_MESSAGES; i++) {
+                ioManager.send(message, connectionId);
+            }
+            handler.await(1 + total);
+            ioManager.close(connectionId);
+        } finally {
+            ioManager.shutdown();
+        }
+    }
+
+    @Test
+    public void renegotiationAndCloseNotifyTest() throws Throwable {
+        echoServer.renegotiate = true;
+        IoManager ioManager = new IoManager(1, 1);
+        try {
+            EchoHandler handler = new EchoHandler();
+            ConnectionId connectionId = connect(ioManager, handler);
+            ioManager.send(new byte[]{1}, connectionId);
+            handler.await(1);
+            // the server renegotiates before echoing this one
+            ioManager.send(new byte[]{2, 3}, connectionId);
+            handler.await(3);
+            // read after the renegotiation
+            ioManager.send(new byte[]{4}, connectionId);
+            handler.await(4);
+            ioManager.close(connectionId);
+            handler.awaitClose();
+            // the server reads the close_notify instead of a broken connection
+            long deadline = System.currentTimeMillis() + 5000;
+            while (echoServer.cleanCloses.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1, echoServer.renegotiations.get());
+            Assert.assertEquals(1, echoServer.cleanCloses.get());
+        } finally {
+            ioManager.shutdown();
+        }
+    }
+
+    private ConnectionId connect(IoManager ioManager, EchoHandler handler) throws Throwable {
+        IoSessionConfImp ioSessionConf = new IoSessionConfImp();
+        ioSessionConf.setProtocolDecoder(new BytesDecoder());
+        ioSessionConf.setProtocolEncoder(new BytesEncoder());
+        ioSessionConf.setSslContext(clientContext);
+        ConnectFuture connectFuture = ioManager.connect(new InetSocketAddress("127.0.0.1", echoServer.getPort()), null, handler, ioSessionConf);
+        connectFuture.get(TimeUnit.SECONDS.toMillis(10));
+        if (connectFuture.getConnectionId() == null) {
+            throw connectFuture.getException();
+        }
+        return connectFuture.getConnectionId();
+    }
+
+    private static SSLContext serverContext() throws Exception {
+        byte[] bytes = new byte[KEY_STORE.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(KEY_STORE.substring(i * 2, i * 2 + 2), 16);
+        }
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(new ByteArrayInputStream(bytes), PASSWORD.toCharArray());
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, PASSWORD.toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+        return sslContext;
+    }
+
+    private static class EchoHandler implements IoHandler {
+
+        private long received;
+        private boolean closed;
+
+        synchronized void await(long bytes) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 30000;
+            while (received < bytes && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            Assert.assertEquals(bytes, received);
+        }
+
+        synchronized void awaitClose() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!closed && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            Assert.assertTrue(closed);
+        }
+
+        @Override
+        public void sessionCreated(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+
+        }
+
+        @Override
+        public synchronized void sessionClosed(IoSession session) throws Exception {
+            closed = true;
+            notifyAll();
+        }
+
+        @Override
+        public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+
+        }
+
+        @Override
+        public void writabilityChanged(IoSession session, boolean writable) throws Exception {
+
+        }
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+            cause.printStackTrace();
+        }
+
+        @Override
+        public synchronized void messageReceived(IoSession session, Object message) throws Exception {
+            received += ((byte[]) message).length;
+            notifyAll();
+        }
+
+        @Override
+        public void messageSent(IoSession session, Object message) throws Exception {
+
+        }
+
+        @Override
+        public void inputClosed(IoSession session) throws Exception {
+
+        }
+    }
+
+    static class BytesDecoder extends ProtocolDecoder<byte[]> {
+
+        @Override
+        public void decode(ByteBuffer byteBuffer, List<byte[]> out) throws InvalidProtocolViolationException {
+            byte[] bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.get(bytes);
+            out.add(bytes);
+        }
+    }
+
+    static class BytesEncoder extends ProtocolEncoder<byte[]> {
+
+        @Override
+        public ByteBuffer encode(byte[] message) throws InvalidProtocolViolationException {
+            ByteBuffer byteBuffer = ByteBuffer.allocate(message.length);
+            byteBuffer.put(message);
+            return byteBuffer;
+        }
+    }
+
+    private static class TrustAllManager implements X509TrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+
+    /**
+     * Blocking TLS server, one thread per connection.
+     */
+    private static class EchoServer implements Runnable {
+
+        private final SSLServerSocket serverSocket;
+        private Thread thread;
+        /** Renegotiate after the first echo, TLS 1.2 only */
+        volatile boolean renegotiate;
+        final AtomicInteger renegotiations = new AtomicInteger();
+        final AtomicInteger cleanCloses = new AtomicInteger();
+
+        EchoServer(SSLContext sslContext) throws IOException {
+            serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory().createServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void start() {
+            thread = new Thread(this, "tls-echo-server");
+            thread.start();
+        }
+
+        void stop() throws IOException {
+            thread.interrupt();
+            serverSocket.close();
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final SSLSocket socket = (SSLSocket) serverSocket.accept();
+                    socket.setTcpNoDelay(true);
+                    if (renegotiate) {
+                        socket.setEnabledProtocols(new String[]{"TLSv1.2"});
+                    }
+                    new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            echo(socket);
+                        }
+                    }).start();
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        }
+
+        private void echo(Socket socket) {
+            try {
+                InputStream inputStream = socket.getInputStream();
+                OutputStream outputStream = socket.getOutputStream();
+                byte[] buffer = new byte[BULK_MESSAGE_SIZE];
+                boolean renegotiated = false;
+                int read;
+                while ((read = inputStream.read(buffer)) > 0) {
+                    if (renegotiate && !renegotiated && buffer[0] == 2) {
+                        ((SSLSocket) socket).startHandshake();
+                        renegotiations.incrementAndGet();
+                        renegotiated = true;
+                    }
+                    outputStream.write(buffer, 0, read);
+                    outputStream.flush();
+                }
+                if (read < 0) {
+                    cleanCloses.incrementAndGet();
+                }
+            } catch (IOException e) {
+                // connection broken
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // nothing
+                }
+            }
+        }
+    }
+}